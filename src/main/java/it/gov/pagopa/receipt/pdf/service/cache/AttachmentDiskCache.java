@@ -0,0 +1,361 @@
+package it.gov.pagopa.receipt.pdf.service.cache;
+
+import io.quarkus.runtime.Startup;
+import it.gov.pagopa.receipt.pdf.service.model.CachedAttachment;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Local disk tier for the PDF receipts downloaded from the Blob Storage.
+ * <p>
+ * The PDF receipts are written to disk while they are streamed to the client and evicted in LRU order
+ * once the configured byte budget is exceeded. Each file is named after the SHA-256 of the blob name and
+ * the hex encoded blob ETag, so that the index can be rebuilt by scanning the directory at startup.
+ */
+@Startup
+@ApplicationScoped
+public class AttachmentDiskCache {
+
+    private static final String FILE_EXTENSION = ".pdf";
+    private static final String NAME_SEPARATOR = "_";
+    private static final String TMP_DIRECTORY = "tmp";
+
+    private final Logger logger = LoggerFactory.getLogger(AttachmentDiskCache.class);
+
+    private final Path directory;
+    private final long maxSizeBytes;
+    private final long maxEntrySizeBytes;
+
+    private final LinkedHashMap<String, CachedAttachment> index = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentSizeBytes;
+    private volatile boolean enabled;
+
+    @Inject
+    public AttachmentDiskCache(
+            @ConfigProperty(name = "attachment.disk-cache.enabled") boolean enabled,
+            @ConfigProperty(name = "attachment.disk-cache.directory") String directory,
+            @ConfigProperty(name = "attachment.disk-cache.max-size-bytes") long maxSizeBytes,
+            @ConfigProperty(name = "attachment.disk-cache.max-entry-size-bytes") long maxEntrySizeBytes
+    ) {
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.maxSizeBytes = maxSizeBytes;
+        this.maxEntrySizeBytes = maxEntrySizeBytes;
+    }
+
+    /**
+     * Prepare the cache directory and rebuild the index from the files left by a previous run
+     */
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Path tmpDirectory = directory.resolve(TMP_DIRECTORY);
+            Files.createDirectories(tmpDirectory);
+            try (Stream<Path> partialFiles = Files.list(tmpDirectory)) {
+                for (Path partialFile : partialFiles.toList()) {
+                    Files.deleteIfExists(partialFile);
+                }
+            }
+            rebuildIndex();
+        } catch (IOException e) {
+            logger.error("Unable to initialize the PDF disk cache in {}, the cache is disabled", directory, e);
+            enabled = false;
+        }
+    }
+
+    /**
+     * Retrieve the cached copy of the provided blob, with a channel opened on its file.
+     * <p>
+     * The channel is opened while the index is locked, so that an eviction cannot delete the file in between:
+     * once opened, the file stays readable until the channel is closed, even if it is evicted meanwhile.
+     * The caller owns the channel and must close it.
+     *
+     * @param blobName the name of the blob
+     * @return the cached attachment, empty if the blob is not in cache or its file is missing
+     */
+    public Optional<CachedAttachment> get(String blobName) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        String key = hash(blobName);
+        synchronized (this) {
+            CachedAttachment cached = index.get(key);
+            if (cached == null) {
+                return Optional.empty();
+            }
+            try {
+                FileChannel channel = FileChannel.open(cached.getFile());
+                return Optional.of(CachedAttachment.builder()
+                        .file(cached.getFile())
+                        .channel(channel)
+                        .size(cached.getSize())
+                        .eTag(cached.getETag())
+                        .build());
+            } catch (NoSuchFileException e) {
+                // the file was removed outside the cache, the PDF receipt is downloaded again
+                index.remove(key);
+                currentSizeBytes -= cached.getSize();
+                return Optional.empty();
+            } catch (IOException e) {
+                logger.warn("Unable to open the PDF disk cache file {}", cached.getFile(), e);
+                return Optional.empty();
+            }
+        }
+    }
+
+    /**
+     * Wrap the stream of a blob so that its content is stored in the cache once it has been fully read.
+     * The stream is returned unchanged if the cache is disabled or the blob is too big to be cached.
+     *
+     * @param blobName      the name of the blob
+     * @param eTag          the ETag of the blob
+     * @param contentLength the size of the blob
+     * @param source        the stream over the whole blob
+     * @return the stream to be returned to the client
+     */
+    public InputStream cacheWhileReading(String blobName, String eTag, long contentLength, InputStream source) {
+        if (!enabled || eTag == null || contentLength > maxEntrySizeBytes || contentLength > maxSizeBytes) {
+            return source;
+        }
+        try {
+            Path partialFile = Files.createTempFile(directory.resolve(TMP_DIRECTORY), null, FILE_EXTENSION);
+            return new CachingInputStream(source, partialFile, hash(blobName), eTag, contentLength);
+        } catch (IOException e) {
+            logger.warn("Unable to create the PDF disk cache file, the PDF receipt is not cached", e);
+            return source;
+        }
+    }
+
+    /**
+     * Return whether the cache is enabled and its directory was initialized
+     *
+     * @return true if the cache is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Return the number of bytes currently stored in the cache
+     *
+     * @return the size of the cached files
+     */
+    public synchronized long getCurrentSizeBytes() {
+        return currentSizeBytes;
+    }
+
+    private void rebuildIndex() throws IOException {
+        List<Path> files;
+        try (Stream<Path> cachedFiles = Files.list(directory)) {
+            files = cachedFiles
+                    .filter(file -> Files.isRegularFile(file) && file.getFileName().toString().endsWith(FILE_EXTENSION))
+                    .sorted(Comparator.comparing(this::lastModifiedTime))
+                    .toList();
+        }
+        synchronized (this) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                String baseName = fileName.substring(0, fileName.length() - FILE_EXTENSION.length());
+                int separator = baseName.indexOf(NAME_SEPARATOR);
+                if (separator < 0) {
+                    Files.deleteIfExists(file);
+                    continue;
+                }
+                String eTag = new String(HexFormat.of().parseHex(baseName.substring(separator + 1)), StandardCharsets.UTF_8);
+                register(baseName.substring(0, separator), CachedAttachment.builder().file(file).size(Files.size(file)).eTag(eTag).build());
+            }
+            evict();
+        }
+        logger.info("PDF disk cache index rebuilt with {} files ({} bytes)", index.size(), currentSizeBytes);
+    }
+
+    private void commit(String key, String eTag, Path partialFile, long size) {
+        String fileName = key + NAME_SEPARATOR + HexFormat.of().formatHex(eTag.getBytes(StandardCharsets.UTF_8)) + FILE_EXTENSION;
+        try {
+            Path file = Files.move(partialFile, directory.resolve(fileName),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            synchronized (this) {
+                register(key, CachedAttachment.builder().file(file).size(size).eTag(eTag).build());
+                evict();
+            }
+        } catch (IOException e) {
+            logger.warn("Unable to store the PDF receipt in the disk cache", e);
+            deleteQuietly(partialFile);
+        }
+    }
+
+    private void register(String key, CachedAttachment cached) {
+        CachedAttachment previous = index.put(key, cached);
+        if (previous != null) {
+            currentSizeBytes -= previous.getSize();
+            if (!previous.getFile().equals(cached.getFile())) {
+                deleteQuietly(previous.getFile());
+            }
+        }
+        currentSizeBytes += cached.getSize();
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, CachedAttachment>> eldest = index.entrySet().iterator();
+        while (currentSizeBytes > maxSizeBytes && eldest.hasNext()) {
+            CachedAttachment evicted = eldest.next().getValue();
+            eldest.remove();
+            currentSizeBytes -= evicted.getSize();
+            deleteQuietly(evicted.getFile());
+        }
+    }
+
+    private long lastModifiedTime(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Unable to delete the PDF disk cache file {}", file, e);
+        }
+    }
+
+    private static String hash(String blobName) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(blobName.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Stream that copies the bytes read by the client to a partial file, committed to the cache only
+     * if the whole blob was read. Failures on the copy never affect the client response.
+     */
+    private class CachingInputStream extends FilterInputStream {
+
+        private final Path partialFile;
+        private final String key;
+        private final String eTag;
+        private final long expectedLength;
+
+        private OutputStream copy;
+        private long copiedBytes;
+        private boolean closed;
+
+        CachingInputStream(InputStream source, Path partialFile, String key, String eTag, long expectedLength) throws IOException {
+            super(source);
+            this.partialFile = partialFile;
+            this.key = key;
+            this.eTag = eTag;
+            this.expectedLength = expectedLength;
+            this.copy = Files.newOutputStream(partialFile);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0 && copy != null) {
+                copy(new byte[]{(byte) b}, 0, 1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0 && copy != null) {
+                copy(b, off, read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            abortCopy();
+            return super.skip(n);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                super.close();
+            } finally {
+                if (copy != null && copiedBytes == expectedLength) {
+                    completeCopy();
+                } else {
+                    abortCopy();
+                }
+            }
+        }
+
+        private void copy(byte[] b, int off, int len) {
+            try {
+                copy.write(b, off, len);
+                copiedBytes += len;
+            } catch (IOException e) {
+                logger.warn("Unable to write the PDF disk cache file, the PDF receipt is not cached", e);
+                abortCopy();
+            }
+        }
+
+        private void completeCopy() {
+            try {
+                copy.close();
+                copy = null;
+                commit(key, eTag, partialFile, copiedBytes);
+            } catch (IOException e) {
+                logger.warn("Unable to complete the PDF disk cache file, the PDF receipt is not cached", e);
+                abortCopy();
+            }
+        }
+
+        private void abortCopy() {
+            if (copy == null) {
+                return;
+            }
+            try {
+                copy.close();
+            } catch (IOException e) {
+                logger.debug("Unable to close the PDF disk cache file", e);
+            }
+            copy = null;
+            deleteQuietly(partialFile);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package it.gov.pagopa.receipt.pdf.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * In-memory cache of the ETags of the PDF receipts, keyed by attachment name, so that a client revalidating an
+ * unchanged PDF receipt with If-None-Match is answered without a Blob Storage call.
+ * <p>
+ * The ETag is stored from every response of the Blob Storage that carries it; a generated PDF receipt does not
+ * change, so a cached ETag stays valid until it expires.
+ */
+@ApplicationScoped
+public class AttachmentETagCache {
+
+    private static final String METRIC_PREFIX = "receipt.pdf.attachment_etag_cache.";
+
+    private final boolean enabled;
+    private final Cache<String, String> eTags;
+
+    private final LongCounter hits;
+    private final LongCounter misses;
+
+    @Inject
+    public AttachmentETagCache(
+            @ConfigProperty(name = "attachment-etag-cache.enabled") boolean enabled,
+            @ConfigProperty(name = "attachment-etag-cache.maximum-size") long maximumSize,
+            @ConfigProperty(name = "attachment-etag-cache.expire-after-write-seconds") long expireAfterWriteSeconds,
+            Meter meter
+    ) {
+        this.enabled = enabled;
+        this.eTags = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+                .build();
+
+        this.hits = meter.counterBuilder(METRIC_PREFIX + "hits")
+                .setDescription("Number of If-None-Match validators checked against a cached ETag")
+                .build();
+        this.misses = meter.counterBuilder(METRIC_PREFIX + "misses")
+                .setDescription("Number of If-None-Match validators without a cached ETag")
+                .build();
+        meter.gaugeBuilder(METRIC_PREFIX + "size")
+                .ofLongs()
+                .setDescription("Number of ETags stored in the attachment ETag cache")
+                .buildWithCallback(measurement -> measurement.record(eTags.estimatedSize()));
+    }
+
+    /**
+     * Retrieve the cached ETag of the PDF receipt
+     *
+     * @param attachmentName file name of the PDF receipt
+     * @return the ETag, empty if not cached
+     */
+    public Optional<String> get(String attachmentName) {
+        if (!enabled || attachmentName == null) {
+            return Optional.empty();
+        }
+        Optional<String> eTag = Optional.ofNullable(eTags.getIfPresent(attachmentName));
+        (eTag.isPresent() ? hits : misses).add(1);
+        return eTag;
+    }
+
+    /**
+     * Store the ETag of the PDF receipt returned by the Blob Storage
+     *
+     * @param attachmentName file name of the PDF receipt
+     * @param eTag           the ETag of the PDF receipt, ignored if null
+     */
+    public void put(String attachmentName, String eTag) {
+        if (enabled && attachmentName != null && eTag != null) {
+            eTags.put(attachmentName, eTag);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package it.gov.pagopa.receipt.pdf.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import io.smallrye.mutiny.Multi;
+import it.gov.pagopa.receipt.pdf.service.model.CachedAttachment;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory tier for the hot PDF receipts downloaded from the Blob Storage.
+ * <p>
+ * The PDF bodies are kept off-heap in direct {@link ByteBuffer}s, so that they do not add GC pressure,
+ * and evicted once the total size of the cached bodies exceeds the configured byte budget.
+ * PDF receipts bigger than the per-entry limit are never cached.
+ */
+@ApplicationScoped
+public class AttachmentMemoryCache {
+
+    private static final String METRIC_PREFIX = "receipt.pdf.memory_cache.";
+
+    private final Logger logger = LoggerFactory.getLogger(AttachmentMemoryCache.class);
+
+    private final boolean enabled;
+    private final long maxEntrySizeBytes;
+    private final Cache<String, CachedAttachment> cache;
+
+    private final LongCounter hits;
+    private final LongCounter misses;
+    private final LongCounter evictions;
+
+    @Inject
+    public AttachmentMemoryCache(
+            @ConfigProperty(name = "attachment.memory-cache.enabled") boolean enabled,
+            @ConfigProperty(name = "attachment.memory-cache.max-size-bytes") long maxSizeBytes,
+            @ConfigProperty(name = "attachment.memory-cache.max-entry-size-bytes") long maxEntrySizeBytes,
+            Meter meter
+    ) {
+        this.enabled = enabled;
+        this.maxEntrySizeBytes = Math.min(maxEntrySizeBytes, Integer.MAX_VALUE);
+        this.hits = meter.counterBuilder(METRIC_PREFIX + "hits")
+                .setDescription("Number of PDF receipts served from the memory cache")
+                .build();
+        this.misses = meter.counterBuilder(METRIC_PREFIX + "misses")
+                .setDescription("Number of PDF receipts not found in the memory cache")
+                .build();
+        this.evictions = meter.counterBuilder(METRIC_PREFIX + "evictions")
+                .setDescription("Number of PDF receipts evicted from the memory cache")
+                .build();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSizeBytes)
+                .weigher((String key, CachedAttachment value) -> (int) value.getSize())
+                .removalListener((String key, CachedAttachment value, RemovalCause cause) -> {
+                    if (cause.wasEvicted()) {
+                        evictions.add(1);
+                    }
+                })
+                .build();
+        meter.gaugeBuilder(METRIC_PREFIX + "size")
+                .ofLongs()
+                .setUnit("By")
+                .setDescription("Bytes of PDF receipts stored in the memory cache")
+                .buildWithCallback(measurement -> measurement.record(getCurrentSizeBytes()));
+    }
+
+    /**
+     * Retrieve the cached copy of the provided blob
+     *
+     * @param blobName the name of the blob
+     * @return the cached attachment, empty if the blob is not in cache
+     */
+    public Optional<CachedAttachment> get(String blobName) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        CachedAttachment cached = cache.getIfPresent(blobName);
+        if (cached == null) {
+            misses.add(1);
+            return Optional.empty();
+        }
+        hits.add(1);
+        return Optional.of(cached);
+    }
+
+    /**
+     * Store the provided blob content in the cache, unless it is bigger than the per-entry limit
+     *
+     * @param blobName the name of the blob
+     * @param eTag     the ETag of the blob
+     * @param content  the content of the blob
+     */
+    public void put(String blobName, String eTag, byte[] content) {
+        put(blobName, eTag, content, content.length);
+    }
+
+    /**
+     * Store the first {@code length} bytes of the provided array in the cache, unless they are more than
+     * the per-entry limit
+     *
+     * @param blobName the name of the blob
+     * @param eTag     the ETag of the blob
+     * @param content  the array holding the content of the blob, it may be bigger than the content
+     * @param length   the size of the content
+     */
+    public void put(String blobName, String eTag, byte[] content, int length) {
+        if (!enabled || eTag == null || length > maxEntrySizeBytes) {
+            return;
+        }
+        ByteBuffer buffer = allocate(length);
+        if (buffer != null) {
+            buffer.put(content, 0, length).flip();
+            store(blobName, eTag, buffer);
+        }
+    }
+
+    /**
+     * Wrap the stream of a blob so that its content is stored in the cache once it has been fully read.
+     * The stream is returned unchanged if the cache is disabled or the blob is too big to be cached.
+     *
+     * @param blobName      the name of the blob
+     * @param eTag          the ETag of the blob
+     * @param contentLength the size of the blob
+     * @param source        the stream over the whole blob
+     * @return the stream to be returned to the client
+     */
+    public InputStream cacheWhileReading(String blobName, String eTag, long contentLength, InputStream source) {
+        if (!enabled || eTag == null || contentLength > maxEntrySizeBytes) {
+            return source;
+        }
+        ByteBuffer buffer = allocate((int) contentLength);
+        return buffer != null ? new CachingInputStream(source, blobName, eTag, buffer) : source;
+    }
+
+    /**
+     * Wrap the chunks of a blob emitted by the async client so that its content is stored in the cache once
+     * the whole blob was emitted. The chunks are returned unchanged if the cache is disabled or the blob is
+     * too big to be cached.
+     *
+     * @param blobName      the name of the blob
+     * @param eTag          the ETag of the blob
+     * @param contentLength the size of the blob
+     * @param source        the chunks of the whole blob
+     * @return the chunks to be returned to the client
+     */
+    public Multi<ByteBuffer> cacheWhileEmitting(String blobName, String eTag, long contentLength, Multi<ByteBuffer> source) {
+        if (!enabled || eTag == null || contentLength > maxEntrySizeBytes) {
+            return source;
+        }
+        return Multi.createFrom().deferred(() -> {
+            ByteBuffer buffer = allocate((int) contentLength);
+            if (buffer == null) {
+                return source;
+            }
+            AtomicReference<ByteBuffer> copy = new AtomicReference<>(buffer);
+            return source
+                    .onItem().invoke(chunk -> {
+                        ByteBuffer target = copy.get();
+                        if (target != null && target.remaining() >= chunk.remaining()) {
+                            target.put(chunk.duplicate());
+                        } else {
+                            copy.set(null);
+                        }
+                    })
+                    .onCompletion().invoke(() -> {
+                        ByteBuffer target = copy.getAndSet(null);
+                        if (target != null && !target.hasRemaining()) {
+                            target.flip();
+                            store(blobName, eTag, target);
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Return the number of bytes currently stored in the cache
+     *
+     * @return the size of the cached PDF receipts
+     */
+    public long getCurrentSizeBytes() {
+        return cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0))
+                .orElse(0L);
+    }
+
+    /**
+     * Perform the pending maintenance operations of the cache, such as the evictions
+     */
+    void cleanUp() {
+        cache.cleanUp();
+    }
+
+    private void store(String blobName, String eTag, ByteBuffer buffer) {
+        cache.put(blobName, CachedAttachment.builder()
+                .buffer(buffer.asReadOnlyBuffer())
+                .size(buffer.limit())
+                .eTag(eTag)
+                .build());
+    }
+
+    private ByteBuffer allocate(int size) {
+        try {
+            return ByteBuffer.allocateDirect(size);
+        } catch (OutOfMemoryError e) {
+            // direct memory is exhausted, the PDF receipt is served without being cached
+            logger.warn("Unable to allocate {} bytes of direct memory for the PDF memory cache", size);
+            return null;
+        }
+    }
+
+    /**
+     * Stream that copies the bytes read by the client to an off-heap buffer, stored in the cache only
+     * once the whole blob was read.
+     */
+    private class CachingInputStream extends FilterInputStream {
+
+        private final String blobName;
+        private final String eTag;
+        private ByteBuffer copy;
+
+        CachingInputStream(InputStream source, String blobName, String eTag, ByteBuffer copy) {
+            super(source);
+            this.blobName = blobName;
+            this.eTag = eTag;
+            this.copy = copy;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0 && copy != null) {
+                if (copy.hasRemaining()) {
+                    copy.put((byte) b);
+                } else {
+                    copy = null;
+                }
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0 && copy != null) {
+                if (copy.remaining() >= read) {
+                    copy.put(b, off, read);
+                } else {
+                    copy = null;
+                }
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            copy = null;
+            return super.skip(n);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (copy != null && !copy.hasRemaining()) {
+                    copy.flip();
+                    store(blobName, eTag, copy);
+                }
+                copy = null;
+            }
+        }
+    }
+}
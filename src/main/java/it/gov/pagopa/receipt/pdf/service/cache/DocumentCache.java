@@ -0,0 +1,130 @@
+package it.gov.pagopa.receipt.pdf.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import it.gov.pagopa.receipt.pdf.service.model.cart.CartAuthorizationIndex;
+import it.gov.pagopa.receipt.pdf.service.model.receipt.Receipt;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * In-memory cache of the receipts and of the authorization indexes of the carts, shared by the attachment details,
+ * the attachment and the PDF flows, so that the calls of the same client within a few seconds read the document
+ * from CosmosDB only once.
+ * <p>
+ * The documents are keyed by the third party id of the request, independently of the fiscal code of the caller:
+ * every flow still validates the document and authorizes the caller at each request, against the cached data.
+ * Only the documents that passed the checks of a flow are stored, and a document already cached is not replaced,
+ * so that it expires at the time set by its first read. The index of a cart is cached with the message of its
+ * recipient only if the message was loaded, and it is served to the flows that need the message only then.
+ */
+@ApplicationScoped
+public class DocumentCache {
+
+    private static final String METRIC_PREFIX = "receipt.pdf.document_cache.";
+
+    private final boolean enabled;
+    private final Cache<String, CachedDocument> documents;
+
+    private final LongCounter hits;
+    private final LongCounter misses;
+
+    @Inject
+    public DocumentCache(
+            @ConfigProperty(name = "document-cache.enabled") boolean enabled,
+            @ConfigProperty(name = "document-cache.maximum-size") long maximumSize,
+            @ConfigProperty(name = "document-cache.expire-after-write-seconds") long expireAfterWriteSeconds,
+            Meter meter
+    ) {
+        this.enabled = enabled;
+        this.documents = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+                .build();
+
+        this.hits = meter.counterBuilder(METRIC_PREFIX + "hits")
+                .setDescription("Number of receipts and carts served from the document cache")
+                .build();
+        this.misses = meter.counterBuilder(METRIC_PREFIX + "misses")
+                .setDescription("Number of receipts and carts not found in the document cache")
+                .build();
+        meter.gaugeBuilder(METRIC_PREFIX + "size")
+                .ofLongs()
+                .setDescription("Number of receipts and carts stored in the document cache")
+                .buildWithCallback(measurement -> measurement.record(documents.estimatedSize()));
+    }
+
+    /**
+     * Retrieve the cached receipt
+     *
+     * @param thirdPartyId the id of the receipt in the request
+     * @return the receipt, empty if not cached
+     */
+    public Optional<Receipt> getReceipt(String thirdPartyId) {
+        return count(get(thirdPartyId).map(CachedDocument::receipt));
+    }
+
+    /**
+     * Store the receipt, once it passed the checks of the flow that read it
+     *
+     * @param thirdPartyId the id of the receipt in the request
+     * @param receipt      the checked receipt
+     */
+    public void putReceipt(String thirdPartyId, Receipt receipt) {
+        if (enabled && thirdPartyId != null && receipt != null) {
+            documents.asMap().putIfAbsent(thirdPartyId, new CachedDocument(receipt, null, false));
+        }
+    }
+
+    /**
+     * Retrieve the cached authorization index of the cart
+     *
+     * @param thirdPartyId the id of the cart in the request, with the business event of the debtor if any
+     * @param withMessage  true if the message of the recipient is needed
+     * @return the index of the cart, empty if not cached or cached without the needed message
+     */
+    public Optional<CartAuthorizationIndex> getCart(String thirdPartyId, boolean withMessage) {
+        return count(get(thirdPartyId)
+                .filter(document -> document.withMessage() || !withMessage)
+                .map(CachedDocument::cart));
+    }
+
+    /**
+     * Store the authorization index of the cart, once it passed the checks of the flow that read it; a cached index
+     * without the message is replaced by one with the message
+     *
+     * @param thirdPartyId the id of the cart in the request, with the business event of the debtor if any
+     * @param cartIndex    the index of the checked cart
+     * @param withMessage  true if the message of the recipient was loaded
+     */
+    public void putCart(String thirdPartyId, CartAuthorizationIndex cartIndex, boolean withMessage) {
+        if (enabled && thirdPartyId != null && cartIndex != null) {
+            documents.asMap().compute(thirdPartyId, (key, cached) -> cached != null && (cached.withMessage() || !withMessage)
+                    ? cached
+                    : new CachedDocument(null, cartIndex, withMessage));
+        }
+    }
+
+    private Optional<CachedDocument> get(String thirdPartyId) {
+        if (!enabled || thirdPartyId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(documents.getIfPresent(thirdPartyId));
+    }
+
+    private <T> Optional<T> count(Optional<T> document) {
+        if (enabled) {
+            (document.isPresent() ? hits : misses).add(1);
+        }
+        return document;
+    }
+
+    private record CachedDocument(Receipt receipt, CartAuthorizationIndex cart, boolean withMessage) {
+    }
+}
@@ -0,0 +1,177 @@
+package it.gov.pagopa.receipt.pdf.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import io.quarkus.runtime.Startup;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Index of the ids of the receipts whose id is not the eventId they are looked up with.
+ * <p>
+ * Such receipts are found only with a cross-partition query by eventId, after the point read by id failed;
+ * once found, the eventId-id mapping is kept here so that the next lookups go straight to a point read with
+ * the right id. The mappings do not expire, the index is bounded by the number of entries and a mapping is
+ * dropped only if its receipt is no longer found. It can be loaded at startup from a file, and written back to
+ * the same file at shutdown.
+ */
+@Startup
+@ApplicationScoped
+public class ReceiptIdIndex {
+
+    private static final String METRIC_PREFIX = "receipt.pdf.receipt_id_index.";
+    private static final char SEPARATOR = '\t';
+
+    private final Logger logger = LoggerFactory.getLogger(ReceiptIdIndex.class);
+
+    private final boolean enabled;
+    private final Path path;
+    private final Cache<String, String> ids;
+
+    private final LongCounter hits;
+    private final LongCounter misses;
+
+    @Inject
+    public ReceiptIdIndex(
+            @ConfigProperty(name = "receipt-id-index.enabled") boolean enabled,
+            @ConfigProperty(name = "receipt-id-index.maximum-size") long maximumSize,
+            @ConfigProperty(name = "receipt-id-index.path") Optional<String> path,
+            Meter meter
+    ) {
+        this.enabled = enabled;
+        this.path = path.filter(value -> !value.isBlank()).map(Paths::get).orElse(null);
+        this.ids = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .build();
+
+        this.hits = meter.counterBuilder(METRIC_PREFIX + "hits")
+                .setDescription("Number of receipts read by id thanks to the receipt id index")
+                .build();
+        this.misses = meter.counterBuilder(METRIC_PREFIX + "misses")
+                .setDescription("Number of receipts not found in the receipt id index")
+                .build();
+        meter.gaugeBuilder(METRIC_PREFIX + "size")
+                .ofLongs()
+                .setDescription("Number of eventId-id mappings stored in the receipt id index")
+                .buildWithCallback(measurement -> measurement.record(ids.estimatedSize()));
+    }
+
+    /**
+     * Load the mappings written by the previous instance
+     */
+    @PostConstruct
+    void init() {
+        if (!enabled || path == null || !Files.isRegularFile(path)) {
+            return;
+        }
+        long loaded = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.indexOf(SEPARATOR);
+                if (separator > 0 && separator < line.length() - 1) {
+                    ids.put(line.substring(0, separator), line.substring(separator + 1));
+                    loaded++;
+                }
+            }
+            logger.info("Receipt id index loaded, {} mappings restored", loaded);
+        } catch (IOException e) {
+            logger.warn("Unable to load the receipt id index from {}, it is ignored", path, e);
+        }
+    }
+
+    /**
+     * Write the mappings to the file of the index, replacing it
+     */
+    @PreDestroy
+    void shutdown() {
+        if (!enabled || path == null) {
+            return;
+        }
+        try {
+            Path directory = path.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path tmpFile = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+            try {
+                try (BufferedWriter writer = Files.newBufferedWriter(tmpFile, StandardCharsets.UTF_8)) {
+                    for (Map.Entry<String, String> entry : ids.asMap().entrySet()) {
+                        writer.write(entry.getKey());
+                        writer.write(SEPARATOR);
+                        writer.write(entry.getValue());
+                        writer.newLine();
+                    }
+                }
+                Files.move(tmpFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmpFile);
+            }
+        } catch (IOException e) {
+            logger.warn("Unable to write the receipt id index to {}", path, e);
+        }
+    }
+
+    /**
+     * Retrieve the id of the receipt with the provided eventId
+     *
+     * @param eventId the eventId the receipt is looked up with
+     * @return the id of the receipt, empty if unknown or if the id is the eventId itself
+     */
+    public Optional<String> get(String eventId) {
+        if (!enabled || eventId == null) {
+            return Optional.empty();
+        }
+        String id = ids.getIfPresent(eventId);
+        if (id == null) {
+            misses.add(1);
+        } else {
+            hits.add(1);
+        }
+        return Optional.ofNullable(id);
+    }
+
+    /**
+     * Remember the id of the receipt with the provided eventId, found with a query
+     *
+     * @param eventId the eventId the receipt was looked up with
+     * @param id      the id of the receipt
+     */
+    public void put(String eventId, String id) {
+        if (enabled && isStorable(eventId) && isStorable(id) && !eventId.equals(id)) {
+            ids.put(eventId, id);
+        }
+    }
+
+    /**
+     * Forget the mapping of the provided eventId, when the receipt is no longer found with its id
+     *
+     * @param eventId the eventId of the mapping
+     */
+    public void invalidate(String eventId) {
+        if (eventId != null) {
+            ids.invalidate(eventId);
+        }
+    }
+
+    private static boolean isStorable(String value) {
+        return value != null && !value.isEmpty()
+                && value.indexOf(SEPARATOR) < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0;
+    }
+}
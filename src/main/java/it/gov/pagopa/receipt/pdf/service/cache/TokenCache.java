@@ -0,0 +1,248 @@
+package it.gov.pagopa.receipt.pdf.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Policy;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * In-memory cache of the tokens returned by the PDV tokenizer for the fiscal codes.
+ * <p>
+ * The fiscal codes are never stored: the entries are keyed by the HMAC-SHA256 of the fiscal code, with a salt
+ * that is taken from the configuration or generated at startup. The fiscal codes the tokenizer does not know
+ * are cached as well, in a separate cache with a shorter TTL, so that they are not looked up again at every
+ * request but a newly tokenized fiscal code is recognized soon.
+ * <p>
+ * The tokens can be exported with their expiration time and restored by another instance, see
+ * {@link TokenCacheSnapshot}; the keys match only if the salt is configured.
+ */
+@ApplicationScoped
+public class TokenCache {
+
+    private static final String METRIC_PREFIX = "receipt.pdf.token_cache.";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int GENERATED_SALT_BYTES = 32;
+
+    private final boolean enabled;
+    private final boolean saltConfigured;
+    private final Duration expireAfterWrite;
+    private final Cache<String, String> tokens;
+    private final Policy.VarExpiration<String, String> tokensExpiration;
+    private final Cache<String, Boolean> notFound;
+    private final ThreadLocal<Mac> mac;
+
+    private final LongCounter hits;
+    private final LongCounter negativeHits;
+    private final LongCounter misses;
+
+    @Inject
+    public TokenCache(
+            @ConfigProperty(name = "tokenizer.token-cache.enabled") boolean enabled,
+            @ConfigProperty(name = "tokenizer.token-cache.maximum-size") long maximumSize,
+            @ConfigProperty(name = "tokenizer.token-cache.expire-after-write-seconds") long expireAfterWriteSeconds,
+            @ConfigProperty(name = "tokenizer.token-cache.not-found.maximum-size") long notFoundMaximumSize,
+            @ConfigProperty(name = "tokenizer.token-cache.not-found.expire-after-write-seconds") long notFoundExpireAfterWriteSeconds,
+            @ConfigProperty(name = "tokenizer.token-cache.hash-salt") Optional<String> hashSalt,
+            Meter meter
+    ) {
+        this.enabled = enabled;
+        this.saltConfigured = hashSalt.filter(salt -> !salt.isBlank()).isPresent();
+        this.expireAfterWrite = Duration.ofSeconds(expireAfterWriteSeconds);
+        // variable expiration, so that the restored tokens keep the TTL left when they were exported
+        this.tokens = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(Expiry.writing((String key, String token) -> this.expireAfterWrite))
+                .build();
+        this.tokensExpiration = this.tokens.policy().expireVariably().orElseThrow();
+        this.notFound = Caffeine.newBuilder()
+                .maximumSize(notFoundMaximumSize)
+                .expireAfterWrite(Duration.ofSeconds(notFoundExpireAfterWriteSeconds))
+                .build();
+        SecretKeySpec key = new SecretKeySpec(
+                hashSalt.filter(salt -> !salt.isBlank())
+                        .map(salt -> salt.getBytes(StandardCharsets.UTF_8))
+                        .orElseGet(TokenCache::generateSalt),
+                HMAC_ALGORITHM);
+        this.mac = ThreadLocal.withInitial(() -> newMac(key));
+
+        this.hits = meter.counterBuilder(METRIC_PREFIX + "hits")
+                .setDescription("Number of fiscal code tokens served from the token cache")
+                .build();
+        this.negativeHits = meter.counterBuilder(METRIC_PREFIX + "not_found_hits")
+                .setDescription("Number of fiscal codes found in the cache of the fiscal codes unknown to the tokenizer")
+                .build();
+        this.misses = meter.counterBuilder(METRIC_PREFIX + "misses")
+                .setDescription("Number of fiscal codes not found in the token cache")
+                .build();
+        meter.gaugeBuilder(METRIC_PREFIX + "size")
+                .ofLongs()
+                .setDescription("Number of fiscal code tokens stored in the token cache")
+                .buildWithCallback(measurement -> measurement.record(tokens.estimatedSize()));
+    }
+
+    /**
+     * Return true if the tokens are cached
+     *
+     * @return true if enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Return true if the salt of the keys is configured, so that the keys are the same on every instance
+     *
+     * @return true if the salt is configured
+     */
+    public boolean isSaltConfigured() {
+        return saltConfigured;
+    }
+
+    /**
+     * Compute the cache key of the provided fiscal code
+     *
+     * @param fiscalCode the plain fiscal code
+     * @return the salted hash of the fiscal code, encoded in base64
+     */
+    public String key(String fiscalCode) {
+        byte[] hash = mac.get().doFinal(fiscalCode.getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+    }
+
+    /**
+     * Retrieve the cached lookup of the fiscal code with the provided key
+     *
+     * @param key the key of the fiscal code, see {@link #key(String)}
+     * @return the cached lookup, empty if the fiscal code was not looked up recently
+     */
+    public Optional<CachedToken> get(String key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        String token = tokens.getIfPresent(key);
+        if (token != null) {
+            hits.add(1);
+            return Optional.of(new CachedToken(token));
+        }
+        if (notFound.getIfPresent(key) != null) {
+            negativeHits.add(1);
+            return Optional.of(new CachedToken(null));
+        }
+        misses.add(1);
+        return Optional.empty();
+    }
+
+    /**
+     * Store the token of the fiscal code with the provided key
+     *
+     * @param key   the key of the fiscal code
+     * @param token the token returned by the tokenizer
+     */
+    public void putToken(String key, String token) {
+        if (enabled) {
+            tokens.put(key, token);
+            notFound.invalidate(key);
+        }
+    }
+
+    /**
+     * Record that the tokenizer does not know the fiscal code with the provided key
+     *
+     * @param key the key of the fiscal code
+     */
+    public void putNotFound(String key) {
+        if (enabled) {
+            notFound.put(key, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Export the cached tokens with their expiration time
+     *
+     * @return the cached tokens
+     */
+    public List<ExportedToken> export() {
+        long now = System.currentTimeMillis();
+        List<ExportedToken> exported = new ArrayList<>();
+        tokens.asMap().forEach((key, token) -> tokensExpiration.getExpiresAfter(key)
+                .ifPresent(expiresAfter -> exported.add(new ExportedToken(key, token, now + expiresAfter.toMillis()))));
+        return exported;
+    }
+
+    /**
+     * Store a token exported by {@link #export()}, with the TTL left, unless it is already expired
+     *
+     * @param exportedToken the exported token
+     */
+    public void restore(ExportedToken exportedToken) {
+        long ttlMillis = exportedToken.expiresAtEpochMillis() - System.currentTimeMillis();
+        if (enabled && ttlMillis > 0 && tokens.getIfPresent(exportedToken.key()) == null) {
+            Duration ttl = Duration.ofMillis(ttlMillis);
+            tokensExpiration.put(exportedToken.key(), exportedToken.token(),
+                    ttl.compareTo(expireAfterWrite) < 0 ? ttl : expireAfterWrite);
+        }
+    }
+
+    /**
+     * Return the number of tokens currently stored in the cache
+     *
+     * @return the estimated number of cached tokens
+     */
+    public long getEstimatedSize() {
+        return tokens.estimatedSize();
+    }
+
+    private static byte[] generateSalt() {
+        byte[] salt = new byte[GENERATED_SALT_BYTES];
+        new SecureRandom().nextBytes(salt);
+        return salt;
+    }
+
+    private static Mac newMac(SecretKeySpec key) {
+        try {
+            Mac instance = Mac.getInstance(HMAC_ALGORITHM);
+            instance.init(key);
+            return instance;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to initialize the hash of the token cache keys", e);
+        }
+    }
+
+    /**
+     * Token exported from the cache
+     *
+     * @param key                  the key of the fiscal code
+     * @param token                the token of the fiscal code
+     * @param expiresAtEpochMillis the time the token expires from the cache
+     */
+    public record ExportedToken(String key, String token, long expiresAtEpochMillis) {
+    }
+
+    /**
+     * Cached result of a tokenizer lookup
+     *
+     * @param token the token of the fiscal code, null if the tokenizer does not know the fiscal code
+     */
+    public record CachedToken(String token) {
+
+        public boolean isNotFound() {
+            return token == null;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package it.gov.pagopa.receipt.pdf.service.cache;
+
+import io.quarkus.runtime.Startup;
+import it.gov.pagopa.receipt.pdf.service.cache.TokenCache.ExportedToken;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encrypted snapshot on disk of the {@link TokenCache}, so that a new instance starts with the tokens already
+ * looked up by the previous ones instead of sending a burst of calls to the tokenizer.
+ * <p>
+ * The snapshot is loaded at startup, before the service is ready, and written periodically and at shutdown,
+ * merged with the tokens of the snapshot on disk (written by the other instances sharing the same volume).
+ * The tokens keep their expiration time. The file is encrypted with AES-256-GCM and replaced atomically, a
+ * snapshot that cannot be read is ignored. The snapshot is disabled if the salt of the cache keys is not
+ * configured, because the keys would not match across the instances.
+ */
+@Startup
+@ApplicationScoped
+public class TokenCacheSnapshot {
+
+    private static final byte[] MAGIC = "TKS1".getBytes(StandardCharsets.US_ASCII);
+    private static final String CIPHER = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH_BITS = 128;
+    private static final int KEY_LENGTH = 32;
+
+    private final Logger logger = LoggerFactory.getLogger(TokenCacheSnapshot.class);
+
+    private final TokenCache tokenCache;
+    private final Path path;
+    private final long intervalSeconds;
+    private final long maximumSize;
+    private final SecretKeySpec key;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    private volatile boolean enabled;
+    private ScheduledExecutorService scheduler;
+
+    @Inject
+    public TokenCacheSnapshot(
+            TokenCache tokenCache,
+            @ConfigProperty(name = "tokenizer.token-cache.snapshot.enabled") boolean enabled,
+            @ConfigProperty(name = "tokenizer.token-cache.snapshot.path") String path,
+            @ConfigProperty(name = "tokenizer.token-cache.snapshot.interval-seconds") long intervalSeconds,
+            @ConfigProperty(name = "tokenizer.token-cache.snapshot.encryption-key") Optional<String> encryptionKey,
+            @ConfigProperty(name = "tokenizer.token-cache.maximum-size") long maximumSize
+    ) {
+        this.tokenCache = tokenCache;
+        this.path = Paths.get(path);
+        this.intervalSeconds = intervalSeconds;
+        this.maximumSize = maximumSize;
+        this.key = encryptionKey.map(TokenCacheSnapshot::decodeKey).orElse(null);
+        this.enabled = enabled && tokenCache.isEnabled();
+    }
+
+    /**
+     * Load the snapshot left by the previous instances and schedule the periodic write
+     */
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        if (key == null || !tokenCache.isSaltConfigured()) {
+            logger.warn("Token cache snapshot disabled, both the encryption key (32 bytes, base64) and the hash salt must be configured");
+            enabled = false;
+            return;
+        }
+        List<ExportedToken> loaded = read();
+        loaded.forEach(tokenCache::restore);
+        logger.info("Token cache snapshot loaded, {} tokens restored", loaded.size());
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "token-cache-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::write, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Write the last snapshot before the shutdown
+     */
+    @PreDestroy
+    void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        scheduler.shutdownNow();
+        write();
+    }
+
+    /**
+     * Write the cached tokens, merged with the ones of the snapshot on disk, replacing the snapshot
+     */
+    synchronized void write() {
+        try {
+            long now = System.currentTimeMillis();
+            Map<String, ExportedToken> merged = new HashMap<>();
+            for (ExportedToken token : read()) {
+                merged.put(token.key(), token);
+            }
+            for (ExportedToken token : tokenCache.export()) {
+                merged.put(token.key(), token);
+            }
+            List<ExportedToken> tokens = new ArrayList<>(merged.size());
+            merged.values().stream()
+                    .filter(token -> token.expiresAtEpochMillis() > now)
+                    // over the cache size the tokens that expire first are dropped
+                    .sorted(Comparator.comparingLong(ExportedToken::expiresAtEpochMillis).reversed())
+                    .limit(maximumSize)
+                    .forEach(tokens::add);
+
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            Path tmpFile = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+            try {
+                Files.write(tmpFile, encrypt(serialize(tokens)));
+                Files.move(tmpFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmpFile);
+            }
+            logger.debug("Token cache snapshot written with {} tokens", tokens.size());
+        } catch (IOException | GeneralSecurityException e) {
+            logger.warn("Unable to write the token cache snapshot to {}", path, e);
+        }
+    }
+
+    /**
+     * Read the snapshot on disk
+     *
+     * @return the tokens of the snapshot, empty if there is no snapshot or it cannot be read
+     */
+    List<ExportedToken> read() {
+        if (!Files.isRegularFile(path)) {
+            return List.of();
+        }
+        try {
+            return deserialize(decrypt(Files.readAllBytes(path)));
+        } catch (IOException | GeneralSecurityException e) {
+            logger.warn("Unable to read the token cache snapshot from {}, it is ignored", path, e);
+            return List.of();
+        }
+    }
+
+    private static SecretKeySpec decodeKey(String encryptionKey) {
+        try {
+            byte[] bytes = Base64.getDecoder().decode(encryptionKey.trim());
+            return bytes.length == KEY_LENGTH ? new SecretKeySpec(bytes, "AES") : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private byte[] encrypt(byte[] plain) throws GeneralSecurityException {
+        byte[] iv = new byte[IV_LENGTH];
+        secureRandom.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance(CIPHER);
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+        cipher.updateAAD(MAGIC);
+        byte[] encrypted = cipher.doFinal(plain);
+        return ByteBuffer.allocate(MAGIC.length + IV_LENGTH + encrypted.length)
+                .put(MAGIC)
+                .put(iv)
+                .put(encrypted)
+                .array();
+    }
+
+    private byte[] decrypt(byte[] content) throws GeneralSecurityException, IOException {
+        if (content.length < MAGIC.length + IV_LENGTH || !Arrays.equals(content, 0, MAGIC.length, MAGIC, 0, MAGIC.length)) {
+            throw new IOException("Unknown format of the token cache snapshot");
+        }
+        Cipher cipher = Cipher.getInstance(CIPHER);
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, content, MAGIC.length, IV_LENGTH));
+        cipher.updateAAD(MAGIC);
+        return cipher.doFinal(content, MAGIC.length + IV_LENGTH, content.length - MAGIC.length - IV_LENGTH);
+    }
+
+    private static byte[] serialize(List<ExportedToken> tokens) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(tokens.size());
+            for (ExportedToken token : tokens) {
+                out.writeUTF(token.key());
+                out.writeUTF(token.token());
+                out.writeLong(token.expiresAtEpochMillis());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<ExportedToken> deserialize(byte[] content) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(content))) {
+            int size = in.readInt();
+            List<ExportedToken> tokens = new ArrayList<>(Math.max(0, Math.min(size, 1 << 16)));
+            for (int i = 0; i < size; i++) {
+                tokens.add(new ExportedToken(in.readUTF(), in.readUTF(), in.readLong()));
+            }
+            return tokens;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package it.gov.pagopa.receipt.pdf.service.client;
+
+import io.smallrye.mutiny.Uni;
+import it.gov.pagopa.receipt.pdf.service.exception.CartNotFoundException;
+import it.gov.pagopa.receipt.pdf.service.model.cart.CartForReceipt;
+
+/**
+ * Interface of the non-blocking client for the cart receipt's Cosmos container, the async variant of {@link CartReceiptCosmosClient}
+ */
+public interface CartReceiptCosmosAsyncClient {
+
+    /**
+     * This method retrieves the cart document from the CosmosDB database without blocking the calling thread.
+     *
+     * @param cartId the id of the cart to be retrieved
+     * @return the cart for receipt, or a failure with {@link CartNotFoundException} if the cart was not found
+     */
+    Uni<CartForReceipt> getCartForReceiptDocument(String cartId);
+
+    /**
+     * This method retrieves the authorization view of the cart document from the CosmosDB database without
+     * blocking the calling thread, see {@link CartReceiptCosmosClient#getCartAuthorizationView(String, String, boolean)}.
+     *
+     * @param cartId      the id of the cart to be retrieved
+     * @param bizEventId  the business event of the debtor whose message is retrieved, null for the payer message
+     * @param withMessage false to retrieve no message at all
+     * @return the cart for receipt with only the fields of the authorization view, or a failure with
+     * {@link CartNotFoundException} if the cart was not found
+     */
+    Uni<CartForReceipt> getCartAuthorizationView(String cartId, String bizEventId, boolean withMessage);
+}
@@ -17,6 +17,18 @@ public interface CartReceiptCosmosClient {
      */
     CartForReceipt getCartForReceiptDocument(String cartId) throws CartNotFoundException;
 
+    /**
+     * This method retrieves the authorization view of the cart document from the CosmosDB database: only the
+     * fields needed to authorize the access to the cart attachments and at most the message of one recipient.
+     *
+     * @param cartId      the id of the cart to be retrieved
+     * @param bizEventId  the business event of the debtor whose message is retrieved, null for the payer message
+     * @param withMessage false to retrieve no message at all
+     * @return the cart for receipt, with only the fields of the authorization view
+     * @throws CartNotFoundException in case cart receipt is not found
+     */
+    CartForReceipt getCartAuthorizationView(String cartId, String bizEventId, boolean withMessage) throws CartNotFoundException;
+
     /**
      * Retrieve cart document from CosmosDB database
      *
@@ -2,37 +2,68 @@ package it.gov.pagopa.receipt.pdf.service.client;
 
 import io.quarkus.rest.client.reactive.ClientExceptionMapper;
 import io.smallrye.faulttolerance.api.ExponentialBackoff;
+import io.smallrye.mutiny.Uni;
 import it.gov.pagopa.receipt.pdf.service.exception.PDVTokenizerClientException;
+import it.gov.pagopa.receipt.pdf.service.exception.TokenNotFoundException;
 import it.gov.pagopa.receipt.pdf.service.exception.TooManyRequestsException;
 import it.gov.pagopa.receipt.pdf.service.model.SearchTokenRequest;
 import it.gov.pagopa.receipt.pdf.service.model.SearchTokenResponse;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.faulttolerance.Bulkhead;
+import org.eclipse.microprofile.faulttolerance.CircuitBreaker;
 import org.eclipse.microprofile.faulttolerance.Retry;
+import org.eclipse.microprofile.faulttolerance.Timeout;
 import org.eclipse.microprofile.rest.client.annotation.ClientHeaderParam;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 import java.time.temporal.ChronoUnit;
 
+/**
+ * REST client of the PDV tokenizer.
+ * <p>
+ * Every attempt is bounded by a timeout and by a bulkhead, so that a degraded tokenizer cannot hold more than
+ * the bulkhead size of threads; the whole retried call is bounded by the retry max duration. The circuit breaker
+ * opens when most of the recent calls failed, then the calls fail immediately until the delay has elapsed.
+ * A fiscal code unknown to the tokenizer (404) is not counted as a failure.
+ */
 @Path("/tokenizer/v1/tokens")
 @RegisterRestClient
 public interface PDVTokenizerClient {
 
   @POST
   @Path("/search")
-  @Retry(delay = 1000L, delayUnit = ChronoUnit.MILLIS, maxRetries = 3,
+  @Retry(delay = 1000L, delayUnit = ChronoUnit.MILLIS, maxRetries = 3, maxDuration = 10000L,
       retryOn = TooManyRequestsException.class)
-  @ExponentialBackoff(maxDelay = 60000L, factor = 2)
+  @ExponentialBackoff(maxDelay = 6000L, factor = 2)
+  @CircuitBreaker(requestVolumeThreshold = 20, failureRatio = 0.5, delay = 10000L, successThreshold = 2,
+      skipOn = TokenNotFoundException.class)
+  @Timeout(3000L)
+  @Bulkhead(100)
   @ClientHeaderParam(name = "x-api-key", value = "${pdv.tokenizer.apiKey}")
   SearchTokenResponse searchToken(SearchTokenRequest searchTokenRequest);
 
+  @POST
+  @Path("/search")
+  @Retry(delay = 1000L, delayUnit = ChronoUnit.MILLIS, maxRetries = 3, maxDuration = 10000L,
+      retryOn = TooManyRequestsException.class)
+  @ExponentialBackoff(maxDelay = 6000L, factor = 2)
+  @CircuitBreaker(requestVolumeThreshold = 20, failureRatio = 0.5, delay = 10000L, successThreshold = 2,
+      skipOn = TokenNotFoundException.class)
+  @Timeout(3000L)
+  @Bulkhead(100)
+  @ClientHeaderParam(name = "x-api-key", value = "${pdv.tokenizer.apiKey}")
+  Uni<SearchTokenResponse> searchTokenAsync(SearchTokenRequest searchTokenRequest);
+
   @ClientExceptionMapper
   static RuntimeException toException(Response response) {
     if (response.getStatus() == 429) {
       return new TooManyRequestsException("The remote service responded with HTTP 429");
+    } else if (response.getStatus() == 404) {
+      return new TokenNotFoundException("Tokenizer client returned status 404");
     } else if (response.getStatus() != 200) {
       return new PDVTokenizerClientException("Tokenizer client returned status "  +
-       response.getStatus());
+       response.getStatus(), response.getStatus());
     }
     return null;
   }
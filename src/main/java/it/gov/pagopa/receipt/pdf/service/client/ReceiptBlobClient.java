@@ -1,8 +1,11 @@
 package it.gov.pagopa.receipt.pdf.service.client;
 
-
+import io.smallrye.mutiny.Uni;
 import it.gov.pagopa.receipt.pdf.service.exception.AttachmentNotFoundException;
 import it.gov.pagopa.receipt.pdf.service.exception.BlobStorageClientException;
+import it.gov.pagopa.receipt.pdf.service.exception.RangeNotSatisfiableException;
+import it.gov.pagopa.receipt.pdf.service.model.AttachmentContent;
+import it.gov.pagopa.receipt.pdf.service.model.AttachmentDownloadOptions;
 
 import java.io.InputStream;
 
@@ -20,4 +23,41 @@ public interface ReceiptBlobClient {
      * @throws AttachmentNotFoundException thrown if the requested attachment was not found
      */
     InputStream getAttachmentFromBlobStorage(String attachmentName) throws BlobStorageClientException, AttachmentNotFoundException;
+
+    /**
+     * Open a stream over the attachment in the Blob Storage, without buffering the whole blob in memory.
+     * The blob properties (size and ETag) are read from the first chunk of the download.
+     * If a byte range is requested only that portion of the blob is downloaded, unless the If-Range
+     * validator no longer matches the blob, in which case the whole attachment is returned.
+     *
+     * @param attachmentName the name of the file to be retrieved
+     * @param options the range and conditions of the download, null to download the whole attachment
+     * @return the {@link AttachmentContent} with the stream and the properties of the attachment
+     * @throws BlobStorageClientException thrown for error when retrieving the attachment
+     * @throws AttachmentNotFoundException thrown if the requested attachment was not found
+     * @throws RangeNotSatisfiableException thrown if the requested range is outside the attachment
+     */
+    AttachmentContent openAttachmentStream(String attachmentName, AttachmentDownloadOptions options)
+            throws BlobStorageClientException, AttachmentNotFoundException, RangeNotSatisfiableException;
+
+    /**
+     * Open the attachment like {@link #openAttachmentStream(String, AttachmentDownloadOptions)} without blocking
+     * the calling thread: with the Blob Storage async client the uni emits once the response headers are received
+     * and the body is streamed as it arrives, otherwise the blocking download runs on the worker pool.
+     *
+     * @param attachmentName the name of the file to be retrieved
+     * @param options the range and conditions of the download, null to download the whole attachment
+     * @return the uni emitting the {@link AttachmentContent}, failed with the exceptions of the blocking method
+     */
+    Uni<AttachmentContent> openAttachmentStreamAsync(String attachmentName, AttachmentDownloadOptions options);
+
+    /**
+     * Generate a short-lived, read-only SAS URL for the attachment in the Blob Storage.
+     * The SAS is signed locally with the account key, no call is made to the Blob Storage.
+     *
+     * @param attachmentName the name of the file to be retrieved
+     * @return the URL of the blob with the SAS token
+     * @throws BlobStorageClientException thrown if the SAS cannot be generated
+     */
+    String generateReadSasUrl(String attachmentName) throws BlobStorageClientException;
 }
@@ -0,0 +1,19 @@
+package it.gov.pagopa.receipt.pdf.service.client;
+
+import io.smallrye.mutiny.Uni;
+import it.gov.pagopa.receipt.pdf.service.exception.ReceiptNotFoundException;
+import it.gov.pagopa.receipt.pdf.service.model.receipt.Receipt;
+
+/**
+ * Interface of the non-blocking client for the receipt's Cosmos database, the async variant of {@link ReceiptCosmosClient}
+ */
+public interface ReceiptCosmosAsyncClient {
+
+    /**
+     * Retrieve the receipt from the Cosmos without blocking the calling thread
+     *
+     * @param thirdPartyId the id of the receipt to be retrieved
+     * @return the receipt, or a failure with {@link ReceiptNotFoundException} if the receipt was not found
+     */
+    Uni<Receipt> getReceiptDocument(String thirdPartyId);
+}
@@ -0,0 +1,163 @@
+package it.gov.pagopa.receipt.pdf.service.client.impl;
+
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Adaptive limit of the concurrent calls to the PDV tokenizer, so that a burst of requests does not turn
+ * into a burst of (retried) calls while the tokenizer is overloaded.
+ * <p>
+ * The limit follows an AIMD policy: it grows by one for every {@code limit} successful calls and is multiplied
+ * by the backoff ratio when a call is throttled (HTTP 429 after the retries) or slower than the latency
+ * threshold, always between the minimum and the maximum limit. The calls over the limit are rejected
+ * immediately instead of being queued.
+ */
+@ApplicationScoped
+public class AdaptiveConcurrencyLimiter {
+
+    private static final String METRIC_PREFIX = "receipt.pdf.tokenizer.concurrency.";
+
+    private final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+
+    private double limit;
+    private int inFlight;
+
+    private final LongCounter rejected;
+
+    @Inject
+    public AdaptiveConcurrencyLimiter(
+            @ConfigProperty(name = "tokenizer.concurrency-limit.enabled") boolean enabled,
+            @ConfigProperty(name = "tokenizer.concurrency-limit.initial-limit") int initialLimit,
+            @ConfigProperty(name = "tokenizer.concurrency-limit.min-limit") int minLimit,
+            @ConfigProperty(name = "tokenizer.concurrency-limit.max-limit") int maxLimit,
+            @ConfigProperty(name = "tokenizer.concurrency-limit.backoff-ratio") double backoffRatio,
+            @ConfigProperty(name = "tokenizer.concurrency-limit.latency-threshold-ms") long latencyThresholdMillis,
+            Meter meter
+    ) {
+        this.enabled = enabled;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.backoffRatio = Math.min(1, Math.max(0.1, backoffRatio));
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMillis);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+
+        this.rejected = meter.counterBuilder(METRIC_PREFIX + "rejected")
+                .setDescription("Number of tokenizer calls rejected because over the concurrency limit")
+                .build();
+        meter.gaugeBuilder(METRIC_PREFIX + "limit")
+                .ofLongs()
+                .setDescription("Current limit of the concurrent tokenizer calls")
+                .buildWithCallback(measurement -> measurement.record(getLimit()));
+        meter.gaugeBuilder(METRIC_PREFIX + "in_flight")
+                .ofLongs()
+                .setDescription("Number of tokenizer calls in progress")
+                .buildWithCallback(measurement -> measurement.record(getInFlight()));
+    }
+
+    /**
+     * Acquire a permit for a call, if the calls in progress are under the limit
+     *
+     * @return the permit to be released once the call completed, empty if the call must be rejected
+     */
+    public Optional<Permit> tryAcquire() {
+        if (!enabled) {
+            return Optional.of(new Permit(false));
+        }
+        synchronized (this) {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return Optional.of(new Permit(true));
+            }
+        }
+        rejected.add(1);
+        return Optional.empty();
+    }
+
+    /**
+     * Return the current limit
+     *
+     * @return the number of calls allowed in parallel
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * Return the number of calls in progress
+     *
+     * @return the number of acquired permits
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    private synchronized void release(boolean overloaded, boolean succeeded) {
+        inFlight--;
+        if (overloaded) {
+            double previous = limit;
+            limit = Math.max(minLimit, limit * backoffRatio);
+            if ((int) previous != (int) limit) {
+                logger.warn("Tokenizer overloaded, concurrency limit decreased to {}", (int) limit);
+            }
+        } else if (succeeded) {
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+    }
+
+    /**
+     * Permit of a call to the tokenizer, to be released exactly once with its outcome
+     */
+    public final class Permit {
+
+        private final boolean limited;
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(boolean limited) {
+            this.limited = limited;
+        }
+
+        /**
+         * Release the permit of a successful call, that lowers the limit if the call was too slow
+         */
+        public void onSuccess() {
+            if (limited && released.compareAndSet(false, true)) {
+                release(System.nanoTime() - startNanos > latencyThresholdNanos, true);
+            }
+        }
+
+        /**
+         * Release the permit of a call throttled by the tokenizer, that lowers the limit
+         */
+        public void onOverload() {
+            if (limited && released.compareAndSet(false, true)) {
+                release(true, false);
+            }
+        }
+
+        /**
+         * Release the permit of a call failed for a reason not related to the load of the tokenizer,
+         * that lowers the limit only if the call was too slow
+         */
+        public void onIgnore() {
+            if (limited && released.compareAndSet(false, true)) {
+                release(System.nanoTime() - startNanos > latencyThresholdNanos, false);
+            }
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package it.gov.pagopa.receipt.pdf.service.client.impl;
+
+import it.gov.pagopa.receipt.pdf.service.client.impl.DownloadBufferPool.PooledBuffer;
+import it.gov.pagopa.receipt.pdf.service.exception.AttachmentNotFoundException;
+import it.gov.pagopa.receipt.pdf.service.exception.BlobStorageClientException;
+import it.gov.pagopa.receipt.pdf.service.exception.RangeNotSatisfiableException;
+import it.gov.pagopa.receipt.pdf.service.model.AttachmentContent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static it.gov.pagopa.receipt.pdf.service.enumeration.AppErrorCodeEnum.PDFS_603;
+import static it.gov.pagopa.receipt.pdf.service.utils.CommonUtils.sanitize;
+
+/**
+ * Coalesce the concurrent downloads of the same blob in a single Blob Storage download (single-flight).
+ * <p>
+ * The first request for a blob opens the download, the requests for the same blob received while it is
+ * in flight read the bytes already downloaded from a shared buffer and wait for the missing ones.
+ * The Blob Storage stream is closed once the whole blob has been read, on error, or when every
+ * response reading it has been closed (client cancellation).
+ * <p>
+ * Every download opened while the coalescing is enabled is kept in a pooled buffer, also when no other
+ * request joins it, so that the late readers can start from the first byte. The coalescing is therefore
+ * disabled by default and should be enabled only for the workloads with frequent concurrent downloads
+ * of the same PDF receipt.
+ */
+@ApplicationScoped
+public class AttachmentDownloadCoalescer {
+
+    private final Logger logger = LoggerFactory.getLogger(AttachmentDownloadCoalescer.class);
+
+    private final boolean enabled;
+    private final long maxSizeBytes;
+    private final DownloadBufferPool bufferPool;
+
+    private final ConcurrentMap<String, CompletableFuture<SharedDownload>> inFlight = new ConcurrentHashMap<>();
+
+    @Inject
+    public AttachmentDownloadCoalescer(
+            @ConfigProperty(name = "blob.storage.client.single-flight.enabled") boolean enabled,
+            @ConfigProperty(name = "blob.storage.client.single-flight.max-size-bytes") long maxSizeBytes,
+            DownloadBufferPool bufferPool
+    ) {
+        this.enabled = enabled;
+        this.maxSizeBytes = Math.min(maxSizeBytes, Integer.MAX_VALUE);
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * Download used to open the stream over a whole blob
+     */
+    @FunctionalInterface
+    public interface AttachmentDownload {
+
+        AttachmentContent open() throws BlobStorageClientException, AttachmentNotFoundException, RangeNotSatisfiableException;
+    }
+
+    /**
+     * Return true if the concurrent downloads are coalesced
+     *
+     * @return true if enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Open the stream over the provided blob, joining the download already in flight for it if any
+     *
+     * @param blobName the name of the blob
+     * @param download the download to start if no download is in flight for the blob
+     * @return the stream over the whole blob
+     * @throws BlobStorageClientException  thrown for error when retrieving the attachment
+     * @throws AttachmentNotFoundException thrown if the requested attachment was not found
+     * @throws RangeNotSatisfiableException never thrown for a whole blob, declared by the download
+     */
+    public AttachmentContent open(String blobName, AttachmentDownload download)
+            throws BlobStorageClientException, AttachmentNotFoundException, RangeNotSatisfiableException {
+        if (!enabled) {
+            return download.open();
+        }
+        CompletableFuture<SharedDownload> started = new CompletableFuture<>();
+        CompletableFuture<SharedDownload> existing = inFlight.putIfAbsent(blobName, started);
+        if (existing != null) {
+            SharedDownload shared = await(existing);
+            AttachmentContent joined = shared != null ? shared.join() : null;
+            if (joined != null) {
+                logger.debug("Joined the download in flight for the PDF receipt {}", sanitize(blobName));
+                return joined;
+            }
+            // the download in flight cannot be shared, the blob is downloaded again
+            return download.open();
+        }
+
+        AttachmentContent attachment;
+        try {
+            attachment = download.open();
+        } catch (BlobStorageClientException | AttachmentNotFoundException | RangeNotSatisfiableException | RuntimeException e) {
+            inFlight.remove(blobName, started);
+            started.completeExceptionally(e);
+            throw e;
+        }
+        if (attachment.getContent() == null || attachment.getContentLength() > maxSizeBytes) {
+            inFlight.remove(blobName, started);
+            started.complete(null);
+            return attachment;
+        }
+        SharedDownload shared = new SharedDownload(attachment, () -> inFlight.remove(blobName, started));
+        AttachmentContent leader = shared.join();
+        started.complete(shared);
+        return leader;
+    }
+
+    private SharedDownload await(CompletableFuture<SharedDownload> download)
+            throws BlobStorageClientException, AttachmentNotFoundException, RangeNotSatisfiableException {
+        try {
+            return download.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof BlobStorageClientException blobStorageClientException) {
+                throw blobStorageClientException;
+            }
+            if (cause instanceof AttachmentNotFoundException attachmentNotFoundException) {
+                throw attachmentNotFoundException;
+            }
+            if (cause instanceof RangeNotSatisfiableException rangeNotSatisfiableException) {
+                throw rangeNotSatisfiableException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new BlobStorageClientException(PDFS_603, PDFS_603.getErrorMessage(), cause);
+        }
+    }
+
+    /**
+     * Blob download shared by several readers: the bytes are read from the Blob Storage stream by the
+     * reader that needs them first and kept in a pooled buffer that fits the blob, from which every reader copies.
+     * The buffer is returned to the pool once every reader has been closed.
+     */
+    private final class SharedDownload {
+
+        private final AttachmentContent attachment;
+        private final PooledBuffer pooledBuffer;
+        private final byte[] buffer;
+        private final int size;
+        private final Runnable onDone;
+
+        private volatile int available;
+        private IOException failure;
+        private boolean sourceClosed;
+        private boolean released;
+        private int readers;
+
+        SharedDownload(AttachmentContent attachment, Runnable onDone) {
+            this.attachment = attachment;
+            this.size = (int) attachment.getContentLength();
+            this.pooledBuffer = bufferPool.acquire(size);
+            this.buffer = pooledBuffer.array();
+            this.onDone = onDone;
+            if (size == 0) {
+                closeSource();
+            }
+        }
+
+        /**
+         * Register a new reader of the download
+         *
+         * @return the content for the new reader, null if the download was aborted or its buffer released
+         */
+        synchronized AttachmentContent join() {
+            if (released || sourceClosed && available < size) {
+                return null;
+            }
+            readers++;
+            return AttachmentContent.builder()
+                    .content(new Reader())
+                    .contentLength(attachment.getContentLength())
+                    .totalLength(attachment.getTotalLength())
+                    .eTag(attachment.getETag())
+                    .build();
+        }
+
+        private synchronized void fill(int position) throws IOException {
+            if (failure != null) {
+                throw new IOException("The shared PDF receipt download failed", failure);
+            }
+            if (position < available) {
+                return;
+            }
+            if (sourceClosed) {
+                throw new IOException("The shared PDF receipt download was aborted");
+            }
+            try {
+                int read = attachment.getContent().read(buffer, available, size - available);
+                if (read < 0) {
+                    throw new EOFException(String.format("The PDF receipt stream ended after %d of %d bytes", available, size));
+                }
+                available += read;
+            } catch (IOException e) {
+                failure = e;
+                closeSource();
+                throw e;
+            }
+            if (available == size) {
+                closeSource();
+            }
+        }
+
+        private synchronized void readerClosed() {
+            readers--;
+            if (readers == 0) {
+                // the download is aborted if not yet complete, no reader can join it once the buffer is released
+                closeSource();
+                released = true;
+                pooledBuffer.release();
+            }
+        }
+
+        private void closeSource() {
+            if (sourceClosed) {
+                return;
+            }
+            sourceClosed = true;
+            onDone.run();
+            try {
+                attachment.getContent().close();
+            } catch (IOException e) {
+                logger.warn("Unable to close the PDF receipt stream", e);
+            }
+        }
+
+        private final class Reader extends InputStream {
+
+            private int position;
+            private boolean closed;
+
+            @Override
+            public int read() throws IOException {
+                byte[] single = new byte[1];
+                int read = read(single, 0, 1);
+                return read < 0 ? -1 : single[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (closed) {
+                    throw new IOException("Stream closed");
+                }
+                if (len == 0) {
+                    return 0;
+                }
+                if (position >= size) {
+                    return -1;
+                }
+                if (position >= available) {
+                    fill(position);
+                }
+                int read = Math.min(len, available - position);
+                System.arraycopy(buffer, position, b, off, read);
+                position += read;
+                return read;
+            }
+
+            @Override
+            public int available() {
+                return closed ? 0 : available - position;
+            }
+
+            @Override
+            public void close() {
+                if (!closed) {
+                    closed = true;
+                    readerClosed();
+                }
+            }
+        }
+    }
+}
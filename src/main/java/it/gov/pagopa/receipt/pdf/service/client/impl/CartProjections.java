@@ -0,0 +1,66 @@
+package it.gov.pagopa.receipt.pdf.service.client.impl;
+
+import com.azure.cosmos.models.CosmosQueryRequestOptions;
+import com.azure.cosmos.models.PartitionKey;
+import com.azure.cosmos.models.SqlParameter;
+import com.azure.cosmos.models.SqlQuerySpec;
+
+import java.util.List;
+
+/**
+ * Projected queries of the cart container, shared by the blocking and the non-blocking client
+ */
+final class CartProjections {
+
+    /*
+     * Authorization view of a cart: the fiscal codes, the attachment metadata, the status and the reason errors,
+     * and at most the message of one recipient. The undefined fields are left out, so that they are null once
+     * deserialized as in the full document.
+     */
+    private static final String AUTHORIZATION_VIEW_QUERY = """
+            SELECT c.id, c.cartId, c.version, c.status, c.reasonErr,
+                (IS_OBJECT(c.payload) ? {
+                    "payerFiscalCode": c.payload.payerFiscalCode,
+                    "mdAttachPayer": c.payload.mdAttachPayer,
+                    "messagePayer": (@payerMessage ? c.payload.messagePayer : undefined),
+                    "reasonErrPayer": c.payload.reasonErrPayer,
+                    "cart": (IS_ARRAY(c.payload.cart) ? ARRAY(
+                        SELECT VALUE {
+                            "bizEventId": p.bizEventId,
+                            "debtorFiscalCode": p.debtorFiscalCode,
+                            "mdAttach": p.mdAttach,
+                            "messageDebtor": (p.bizEventId = @debtorMessageBizEventId ? p.messageDebtor : undefined),
+                            "reasonErrDebtor": p.reasonErrDebtor
+                        } FROM p IN c.payload.cart) : c.payload.cart)
+                } : c.payload) AS payload
+            FROM c WHERE c.id = @cartId""";
+
+    private CartProjections() {
+    }
+
+    /**
+     * Build the query of the authorization view of the cart
+     *
+     * @param cartId      the id of the cart
+     * @param bizEventId  the business event of the debtor whose message is kept, null to keep the payer message
+     * @param withMessage false to leave out every message
+     * @return the query
+     */
+    static SqlQuerySpec authorizationView(String cartId, String bizEventId, boolean withMessage) {
+        return new SqlQuerySpec(AUTHORIZATION_VIEW_QUERY, List.of(
+                new SqlParameter("@cartId", cartId),
+                new SqlParameter("@payerMessage", withMessage && bizEventId == null),
+                new SqlParameter("@debtorMessageBizEventId", withMessage ? bizEventId : null)
+        ));
+    }
+
+    /**
+     * Build the options of a query scoped to the partition of the cart
+     *
+     * @param cartId the id of the cart, that is its partition key
+     * @return the query options
+     */
+    static CosmosQueryRequestOptions singlePartition(String cartId) {
+        return new CosmosQueryRequestOptions().setPartitionKey(new PartitionKey(cartId));
+    }
+}
@@ -0,0 +1,109 @@
+package it.gov.pagopa.receipt.pdf.service.client.impl;
+
+import com.azure.cosmos.CosmosAsyncContainer;
+import com.azure.cosmos.CosmosException;
+import com.azure.cosmos.models.CosmosItemResponse;
+import com.azure.cosmos.models.PartitionKey;
+import io.smallrye.mutiny.Uni;
+import it.gov.pagopa.receipt.pdf.service.client.CartReceiptCosmosAsyncClient;
+import it.gov.pagopa.receipt.pdf.service.enumeration.AppErrorCodeEnum;
+import it.gov.pagopa.receipt.pdf.service.exception.CartNotFoundException;
+import it.gov.pagopa.receipt.pdf.service.model.cart.CartForReceipt;
+import it.gov.pagopa.receipt.pdf.service.producer.receipt.containers.CartContainer;
+import it.gov.pagopa.receipt.pdf.service.utils.PerfTracer;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static it.gov.pagopa.receipt.pdf.service.utils.CommonUtils.sanitize;
+import static it.gov.pagopa.receipt.pdf.service.utils.PerfTracer.CONTAINER_TAG;
+import static it.gov.pagopa.receipt.pdf.service.utils.PerfTracer.FOUND_TAG;
+import static it.gov.pagopa.receipt.pdf.service.utils.ReactiveUtils.toUni;
+
+/**
+ * Non-blocking client for the cart receipts container of the CosmosDB database
+ */
+@ApplicationScoped
+public class CartReceiptCosmosAsyncClientImpl implements CartReceiptCosmosAsyncClient {
+
+    private static final int HTTP_NOT_FOUND = 404;
+
+    private final Logger logger = LoggerFactory.getLogger(CartReceiptCosmosAsyncClientImpl.class);
+
+    private final CosmosAsyncContainer containerCartReceipts;
+    private final boolean projectedReadEnabled;
+
+    @Inject
+    public CartReceiptCosmosAsyncClientImpl(
+            @CartContainer CosmosAsyncContainer containerCartReceipts,
+            @ConfigProperty(name = "cosmos.cart.projected-read.enabled") boolean projectedReadEnabled
+    ) {
+        this.containerCartReceipts = containerCartReceipts;
+        this.projectedReadEnabled = projectedReadEnabled;
+    }
+
+    /**
+     * Retrieve the cart document from CosmosDB database with a point read by id
+     *
+     * @param cartId the id of the cart
+     * @return the cart document, or a failure with {@link CartNotFoundException} if no cart has been found
+     */
+    @Override
+    public Uni<CartForReceipt> getCartForReceiptDocument(String cartId) {
+        return Uni.createFrom().deferred(() -> {
+            PerfTracer tracer = PerfTracer.start(logger, "cosmos.cartReceipts.pointRead");
+            return toUni(containerCartReceipts.readItem(cartId, new PartitionKey(cartId), CartForReceipt.class))
+                    .map(CosmosItemResponse::getItem)
+                    .onItemOrFailure().invoke((cart, failure) -> {
+                        // tagged only on completion, on the thread that closes the tracer, so that the MDC tags do not leak
+                        try (tracer) {
+                            tracer.tag(CONTAINER_TAG, containerCartReceipts.getId()).tag(FOUND_TAG, !isNotFound(failure));
+                        }
+                    })
+                    .onFailure(CartReceiptCosmosAsyncClientImpl::isNotFound)
+                    .transform(failure -> notFound(cartId, failure));
+        });
+    }
+
+    /**
+     * Retrieve the authorization view of the cart with a query projected on its fields, scoped to the partition
+     * of the cart, or with the point read of the whole document if the projected read is disabled
+     *
+     * @param cartId      the id of the cart
+     * @param bizEventId  the business event of the debtor whose message is retrieved, null for the payer message
+     * @param withMessage false to retrieve no message at all
+     * @return the cart with only the fields of the authorization view, or a failure with
+     * {@link CartNotFoundException} if no cart has been found
+     */
+    @Override
+    public Uni<CartForReceipt> getCartAuthorizationView(String cartId, String bizEventId, boolean withMessage) {
+        if (!projectedReadEnabled) {
+            return getCartForReceiptDocument(cartId);
+        }
+        return Uni.createFrom().deferred(() -> {
+            PerfTracer tracer = PerfTracer.start(logger, "cosmos.cartReceipts.projectedQuery");
+            return toUni(containerCartReceipts.queryItems(CartProjections.authorizationView(cartId, bizEventId, withMessage),
+                    CartProjections.singlePartition(cartId), CartForReceipt.class).next())
+                    .onItemOrFailure().invoke((cart, failure) -> {
+                        try (tracer) {
+                            tracer.tag(CONTAINER_TAG, containerCartReceipts.getId()).tag(FOUND_TAG, cart != null);
+                        }
+                    })
+                    .onItem().ifNull().failWith(() -> notFound(cartId, null));
+        });
+    }
+
+    private CartNotFoundException notFound(String cartId, Throwable cause) {
+        String errMsg = String.format(
+                "Cart with id %s not found in the defined container: %s",
+                sanitize(cartId), containerCartReceipts.getId());
+        logger.error(errMsg);
+        return new CartNotFoundException(AppErrorCodeEnum.PDFS_801, errMsg, cartId, cause);
+    }
+
+    private static boolean isNotFound(Throwable failure) {
+        return failure instanceof CosmosException cosmosException && cosmosException.getStatusCode() == HTTP_NOT_FOUND;
+    }
+}
@@ -18,6 +18,7 @@ import it.gov.pagopa.receipt.pdf.service.producer.receipt.containers.CartReceipt
 import it.gov.pagopa.receipt.pdf.service.producer.receipt.containers.CartReceiptsIOMessagesContainer;
 import it.gov.pagopa.receipt.pdf.service.utils.PerfTracer;
 import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -25,6 +26,7 @@ import java.util.List;
 
 import static it.gov.pagopa.receipt.pdf.service.utils.CommonUtils.sanitize;
 import static it.gov.pagopa.receipt.pdf.service.utils.PerfTracer.CONTAINER_TAG;
+import static it.gov.pagopa.receipt.pdf.service.utils.PerfTracer.FOUND_TAG;
 
 /**
  * Client for the CosmosDB database
@@ -44,6 +46,9 @@ public class CartReceiptCosmosClientImpl implements CartReceiptCosmosClient {
     @CartReceiptsErrorContainer
     CosmosContainer containerCartReceiptsError;
 
+    @ConfigProperty(name = "cosmos.cart.projected-read.enabled")
+    boolean projectedReadEnabled;
+
     CartReceiptCosmosClientImpl() {
     }
 
@@ -68,6 +73,40 @@ public class CartReceiptCosmosClientImpl implements CartReceiptCosmosClient {
         }
     }
 
+    /**
+     * Retrieve the authorization view of the cart with a query projected on its fields, scoped to the partition
+     * of the cart, or with the point read of the whole document if the projected read is disabled
+     *
+     * @param cartId      the id of the cart
+     * @param bizEventId  the business event of the debtor whose message is retrieved, null for the payer message
+     * @param withMessage false to retrieve no message at all
+     * @return the cart for receipt, with only the fields of the authorization view
+     * @throws CartNotFoundException in case cart receipt is not found
+     */
+    @Override
+    public CartForReceipt getCartAuthorizationView(String cartId, String bizEventId, boolean withMessage)
+            throws CartNotFoundException {
+        if (!projectedReadEnabled) {
+            return getCartForReceiptDocument(cartId);
+        }
+        try (PerfTracer t = PerfTracer.start(logger, "cosmos.cartReceipts.projectedQuery")
+                .tag(CONTAINER_TAG, containerCartReceipts.getId())) {
+            return this.containerCartReceipts
+                    .queryItems(CartProjections.authorizationView(cartId, bizEventId, withMessage),
+                            CartProjections.singlePartition(cartId), CartForReceipt.class)
+                    .stream()
+                    .findFirst()
+                    .orElseThrow(() -> {
+                        t.tag(FOUND_TAG, false);
+                        String errMsg = String.format(
+                                "Cart with id %s not found in the defined container: %s",
+                                sanitize(cartId), containerCartReceipts.getId());
+                        logger.error(errMsg);
+                        return new CartNotFoundException(AppErrorCodeEnum.PDFS_801, errMsg, cartId);
+                    });
+        }
+    }
+
     @Override
     public CartIOMessage getCartIoMessage(String messageId) throws IoMessageNotFoundException {
         //Build query
@@ -0,0 +1,200 @@
+package it.gov.pagopa.receipt.pdf.service.client.impl;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.Cleaner;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of the heap buffers used to download the PDF receipts in memory.
+ * <p>
+ * The buffers are grouped in power-of-two size classes, from {@code min-buffer-size} to {@code max-buffer-size}:
+ * a request borrows the smallest buffer that fits and returns it once the bytes were consumed, so that in steady
+ * state the downloads reuse the same arrays instead of allocating (and growing) a new one per request.
+ * Each size class retains at most its share of {@code max-pooled-bytes}, bigger requests are served with
+ * an unpooled array.
+ * <p>
+ * Every borrowed buffer must be released exactly once. The number of outstanding buffers is exposed to
+ * verify it in the tests and, if {@code leak-detection} is set, a buffer garbage collected without being
+ * released is logged together with the stack trace of the borrower.
+ */
+@ApplicationScoped
+public class DownloadBufferPool {
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final Logger logger = LoggerFactory.getLogger(DownloadBufferPool.class);
+
+    private final boolean enabled;
+    private final int minBufferSize;
+    private final int maxBufferSize;
+    private final boolean leakDetection;
+    private final List<BlockingQueue<byte[]>> sizeClasses = new ArrayList<>();
+
+    private final AtomicInteger outstandingBuffers = new AtomicInteger();
+    private final AtomicLong allocatedBuffers = new AtomicLong();
+    private final AtomicLong leakedBuffers = new AtomicLong();
+
+    @Inject
+    public DownloadBufferPool(
+            @ConfigProperty(name = "blob.storage.client.buffer-pool.enabled") boolean enabled,
+            @ConfigProperty(name = "blob.storage.client.buffer-pool.min-buffer-size") int minBufferSize,
+            @ConfigProperty(name = "blob.storage.client.buffer-pool.max-buffer-size") int maxBufferSize,
+            @ConfigProperty(name = "blob.storage.client.buffer-pool.max-pooled-bytes") long maxPooledBytes,
+            @ConfigProperty(name = "blob.storage.client.buffer-pool.leak-detection") boolean leakDetection
+    ) {
+        this.enabled = enabled;
+        this.minBufferSize = roundToPowerOfTwo(Math.max(1, minBufferSize));
+        this.maxBufferSize = Math.max(this.minBufferSize, roundToPowerOfTwo(maxBufferSize));
+        this.leakDetection = leakDetection;
+        int classes = Integer.numberOfTrailingZeros(this.maxBufferSize) - Integer.numberOfTrailingZeros(this.minBufferSize) + 1;
+        for (int size = this.minBufferSize, i = 0; i < classes; size <<= 1, i++) {
+            // each size class keeps at least one buffer, so that a single download at a time never allocates
+            long retained = Math.max(1, maxPooledBytes / classes / size);
+            sizeClasses.add(new ArrayBlockingQueue<>((int) Math.min(retained, Integer.MAX_VALUE)));
+        }
+    }
+
+    /**
+     * Borrow a buffer of at least the provided capacity, to be released once its bytes were consumed
+     *
+     * @param minCapacity the minimum size of the buffer
+     * @return the borrowed buffer
+     */
+    public PooledBuffer acquire(int minCapacity) {
+        int sizeClass = sizeClass(minCapacity);
+        byte[] array = sizeClass >= 0 ? sizeClasses.get(sizeClass).poll() : null;
+        if (array == null) {
+            array = new byte[sizeClass >= 0 ? minBufferSize << sizeClass : minCapacity];
+            allocatedBuffers.incrementAndGet();
+        }
+        outstandingBuffers.incrementAndGet();
+        return new PooledBuffer(array, sizeClass);
+    }
+
+    /**
+     * Open an output stream that collects the written bytes in pooled buffers
+     *
+     * @param initialCapacity the expected number of bytes, the stream grows if more bytes are written
+     * @return the output stream
+     */
+    public PooledOutputStream newOutputStream(int initialCapacity) {
+        return new PooledOutputStream(this, initialCapacity);
+    }
+
+    /**
+     * Return the number of buffers borrowed and not yet released
+     *
+     * @return the number of outstanding buffers
+     */
+    public int getOutstandingBuffers() {
+        return outstandingBuffers.get();
+    }
+
+    /**
+     * Return the number of buffers allocated since startup because the pool had none available
+     *
+     * @return the number of allocated buffers
+     */
+    public long getAllocatedBuffers() {
+        return allocatedBuffers.get();
+    }
+
+    /**
+     * Return the number of buffers garbage collected without being released, counted only with leak detection
+     *
+     * @return the number of leaked buffers
+     */
+    public long getLeakedBuffers() {
+        return leakedBuffers.get();
+    }
+
+    private int sizeClass(int capacity) {
+        if (!enabled || capacity > maxBufferSize) {
+            return -1;
+        }
+        int size = roundToPowerOfTwo(Math.max(capacity, minBufferSize));
+        return Integer.numberOfTrailingZeros(size) - Integer.numberOfTrailingZeros(minBufferSize);
+    }
+
+    private void release(byte[] array, int sizeClass) {
+        outstandingBuffers.decrementAndGet();
+        if (sizeClass >= 0) {
+            // a full size class drops the buffer, the pool never retains more than its budget
+            sizeClasses.get(sizeClass).offer(array);
+        }
+    }
+
+    private static int roundToPowerOfTwo(int value) {
+        int highest = Integer.highestOneBit(value);
+        return highest == value ? value : highest << 1;
+    }
+
+    /**
+     * Buffer borrowed from the pool
+     */
+    public final class PooledBuffer {
+
+        private final byte[] array;
+        private final int sizeClass;
+        private final Leak leak;
+        private final Cleaner.Cleanable cleanable;
+
+        private PooledBuffer(byte[] array, int sizeClass) {
+            this.array = array;
+            this.sizeClass = sizeClass;
+            this.leak = new Leak(leakDetection ? new Throwable("Buffer acquired here") : null);
+            // the cleaning action must not reference the buffer, or it would never become unreachable
+            this.cleanable = leakDetection ? CLEANER.register(this, leak) : null;
+        }
+
+        /**
+         * Return the backing array, that may be bigger than the requested capacity
+         *
+         * @return the array of the buffer
+         */
+        public byte[] array() {
+            return array;
+        }
+
+        /**
+         * Return the buffer to the pool, further calls have no effect
+         */
+        public void release() {
+            if (leak.released.compareAndSet(false, true)) {
+                if (cleanable != null) {
+                    cleanable.clean();
+                }
+                DownloadBufferPool.this.release(array, sizeClass);
+            }
+        }
+    }
+
+    private final class Leak implements Runnable {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+        private final Throwable acquiredAt;
+
+        private Leak(Throwable acquiredAt) {
+            this.acquiredAt = acquiredAt;
+        }
+
+        @Override
+        public void run() {
+            if (released.compareAndSet(false, true)) {
+                leakedBuffers.incrementAndGet();
+                logger.error("A download buffer was garbage collected without being released to the pool", acquiredAt);
+            }
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package it.gov.pagopa.receipt.pdf.service.client.impl;
+
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.context.ManagedExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Execute the Blob Storage reads with hedging, to cut the latency tail caused by a slow partition server.
+ * <p>
+ * If the first read has not returned within the hedging threshold a second, identical read is sent (to the
+ * RA-GRS secondary endpoint if configured) and the first successful result is used, the other one is discarded
+ * as soon as it completes. The threshold is the configured percentile (p95 by default) of the latencies of the
+ * last {@value #WINDOW_SIZE} reads, so only the slowest reads are hedged and the extra load stays bounded.
+ * <p>
+ * The RA-GRS secondary is replicated asynchronously, so it may answer 404 (or a stale ETag condition failure)
+ * for a PDF receipt written moments earlier on the primary. A failed hedged read never wins the race: the result
+ * of the first read is awaited, and if both fail the failure of the first read is returned.
+ */
+@ApplicationScoped
+public class HedgedRequestExecutor {
+
+    static final int WINDOW_SIZE = 1024;
+    static final int MIN_SAMPLES = 100;
+    private static final int RECOMPUTE_EVERY = 64;
+
+    private final Logger logger = LoggerFactory.getLogger(HedgedRequestExecutor.class);
+
+    private final boolean enabled;
+    private final double percentile;
+    private final long minDelayMillis;
+    private final long initialDelayMillis;
+    private final Executor executor;
+
+    private final long[] latencies = new long[WINDOW_SIZE];
+    private int recorded;
+    private volatile long thresholdMillis;
+    private final AtomicLong hedgedRequests = new AtomicLong();
+
+    @Inject
+    public HedgedRequestExecutor(
+            @ConfigProperty(name = "blob.storage.client.hedging.enabled") boolean enabled,
+            @ConfigProperty(name = "blob.storage.client.hedging.percentile") double percentile,
+            @ConfigProperty(name = "blob.storage.client.hedging.min-delay-ms") long minDelayMillis,
+            @ConfigProperty(name = "blob.storage.client.hedging.initial-delay-ms") long initialDelayMillis,
+            ManagedExecutor executor
+    ) {
+        this.enabled = enabled;
+        this.percentile = Math.min(1, Math.max(0, percentile));
+        this.minDelayMillis = minDelayMillis;
+        this.initialDelayMillis = initialDelayMillis;
+        this.executor = executor;
+        this.thresholdMillis = Math.max(minDelayMillis, initialDelayMillis);
+    }
+
+    /**
+     * Return true if the reads are hedged
+     *
+     * @return true if enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Execute the read on the calling thread, sending the hedged read on the worker pool if the read is slower
+     * than the hedging threshold. The calling thread stays on its read, so the hedged read does not shorten a
+     * slow read that succeeds: its result is used if it completes first, or if the read fails.
+     * If hedging is disabled the read is executed as it is.
+     *
+     * @param read    the read
+     * @param hedge   the hedged read, used only if the first one is slow
+     * @param discard release the result of the read that completed last
+     * @param <T>     the type of the result
+     * @return the result of the first successful read, or the failure of the first read if both fail
+     */
+    public <T> T execute(Supplier<T> read, Supplier<T> hedge, Consumer<T> discard) {
+        if (!enabled) {
+            return read.get();
+        }
+        long start = System.nanoTime();
+        HedgedRace<T> race = new HedgedRace<>(discard);
+        // the read is pending before the hedged read can start, so that a failed hedged read waits for it
+        CompletableFuture<T> first = new CompletableFuture<>();
+        race.start(first, true);
+        scheduleHedge(race, () -> call(hedge, new CompletableFuture<>()));
+        call(read, first);
+        try {
+            T result = race.winner.join();
+            record(start);
+            return result;
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    /**
+     * Execute the read without blocking the calling thread, sending the hedged read if the first one has not
+     * emitted within the hedging threshold. If hedging is disabled the read is returned as it is.
+     *
+     * @param read    the read, subscribed when the returned uni is
+     * @param hedge   the hedged read, subscribed only if the first one is slow
+     * @param discard release the result of the read that completed last, or of any read completing after
+     *                the returned uni was cancelled
+     * @param <T>     the type of the result
+     * @return the uni emitting the result of the first successful read, or the failure of the first read
+     * if both fail
+     */
+    public <T> Uni<T> executeAsync(Supplier<Uni<T>> read, Supplier<Uni<T>> hedge, Consumer<T> discard) {
+        if (!enabled) {
+            return read.get();
+        }
+        return Uni.createFrom().deferred(() -> {
+            long start = System.nanoTime();
+            HedgedRace<T> race = new HedgedRace<>(discard);
+            race.start(read.get().subscribeAsCompletionStage(), true);
+            scheduleHedge(race, () -> hedge.get().subscribeAsCompletionStage());
+            return Uni.createFrom().completionStage(race.winner.whenComplete((result, failure) -> {
+                        if (failure == null) {
+                            record(start);
+                        }
+                    }))
+                    // a read completing after the cancellation cannot win anymore, so it is discarded
+                    .onCancellation().invoke(() -> race.winner.cancel(false));
+        });
+    }
+
+    /**
+     * Return the current hedging threshold
+     *
+     * @return the delay after which a read is hedged, in milliseconds
+     */
+    public long getThresholdMillis() {
+        return thresholdMillis;
+    }
+
+    /**
+     * Return the number of reads that were hedged since startup
+     *
+     * @return the number of hedged reads
+     */
+    public long getHedgedRequests() {
+        return hedgedRequests.get();
+    }
+
+    private <T> void scheduleHedge(HedgedRace<T> race, Supplier<CompletableFuture<T>> hedge) {
+        // only the hedged read is handed to the worker pool, once the threshold has elapsed without a result
+        CompletableFuture.delayedExecutor(thresholdMillis, TimeUnit.MILLISECONDS, executor).execute(() -> {
+            if (race.reserveHedge()) {
+                logger.debug("Blob Storage read slower than {} ms, sending a hedged read", thresholdMillis);
+                hedgedRequests.incrementAndGet();
+                race.start(hedge.get(), false);
+            }
+        });
+    }
+
+    private static <T> CompletableFuture<T> call(Supplier<T> read, CompletableFuture<T> result) {
+        try {
+            result.complete(read.get());
+        } catch (RuntimeException | Error e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private void record(long startNanos) {
+        long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        long[] window = null;
+        synchronized (latencies) {
+            latencies[recorded % WINDOW_SIZE] = latencyMillis;
+            recorded++;
+            if (recorded >= MIN_SAMPLES && recorded % RECOMPUTE_EVERY == 0) {
+                window = Arrays.copyOf(latencies, Math.min(recorded, WINDOW_SIZE));
+            }
+        }
+        if (window != null) {
+            Arrays.sort(window);
+            int index = (int) Math.ceil(percentile * window.length) - 1;
+            thresholdMillis = Math.max(minDelayMillis, window[Math.max(0, index)]);
+        }
+    }
+
+    /**
+     * Race between the read and the hedged read: the first success wins, the other result is discarded
+     */
+    private static final class HedgedRace<T> {
+
+        private final CompletableFuture<T> winner = new CompletableFuture<>();
+        private final Consumer<T> discard;
+
+        private int pending;
+        private Throwable readFailure;
+
+        HedgedRace(Consumer<T> discard) {
+            this.discard = discard;
+        }
+
+        synchronized boolean reserveHedge() {
+            // the hedged read is pending from now, so that a failure of the read waits for it
+            if (winner.isDone()) {
+                return false;
+            }
+            pending++;
+            return true;
+        }
+
+        void start(CompletableFuture<T> candidate, boolean primary) {
+            if (primary) {
+                synchronized (this) {
+                    pending++;
+                }
+            }
+            candidate.whenComplete((result, failure) -> complete(result, failure, primary));
+        }
+
+        private synchronized void complete(T result, Throwable failure, boolean primary) {
+            pending--;
+            if (failure == null) {
+                if (!winner.complete(result)) {
+                    discard.accept(result);
+                }
+                return;
+            }
+            if (primary) {
+                readFailure = failure;
+            }
+            if (pending == 0) {
+                winner.completeExceptionally(readFailure != null ? readFailure : failure);
+            }
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable failure) {
+        if (failure instanceof CompletionException && failure.getCause() != null) {
+            failure = failure.getCause();
+        }
+        if (failure instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (failure instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException(failure);
+    }
+}
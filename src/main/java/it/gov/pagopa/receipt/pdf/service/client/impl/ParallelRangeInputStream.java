@@ -0,0 +1,195 @@
+package it.gov.pagopa.receipt.pdf.service.client.impl;
+
+import com.azure.core.util.Context;
+import com.azure.storage.blob.BlobClient;
+import com.azure.storage.blob.models.BlobRange;
+import com.azure.storage.blob.models.BlobRequestConditions;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Stream over a large blob that downloads the bytes following the first block with parallel ranged reads.
+ * <p>
+ * The first block is read from the stream that returned the blob properties, then up to {@code maxConcurrency}
+ * ranges of {@code chunkSize} bytes are downloaded ahead of the reader and returned in order, so that the
+ * memory held by the stream is bounded by {@code chunkSize * maxConcurrency}. Every ranged read is conditioned
+ * on the ETag of the first block, so all the chunks come from the same version of the blob.
+ * <p>
+ * The chunks are downloaded in buffers borrowed from the {@link DownloadBufferPool}, each one is released as soon
+ * as the reader moves to the next chunk; the chunks still in flight when the stream is closed are released once
+ * their download completes.
+ */
+class ParallelRangeInputStream extends InputStream {
+
+    private final BlobClient blobClient;
+    private final InputStream firstBlock;
+    private final long end;
+    private final long chunkSize;
+    private final int maxConcurrency;
+    private final BlobRequestConditions conditions;
+    private final Executor executor;
+    private final DownloadBufferPool bufferPool;
+    private final Duration timeout;
+
+    private final Deque<CompletableFuture<PooledOutputStream>> pending = new ArrayDeque<>();
+    private long firstBlockRemaining;
+    private long nextOffset;
+    private PooledOutputStream current;
+    private int position;
+    private boolean closed;
+
+    /**
+     * Build the stream and start downloading the ranges that follow the first block
+     *
+     * @param blobClient       the client of the blob
+     * @param firstBlock       the stream positioned at {@code start}, holding at least {@code firstBlockLength} bytes
+     * @param firstBlockLength the number of bytes read from the first block
+     * @param start            the position of the first byte of the stream in the blob
+     * @param end              the position following the last byte of the stream in the blob
+     * @param chunkSize        the size of the ranged reads
+     * @param maxConcurrency   the maximum number of ranged reads in flight
+     * @param eTag             the ETag of the blob, checked by every ranged read
+     * @param executor         the executor of the ranged reads
+     * @param bufferPool       the pool of the buffers of the chunks
+     * @param timeout          the timeout of each ranged read
+     */
+    ParallelRangeInputStream(
+            BlobClient blobClient,
+            InputStream firstBlock,
+            long firstBlockLength,
+            long start,
+            long end,
+            long chunkSize,
+            int maxConcurrency,
+            String eTag,
+            Executor executor,
+            DownloadBufferPool bufferPool,
+            Duration timeout
+    ) {
+        this.blobClient = blobClient;
+        this.firstBlock = firstBlock;
+        this.firstBlockRemaining = firstBlockLength;
+        this.end = end;
+        this.chunkSize = chunkSize;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.conditions = eTag != null ? new BlobRequestConditions().setIfMatch(eTag) : null;
+        this.executor = executor;
+        this.bufferPool = bufferPool;
+        this.timeout = timeout;
+        this.nextOffset = start + firstBlockLength;
+        schedule();
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        int read = read(b, 0, 1);
+        return read < 0 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (firstBlockRemaining > 0) {
+            int read = firstBlock.read(b, off, (int) Math.min(len, firstBlockRemaining));
+            if (read < 0) {
+                throw new EOFException("Unexpected end of the first block of the blob");
+            }
+            firstBlockRemaining -= read;
+            return read;
+        }
+        if ((current == null || position == current.size()) && !nextChunk()) {
+            return -1;
+        }
+        int read = Math.min(len, current.size() - position);
+        System.arraycopy(current.array(), position, b, off, read);
+        position += read;
+        return read;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        // the ranged reads already in flight complete in background and their buffers are released
+        pending.forEach(chunk -> chunk.thenAccept(PooledOutputStream::close));
+        pending.clear();
+        releaseCurrent();
+        firstBlock.close();
+    }
+
+    private boolean nextChunk() throws IOException {
+        releaseCurrent();
+        CompletableFuture<PooledOutputStream> next = pending.poll();
+        if (next == null) {
+            return false;
+        }
+        try {
+            current = next.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() instanceof UncheckedIOException unchecked ? unchecked.getCause() : e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Unable to download a range of the blob", cause);
+        }
+        position = 0;
+        schedule();
+        return true;
+    }
+
+    private void schedule() {
+        while (pending.size() < maxConcurrency && nextOffset < end) {
+            long offset = nextOffset;
+            long count = Math.min(chunkSize, end - offset);
+            pending.add(CompletableFuture.supplyAsync(() -> download(offset, count), executor));
+            nextOffset += count;
+        }
+    }
+
+    private void releaseCurrent() {
+        if (current != null) {
+            current.close();
+            current = null;
+        }
+    }
+
+    private PooledOutputStream download(long offset, long count) {
+        PooledOutputStream outputStream = bufferPool.newOutputStream((int) count);
+        try {
+            blobClient.downloadStreamWithResponse(
+                    outputStream,
+                    new BlobRange(offset, count),
+                    null,
+                    conditions,
+                    false,
+                    timeout,
+                    Context.NONE
+            );
+            if (outputStream.size() != count) {
+                throw new UncheckedIOException(new EOFException(String.format(
+                        "Expected %d bytes from offset %d of the blob, received %d", count, offset, outputStream.size())));
+            }
+            return outputStream;
+        } catch (RuntimeException e) {
+            outputStream.close();
+            throw e;
+        }
+    }
+}
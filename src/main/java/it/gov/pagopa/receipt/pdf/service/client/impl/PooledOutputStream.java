@@ -0,0 +1,162 @@
+package it.gov.pagopa.receipt.pdf.service.client.impl;
+
+import it.gov.pagopa.receipt.pdf.service.client.impl.DownloadBufferPool.PooledBuffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Objects;
+
+/**
+ * Output stream that collects the written bytes in a buffer borrowed from the {@link DownloadBufferPool}.
+ * <p>
+ * When the buffer is full the bytes are moved to a buffer of the next size class and the previous one is
+ * released. The bytes are read back with {@link #toInputStream()}, that takes over the buffer and returns it
+ * to the pool once closed; closing the output stream without reading it releases the buffer immediately.
+ */
+public class PooledOutputStream extends OutputStream {
+
+    private final DownloadBufferPool pool;
+    private PooledBuffer buffer;
+    private int count;
+    private boolean transferred;
+
+    PooledOutputStream(DownloadBufferPool pool, int initialCapacity) {
+        this.pool = pool;
+        this.buffer = pool.acquire(Math.max(1, initialCapacity));
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureCapacity(1);
+        buffer.array()[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        ensureCapacity(len);
+        System.arraycopy(b, off, buffer.array(), count, len);
+        count += len;
+    }
+
+    /**
+     * Return the number of bytes written
+     *
+     * @return the size of the content
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Return the array holding the written bytes, valid only until the stream is closed
+     *
+     * @return the backing array, its first {@link #size()} bytes are the content
+     */
+    public byte[] array() {
+        return buffer.array();
+    }
+
+    /**
+     * Open a stream over the written bytes, that releases the buffer once closed.
+     * The output stream cannot be written after this call.
+     *
+     * @return the stream over the content
+     */
+    public InputStream toInputStream() {
+        transferred = true;
+        return new PooledInputStream(buffer, count);
+    }
+
+    @Override
+    public void close() {
+        if (!transferred) {
+            transferred = true;
+            buffer.release();
+        }
+    }
+
+    private void ensureCapacity(int len) throws IOException {
+        if (transferred) {
+            throw new IOException("Stream closed");
+        }
+        int required = count + len;
+        if (required < 0) {
+            throw new IOException("The content exceeds the maximum size of a buffer");
+        }
+        if (required <= buffer.array().length) {
+            return;
+        }
+        int grown = buffer.array().length << 1;
+        PooledBuffer larger = pool.acquire(grown > 0 ? Math.max(grown, required) : required);
+        System.arraycopy(buffer.array(), 0, larger.array(), 0, count);
+        buffer.release();
+        buffer = larger;
+    }
+
+    /**
+     * Stream over the content of a pooled buffer
+     */
+    private static final class PooledInputStream extends InputStream {
+
+        private final PooledBuffer buffer;
+        private final int count;
+        private int position;
+        private boolean closed;
+
+        private PooledInputStream(PooledBuffer buffer, int count) {
+            this.buffer = buffer;
+            this.count = count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            ensureOpen();
+            return position < count ? buffer.array()[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            Objects.checkFromIndexSize(off, len, b.length);
+            ensureOpen();
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= count) {
+                return -1;
+            }
+            int read = Math.min(len, count - position);
+            System.arraycopy(buffer.array(), position, b, off, read);
+            position += read;
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            ensureOpen();
+            long skipped = Math.max(0, Math.min(n, count - position));
+            position += (int) skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return closed ? 0 : count - position;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                buffer.release();
+            }
+        }
+
+        private void ensureOpen() throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+        }
+    }
+}
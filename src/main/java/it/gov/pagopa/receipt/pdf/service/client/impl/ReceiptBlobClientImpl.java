@@ -1,26 +1,67 @@
 package it.gov.pagopa.receipt.pdf.service.client.impl;
 
+import com.azure.core.http.HttpHeaderName;
 import com.azure.core.util.Context;
+import com.azure.core.util.UrlBuilder;
+import com.azure.storage.blob.BlobAsyncClient;
 import com.azure.storage.blob.BlobClient;
+import com.azure.storage.blob.BlobContainerAsyncClient;
 import com.azure.storage.blob.BlobContainerClient;
+import com.azure.storage.blob.BlobContainerClientBuilder;
+import com.azure.storage.blob.models.BlobDownloadAsyncResponse;
+import com.azure.storage.blob.models.BlobDownloadHeaders;
+import com.azure.storage.blob.models.BlobDownloadResponse;
+import com.azure.storage.blob.models.BlobProperties;
+import com.azure.storage.blob.models.BlobRange;
+import com.azure.storage.blob.models.BlobRequestConditions;
 import com.azure.storage.blob.models.BlobStorageException;
+import com.azure.storage.blob.options.BlobInputStreamOptions;
+import com.azure.storage.blob.sas.BlobSasPermission;
+import com.azure.storage.blob.sas.BlobServiceSasSignatureValues;
+import com.azure.storage.blob.specialized.BlobInputStream;
+import com.azure.storage.common.sas.SasProtocol;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.TimeoutException;
+import io.smallrye.mutiny.Uni;
+import it.gov.pagopa.receipt.pdf.service.cache.AttachmentDiskCache;
+import it.gov.pagopa.receipt.pdf.service.cache.AttachmentETagCache;
+import it.gov.pagopa.receipt.pdf.service.cache.AttachmentMemoryCache;
+import it.gov.pagopa.receipt.pdf.service.cache.ByteBufferInputStream;
+import it.gov.pagopa.receipt.pdf.service.cache.FileChannelInputStream;
 import it.gov.pagopa.receipt.pdf.service.client.ReceiptBlobClient;
 import it.gov.pagopa.receipt.pdf.service.exception.AttachmentNotFoundException;
 import it.gov.pagopa.receipt.pdf.service.exception.BlobStorageClientException;
+import it.gov.pagopa.receipt.pdf.service.exception.RangeNotSatisfiableException;
+import it.gov.pagopa.receipt.pdf.service.model.AttachmentContent;
+import it.gov.pagopa.receipt.pdf.service.model.AttachmentDownloadOptions;
+import it.gov.pagopa.receipt.pdf.service.model.ByteRange;
+import it.gov.pagopa.receipt.pdf.service.model.CachedAttachment;
+import it.gov.pagopa.receipt.pdf.service.utils.CommonUtils;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import mutiny.zero.flow.adapters.AdaptersToFlow;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.context.ManagedExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
 
 import static it.gov.pagopa.receipt.pdf.service.enumeration.AppErrorCodeEnum.*;
 import static it.gov.pagopa.receipt.pdf.service.utils.CommonUtils.sanitize;
+import static it.gov.pagopa.receipt.pdf.service.utils.ReactiveUtils.blocking;
+import static it.gov.pagopa.receipt.pdf.service.utils.ReactiveUtils.checked;
+import static it.gov.pagopa.receipt.pdf.service.utils.ReactiveUtils.toUni;
 
 /**
  * Client for the Blob Storage
@@ -28,19 +69,103 @@ import static it.gov.pagopa.receipt.pdf.service.utils.CommonUtils.sanitize;
 @ApplicationScoped
 public class ReceiptBlobClientImpl implements ReceiptBlobClient {
 
-    private final Logger logger = LoggerFactory.getLogger(ReceiptBlobClientImpl.class);
+    private static final int HTTP_NOT_MODIFIED = 304;
+    private static final int HTTP_PRECONDITION_FAILED = 412;
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+    private static final Duration SAS_CLOCK_SKEW = Duration.ofMinutes(5);
+    // per-call response timeout honoured by the azure-core HTTP client
+    private static final String RESPONSE_TIMEOUT_CONTEXT_KEY = "azure-response-timeout";
 
-    @ConfigProperty(name = "blob.storage.client.max-retry-request")
-    private int maxRetryRequests;
+    private final Logger logger = LoggerFactory.getLogger(ReceiptBlobClientImpl.class);
 
     @ConfigProperty(name = "blob.storage.client.timeout")
     private int timeout;
 
+    @ConfigProperty(name = "blob.storage.client.stream.block-size")
+    private int streamBlockSize;
+
+    @ConfigProperty(name = "blob.storage.client.async.enabled")
+    private boolean asyncEnabled;
+
+    @ConfigProperty(name = "blob.storage.client.parallel.enabled")
+    private boolean parallelEnabled;
+
+    @ConfigProperty(name = "blob.storage.client.parallel.chunk-size")
+    private long parallelChunkSize;
+
+    @ConfigProperty(name = "blob.storage.client.parallel.max-concurrency")
+    private int parallelMaxConcurrency;
+
+    @ConfigProperty(name = "attachment.redirect.sas-expiry-seconds")
+    private long sasExpirySeconds;
+
+    @ConfigProperty(name = "blob.storage.client.secondary-host")
+    private Optional<String> secondaryHost;
+
     private final BlobContainerClient blobContainerClient;
 
+    private final BlobContainerAsyncClient blobContainerAsyncClient;
+
+    private final AttachmentETagCache eTagCache;
+
+    private final AttachmentMemoryCache memoryCache;
+
+    private final AttachmentDiskCache diskCache;
+
+    private final AttachmentDownloadCoalescer downloadCoalescer;
+
+    private final ManagedExecutor executor;
+
+    private final HedgedRequestExecutor hedgedRequestExecutor;
+
+    private final DownloadBufferPool bufferPool;
+
+    private BlobContainerClient hedgeContainerClient;
+
+    private BlobContainerAsyncClient hedgeContainerAsyncClient;
+
     @Inject
-    public ReceiptBlobClientImpl(BlobContainerClient blobContainerClient) {
+    public ReceiptBlobClientImpl(
+            BlobContainerClient blobContainerClient,
+            BlobContainerAsyncClient blobContainerAsyncClient,
+            AttachmentETagCache eTagCache,
+            AttachmentMemoryCache memoryCache,
+            AttachmentDiskCache diskCache,
+            AttachmentDownloadCoalescer downloadCoalescer,
+            ManagedExecutor executor,
+            HedgedRequestExecutor hedgedRequestExecutor,
+            DownloadBufferPool bufferPool
+    ) {
         this.blobContainerClient = blobContainerClient;
+        this.blobContainerAsyncClient = blobContainerAsyncClient;
+        this.eTagCache = eTagCache;
+        this.memoryCache = memoryCache;
+        this.diskCache = diskCache;
+        this.downloadCoalescer = downloadCoalescer;
+        this.executor = executor;
+        this.hedgedRequestExecutor = hedgedRequestExecutor;
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * Build the container clients of the hedged reads once, on the RA-GRS secondary host if configured
+     */
+    @PostConstruct
+    void init() {
+        if (secondaryHost.isEmpty()) {
+            hedgeContainerClient = blobContainerClient;
+            hedgeContainerAsyncClient = blobContainerAsyncClient;
+            return;
+        }
+        // the hedged read goes to the secondary, so it does not hit the same slow server, with the same pipeline
+        hedgeContainerClient = new BlobContainerClientBuilder()
+                .pipeline(blobContainerClient.getHttpPipeline())
+                .endpoint(UrlBuilder.parse(blobContainerClient.getBlobContainerUrl()).setHost(secondaryHost.get()).toString())
+                .buildClient();
+        hedgeContainerAsyncClient = new BlobContainerClientBuilder()
+                .pipeline(blobContainerAsyncClient.getHttpPipeline())
+                .endpoint(UrlBuilder.parse(blobContainerAsyncClient.getBlobContainerUrl()).setHost(secondaryHost.get()).toString())
+                .buildAsyncClient();
     }
 
     /**
@@ -50,31 +175,612 @@ public class ReceiptBlobClientImpl implements ReceiptBlobClient {
      * @return the file where the PDF receipt was stored
      */
     public InputStream getAttachmentFromBlobStorage(String attachmentName) throws BlobStorageClientException, AttachmentNotFoundException {
+        Optional<CachedAttachment> cachedAttachment = memoryCache.get(attachmentName);
+        if (cachedAttachment.isPresent()) {
+            return new ByteBufferInputStream(cachedAttachment.get().getBuffer().duplicate());
+        }
         BlobClient blobClient = blobContainerClient.getBlobClient(sanitize(attachmentName));
         return downloadAttachment(attachmentName, blobClient);
     }
 
-    private InputStream downloadAttachment(
-            String fileName,
-            BlobClient blobClient
-    ) throws BlobStorageClientException, AttachmentNotFoundException {
+    /**
+     * Open a stream over a PDF receipt in the blob storage, the bytes are read from the network
+     * in chunks of {@code blob.storage.client.stream.block-size} while the stream is consumed.
+     * If {@code blob.storage.client.parallel.enabled} is set, the bytes of a PDF receipt bigger than a single
+     * block that follow the first block are downloaded with parallel ranged reads.
+     * A requested byte range is passed down to the Blob Storage as a {@link BlobRange} and the If-Range
+     * validator as request conditions: if the condition fails the whole PDF receipt is returned instead.
+     * <p>
+     * If the request carries an If-None-Match validator it is first checked against the ETag cached for
+     * the blob, so that a client revalidating an unchanged PDF receipt does not cost a Blob Storage call,
+     * then it is forwarded to the Blob Storage as a conditional GET.
+     * <p>
+     * Concurrent unconditional requests for the whole PDF receipt share a single Blob Storage download.
+     * <p>
+     * If {@code blob.storage.client.async.enabled} is set the PDF receipt is downloaded with the async client:
+     * only the response headers are awaited, the body is returned as a {@link Multi} of chunks that is written
+     * to the client from the event loop.
+     *
+     * @param attachmentName file name of the PDF receipt
+     * @param options range, If-Range and If-None-Match validators of the request, may be null
+     * @return the stream over the PDF receipt (or the requested range), with its size and ETag
+     */
+    @Override
+    public AttachmentContent openAttachmentStream(String attachmentName, AttachmentDownloadOptions options)
+            throws BlobStorageClientException, AttachmentNotFoundException, RangeNotSatisfiableException {
+        Optional<AttachmentContent> local = serveLocally(attachmentName, options);
+        if (local.isPresent()) {
+            return local.get();
+        }
+
+        if (!asyncEnabled && isWholeUnconditionalDownload(options)) {
+            return downloadCoalescer.open(attachmentName, () -> openFromBlobStorage(attachmentName, null));
+        }
+        return openFromBlobStorage(attachmentName, options);
+    }
+
+    /**
+     * Open a PDF receipt without blocking the calling thread.
+     * <p>
+     * If {@code blob.storage.client.async.enabled} is set the download is started with the async client and
+     * chained to the returned uni, that emits once the response headers are received: no worker thread waits
+     * for Blob Storage. Only the disk cache lookup runs on the worker pool, as it opens a file. The suffix ranges,
+     * that need the blob size before the download, are served by
+     * {@link #openAttachmentStream(String, AttachmentDownloadOptions)} on the worker pool, as every download
+     * if the async client is disabled.
+     *
+     * @param attachmentName file name of the PDF receipt
+     * @param options range, If-Range and If-None-Match validators of the request, may be null
+     * @return the uni emitting the stream over the PDF receipt (or the requested range), with its size and ETag
+     */
+    @Override
+    public Uni<AttachmentContent> openAttachmentStreamAsync(String attachmentName, AttachmentDownloadOptions options) {
+        ByteRange range = options != null ? options.getRange() : null;
+        if (!asyncEnabled || (range != null && range.isSuffix())) {
+            return blocking(() -> openAttachmentStream(attachmentName, options));
+        }
+        Uni<Optional<AttachmentContent>> served = diskCache.isEnabled()
+                ? blocking(() -> serveLocally(attachmentName, options))
+                : checked(() -> serveLocally(attachmentName, options));
+        return served
+                .chain(local -> local.isPresent()
+                        ? Uni.createFrom().item(local.get())
+                        : openFromBlobStorageAsync(attachmentName, options));
+    }
+
+    /**
+     * Generate a read-only SAS URL for a PDF receipt, valid for {@code attachment.redirect.sas-expiry-seconds}.
+     * The SAS is scoped to the single blob and forces the content type and disposition of the response,
+     * so that the Blob Storage serves the PDF receipt with the same headers as the service.
+     *
+     * @param attachmentName file name of the PDF receipt
+     * @return the URL of the PDF receipt with the SAS token
+     */
+    @Override
+    public String generateReadSasUrl(String attachmentName) throws BlobStorageClientException {
+        BlobClient blobClient = blobContainerClient.getBlobClient(sanitize(attachmentName));
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        String blobUrl = blobClient.getBlobUrl();
+        BlobServiceSasSignatureValues sasValues = new BlobServiceSasSignatureValues(
+                now.plusSeconds(sasExpirySeconds), new BlobSasPermission().setReadPermission(true))
+                // the start time is backdated to tolerate the clock skew with the Blob Storage
+                .setStartTime(now.minus(SAS_CLOCK_SKEW))
+                .setProtocol(blobUrl.startsWith("https") ? SasProtocol.HTTPS_ONLY : SasProtocol.HTTPS_HTTP)
+                .setContentType("application/pdf")
+                .setContentDisposition("attachment;");
+        try {
+            return blobUrl + "?" + blobClient.generateSas(sasValues);
+        } catch (IllegalStateException | NullPointerException e) {
+            // the SAS can only be signed if the client was built with the account key
+            String errMsg = String.format("Unable to generate the SAS URL of the PDF receipt with name: %s", sanitize(attachmentName));
+            logger.error(errMsg, e);
+            throw new BlobStorageClientException(PDFS_605, errMsg, e);
+        }
+    }
+
+    private Optional<AttachmentContent> serveLocally(String attachmentName, AttachmentDownloadOptions options)
+            throws RangeNotSatisfiableException {
+        String ifNoneMatch = options != null ? options.getIfNoneMatch() : null;
+        if (ifNoneMatch != null) {
+            Optional<String> cachedETag = eTagCache.get(attachmentName);
+            if (cachedETag.isPresent() && CommonUtils.matchesETag(ifNoneMatch, cachedETag.get())) {
+                return Optional.of(AttachmentContent.builder().notModified(true).eTag(cachedETag.get()).build());
+            }
+        }
+
+        Optional<CachedAttachment> cachedAttachment = memoryCache.get(attachmentName)
+                .or(() -> diskCache.get(attachmentName));
+        if (cachedAttachment.isPresent()) {
+            return Optional.of(serveFromCache(cachedAttachment.get(), options));
+        }
+        return Optional.empty();
+    }
+
+    private boolean isWholeUnconditionalDownload(AttachmentDownloadOptions options) {
+        return options == null || (options.getRange() == null && options.getIfNoneMatch() == null);
+    }
+
+    private AttachmentContent openFromBlobStorage(String attachmentName, AttachmentDownloadOptions options)
+            throws BlobStorageClientException, AttachmentNotFoundException, RangeNotSatisfiableException {
+        String ifNoneMatch = options != null ? options.getIfNoneMatch() : null;
+        BlobClient blobClient = blobContainerClient.getBlobClient(sanitize(attachmentName));
+
+        ByteRange range = options != null ? options.getRange() : null;
+        BlobRequestConditions ifRangeConditions = null;
+        if (range != null && options.getIfRange() != null) {
+            ifRangeConditions = buildIfRangeConditions(options.getIfRange());
+            if (ifRangeConditions == null) {
+                // weak or malformed validators can never match for a range request, serve the whole PDF
+                range = null;
+            }
+        }
 
+        AttachmentContent attachment;
         try {
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            try {
+                attachment = open(attachmentName, blobClient, range, withIfNoneMatch(ifRangeConditions, ifNoneMatch));
+            } catch (BlobStorageException e) {
+                if (e.getStatusCode() == HTTP_NOT_MODIFIED && ifNoneMatch != null) {
+                    return buildNotModified(attachmentName, e);
+                }
+                if (e.getStatusCode() == HTTP_PRECONDITION_FAILED && ifRangeConditions != null) {
+                    logger.debug("If-Range validator does not match the PDF receipt {}, serving the whole file", sanitize(attachmentName));
+                    attachment = open(attachmentName, blobClient, null, withIfNoneMatch(null, ifNoneMatch));
+                } else if (e.getStatusCode() == HTTP_RANGE_NOT_SATISFIABLE) {
+                    throw buildRangeNotSatisfiableException(attachmentName, blobClient, e);
+                } else {
+                    throw e;
+                }
+            }
+
+        } catch (UncheckedIOException e) {
+            logger.error("I/O error opening the PDF receipt stream from Blob Storage", e);
+            throw new BlobStorageClientException(PDFS_601, PDFS_601.getErrorMessage(), e);
+
+        } catch (TimeoutException e) {
+            throw buildTimeoutException(attachmentName, e);
+
+        } catch (BlobStorageException e) {
+            if (e.getStatusCode() == HTTP_NOT_MODIFIED && ifNoneMatch != null) {
+                return buildNotModified(attachmentName, e);
+            }
+            throw handleBlobStorageException(attachmentName, blobClient.getAccountName(), e);
+
+        } catch (RuntimeException e) {
+            // the response timeout of the HTTP client surfaces wrapped by the blocking call of the SDK
+            if (!hasTimeoutCause(e)) {
+                throw e;
+            }
+            throw buildTimeoutException(attachmentName, e);
+        }
+        return completeDownload(attachmentName, ifNoneMatch, attachment);
+    }
+
+    private Uni<AttachmentContent> openFromBlobStorageAsync(String attachmentName, AttachmentDownloadOptions options) {
+        String ifNoneMatch = options != null ? options.getIfNoneMatch() : null;
+        BlobAsyncClient blobAsyncClient = blobContainerAsyncClient.getBlobAsyncClient(sanitize(attachmentName));
+
+        ByteRange range = options != null ? options.getRange() : null;
+        BlobRequestConditions ifRangeConditions = null;
+        if (range != null && options.getIfRange() != null) {
+            ifRangeConditions = buildIfRangeConditions(options.getIfRange());
+            if (ifRangeConditions == null) {
+                // weak or malformed validators can never match for a range request, serve the whole PDF
+                range = null;
+            }
+        }
+
+        Uni<AttachmentContent> download = downloadAsync(blobAsyncClient, range, withIfNoneMatch(ifRangeConditions, ifNoneMatch));
+        if (ifRangeConditions != null) {
+            download = download
+                    .onFailure(e -> hasStatus(e, HTTP_PRECONDITION_FAILED)).recoverWithUni(() -> {
+                        logger.debug("If-Range validator does not match the PDF receipt {}, serving the whole file", sanitize(attachmentName));
+                        return downloadAsync(blobAsyncClient, null, withIfNoneMatch(null, ifNoneMatch));
+                    });
+        }
+        return download
+                .map(attachment -> completeDownload(attachmentName, ifNoneMatch, attachment))
+                .onFailure(e -> ifNoneMatch != null && hasStatus(e, HTTP_NOT_MODIFIED))
+                .recoverWithItem(e -> buildNotModified(attachmentName, (BlobStorageException) e))
+                .onFailure(e -> hasStatus(e, HTTP_RANGE_NOT_SATISFIABLE))
+                .recoverWithUni(e -> toUni(blobAsyncClient.getProperties())
+                        .map(BlobProperties::getBlobSize)
+                        .onFailure().recoverWithItem(failure -> {
+                            logger.warn("Unable to retrieve the size of the PDF receipt with name: {}", sanitize(attachmentName), failure);
+                            return -1L;
+                        })
+                        .chain(blobSize -> Uni.createFrom().failure(
+                                buildRangeNotSatisfiableException(attachmentName, blobSize, (BlobStorageException) e))))
+                .onFailure().transform(e -> mapAsyncFailure(attachmentName, blobAsyncClient, e));
+    }
+
+    private Uni<AttachmentContent> downloadAsync(BlobAsyncClient blobAsyncClient, ByteRange range, BlobRequestConditions conditions) {
+        BlobRange blobRange = range != null ? toBlobRange(range) : null;
+        return hedgedRequestExecutor.executeAsync(
+                        () -> toUni(blobAsyncClient.downloadStreamWithResponse(blobRange, null, conditions, false)),
+                        () -> toUni(hedgeClient(blobAsyncClient).downloadStreamWithResponse(blobRange, null, conditions, false)),
+                        discarded -> discarded.getValue().subscribe().dispose())
+                .ifNoItem().after(Duration.ofSeconds(timeout)).fail()
+                .map(response -> toAttachmentContent(response, blobRange, range != null));
+    }
+
+    private Throwable mapAsyncFailure(String attachmentName, BlobAsyncClient blobAsyncClient, Throwable failure) {
+        if (failure instanceof BlobStorageException e) {
+            try {
+                return handleBlobStorageException(attachmentName, blobAsyncClient.getAccountName(), e);
+            } catch (AttachmentNotFoundException notFound) {
+                return notFound;
+            }
+        }
+        if (failure instanceof TimeoutException) {
+            return buildTimeoutException(attachmentName, failure);
+        }
+        if (failure instanceof UncheckedIOException) {
+            logger.error("I/O error opening the PDF receipt stream from Blob Storage", failure);
+            return new BlobStorageClientException(PDFS_601, PDFS_601.getErrorMessage(), failure);
+        }
+        return failure;
+    }
+
+    private BlobStorageClientException buildTimeoutException(String attachmentName, Throwable cause) {
+        String errMsg = String.format("Timeout waiting for the PDF receipt with name: %s from Blob Storage", sanitize(attachmentName));
+        logger.error(errMsg);
+        return new BlobStorageClientException(PDFS_603, errMsg, cause);
+    }
+
+    private static boolean hasTimeoutCause(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof java.util.concurrent.TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasStatus(Throwable failure, int statusCode) {
+        return failure instanceof BlobStorageException e && e.getStatusCode() == statusCode;
+    }
+
+    private AttachmentContent completeDownload(String attachmentName, String ifNoneMatch, AttachmentContent attachment) {
+        eTagCache.put(attachmentName, attachment.getETag());
+        if (ifNoneMatch != null && CommonUtils.matchesETag(ifNoneMatch, attachment.getETag())) {
+            // validator lists are not forwarded to the Blob Storage, they are checked once the ETag is known
+            closeQuietly(attachment);
+            return AttachmentContent.builder().notModified(true).eTag(attachment.getETag()).build();
+        }
+        if (!attachment.isPartial() && attachment.getAsyncContent() != null) {
+            attachment.setAsyncContent(memoryCache.cacheWhileEmitting(
+                    attachmentName, attachment.getETag(), attachment.getContentLength(), attachment.getAsyncContent()));
+        } else if (!attachment.isPartial()) {
+            InputStream content = diskCache.cacheWhileReading(
+                    attachmentName, attachment.getETag(), attachment.getContentLength(), attachment.getContent());
+            attachment.setContent(memoryCache.cacheWhileReading(
+                    attachmentName, attachment.getETag(), attachment.getContentLength(), content));
+        }
+        return attachment;
+    }
 
-            blobClient.downloadStreamWithResponse(
+    private AttachmentContent serveFromCache(CachedAttachment cached, AttachmentDownloadOptions options)
+            throws RangeNotSatisfiableException {
+        if (options != null && CommonUtils.matchesETag(options.getIfNoneMatch(), cached.getETag())) {
+            closeQuietly(cached);
+            return AttachmentContent.builder().notModified(true).eTag(cached.getETag()).build();
+        }
+
+        ByteRange range = options != null ? options.getRange() : null;
+        // only a strong ETag validator can be checked against the cached copy, otherwise the whole PDF is served
+        if (range != null && options.getIfRange() != null && !options.getIfRange().trim().equals(cached.getETag())) {
+            range = null;
+        }
+
+        long size = cached.getSize();
+        long offset = 0;
+        long length = size;
+        if (range != null) {
+            if (range.isSuffix()) {
+                offset = Math.max(0, size - range.getSuffixLength());
+            } else {
+                offset = range.getStart();
+            }
+            if (size == 0 || offset >= size) {
+                closeQuietly(cached);
+                throw new RangeNotSatisfiableException(PDFS_604, PDFS_604.getErrorMessage(), size, null);
+            }
+            long end = range.getEnd() != null ? Math.min(range.getEnd(), size - 1) : size - 1;
+            length = end - offset + 1;
+        }
+
+        AttachmentContent.AttachmentContentBuilder builder = AttachmentContent.builder()
+                .eTag(cached.getETag())
+                .totalLength(size)
+                .offset(offset)
+                .contentLength(length)
+                .partial(range != null);
+        if (cached.getChannel() != null) {
+            // the channel was opened by the disk cache, the file stays readable even if it is evicted meanwhile
+            return builder.content(new FileChannelInputStream(cached.getChannel(), offset, length)).build();
+        }
+        ByteBuffer slice = cached.getBuffer().duplicate();
+        slice.position((int) offset).limit((int) (offset + length));
+        return builder.content(new ByteBufferInputStream(slice)).build();
+    }
+
+    private AttachmentContent open(
+            String attachmentName,
+            BlobClient blobClient,
+            ByteRange range,
+            BlobRequestConditions conditions
+    ) throws RangeNotSatisfiableException {
+        if (asyncEnabled) {
+            return openAsyncStream(blobContainerAsyncClient.getBlobAsyncClient(sanitize(attachmentName)), blobClient, range, conditions);
+        }
+        return openStream(blobClient, range, conditions);
+    }
+
+    private AttachmentContent openAsyncStream(
+            BlobAsyncClient blobAsyncClient,
+            BlobClient blobClient,
+            ByteRange range,
+            BlobRequestConditions conditions
+    ) throws RangeNotSatisfiableException {
+        BlobRange blobRange = range != null ? toBlobRange(blobClient, range, conditions) : null;
+
+        // only the response headers are awaited here, the body is streamed by the event loop
+        BlobDownloadAsyncResponse response = hedgedRequestExecutor.execute(
+                () -> awaitDownload(blobAsyncClient, blobRange, conditions),
+                () -> awaitDownload(hedgeClient(blobAsyncClient), blobRange, conditions),
+                discarded -> discarded.getValue().subscribe().dispose()
+        );
+        return toAttachmentContent(response, blobRange, range != null);
+    }
+
+    private AttachmentContent toAttachmentContent(BlobDownloadAsyncResponse response, BlobRange blobRange, boolean partial) {
+        BlobDownloadHeaders headers = response.getDeserializedHeaders();
+
+        long contentLength = headers.getContentLength();
+        long totalLength = contentLength;
+        String contentRange = headers.getContentRange();
+        if (contentRange != null && contentRange.lastIndexOf('/') >= 0) {
+            totalLength = Long.parseLong(contentRange.substring(contentRange.lastIndexOf('/') + 1));
+        }
+
+        return AttachmentContent.builder()
+                .asyncContent(Multi.createFrom().publisher(AdaptersToFlow.publisher(response.getValue())))
+                .contentLength(contentLength)
+                .totalLength(totalLength)
+                .offset(blobRange != null ? blobRange.getOffset() : 0)
+                .partial(partial)
+                .eTag(headers.getETag())
+                .build();
+    }
+
+    private BlobDownloadAsyncResponse awaitDownload(
+            BlobAsyncClient blobAsyncClient,
+            BlobRange blobRange,
+            BlobRequestConditions conditions
+    ) {
+        return Uni.createFrom()
+                .publisher(AdaptersToFlow.publisher(
+                        blobAsyncClient.downloadStreamWithResponse(blobRange, null, conditions, false)))
+                .await().atMost(Duration.ofSeconds(timeout));
+    }
+
+    private AttachmentContent openStream(
+            BlobClient blobClient,
+            ByteRange range,
+            BlobRequestConditions conditions
+    ) throws RangeNotSatisfiableException {
+        BlobInputStreamOptions streamOptions = new BlobInputStreamOptions()
+                .setBlockSize(streamBlockSize)
+                .setRequestConditions(conditions);
+
+        long offset = 0;
+        if (range != null) {
+            BlobRange blobRange = toBlobRange(blobClient, range, conditions);
+            offset = blobRange.getOffset();
+            streamOptions.setRange(blobRange);
+        }
+
+        // the stream keeps the context, so the timeout bounds the first block and every block read that follows
+        Context context = new Context(RESPONSE_TIMEOUT_CONTEXT_KEY, Duration.ofSeconds(timeout));
+
+        // opening the stream downloads the first block, a slow read is hedged
+        BlobInputStream inputStream = hedgedRequestExecutor.execute(
+                () -> blobClient.openInputStream(streamOptions, context),
+                () -> hedgeClient(blobClient).openInputStream(streamOptions, context),
+                this::closeQuietly
+        );
+        BlobProperties properties = inputStream.getProperties();
+        long totalLength = properties.getBlobSize();
+
+        long contentLength = totalLength;
+        if (range != null) {
+            contentLength = totalLength - offset;
+            Long count = streamOptions.getRange().getCount();
+            if (count != null) {
+                contentLength = Math.min(count, contentLength);
+            }
+        }
+
+        return AttachmentContent.builder()
+                .content(parallelize(blobClient, inputStream, offset, offset + contentLength, properties.getETag()))
+                .contentLength(contentLength)
+                .totalLength(totalLength)
+                .offset(offset)
+                .partial(range != null)
+                .eTag(properties.getETag())
+                .build();
+    }
+
+    private InputStream parallelize(BlobClient blobClient, InputStream inputStream, long start, long end, String eTag) {
+        // PDF receipts that fit in the first block are already downloaded, the parallel reads only help the large ones
+        if (!parallelEnabled || end - start <= streamBlockSize) {
+            return inputStream;
+        }
+        return new ParallelRangeInputStream(blobClient, inputStream, streamBlockSize, start, end,
+                parallelChunkSize, parallelMaxConcurrency, eTag, executor, bufferPool, Duration.ofSeconds(timeout));
+    }
+
+    private BlobDownload download(BlobClient blobClient) {
+        // the size of the blob is not known before the download, the buffer grows through the size classes
+        PooledOutputStream outputStream = bufferPool.newOutputStream(0);
+        try {
+            BlobDownloadResponse response = blobClient.downloadStreamWithResponse(
                     outputStream,
                     null,   // BlobRange (null = entire blob)
-                    null,   // DownloadRetryOptions
+                    null,   // DownloadRetryOptions, the retries are handled by the client retry policy
                     null,   // RequestConditions
                     false,  // rangeGetContentMd5
                     Duration.ofSeconds(timeout),
                     Context.NONE
             );
+            return new BlobDownload(outputStream, response != null ? response.getDeserializedHeaders().getETag() : null);
+        } catch (RuntimeException e) {
+            outputStream.close();
+            throw e;
+        }
+    }
 
-            return new ByteArrayInputStream(outputStream.toByteArray());
+    private BlobClient hedgeClient(BlobClient blobClient) {
+        return hedgeContainerClient == blobContainerClient
+                ? blobClient
+                : hedgeContainerClient.getBlobClient(blobClient.getBlobName());
+    }
 
-        } catch (UncheckedIOException e) {
+    private BlobAsyncClient hedgeClient(BlobAsyncClient blobAsyncClient) {
+        return hedgeContainerAsyncClient == blobContainerAsyncClient
+                ? blobAsyncClient
+                : hedgeContainerAsyncClient.getBlobAsyncClient(blobAsyncClient.getBlobName());
+    }
+
+    private BlobRange toBlobRange(
+            BlobClient blobClient,
+            ByteRange range,
+            BlobRequestConditions conditions
+    ) throws RangeNotSatisfiableException {
+        if (!range.isSuffix()) {
+            return toBlobRange(range);
+        }
+        // the Blob Storage does not accept suffix ranges, the blob size is needed to compute the offset
+        long blobSize = blobClient.getPropertiesWithResponse(conditions, Duration.ofSeconds(timeout), Context.NONE)
+                .getValue()
+                .getBlobSize();
+        if (blobSize == 0) {
+            throw new RangeNotSatisfiableException(PDFS_604, PDFS_604.getErrorMessage(), blobSize, null);
+        }
+        long offset = Math.max(0, blobSize - range.getSuffixLength());
+        return new BlobRange(offset, blobSize - offset);
+    }
+
+    private static BlobRange toBlobRange(ByteRange range) {
+        Long count = range.getEnd() != null ? range.getEnd() - range.getStart() + 1 : null;
+        return new BlobRange(range.getStart(), count);
+    }
+
+    private BlobRequestConditions withIfNoneMatch(BlobRequestConditions conditions, String ifNoneMatch) {
+        // the Blob Storage accepts a single ETag or the wildcard, lists are checked after the download starts
+        if (ifNoneMatch == null || ifNoneMatch.contains(",")) {
+            return conditions;
+        }
+        BlobRequestConditions result = conditions != null ? conditions : new BlobRequestConditions();
+        return result.setIfNoneMatch(ifNoneMatch.trim());
+    }
+
+    private AttachmentContent buildNotModified(String attachmentName, BlobStorageException e) {
+        String eTag = e.getResponse() != null ? e.getResponse().getHeaderValue(HttpHeaderName.ETAG) : null;
+        eTagCache.put(attachmentName, eTag);
+        return AttachmentContent.builder().notModified(true).eTag(eTag).build();
+    }
+
+    private void closeQuietly(InputStream inputStream) {
+        try {
+            inputStream.close();
+        } catch (IOException e) {
+            logger.warn("Unable to close the PDF receipt stream", e);
+        }
+    }
+
+    private void closeQuietly(CachedAttachment cached) {
+        if (cached.getChannel() == null) {
+            return;
+        }
+        try {
+            cached.getChannel().close();
+        } catch (IOException e) {
+            logger.warn("Unable to close the PDF disk cache file", e);
+        }
+    }
+
+    private void closeQuietly(AttachmentContent attachment) {
+        if (attachment.getAsyncContent() != null) {
+            // subscribing and cancelling right away releases the connection of the pending download
+            attachment.getAsyncContent().subscribe().with(chunk -> {}, failure -> {}).cancel();
+            return;
+        }
+        closeQuietly(attachment.getContent());
+    }
+
+    private BlobRequestConditions buildIfRangeConditions(String ifRange) {
+        String validator = ifRange.trim();
+        if (validator.startsWith("\"")) {
+            return new BlobRequestConditions().setIfMatch(validator);
+        }
+        if (validator.startsWith("W/")) {
+            return null;
+        }
+        try {
+            OffsetDateTime lastModified = OffsetDateTime.parse(validator, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return new BlobRequestConditions().setIfUnmodifiedSince(lastModified);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private RangeNotSatisfiableException buildRangeNotSatisfiableException(
+            String fileName,
+            BlobClient blobClient,
+            BlobStorageException e
+    ) {
+        long blobSize = -1;
+        try {
+            blobSize = blobClient.getProperties().getBlobSize();
+        } catch (RuntimeException ex) {
+            logger.warn("Unable to retrieve the size of the PDF receipt with name: {}", sanitize(fileName), ex);
+        }
+        return buildRangeNotSatisfiableException(fileName, blobSize, e);
+    }
+
+    private RangeNotSatisfiableException buildRangeNotSatisfiableException(
+            String fileName,
+            long blobSize,
+            BlobStorageException e
+    ) {
+        String errMsg = String.format("The requested range is not satisfiable for the PDF receipt with name: %s", sanitize(fileName));
+        logger.error(errMsg);
+        return new RangeNotSatisfiableException(PDFS_604, errMsg, blobSize, e);
+    }
+
+    private InputStream downloadAttachment(
+            String fileName,
+            BlobClient blobClient
+    ) throws BlobStorageClientException, AttachmentNotFoundException {
+
+        try {
+            if (parallelEnabled) {
+                return downloadAttachmentInParallel(fileName, blobClient);
+            }
+            BlobDownload download = hedgedRequestExecutor.execute(
+                    () -> download(blobClient),
+                    () -> download(hedgeClient(blobClient)),
+                    discarded -> discarded.content().close()
+            );
+            PooledOutputStream content = download.content();
+            if (download.eTag() != null) {
+                memoryCache.put(fileName, download.eTag(), content.array(), content.size());
+            }
+            return content.toInputStream();
+
+        } catch (UncheckedIOException | IOException e) {
             logger.error("I/O error downloading the PDF receipt from Blob Storage", e);
             throw new BlobStorageClientException(
                     PDFS_601,
@@ -83,20 +789,48 @@ public class ReceiptBlobClientImpl implements ReceiptBlobClient {
             );
 
         } catch (BlobStorageException e) {
-            String errMsg;
-            if (e.getStatusCode() == 404) {
-                errMsg = String.format("PDF receipt with name: %s not found in Blob Storage: %s", sanitize(fileName), blobClient.getAccountName());
-                logger.error(errMsg);
-                throw new AttachmentNotFoundException(PDFS_602, errMsg, fileName, e
-                );
-            }
-            errMsg = String.format("Unable to download the PDF receipt with name: %s from Blob Storage: %s. Error message from server: %s",
-                    sanitize(fileName),
-                    blobClient.getAccountName(),
-                    e.getServiceMessage()
-            );
+            throw handleBlobStorageException(fileName, blobClient.getAccountName(), e);
+        }
+    }
+
+    private InputStream downloadAttachmentInParallel(String fileName, BlobClient blobClient) throws IOException {
+        BlobInputStream inputStream = blobClient.openInputStream(
+                new BlobInputStreamOptions().setBlockSize(streamBlockSize), Context.NONE);
+        BlobProperties properties = inputStream.getProperties();
+        PooledOutputStream content = bufferPool.newOutputStream((int) Math.min(properties.getBlobSize(), Integer.MAX_VALUE));
+        try (InputStream stream = parallelize(blobClient, inputStream, 0, properties.getBlobSize(), properties.getETag())) {
+            stream.transferTo(content);
+        } catch (IOException | RuntimeException e) {
+            content.close();
+            throw e;
+        }
+        memoryCache.put(fileName, properties.getETag(), content.array(), content.size());
+        return content.toInputStream();
+    }
+
+    private BlobStorageClientException handleBlobStorageException(
+            String fileName,
+            String accountName,
+            BlobStorageException e
+    ) throws AttachmentNotFoundException {
+        String errMsg;
+        if (e.getStatusCode() == 404) {
+            errMsg = String.format("PDF receipt with name: %s not found in Blob Storage: %s", sanitize(fileName), accountName);
             logger.error(errMsg);
-            throw new BlobStorageClientException(PDFS_603, errMsg, e);
+            throw new AttachmentNotFoundException(PDFS_602, errMsg, fileName, e);
         }
+        errMsg = String.format("Unable to download the PDF receipt with name: %s from Blob Storage: %s. Error message from server: %s",
+                sanitize(fileName),
+                accountName,
+                e.getServiceMessage()
+        );
+        logger.error(errMsg);
+        return new BlobStorageClientException(PDFS_603, errMsg, e);
+    }
+
+    /**
+     * Content and ETag of a PDF receipt downloaded in memory, the content buffer is returned to the pool once read
+     */
+    private record BlobDownload(PooledOutputStream content, String eTag) {
     }
 }
@@ -0,0 +1,105 @@
+package it.gov.pagopa.receipt.pdf.service.client.impl;
+
+import com.azure.cosmos.CosmosAsyncContainer;
+import com.azure.cosmos.CosmosException;
+import com.azure.cosmos.models.CosmosItemResponse;
+import com.azure.cosmos.models.CosmosQueryRequestOptions;
+import com.azure.cosmos.models.PartitionKey;
+import com.azure.cosmos.models.SqlParameter;
+import com.azure.cosmos.models.SqlQuerySpec;
+import io.smallrye.mutiny.Uni;
+import it.gov.pagopa.receipt.pdf.service.cache.ReceiptIdIndex;
+import it.gov.pagopa.receipt.pdf.service.client.ReceiptCosmosAsyncClient;
+import it.gov.pagopa.receipt.pdf.service.enumeration.AppErrorCodeEnum;
+import it.gov.pagopa.receipt.pdf.service.exception.ReceiptNotFoundException;
+import it.gov.pagopa.receipt.pdf.service.model.receipt.Receipt;
+import it.gov.pagopa.receipt.pdf.service.producer.receipt.containers.ReceiptsContainer;
+import it.gov.pagopa.receipt.pdf.service.utils.PerfTracer;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Optional;
+
+import static it.gov.pagopa.receipt.pdf.service.utils.CommonUtils.sanitize;
+import static it.gov.pagopa.receipt.pdf.service.utils.PerfTracer.CONTAINER_TAG;
+import static it.gov.pagopa.receipt.pdf.service.utils.PerfTracer.FOUND_TAG;
+import static it.gov.pagopa.receipt.pdf.service.utils.ReactiveUtils.toUni;
+
+/**
+ * Non-blocking client for the receipts container of the CosmosDB database
+ */
+@ApplicationScoped
+public class ReceiptCosmosAsyncClientImpl implements ReceiptCosmosAsyncClient {
+
+    private static final int HTTP_NOT_FOUND = 404;
+
+    private final Logger logger = LoggerFactory.getLogger(ReceiptCosmosAsyncClientImpl.class);
+
+    private final CosmosAsyncContainer containerReceipts;
+    private final ReceiptIdIndex receiptIdIndex;
+
+    @Inject
+    public ReceiptCosmosAsyncClientImpl(
+            @ReceiptsContainer CosmosAsyncContainer containerReceipts,
+            ReceiptIdIndex receiptIdIndex
+    ) {
+        this.containerReceipts = containerReceipts;
+        this.receiptIdIndex = receiptIdIndex;
+    }
+
+    /**
+     * Retrieve receipt document from CosmosDB database with a point read, by the id known to the
+     * {@link ReceiptIdIndex} or by the given id, falling back to a query by eventId if no receipt has that id
+     *
+     * @param thirdPartyId the third party id
+     * @return receipt document, or a failure with {@link ReceiptNotFoundException} if no receipt has been found
+     */
+    @Override
+    public Uni<Receipt> getReceiptDocument(String thirdPartyId) {
+        return Uni.createFrom().deferred(() -> {
+            Optional<String> indexedId = receiptIdIndex.get(thirdPartyId);
+            String id = indexedId.orElse(thirdPartyId);
+            PerfTracer tracer = PerfTracer.start(logger, "cosmos.receipts.pointRead");
+            return toUni(containerReceipts.readItem(id, new PartitionKey(id), Receipt.class))
+                    .map(CosmosItemResponse::getItem)
+                    .onItemOrFailure().invoke((receipt, failure) ->
+                            close(tracer, failure == null || !isNotFound(failure)))
+                    .onFailure(ReceiptCosmosAsyncClientImpl::isNotFound)
+                    .recoverWithUni(() -> {
+                        indexedId.ifPresent(unused -> receiptIdIndex.invalidate(thirdPartyId));
+                        return queryByEventId(thirdPartyId);
+                    });
+        });
+    }
+
+    private Uni<Receipt> queryByEventId(String thirdPartyId) {
+        SqlQuerySpec querySpec = new SqlQuerySpec(
+                "SELECT * FROM c WHERE c.eventId = @eventId",
+                List.of(new SqlParameter("@eventId", thirdPartyId))
+        );
+        PerfTracer tracer = PerfTracer.start(logger, "cosmos.receipts.queryItems");
+        return toUni(containerReceipts.queryItems(querySpec, new CosmosQueryRequestOptions(), Receipt.class).next())
+                .onItemOrFailure().invoke((receipt, failure) -> close(tracer, receipt != null))
+                .onItem().ifNull().failWith(() -> {
+                    String errMsg = String.format("Receipt with id %s not found in the defined container: %s",
+                            sanitize(thirdPartyId), containerReceipts.getId());
+                    logger.error(errMsg);
+                    return new ReceiptNotFoundException(AppErrorCodeEnum.PDFS_800, errMsg, thirdPartyId);
+                })
+                .invoke(receipt -> receiptIdIndex.put(thirdPartyId, receipt.getId()));
+    }
+
+    private void close(PerfTracer tracer, boolean found) {
+        // tagged only on completion, on the thread that closes the tracer, so that the MDC tags do not leak
+        try (tracer) {
+            tracer.tag(CONTAINER_TAG, containerReceipts.getId()).tag(FOUND_TAG, found);
+        }
+    }
+
+    private static boolean isNotFound(Throwable failure) {
+        return failure instanceof CosmosException cosmosException && cosmosException.getStatusCode() == HTTP_NOT_FOUND;
+    }
+}
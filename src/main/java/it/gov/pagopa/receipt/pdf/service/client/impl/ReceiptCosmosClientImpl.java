@@ -6,6 +6,7 @@ import com.azure.cosmos.models.CosmosQueryRequestOptions;
 import com.azure.cosmos.models.PartitionKey;
 import com.azure.cosmos.models.SqlParameter;
 import com.azure.cosmos.models.SqlQuerySpec;
+import it.gov.pagopa.receipt.pdf.service.cache.ReceiptIdIndex;
 import it.gov.pagopa.receipt.pdf.service.client.ReceiptCosmosClient;
 import it.gov.pagopa.receipt.pdf.service.enumeration.AppErrorCodeEnum;
 import it.gov.pagopa.receipt.pdf.service.exception.IoMessageNotFoundException;
@@ -18,10 +19,12 @@ import it.gov.pagopa.receipt.pdf.service.producer.receipt.containers.ReceiptsErr
 import it.gov.pagopa.receipt.pdf.service.producer.receipt.containers.ReceiptsIOMessagesEventContainer;
 import it.gov.pagopa.receipt.pdf.service.utils.PerfTracer;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.Optional;
 
 import static it.gov.pagopa.receipt.pdf.service.utils.CommonUtils.sanitize;
 import static it.gov.pagopa.receipt.pdf.service.utils.PerfTracer.CONTAINER_TAG;
@@ -46,31 +49,29 @@ public class ReceiptCosmosClientImpl implements ReceiptCosmosClient {
     @ReceiptsErrorContainer
     CosmosContainer containerReceiptsError;
 
+    @Inject
+    ReceiptIdIndex receiptIdIndex;
+
     ReceiptCosmosClientImpl() {
     }
 
     /**
      * Retrieve receipt document from CosmosDB database
+     * <p>
+     * The receipt is read with a point read, by the id known to the {@link ReceiptIdIndex} or by the given id,
+     * falling back to a query by eventId; the id of a receipt found with the query is added to the index.
      *
      * @param thirdPartyId the third party id
      * @return receipt document
      * @throws ReceiptNotFoundException in case no receipt has been found with the given idEvent
      */
     public Receipt getReceiptDocument(String thirdPartyId) throws ReceiptNotFoundException {
-        try (PerfTracer t = PerfTracer.start(logger, "cosmos.receipts.pointRead")
-                .tag(CONTAINER_TAG, containerReceipts.getId())) {
-            try {
-                return this.containerReceipts
-                        .readItem(thirdPartyId, new PartitionKey(thirdPartyId), Receipt.class)
-                        .getItem();
-            } catch (CosmosException ce) {
-                t.tag(FOUND_TAG, false);
-                t.tag("statusCode", ce.getStatusCode());
-                if (ce.getStatusCode() != 404) {
-                    throw ce;
-                }
-            }
+        Optional<String> indexedId = receiptIdIndex.get(thirdPartyId);
+        Receipt pointRead = readReceipt(indexedId.orElse(thirdPartyId));
+        if (pointRead != null) {
+            return pointRead;
         }
+        indexedId.ifPresent(unused -> receiptIdIndex.invalidate(thirdPartyId));
 
         SqlQuerySpec querySpec = new SqlQuerySpec(
                 "SELECT * FROM c WHERE c.eventId = @eventId",
@@ -79,7 +80,7 @@ public class ReceiptCosmosClientImpl implements ReceiptCosmosClient {
         //Query the container
         try (PerfTracer t = PerfTracer.start(logger, "cosmos.receipts.queryItems")
                 .tag(CONTAINER_TAG, containerReceipts.getId())) {
-            return this.containerReceipts
+            Receipt receipt = this.containerReceipts
                     .queryItems(querySpec, new CosmosQueryRequestOptions(), Receipt.class)
                     .stream()
                     .findFirst()
@@ -90,6 +91,26 @@ public class ReceiptCosmosClientImpl implements ReceiptCosmosClient {
                         logger.error(errMsg);
                         return new ReceiptNotFoundException(AppErrorCodeEnum.PDFS_800, errMsg, thirdPartyId);
                     });
+            receiptIdIndex.put(thirdPartyId, receipt.getId());
+            return receipt;
+        }
+    }
+
+    private Receipt readReceipt(String id) {
+        try (PerfTracer t = PerfTracer.start(logger, "cosmos.receipts.pointRead")
+                .tag(CONTAINER_TAG, containerReceipts.getId())) {
+            try {
+                return this.containerReceipts
+                        .readItem(id, new PartitionKey(id), Receipt.class)
+                        .getItem();
+            } catch (CosmosException ce) {
+                t.tag(FOUND_TAG, false);
+                t.tag("statusCode", ce.getStatusCode());
+                if (ce.getStatusCode() != 404) {
+                    throw ce;
+                }
+                return null;
+            }
         }
     }
 
@@ -22,6 +22,8 @@ public enum AppErrorCodeEnum {
     PDFS_601("PDFS_601", Set.of(ATTACHMENTS, HELPDESK, PDF), "I/O error when downloading the PDF receipt from Blob Storage"),
     PDFS_602("PDFS_602", Set.of(ATTACHMENTS, HELPDESK, PDF), "Error when downloading the PDF receipt from Blob Storage, the requested attachment was not found"),
     PDFS_603("PDFS_603", Set.of(ATTACHMENTS, HELPDESK, PDF), "Some error occurred when downloading the PDF receipt from Blob Storage"),
+    PDFS_604("PDFS_604", Set.of(ATTACHMENTS, PDF), "The requested byte range is not satisfiable for the PDF receipt"),
+    PDFS_605("PDFS_605", Set.of(ATTACHMENTS, PDF), "Unable to generate the SAS URL of the PDF receipt"),
 
     PDFS_700("PDFS_700", Set.of(ATTACHMENTS, PDF), "Fiscal code not authorized to access the requested receipts details"),
     PDFS_701("PDFS_701", Set.of(ATTACHMENTS), "The retrieved receipt is null"),
@@ -42,6 +44,7 @@ public enum AppErrorCodeEnum {
     PDFS_714("PDFS_714", Set.of(PDF), "The PDF has not been generated yet."),
     PDFS_715("PDFS_715", Set.of(PDF), "The PDF generation failed. A retry is possible."),
     PDFS_716("PDFS_716", Set.of(PDF), "The PDF generation failed. Manual review is required."),
+    PDFS_717("PDFS_717", Set.of(ATTACHMENTS, PDF), "The tokenizer is overloaded, the fiscal code cannot be verified. Retry later."),
 
     PDFS_800("PDFS_800", Set.of(ATTACHMENTS, HELPDESK, PDF), "Receipt not found with the provided third party id"),
     PDFS_801("PDFS_801", Set.of(ATTACHMENTS, HELPDESK, PDF), "Cart not found with the provided third party id"),
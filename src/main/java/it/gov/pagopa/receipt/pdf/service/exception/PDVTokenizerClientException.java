@@ -2,8 +2,24 @@ package it.gov.pagopa.receipt.pdf.service.exception;
 
 public class PDVTokenizerClientException extends RuntimeException {
 
+  private final int status;
+
   public PDVTokenizerClientException(String error) {
+    this(error, 0);
+  }
+
+  public PDVTokenizerClientException(String error, int status) {
     super(error);
+    this.status = status;
+  }
+
+  /**
+   * Return the HTTP status returned by the tokenizer
+   *
+   * @return the status, 0 if unknown
+   */
+  public int getStatus() {
+    return status;
   }
 
 }
@@ -0,0 +1,33 @@
+package it.gov.pagopa.receipt.pdf.service.exception;
+
+import it.gov.pagopa.receipt.pdf.service.enumeration.AppErrorCodeEnum;
+
+/**
+ * Thrown in case the byte range requested for an attachment is outside its content
+ */
+public class RangeNotSatisfiableException extends PdfServiceException {
+
+    private final long attachmentSize;
+
+    /**
+     * Constructs new exception with provided error code, message, the size of the attachment and cause
+     *
+     * @param errorCode      Error code
+     * @param message        Detail message
+     * @param attachmentSize The size of the attachment, negative if unknown
+     * @param cause          Exception causing the constructed one
+     */
+    public RangeNotSatisfiableException(AppErrorCodeEnum errorCode, String message, long attachmentSize, Throwable cause) {
+        super(errorCode, message, cause);
+        this.attachmentSize = attachmentSize;
+    }
+
+    /**
+     * Return the size of the attachment the range was requested for
+     *
+     * @return the size of the attachment, negative if unknown
+     */
+    public long getAttachmentSize() {
+        return attachmentSize;
+    }
+}
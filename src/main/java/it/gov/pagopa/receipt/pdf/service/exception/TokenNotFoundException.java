@@ -0,0 +1,9 @@
+package it.gov.pagopa.receipt.pdf.service.exception;
+
+public class TokenNotFoundException extends PDVTokenizerClientException {
+
+  public TokenNotFoundException(String error) {
+    super(error, 404);
+  }
+
+}
@@ -0,0 +1,19 @@
+package it.gov.pagopa.receipt.pdf.service.exception;
+
+import it.gov.pagopa.receipt.pdf.service.enumeration.AppErrorCodeEnum;
+
+/**
+ * Thrown in case the fiscal code cannot be verified because the calls to the tokenizer are over the concurrency limit
+ */
+public class TokenizerOverloadedException extends FiscalCodeNotAuthorizedException {
+
+    /**
+     * Constructs new exception with provided error code and message
+     *
+     * @param errorCode Error code
+     * @param message Detail message
+     */
+    public TokenizerOverloadedException(AppErrorCodeEnum errorCode, String message) {
+        super(errorCode, message);
+    }
+}
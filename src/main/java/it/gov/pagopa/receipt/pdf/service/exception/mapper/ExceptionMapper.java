@@ -48,6 +48,27 @@ public class ExceptionMapper {
         return RestResponse.status(status, buildErrorResponse(attachmentNotFoundException.getErrorCode(), status, message));
     }
 
+    @ServerExceptionMapper
+    public RestResponse<ErrorResponse> mapRangeNotSatisfiableException(RangeNotSatisfiableException rangeNotSatisfiableException) {
+        Response.Status status = REQUESTED_RANGE_NOT_SATISFIABLE;
+        String message = "The requested range is not satisfiable for the attachment";
+        logger.error(message, rangeNotSatisfiableException);
+        RestResponse.ResponseBuilder<ErrorResponse> builder = RestResponse.ResponseBuilder.create(
+                status, buildErrorResponse(rangeNotSatisfiableException.getErrorCode(), status, message));
+        if (rangeNotSatisfiableException.getAttachmentSize() >= 0) {
+            builder.header("content-range", "bytes */" + rangeNotSatisfiableException.getAttachmentSize());
+        }
+        return builder.build();
+    }
+
+    @ServerExceptionMapper
+    public RestResponse<ErrorResponse> mapTokenizerOverloadedException(TokenizerOverloadedException tokenizerOverloadedException) {
+        Response.Status status = SERVICE_UNAVAILABLE;
+        String message = "The service is overloaded, retry later";
+        logger.error(message, tokenizerOverloadedException);
+        return RestResponse.status(status, buildErrorResponse(tokenizerOverloadedException.getErrorCode(), status, message));
+    }
+
     @ServerExceptionMapper
     public RestResponse<ErrorResponse> mapPdfServiceException(PdfServiceException pdfServiceException) {
         AppErrorCodeEnum errorCode = pdfServiceException.getErrorCode();
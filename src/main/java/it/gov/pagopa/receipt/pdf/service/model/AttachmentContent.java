@@ -0,0 +1,45 @@
+package it.gov.pagopa.receipt.pdf.service.model;
+
+import io.smallrye.mutiny.Multi;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Model class for the content of a PDF attachment streamed from the Blob Storage
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class AttachmentContent {
+
+    /** Stream over the attachment bytes, read lazily from the Blob Storage or from a local cache tier. Null if served from {@link #asyncContent} */
+    @Setter
+    private InputStream content;
+
+    /** Chunks of the attachment emitted by the Blob Storage async client, written to the response without a worker thread. Null unless the async download is enabled */
+    @Setter
+    private Multi<ByteBuffer> asyncContent;
+
+    /** Number of bytes returned by the stream, equal to the total length unless a byte range was served */
+    private long contentLength;
+
+    /** Size in bytes of the whole attachment, taken from the blob properties */
+    private long totalLength;
+
+    /** Position of the first byte returned by the stream */
+    private long offset;
+
+    /** True if the stream covers only the byte range requested by the client */
+    private boolean partial;
+
+    /** ETag of the blob the content was read from */
+    private String eTag;
+
+    /** True if the client copy is still valid (If-None-Match matched), no content is returned */
+    private boolean notModified;
+}
@@ -0,0 +1,23 @@
+package it.gov.pagopa.receipt.pdf.service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Model class for the HTTP request options applied when downloading an attachment from the Blob Storage
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class AttachmentDownloadOptions {
+
+    /** Byte range requested with the Range header, null to download the whole attachment */
+    private ByteRange range;
+
+    /** Value of the If-Range header, the range is served only if it still matches the stored attachment */
+    private String ifRange;
+
+    /** Value of the If-None-Match header, if it matches the attachment ETag no content is returned */
+    private String ifNoneMatch;
+}
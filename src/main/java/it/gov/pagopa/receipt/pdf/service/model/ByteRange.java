@@ -0,0 +1,27 @@
+package it.gov.pagopa.receipt.pdf.service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Model class for a single byte range requested with the HTTP {@code Range} header
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class ByteRange {
+
+    /** First byte of the range, null for a suffix range */
+    private Long start;
+
+    /** Last byte of the range (inclusive), null for an open-ended or suffix range */
+    private Long end;
+
+    /** Number of bytes at the end of the attachment, set only for a suffix range ({@code bytes=-N}) */
+    private Long suffixLength;
+
+    public boolean isSuffix() {
+        return suffixLength != null;
+    }
+}
@@ -0,0 +1,33 @@
+package it.gov.pagopa.receipt.pdf.service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+/**
+ * Model class for a PDF attachment stored in one of the local cache tiers
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class CachedAttachment {
+
+    /** File holding the attachment bytes, set for the disk cache */
+    private Path file;
+
+    /** Channel opened on {@link #file} when the attachment is retrieved from the disk cache, owned by the caller */
+    private FileChannel channel;
+
+    /** Read-only off-heap buffer holding the attachment bytes, set for the memory cache */
+    private ByteBuffer buffer;
+
+    /** Size in bytes of the attachment */
+    private long size;
+
+    /** ETag of the blob the attachment was downloaded from */
+    private String eTag;
+}
@@ -2,8 +2,6 @@ package it.gov.pagopa.receipt.pdf.service.model;
 
 import lombok.*;
 
-import java.io.InputStream;
-
 @Getter
 @Setter
 @Builder
@@ -11,5 +9,6 @@ import java.io.InputStream;
 @AllArgsConstructor
 public class ReceiptPdfResponse {
     String attachmentName;
-    InputStream pdfFile;
+    AttachmentContent pdfFile;
+    String redirectUrl;
 }
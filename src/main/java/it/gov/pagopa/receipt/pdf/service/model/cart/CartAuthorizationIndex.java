@@ -0,0 +1,157 @@
+package it.gov.pagopa.receipt.pdf.service.model.cart;
+
+import it.gov.pagopa.receipt.pdf.service.model.receipt.ReceiptMetadata;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static it.gov.pagopa.receipt.pdf.service.utils.Constants.ANONYMOUS_FISCAL_CODE;
+
+/**
+ * Authorization index of a cart, built once from the loaded document: the payer, the debtors by business event
+ * and the flags needed by the validation of the cart and by the checks of its status, so that every check is a
+ * lookup instead of a pass over the payments.
+ * <p>
+ * The index is immutable and can be cached. A business event found in more than one payment keeps all of its
+ * debtors: the attachment and PDF downloads only authorize a business event found in a single payment, while
+ * the attachment details match the debtor on the business event and the fiscal code together.
+ */
+@Getter
+public final class CartAuthorizationIndex {
+
+    private final String id;
+    private final CartStatusType status;
+    private final boolean payloadPresent;
+    private final boolean paymentsPresent;
+    private final Recipient payer;
+    private final boolean debtorFiscalCodePresent;
+    private final boolean debtorAttachmentNamePresent;
+    private final boolean debtorAttachmentMissing;
+
+    @Getter(AccessLevel.NONE)
+    private final Map<String, List<Recipient>> debtors;
+    @Getter(AccessLevel.NONE)
+    private final Set<Integer> reasonErrorCodes;
+
+    private CartAuthorizationIndex(CartForReceipt cart) {
+        Payload payload = cart.getPayload();
+        this.id = cart.getId();
+        this.status = cart.getStatus();
+        this.payloadPresent = payload != null;
+        this.paymentsPresent = payload != null && payload.getCart() != null;
+        this.payer = payload != null
+                ? new Recipient(payload.getPayerFiscalCode(), payload.getMdAttachPayer(), payload.getMessagePayer())
+                : null;
+
+        Map<String, List<Recipient>> debtorsByBizEventId = new HashMap<>();
+        Set<Integer> codes = new HashSet<>();
+        boolean fiscalCodePresent = false;
+        boolean attachmentNamePresent = false;
+        boolean attachmentMissing = false;
+        if (payload != null && payload.getReasonErrPayer() != null) {
+            codes.add(payload.getReasonErrPayer().getCode());
+        }
+        if (this.paymentsPresent) {
+            for (CartPayment payment : payload.getCart()) {
+                if (payment == null) {
+                    continue;
+                }
+                String debtorFiscalCode = payment.getDebtorFiscalCode();
+                ReceiptMetadata attachment = payment.getMdAttach();
+                fiscalCodePresent |= debtorFiscalCode != null;
+                attachmentNamePresent |= attachment != null && attachment.getName() != null;
+                // the anonymous debtors and the debtor that is also the payer have no attachment of their own
+                attachmentMissing |= attachment == null
+                        && debtorFiscalCode != null
+                        && !debtorFiscalCode.equals(ANONYMOUS_FISCAL_CODE)
+                        && !debtorFiscalCode.equals(payload.getPayerFiscalCode());
+                if (payment.getReasonErrDebtor() != null) {
+                    codes.add(payment.getReasonErrDebtor().getCode());
+                }
+                if (payment.getBizEventId() != null) {
+                    debtorsByBizEventId.computeIfAbsent(payment.getBizEventId(), k -> new ArrayList<>(1))
+                            .add(new Recipient(debtorFiscalCode, attachment, payment.getMessageDebtor()));
+                }
+            }
+        }
+
+        Map<String, List<Recipient>> indexedDebtors = new HashMap<>(debtorsByBizEventId.size());
+        debtorsByBizEventId.forEach((bizEventId, recipients) -> indexedDebtors.put(bizEventId, List.copyOf(recipients)));
+        this.debtors = Map.copyOf(indexedDebtors);
+        this.reasonErrorCodes = Set.copyOf(codes);
+        this.debtorFiscalCodePresent = fiscalCodePresent;
+        this.debtorAttachmentNamePresent = attachmentNamePresent;
+        this.debtorAttachmentMissing = attachmentMissing;
+    }
+
+    /**
+     * Build the authorization index of the provided cart
+     *
+     * @param cart the loaded cart
+     * @return the index of the cart, null if the cart is null
+     */
+    public static CartAuthorizationIndex of(CartForReceipt cart) {
+        return cart != null ? new CartAuthorizationIndex(cart) : null;
+    }
+
+    /**
+     * Retrieve the debtor of the payment with the provided business event
+     *
+     * @param bizEventId the business event of the payment
+     * @return the debtor, null if no payment or more than one payment has the business event
+     */
+    public Recipient getDebtor(String bizEventId) {
+        List<Recipient> recipients = bizEventId != null ? debtors.get(bizEventId) : null;
+        return recipients != null && recipients.size() == 1 ? recipients.get(0) : null;
+    }
+
+    /**
+     * Retrieve the debtor with the provided fiscal code among the payments with the provided business event
+     *
+     * @param bizEventId the business event of the payment
+     * @param fiscalCode the tokenized fiscal code of the debtor
+     * @return the debtor of the first matching payment, null if no payment has the business event and the fiscal code
+     */
+    public Recipient getDebtor(String bizEventId, String fiscalCode) {
+        if (bizEventId == null) {
+            return null;
+        }
+        for (Recipient debtor : debtors.getOrDefault(bizEventId, List.of())) {
+            if (Objects.equals(debtor.fiscalCode(), fiscalCode)) {
+                return debtor;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Return true if the payer or any of the debtors has a reason error with the provided code
+     *
+     * @param code the code of the reason error
+     * @return true if the reason error is found
+     */
+    public boolean hasReasonError(int code) {
+        return reasonErrorCodes.contains(code);
+    }
+
+    /**
+     * Payer or debtor of the cart
+     *
+     * @param fiscalCode the tokenized fiscal code of the recipient
+     * @param attachment the metadata of the attachment of the recipient, may be null
+     * @param message    the message of the recipient, null if not loaded
+     */
+    public record Recipient(String fiscalCode, ReceiptMetadata attachment, MessageData message) {
+
+        public String attachmentName() {
+            return attachment != null ? attachment.getName() : null;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package it.gov.pagopa.receipt.pdf.service.producer;
+
+import com.azure.core.http.HttpClient;
+import com.azure.core.http.vertx.VertxHttpClientBuilder;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClientOptions;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import jakarta.ws.rs.Produces;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Producer class for the {@link HttpClient} shared by the Azure SDK clients built on azure-core
+ * (the Blob Storage sync and async clients).
+ * <p>
+ * The requests run on the Vert.x instance managed by Quarkus, so the Azure SDK does not start its own event loops,
+ * and every client shares the same connection pool, tuned here. The Cosmos DB SDK is not built on the azure-core
+ * HTTP abstraction and keeps its own transport.
+ */
+@Singleton
+public class AzureHttpClientProducer {
+
+    // same limit of the azure-core default transport, the SAS and continuation headers can be large
+    private static final int MAX_HEADER_SIZE = 256 * 1024;
+
+    @ConfigProperty(name = "azure.http-client.max-connections")
+    int maxConnections;
+
+    @ConfigProperty(name = "azure.http-client.keep-alive")
+    boolean keepAlive;
+
+    @ConfigProperty(name = "azure.http-client.keep-alive-timeout-seconds")
+    int keepAliveTimeoutSeconds;
+
+    @ConfigProperty(name = "azure.http-client.pool-cleaner-period-ms")
+    int poolCleanerPeriodMillis;
+
+    @ConfigProperty(name = "azure.http-client.connect-timeout-ms")
+    int connectTimeoutMillis;
+
+    @ConfigProperty(name = "azure.http-client.read-timeout-ms")
+    int readTimeoutMillis;
+
+    private final Vertx vertx;
+
+    @Inject
+    public AzureHttpClientProducer(Vertx vertx) {
+        this.vertx = vertx;
+    }
+
+    /**
+     * Build the azure-core HTTP client on the Quarkus Vert.x instance, with a bounded pool of keep-alive
+     * connections where the connections idle for longer than the keep-alive timeout are evicted
+     *
+     * @return the shared HTTP client
+     */
+    @Produces
+    @ApplicationScoped
+    public HttpClient azureHttpClient() {
+        return new VertxHttpClientBuilder()
+                .vertx(vertx)
+                .httpClientOptions(buildHttpClientOptions())
+                .build();
+    }
+
+    HttpClientOptions buildHttpClientOptions() {
+        // the options replace the azure-core defaults, so the timeouts and the header limit are set here as well
+        return new HttpClientOptions()
+                .setIdleTimeoutUnit(TimeUnit.MILLISECONDS)
+                .setConnectTimeout(connectTimeoutMillis)
+                .setReadIdleTimeout(readTimeoutMillis)
+                .setWriteIdleTimeout(readTimeoutMillis)
+                .setMaxHeaderSize(MAX_HEADER_SIZE)
+                .setMaxPoolSize(maxConnections)
+                .setKeepAlive(keepAlive)
+                .setKeepAliveTimeout(keepAliveTimeoutSeconds)
+                .setPoolCleanerPeriod(poolCleanerPeriodMillis);
+    }
+}
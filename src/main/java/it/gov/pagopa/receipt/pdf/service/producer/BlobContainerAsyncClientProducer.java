@@ -0,0 +1,32 @@
+package it.gov.pagopa.receipt.pdf.service.producer;
+
+import com.azure.storage.blob.BlobContainerAsyncClient;
+import com.azure.storage.blob.BlobServiceAsyncClient;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import jakarta.ws.rs.Produces;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Producer class for {@link BlobContainerAsyncClient} bean
+ */
+@Singleton
+public class BlobContainerAsyncClientProducer {
+
+    @ConfigProperty(name = "blob.storage.container.name")
+    private String containerName;
+
+    private final BlobServiceAsyncClient blobServiceAsyncClient;
+
+    @Inject
+    public BlobContainerAsyncClientProducer(BlobServiceAsyncClient blobServiceAsyncClient) {
+        this.blobServiceAsyncClient = blobServiceAsyncClient;
+    }
+
+    @Produces
+    @ApplicationScoped
+    public BlobContainerAsyncClient blobContainerAsyncClient() {
+        return this.blobServiceAsyncClient.getBlobContainerAsyncClient(containerName);
+    }
+}
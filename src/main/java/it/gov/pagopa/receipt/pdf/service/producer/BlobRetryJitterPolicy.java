@@ -0,0 +1,71 @@
+package it.gov.pagopa.receipt.pdf.service.producer;
+
+import com.azure.core.http.HttpPipelineCallContext;
+import com.azure.core.http.HttpPipelineNextPolicy;
+import com.azure.core.http.HttpPipelineNextSyncPolicy;
+import com.azure.core.http.HttpPipelinePosition;
+import com.azure.core.http.HttpResponse;
+import com.azure.core.http.policy.HttpPipelinePolicy;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Pipeline policy that adds a random delay before every retry of a Blob Storage request.
+ * <p>
+ * The storage retry policy waits an exponential but deterministic delay between the tries, so the requests
+ * that failed together on a busy partition server are retried together. This policy runs after the retry
+ * policy and spreads the retries over {@code [0, maxJitter]}, on top of the exponential backoff.
+ */
+public class BlobRetryJitterPolicy implements HttpPipelinePolicy {
+
+    /**
+     * Key of the pipeline context data where the storage retry policy stores the number of the current try
+     */
+    static final String RETRY_COUNT_KEY = "requestRetryCount";
+
+    private final long maxJitterMillis;
+
+    public BlobRetryJitterPolicy(Duration maxJitter) {
+        this.maxJitterMillis = maxJitter.toMillis();
+    }
+
+    @Override
+    public Mono<HttpResponse> process(HttpPipelineCallContext context, HttpPipelineNextPolicy next) {
+        long jitter = nextJitterMillis(context);
+        if (jitter == 0) {
+            return next.process();
+        }
+        return Mono.delay(Duration.ofMillis(jitter)).then(Mono.defer(next::process));
+    }
+
+    @Override
+    public HttpResponse processSync(HttpPipelineCallContext context, HttpPipelineNextSyncPolicy next) {
+        long jitter = nextJitterMillis(context);
+        if (jitter > 0) {
+            try {
+                Thread.sleep(jitter);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return next.processSync();
+    }
+
+    @Override
+    public HttpPipelinePosition getPipelinePosition() {
+        return HttpPipelinePosition.PER_RETRY;
+    }
+
+    private long nextJitterMillis(HttpPipelineCallContext context) {
+        int tryCount = context.getData(RETRY_COUNT_KEY)
+                .filter(Integer.class::isInstance)
+                .map(Integer.class::cast)
+                .orElse(1);
+        if (tryCount <= 1 || maxJitterMillis <= 0) {
+            return 0;
+        }
+        return ThreadLocalRandom.current().nextLong(maxJitterMillis + 1);
+    }
+}
@@ -0,0 +1,38 @@
+package it.gov.pagopa.receipt.pdf.service.producer;
+
+import com.azure.storage.blob.BlobServiceAsyncClient;
+import com.azure.storage.blob.BlobServiceClientBuilder;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import jakarta.ws.rs.Produces;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Producer class for {@link BlobServiceAsyncClient} bean
+ */
+@Singleton
+public class BlobServiceAsyncClientProducer {
+
+    @ConfigProperty(name = "blob.storage.account")
+    String storageAccount;
+
+    @ConfigProperty(name = "blob.storage.connString")
+    String connectionString;
+
+    BlobServiceClientBuilder blobServiceClientBuilder;
+
+    @Inject
+    public BlobServiceAsyncClientProducer(BlobServiceClientBuilder blobServiceClientBuilder) {
+        this.blobServiceClientBuilder = blobServiceClientBuilder;
+    }
+
+    @Produces
+    @ApplicationScoped
+    public BlobServiceAsyncClient blobServiceAsyncClient() {
+        return blobServiceClientBuilder
+                .endpoint(storageAccount)
+                .connectionString(connectionString)
+                .buildAsyncClient();
+    }
+}
@@ -1,9 +1,17 @@
 package it.gov.pagopa.receipt.pdf.service.producer;
 
+import com.azure.core.http.HttpClient;
 import com.azure.storage.blob.BlobServiceClientBuilder;
+import com.azure.storage.common.policy.RequestRetryOptions;
+import com.azure.storage.common.policy.RetryPolicyType;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import jakarta.ws.rs.Produces;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.Optional;
 
 /**
  * Producer class for {@link BlobServiceClientBuilder} bean
@@ -11,9 +19,48 @@ import jakarta.ws.rs.Produces;
 @Singleton
 public class BlobServiceClientBuilderProducer {
 
+    @ConfigProperty(name = "blob.storage.client.max-retry-request")
+    int maxRetryRequests;
+
+    @ConfigProperty(name = "blob.storage.client.try-timeout")
+    int tryTimeout;
+
+    @ConfigProperty(name = "blob.storage.client.retry-delay-ms")
+    long retryDelayMillis;
+
+    @ConfigProperty(name = "blob.storage.client.max-retry-delay-ms")
+    long maxRetryDelayMillis;
+
+    @ConfigProperty(name = "blob.storage.client.secondary-host")
+    Optional<String> secondaryHost;
+
+    private final HttpClient httpClient;
+
+    @Inject
+    public BlobServiceClientBuilderProducer(HttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    /**
+     * Build the builder shared by the sync and async Blob Storage clients, with an exponential retry policy
+     * where each try has its own timeout and the retries are spread by a random jitter.
+     * If the RA-GRS secondary host is configured, the retried reads alternate between primary and secondary.
+     * The requests are sent with the azure-core HTTP client shared on the Quarkus Vert.x instance.
+     *
+     * @return the configured builder
+     */
     @Produces
     @ApplicationScoped
     public BlobServiceClientBuilder blobServiceClientBuilder() {
-        return new BlobServiceClientBuilder();
+        return new BlobServiceClientBuilder()
+                .httpClient(httpClient)
+                .retryOptions(new RequestRetryOptions(
+                        RetryPolicyType.EXPONENTIAL,
+                        maxRetryRequests + 1,
+                        Duration.ofSeconds(tryTimeout),
+                        Duration.ofMillis(retryDelayMillis),
+                        Duration.ofMillis(maxRetryDelayMillis),
+                        secondaryHost.orElse(null)))
+                .addPolicy(new BlobRetryJitterPolicy(Duration.ofMillis(retryDelayMillis)));
     }
 }
@@ -1,5 +1,7 @@
 package it.gov.pagopa.receipt.pdf.service.producer.receipt;
 
+import com.azure.cosmos.CosmosAsyncContainer;
+import com.azure.cosmos.CosmosBridgeInternal;
 import com.azure.cosmos.CosmosClient;
 import com.azure.cosmos.CosmosContainer;
 import com.azure.cosmos.CosmosDatabase;
@@ -11,7 +13,7 @@ import jakarta.ws.rs.Produces;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 /**
- * Producer class for {@link CosmosContainer} bean
+ * Producer class for {@link CosmosContainer} and {@link CosmosAsyncContainer} beans
  */
 @Singleton
 public class ReceiptCosmosContainerProducer {
@@ -92,4 +94,30 @@ public class ReceiptCosmosContainerProducer {
         return cosmosDatabase()
                 .getContainer(containerCartReceiptsIOMessages);
     }
+
+    /**
+     * Produce the async view of the receipts container, backed by the same client (and connections)
+     * of the sync container
+     *
+     * @return the async receipts container
+     */
+    @Produces
+    @ApplicationScoped
+    @ReceiptsContainer
+    public CosmosAsyncContainer asyncContainerReceipts() {
+        return CosmosBridgeInternal.getCosmosAsyncContainer(containerReceipts());
+    }
+
+    /**
+     * Produce the async view of the cart receipts container, backed by the same client (and connections)
+     * of the sync container
+     *
+     * @return the async cart receipts container
+     */
+    @Produces
+    @ApplicationScoped
+    @CartContainer
+    public CosmosAsyncContainer asyncContainerCartReceipts() {
+        return CosmosBridgeInternal.getCosmosAsyncContainer(containerCartReceipts());
+    }
 }
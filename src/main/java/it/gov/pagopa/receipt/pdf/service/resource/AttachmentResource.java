@@ -1,19 +1,25 @@
 package it.gov.pagopa.receipt.pdf.service.resource;
 
 import io.quarkus.arc.profile.IfBuildProfile;
+import io.smallrye.mutiny.Uni;
 import it.gov.pagopa.receipt.pdf.service.exception.*;
 import it.gov.pagopa.receipt.pdf.service.filters.LoggedAPI;
+import it.gov.pagopa.receipt.pdf.service.model.AttachmentContent;
+import it.gov.pagopa.receipt.pdf.service.model.AttachmentDownloadOptions;
 import it.gov.pagopa.receipt.pdf.service.model.AttachmentsDetailsResponse;
 import it.gov.pagopa.receipt.pdf.service.service.AttachmentsService;
+import it.gov.pagopa.receipt.pdf.service.utils.AttachmentResponseUtils;
 import it.gov.pagopa.receipt.pdf.service.utils.CommonUtils;
 import it.gov.pagopa.receipt.pdf.service.utils.PerfTracer;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response.Status;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
@@ -25,12 +31,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
-import java.io.IOException;
-import java.io.InputStream;
-
-import static it.gov.pagopa.receipt.pdf.service.enumeration.AppErrorCodeEnum.PDFS_500;
 import static it.gov.pagopa.receipt.pdf.service.enumeration.AppErrorCodeEnum.PDFS_901;
 import static it.gov.pagopa.receipt.pdf.service.utils.Constants.*;
+import static it.gov.pagopa.receipt.pdf.service.utils.ReactiveUtils.blocking;
 
 /**
  * Resource class that expose the API to retrieve the attachments
@@ -43,6 +46,15 @@ public class AttachmentResource {
     private final Logger logger = LoggerFactory.getLogger(AttachmentResource.class);
     private final AttachmentsService attachmentsService;
 
+    @ConfigProperty(name = "attachment.response.cache-control")
+    String cacheControl;
+
+    @ConfigProperty(name = "attachment.redirect.enabled")
+    boolean redirectEnabled;
+
+    @ConfigProperty(name = "cosmos.async.enabled")
+    boolean asyncEnabled;
+
     @Inject
     public AttachmentResource(AttachmentsService attachmentsService) {
         this.attachmentsService = attachmentsService;
@@ -70,12 +82,11 @@ public class AttachmentResource {
     )
     @Path("/{tp_id}")
     @GET
-    public RestResponse<AttachmentsDetailsResponse> getAttachmentDetails(
+    public Uni<RestResponse<AttachmentsDetailsResponse>> getAttachmentDetails(
             @PathParam(THIRD_PARTY_ID_PARAM) String thirdPartyId,
             @QueryParam(FISCAL_CODE_HEADER) String requestFiscalCode)
         // @RestHeader(FISCAL_CODE_HEADER) String requestFiscalCode)
-            throws InvalidFiscalCodeHeaderException, ReceiptNotFoundException, InvalidReceiptException,
-            FiscalCodeNotAuthorizedException, InvalidCartException, CartNotFoundException {
+            throws InvalidFiscalCodeHeaderException {
 
         // replace new line and tab from user input to avoid log injection
         thirdPartyId = CommonUtils.sanitize(thirdPartyId);
@@ -87,14 +98,28 @@ public class AttachmentResource {
         // replace new line and tab from user input to avoid log injection
         requestFiscalCode = CommonUtils.sanitize(requestFiscalCode);
 
-        MDC.put(MDC_THIRD_PARTY_ID, thirdPartyId);
-        try (PerfTracer tracer = PerfTracer.start(logger, "getAttachmentDetails.endpoint")) {
-            AttachmentsDetailsResponse attachmentDetails =
-                    attachmentsService.getAttachmentsDetails(thirdPartyId, requestFiscalCode);
-            return RestResponse.status(Status.OK, attachmentDetails);
-        } finally {
-            MDC.remove(MDC_THIRD_PARTY_ID);
+        String id = thirdPartyId;
+        String fiscalCode = requestFiscalCode;
+        Uni<AttachmentsDetailsResponse> attachmentDetails;
+        if (asyncEnabled) {
+            MDC.put(MDC_THIRD_PARTY_ID, id);
+            PerfTracer tracer = PerfTracer.start(logger, "getAttachmentDetails.endpoint");
+            attachmentDetails = attachmentsService.getAttachmentsDetailsAsync(id, fiscalCode)
+                    .onTermination().invoke(() -> {
+                        tracer.close();
+                        MDC.remove(MDC_THIRD_PARTY_ID);
+                    });
+        } else {
+            attachmentDetails = blocking(() -> {
+                MDC.put(MDC_THIRD_PARTY_ID, id);
+                try (PerfTracer tracer = PerfTracer.start(logger, "getAttachmentDetails.endpoint")) {
+                    return attachmentsService.getAttachmentsDetails(id, fiscalCode);
+                } finally {
+                    MDC.remove(MDC_THIRD_PARTY_ID);
+                }
+            });
         }
+        return attachmentDetails.map(details -> RestResponse.status(Status.OK, details));
     }
 
     @Operation(
@@ -111,17 +136,36 @@ public class AttachmentResource {
                             responseCode = "200",
                             description = "Success",
                             content = @Content(mediaType = "application/pdf")
+                    ),
+                    @APIResponse(
+                            responseCode = "206",
+                            description = "Partial Content, the requested byte range of the PDF",
+                            content = @Content(mediaType = "application/pdf")
+                    ),
+                    @APIResponse(
+                            responseCode = "302",
+                            description = "Found, redirect to a short-lived read-only URL of the PDF when the redirect mode is enabled"
+                    ),
+                    @APIResponse(
+                            responseCode = "304",
+                            description = "Not Modified, the PDF matches the provided If-None-Match ETag"
+                    ),
+                    @APIResponse(
+                            responseCode = "416",
+                            description = "The requested byte range is not satisfiable"
                     )
             }
     )
     @Path("/{tp_id}/{attachment_url}")
     @GET
-    public RestResponse<byte[]> getAttachment(
+    public Uni<RestResponse<Object>> getAttachment(
             @PathParam(THIRD_PARTY_ID_PARAM) String thirdPartyId,
             @PathParam("attachment_url") String attachmentUrl,
-            @QueryParam(FISCAL_CODE_HEADER) String requestFiscalCode)
-            throws InvalidFiscalCodeHeaderException, BlobStorageClientException, ReceiptNotFoundException,
-            InvalidReceiptException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, ErrorHandlingPdfAttachmentFileException, InvalidCartException, CartNotFoundException {
+            @QueryParam(FISCAL_CODE_HEADER) String requestFiscalCode,
+            @HeaderParam(RANGE_HEADER) String range,
+            @HeaderParam(IF_RANGE_HEADER) String ifRange,
+            @HeaderParam(IF_NONE_MATCH_HEADER) String ifNoneMatch)
+            throws InvalidFiscalCodeHeaderException {
 
         // replace new line and tab from user input to avoid log injection
         thirdPartyId = CommonUtils.sanitize(thirdPartyId);
@@ -137,14 +181,19 @@ public class AttachmentResource {
         // replace new line and tab from user input to avoid log injection
         requestFiscalCode = CommonUtils.sanitize(requestFiscalCode);
 
-        try (InputStream inputStream = attachmentsService.getAttachment(thirdPartyId, requestFiscalCode, attachmentUrl)) {
-            return RestResponse.ResponseBuilder.ok(inputStream.readAllBytes())
-                    .header("content-type", "application/pdf")
-                    .header("content-disposition", "attachment;")
-                    .build();
-        } catch (IOException e) {
-            logger.error("Error handling the stream generated from pdf attachment");
-            throw new ErrorHandlingPdfAttachmentFileException(PDFS_500, PDFS_500.getErrorMessage(), e);
+        String id = thirdPartyId;
+        String fiscalCode = requestFiscalCode;
+        String url = attachmentUrl;
+        if (redirectEnabled) {
+            Uni<String> redirectUrl = asyncEnabled
+                    ? attachmentsService.getAttachmentRedirectUrlAsync(id, fiscalCode, url)
+                    : blocking(() -> attachmentsService.getAttachmentRedirectUrl(id, fiscalCode, url));
+            return redirectUrl.map(location -> AttachmentResponseUtils.buildRedirectResponse(location).build());
         }
+        AttachmentDownloadOptions downloadOptions = AttachmentResponseUtils.buildDownloadOptions(range, ifRange, ifNoneMatch);
+        Uni<AttachmentContent> attachment = asyncEnabled
+                ? attachmentsService.getAttachmentAsync(id, fiscalCode, url, downloadOptions)
+                : blocking(() -> attachmentsService.getAttachment(id, fiscalCode, url, downloadOptions));
+        return attachment.map(content -> AttachmentResponseUtils.buildPdfResponse(content, cacheControl).build());
     }
 }
@@ -1,16 +1,22 @@
 package it.gov.pagopa.receipt.pdf.service.resource;
 
 import io.quarkus.arc.profile.IfBuildProfile;
+import io.smallrye.mutiny.Uni;
 import it.gov.pagopa.receipt.pdf.service.exception.*;
 import it.gov.pagopa.receipt.pdf.service.filters.LoggedAPI;
+import it.gov.pagopa.receipt.pdf.service.model.AttachmentDownloadOptions;
 import it.gov.pagopa.receipt.pdf.service.model.ReceiptPdfResponse;
+import it.gov.pagopa.receipt.pdf.service.service.impl.PdfArchiveService;
 import it.gov.pagopa.receipt.pdf.service.service.impl.PdfService;
+import it.gov.pagopa.receipt.pdf.service.utils.AttachmentResponseUtils;
 import it.gov.pagopa.receipt.pdf.service.utils.CommonUtils;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.QueryParam;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
@@ -20,12 +26,11 @@ import org.jboss.resteasy.reactive.RestResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
-import java.io.InputStream;
+import java.util.List;
 
-import static it.gov.pagopa.receipt.pdf.service.enumeration.AppErrorCodeEnum.PDFS_500;
 import static it.gov.pagopa.receipt.pdf.service.enumeration.AppErrorCodeEnum.PDFS_901;
 import static it.gov.pagopa.receipt.pdf.service.utils.Constants.*;
+import static it.gov.pagopa.receipt.pdf.service.utils.ReactiveUtils.blocking;
 
 @Tag(name = "PDF", description = "PDF operations")
 @Path("/pdf")
@@ -34,10 +39,21 @@ import static it.gov.pagopa.receipt.pdf.service.utils.Constants.*;
 public class PdfResource {
     private final Logger logger = LoggerFactory.getLogger(PdfResource.class);
     private final PdfService pdfService;
+    private final PdfArchiveService pdfArchiveService;
+
+    @ConfigProperty(name = "attachment.response.cache-control")
+    String cacheControl;
+
+    @ConfigProperty(name = "attachment.redirect.enabled")
+    boolean redirectEnabled;
+
+    @ConfigProperty(name = "cosmos.async.enabled")
+    boolean asyncEnabled;
 
     @Inject
-    public PdfResource(PdfService pdfService) {
+    public PdfResource(PdfService pdfService, PdfArchiveService pdfArchiveService) {
         this.pdfService = pdfService;
+        this.pdfArchiveService = pdfArchiveService;
     }
 
     @Operation(
@@ -53,17 +69,36 @@ public class PdfResource {
                             responseCode = "200",
                             description = "Success",
                             content = @Content(mediaType = "application/pdf")
+                    ),
+                    @APIResponse(
+                            responseCode = "206",
+                            description = "Partial Content, the requested byte range of the PDF",
+                            content = @Content(mediaType = "application/pdf")
+                    ),
+                    @APIResponse(
+                            responseCode = "302",
+                            description = "Found, redirect to a short-lived read-only URL of the PDF when the redirect mode is enabled"
+                    ),
+                    @APIResponse(
+                            responseCode = "304",
+                            description = "Not Modified, the PDF matches the provided If-None-Match ETag"
+                    ),
+                    @APIResponse(
+                            responseCode = "416",
+                            description = "The requested byte range is not satisfiable"
                     )
             }
     )
     @Path("/{tp_id}")
     @GET
-    public RestResponse<byte[]> getReceiptPdf(
+    public Uni<RestResponse<Object>> getReceiptPdf(
             @PathParam(THIRD_PARTY_ID_PARAM) String thirdPartyId,
-            @QueryParam(FISCAL_CODE_HEADER) String requestFiscalCode
+            @QueryParam(FISCAL_CODE_HEADER) String requestFiscalCode,
+            @HeaderParam(RANGE_HEADER) String range,
+            @HeaderParam(IF_RANGE_HEADER) String ifRange,
+            @HeaderParam(IF_NONE_MATCH_HEADER) String ifNoneMatch
     )
-            throws InvalidFiscalCodeHeaderException, FiscalCodeNotAuthorizedException, ErrorHandlingPdfAttachmentFileException,
-            AttachmentNotFoundException, BlobStorageClientException, ReceiptNotFoundException, CartNotFoundException, InvalidReceiptException, InvalidCartException {
+            throws InvalidFiscalCodeHeaderException {
 
         // replace new line and tab from user input to avoid log injection
         thirdPartyId = CommonUtils.sanitize(thirdPartyId);
@@ -75,16 +110,62 @@ public class PdfResource {
         // replace new line and tab from user input to avoid log injection
         requestFiscalCode = CommonUtils.sanitize(requestFiscalCode);
 
-        ReceiptPdfResponse receiptPdfResponse = this.pdfService.getReceiptPdf(thirdPartyId, requestFiscalCode);
-        try (InputStream inputStream = receiptPdfResponse.getPdfFile()) {
-            return RestResponse.ResponseBuilder.ok(inputStream.readAllBytes())
-                    .header("content-type", "application/pdf")
-                    .header("content-disposition", "attachment;")
-                    .header(FILENAME_RESPONSE_HEADER, receiptPdfResponse.getAttachmentName())
-                    .build();
-        } catch (IOException e) {
-            logger.error("Error handling the stream generated from pdf attachment");
-            throw new ErrorHandlingPdfAttachmentFileException(PDFS_500, PDFS_500.getErrorMessage(), e);
+        String id = thirdPartyId;
+        String fiscalCode = requestFiscalCode;
+        if (redirectEnabled) {
+            Uni<ReceiptPdfResponse> redirect = asyncEnabled
+                    ? this.pdfService.getReceiptPdfRedirectAsync(id, fiscalCode)
+                    : blocking(() -> this.pdfService.getReceiptPdfRedirect(id, fiscalCode));
+            return redirect.map(response -> AttachmentResponseUtils.buildRedirectResponse(response.getRedirectUrl())
+                    .header(FILENAME_RESPONSE_HEADER, response.getAttachmentName())
+                    .build());
+        }
+        AttachmentDownloadOptions downloadOptions = AttachmentResponseUtils.buildDownloadOptions(range, ifRange, ifNoneMatch);
+        Uni<ReceiptPdfResponse> receiptPdfResponse = asyncEnabled
+                ? this.pdfService.getReceiptPdfAsync(id, fiscalCode, downloadOptions)
+                : blocking(() -> this.pdfService.getReceiptPdf(id, fiscalCode, downloadOptions));
+        return receiptPdfResponse.map(response -> AttachmentResponseUtils.buildPdfResponse(response.getPdfFile(), cacheControl)
+                .header(FILENAME_RESPONSE_HEADER, response.getAttachmentName())
+                .build());
+    }
+
+    @Operation(
+            summary = "Get cart receipts pdf archive",
+            description = "Retrieve a ZIP archive with all the pdf of the cart that the provided fiscal code is authorized to access"
+    )
+    @APIResponses(
+            value = {
+                    @APIResponse(ref = "#/components/responses/InternalServerError"),
+                    @APIResponse(ref = "#/components/responses/AppException400"),
+                    @APIResponse(ref = "#/components/responses/AppException404"),
+                    @APIResponse(
+                            responseCode = "200",
+                            description = "Success",
+                            content = @Content(mediaType = "application/zip")
+                    )
+            }
+    )
+    @Path("/carts/{cart_id}")
+    @GET
+    public RestResponse<Object> getCartReceiptPdfArchive(
+            @PathParam(CART_ID_PARAM) String cartId,
+            @QueryParam(FISCAL_CODE_HEADER) String requestFiscalCode
+    )
+            throws InvalidFiscalCodeHeaderException, FiscalCodeNotAuthorizedException,
+            AttachmentNotFoundException, CartNotFoundException, InvalidCartException {
+
+        // replace new line and tab from user input to avoid log injection
+        cartId = CommonUtils.sanitize(cartId);
+
+        logger.info("Received get PDF archive for cart with id {}", cartId);
+        if (requestFiscalCode == null || requestFiscalCode.length() != FISCAL_CODE_LENGTH) {
+            throw new InvalidFiscalCodeHeaderException(PDFS_901, PDFS_901.getErrorMessage());
         }
+        // replace new line and tab from user input to avoid log injection
+        requestFiscalCode = CommonUtils.sanitize(requestFiscalCode);
+
+        List<String> attachmentNames = this.pdfService.getCartReceiptPdfNames(cartId, requestFiscalCode);
+        return AttachmentResponseUtils.buildArchiveResponse(this.pdfArchiveService.buildArchive(attachmentNames), cartId)
+                .build();
     }
 }
@@ -13,7 +13,9 @@ import it.gov.pagopa.receipt.pdf.service.model.receipt.Receipt;
 import it.gov.pagopa.receipt.pdf.service.model.receipt.ReceiptError;
 import it.gov.pagopa.receipt.pdf.service.service.AttachmentsService;
 import it.gov.pagopa.receipt.pdf.service.service.impl.CartReceiptCosmosService;
+import it.gov.pagopa.receipt.pdf.service.service.impl.PdfArchiveService;
 import it.gov.pagopa.receipt.pdf.service.service.impl.ReceiptCosmosService;
+import it.gov.pagopa.receipt.pdf.service.utils.AttachmentResponseUtils;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
@@ -32,6 +34,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static it.gov.pagopa.receipt.pdf.service.utils.CommonUtils.createProblemJson;
 import static it.gov.pagopa.receipt.pdf.service.utils.CommonUtils.sanitize;
@@ -51,13 +54,15 @@ public class HelpdeskResource {
     private final CartReceiptCosmosService cartReceiptCosmosService;
     private final BizCosmosClient bizEventCosmosClient;
     private final AttachmentsService attachmentsService;
+    private final PdfArchiveService pdfArchiveService;
 
     @Inject
-    public HelpdeskResource(ReceiptCosmosService receiptCosmosService, CartReceiptCosmosService cartReceiptCosmosService, BizCosmosClient bizEventCosmosClient, AttachmentsService attachmentsService) {
+    public HelpdeskResource(ReceiptCosmosService receiptCosmosService, CartReceiptCosmosService cartReceiptCosmosService, BizCosmosClient bizEventCosmosClient, AttachmentsService attachmentsService, PdfArchiveService pdfArchiveService) {
         this.receiptCosmosService = receiptCosmosService;
         this.cartReceiptCosmosService = cartReceiptCosmosService;
         this.bizEventCosmosClient = bizEventCosmosClient;
         this.attachmentsService = attachmentsService;
+        this.pdfArchiveService = pdfArchiveService;
     }
 
     // Receipts
@@ -329,6 +334,50 @@ public class HelpdeskResource {
         }
     }
 
+    @Operation(
+            summary = "Get CartReceipt PDF archive",
+            description = "Retrieve a ZIP archive with all the pdf of the cart-receipt by cart id"
+    )
+    @APIResponses(
+            value = {
+                    @APIResponse(ref = "#/components/responses/InternalServerError"),
+                    @APIResponse(ref = "#/components/responses/AppException400"),
+                    @APIResponse(ref = "#/components/responses/AppException404"),
+                    @APIResponse(
+                            responseCode = "200",
+                            description = "Success",
+                            content =
+                            @Content(
+                                    mediaType = "application/zip"
+                            )
+                    )
+            }
+    )
+    @Path("/cart-receipts/{cart-id}/pdf-receipts")
+    @GET
+    public RestResponse<Object> getCartReceiptPdfArchive(
+            @PathParam("cart-id") String cartId) {
+
+        if (cartId == null || cartId.isBlank()) {
+            return RestResponse.status(Response.Status.BAD_REQUEST, createProblemJson(Response.Status.BAD_REQUEST, HELPDESK_SUFFIX, "Please pass a valid cartId"));
+        }
+
+        try {
+            CartForReceipt receipt = cartReceiptCosmosService.getCartReceipt(cartId);
+            List<String> attachmentNames = pdfArchiveService.getCartAttachmentNames(receipt);
+            if (attachmentNames.isEmpty()) {
+                String responseMsg = String.format("The receipt with cartId %s has no pdf", sanitize(cartId));
+                logger.error(LOG_ERROR_MESSAGE, "getCartReceiptPdfArchive", responseMsg);
+                return RestResponse.status(Response.Status.NOT_FOUND, createProblemJson(Response.Status.NOT_FOUND, HELPDESK_SUFFIX, responseMsg));
+            }
+            return AttachmentResponseUtils.buildArchiveResponse(pdfArchiveService.buildArchive(attachmentNames), cartId).build();
+        } catch (CartNotFoundException e) {
+            String responseMsg = String.format("Unable to retrieve the receipt with cartId %s", sanitize(cartId));
+            logger.error(LOG_ERROR_MESSAGE, "getCartReceiptPdfArchive", responseMsg, e);
+            return RestResponse.status(Response.Status.NOT_FOUND, createProblemJson(Response.Status.NOT_FOUND, HELPDESK_SUFFIX, responseMsg));
+        }
+    }
+
     @Operation(
             summary = "Get CartReceipt by organization fiscal code and iuv",
             description = "Retrieve the cart-receipt document by organization fiscal code and iuv"
@@ -0,0 +1,18 @@
+package it.gov.pagopa.receipt.pdf.service.resource.writer;
+
+import io.smallrye.mutiny.Multi;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Response entity for a PDF attachment downloaded with the Blob Storage async client,
+ * written to the client by {@link AsyncPdfBodyWriter} as the chunks are emitted
+ */
+@Getter
+@AllArgsConstructor
+public class AsyncPdfBody {
+
+    private final Multi<ByteBuffer> chunks;
+}
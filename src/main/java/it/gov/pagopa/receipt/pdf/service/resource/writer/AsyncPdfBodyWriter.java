@@ -0,0 +1,147 @@
+package it.gov.pagopa.receipt.pdf.service.resource.writer;
+
+import io.netty.buffer.Unpooled;
+import io.smallrye.mutiny.subscription.MultiSubscriber;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.Provider;
+import org.jboss.resteasy.reactive.server.core.ResteasyReactiveRequestContext;
+import org.jboss.resteasy.reactive.server.core.ServerSerialisers;
+import org.jboss.resteasy.reactive.server.spi.ResteasyReactiveResourceInfo;
+import org.jboss.resteasy.reactive.server.spi.ServerHttpResponse;
+import org.jboss.resteasy.reactive.server.spi.ServerMessageBodyWriter;
+import org.jboss.resteasy.reactive.server.spi.ServerRequestContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.Flow;
+
+/**
+ * Writer of the {@link AsyncPdfBody} entities.
+ * <p>
+ * The request is suspended and each chunk emitted by the Blob Storage async client is written to the
+ * response as soon as it arrives, the next chunk is requested only once the previous one was written so
+ * that a slow client applies back pressure to the download. No worker thread is held during the transfer
+ * and the chunks are handed to Vert.x without being copied.
+ * The response headers are sent with the first chunk, so a download failing before any byte was received
+ * is still mapped to an error response; once the headers are sent, a failure closes the connection.
+ * <p>
+ * Outside the reactive server the body is written to the output stream as a blocking fallback.
+ */
+@Provider
+@Produces("application/pdf")
+public class AsyncPdfBodyWriter implements ServerMessageBodyWriter<AsyncPdfBody> {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncPdfBodyWriter.class);
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, ResteasyReactiveResourceInfo target, MediaType mediaType) {
+        return AsyncPdfBody.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return AsyncPdfBody.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public void writeResponse(AsyncPdfBody body, Type genericType, ServerRequestContext context) {
+        ResteasyReactiveRequestContext requestContext = (ResteasyReactiveRequestContext) context;
+        requestContext.suspend();
+        body.getChunks().subscribe().withSubscriber(new ResponseSubscriber(requestContext));
+    }
+
+    @Override
+    public void writeTo(
+            AsyncPdfBody body,
+            Class<?> type,
+            Type genericType,
+            Annotation[] annotations,
+            MediaType mediaType,
+            MultivaluedMap<String, Object> httpHeaders,
+            OutputStream entityStream
+    ) throws IOException {
+        WritableByteChannel channel = Channels.newChannel(entityStream);
+        for (ByteBuffer chunk : body.getChunks().subscribe().asIterable()) {
+            channel.write(chunk);
+        }
+    }
+
+    /**
+     * Subscriber that writes the chunks to the HTTP response one at a time
+     */
+    private static class ResponseSubscriber implements MultiSubscriber<ByteBuffer> {
+
+        private final ResteasyReactiveRequestContext requestContext;
+        private final ServerHttpResponse response;
+        private final HttpServerResponse vertxResponse;
+        private volatile Flow.Subscription subscription;
+
+        ResponseSubscriber(ResteasyReactiveRequestContext requestContext) {
+            this.requestContext = requestContext;
+            this.response = requestContext.serverResponse();
+            this.vertxResponse = requestContext.unwrap(HttpServerResponse.class);
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            // stop the download if the client goes away
+            response.addCloseHandler(subscription::cancel);
+            subscription.request(1);
+        }
+
+        @Override
+        public void onItem(ByteBuffer chunk) {
+            encodeHeaders();
+            vertxResponse.write(Buffer.buffer(Unpooled.wrappedBuffer(chunk)), result -> {
+                if (result.failed()) {
+                    subscription.cancel();
+                    fail(result.cause());
+                } else {
+                    subscription.request(1);
+                }
+            });
+        }
+
+        @Override
+        public void onFailure(Throwable failure) {
+            fail(failure);
+        }
+
+        @Override
+        public void onCompletion() {
+            encodeHeaders();
+            response.end();
+            requestContext.resume();
+        }
+
+        private void fail(Throwable failure) {
+            if (!response.headWritten()) {
+                // nothing was sent yet, the failure is mapped to an error response
+                requestContext.resume(failure);
+                return;
+            }
+            // the status and the headers are already committed, the client must see a truncated download
+            logger.warn("The PDF receipt download failed after the response was committed, closing the connection", failure);
+            response.reset();
+            requestContext.resume();
+        }
+
+        private void encodeHeaders() {
+            if (!response.headWritten()) {
+                ServerSerialisers.encodeResponseHeaders(requestContext);
+            }
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package it.gov.pagopa.receipt.pdf.service.service;
 
+import io.smallrye.mutiny.Uni;
 import it.gov.pagopa.receipt.pdf.service.exception.*;
+import it.gov.pagopa.receipt.pdf.service.model.AttachmentContent;
+import it.gov.pagopa.receipt.pdf.service.model.AttachmentDownloadOptions;
 import it.gov.pagopa.receipt.pdf.service.model.AttachmentsDetailsResponse;
 
 import java.io.IOException;
-import java.io.InputStream;
 
 /**
  * Interface of the service to be used to retrieve the attachments
@@ -23,21 +25,70 @@ public interface AttachmentsService {
      */
     AttachmentsDetailsResponse getAttachmentsDetails(String thirdPartyId, String requestFiscalCode) throws ReceiptNotFoundException, InvalidReceiptException, FiscalCodeNotAuthorizedException, InvalidCartException, CartNotFoundException;
 
+    /**
+     * Non-blocking variant of {@link #getAttachmentsDetails(String, String)}, that reads the receipt with the
+     * Cosmos async client and the token with the async tokenizer client
+     *
+     * @param thirdPartyId      the id of the receipt
+     * @param requestFiscalCode the fiscal code of the user that request the receipt
+     * @return the details of the requested attachments, or a failure with the same exceptions of the blocking variant
+     */
+    Uni<AttachmentsDetailsResponse> getAttachmentsDetailsAsync(String thirdPartyId, String requestFiscalCode);
+
     /**
      * Retrieve the attachment of the receipt with the provided id using the given attachment url, only if the fiscal code is authorized to access it
      *
      * @param thirdPartyId      the id of the receipt
      * @param requestFiscalCode the fiscal code of the user that request the receipt
      * @param attachmentUrl     the relative url to the attachment
-     * @return the File with the reference to the attachment
+     * @param downloadOptions   the byte range and If-Range validator of the request, may be null
+     * @return the stream over the attachment (or the requested range), with its size and ETag
      * @throws ReceiptNotFoundException         thrown if a receipt with the provided id was not found
      * @throws InvalidReceiptException          thrown if the retrieved receipt is invalid
      * @throws FiscalCodeNotAuthorizedException thrown if the fiscal code is not authorized to access the requested attachment
      * @throws BlobStorageClientException       thrown for error when retrieving the attachment from the Blob Storage
      * @throws AttachmentNotFoundException      thrown if the requested attachment was not found
+     * @throws RangeNotSatisfiableException     thrown if the requested range is outside the attachment
+     */
+    AttachmentContent getAttachment(String thirdPartyId, String requestFiscalCode, String attachmentUrl, AttachmentDownloadOptions downloadOptions)
+            throws ReceiptNotFoundException, InvalidReceiptException, FiscalCodeNotAuthorizedException, BlobStorageClientException, AttachmentNotFoundException, InvalidCartException, CartNotFoundException, RangeNotSatisfiableException;
+
+    /**
+     * Retrieve a short-lived SAS URL of the attachment of the receipt with the provided id, only if the fiscal code is authorized to access it
+     *
+     * @param thirdPartyId      the id of the receipt
+     * @param requestFiscalCode the fiscal code of the user that request the receipt
+     * @param attachmentUrl     the relative url to the attachment
+     * @return the read-only SAS URL of the attachment
+     * @throws ReceiptNotFoundException         thrown if a receipt with the provided id was not found
+     * @throws InvalidReceiptException          thrown if the retrieved receipt is invalid
+     * @throws FiscalCodeNotAuthorizedException thrown if the fiscal code is not authorized to access the requested attachment
+     * @throws BlobStorageClientException       thrown if the SAS URL cannot be generated
+     */
+    String getAttachmentRedirectUrl(String thirdPartyId, String requestFiscalCode, String attachmentUrl)
+            throws ReceiptNotFoundException, InvalidReceiptException, FiscalCodeNotAuthorizedException, BlobStorageClientException, InvalidCartException, CartNotFoundException;
+
+    /**
+     * Non-blocking variant of {@link #getAttachment(String, String, String, AttachmentDownloadOptions)}: the receipt and
+     * the token are read without blocking, and the attachment stream is opened with the Blob Storage async client if enabled
+     *
+     * @param thirdPartyId      the id of the receipt
+     * @param requestFiscalCode the fiscal code of the user that request the receipt
+     * @param attachmentUrl     the relative url to the attachment
+     * @param downloadOptions   the byte range and If-Range validator of the request, may be null
+     * @return the stream over the attachment, or a failure with the same exceptions of the blocking variant
+     */
+    Uni<AttachmentContent> getAttachmentAsync(String thirdPartyId, String requestFiscalCode, String attachmentUrl, AttachmentDownloadOptions downloadOptions);
+
+    /**
+     * Non-blocking variant of {@link #getAttachmentRedirectUrl(String, String, String)}
+     *
+     * @param thirdPartyId      the id of the receipt
+     * @param requestFiscalCode the fiscal code of the user that request the receipt
+     * @param attachmentUrl     the relative url to the attachment
+     * @return the read-only SAS URL of the attachment, or a failure with the same exceptions of the blocking variant
      */
-    InputStream getAttachment(String thirdPartyId, String requestFiscalCode, String attachmentUrl)
-            throws ReceiptNotFoundException, InvalidReceiptException, FiscalCodeNotAuthorizedException, BlobStorageClientException, AttachmentNotFoundException, InvalidCartException, CartNotFoundException;
+    Uni<String> getAttachmentRedirectUrlAsync(String thirdPartyId, String requestFiscalCode, String attachmentUrl);
 
     /**
      * Retrieve a PDF receipt from the blob storage
@@ -1,26 +1,36 @@
 package it.gov.pagopa.receipt.pdf.service.service.impl;
 
-import io.quarkus.cache.CacheResult;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.tuples.Tuple2;
+import it.gov.pagopa.receipt.pdf.service.cache.DocumentCache;
+import it.gov.pagopa.receipt.pdf.service.client.CartReceiptCosmosAsyncClient;
 import it.gov.pagopa.receipt.pdf.service.client.CartReceiptCosmosClient;
 import it.gov.pagopa.receipt.pdf.service.client.ReceiptBlobClient;
+import it.gov.pagopa.receipt.pdf.service.client.ReceiptCosmosAsyncClient;
 import it.gov.pagopa.receipt.pdf.service.client.ReceiptCosmosClient;
 import it.gov.pagopa.receipt.pdf.service.enumeration.AppErrorCodeEnum;
 import it.gov.pagopa.receipt.pdf.service.exception.*;
 import it.gov.pagopa.receipt.pdf.service.model.Attachment;
+import it.gov.pagopa.receipt.pdf.service.model.AttachmentContent;
+import it.gov.pagopa.receipt.pdf.service.model.AttachmentDownloadOptions;
 import it.gov.pagopa.receipt.pdf.service.model.AttachmentsDetailsResponse;
 import it.gov.pagopa.receipt.pdf.service.model.Detail;
 import it.gov.pagopa.receipt.pdf.service.model.SearchTokenResponse;
+import it.gov.pagopa.receipt.pdf.service.model.cart.CartAuthorizationIndex;
+import it.gov.pagopa.receipt.pdf.service.model.cart.CartAuthorizationIndex.Recipient;
 import it.gov.pagopa.receipt.pdf.service.model.cart.CartForReceipt;
-import it.gov.pagopa.receipt.pdf.service.model.cart.CartPayment;
 import it.gov.pagopa.receipt.pdf.service.model.cart.MessageData;
 import it.gov.pagopa.receipt.pdf.service.model.receipt.Receipt;
 import it.gov.pagopa.receipt.pdf.service.model.receipt.ReceiptMetadata;
 import it.gov.pagopa.receipt.pdf.service.service.AttachmentsService;
 import it.gov.pagopa.receipt.pdf.service.utils.CommonUtils;
+import it.gov.pagopa.receipt.pdf.service.utils.Constants;
 import it.gov.pagopa.receipt.pdf.service.utils.PerfTracer;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import org.apache.commons.io.IOUtils;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.context.ManagedExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
@@ -28,40 +38,59 @@ import org.slf4j.MDC;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collections;
-import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executor;
 
 import static it.gov.pagopa.receipt.pdf.service.enumeration.AppErrorCodeEnum.PDFS_706;
 import static it.gov.pagopa.receipt.pdf.service.utils.CommonUtils.sanitize;
 import static it.gov.pagopa.receipt.pdf.service.utils.Constants.MDC_THIRD_PARTY_ID;
 import static it.gov.pagopa.receipt.pdf.service.utils.PerfTracer.FOUND_TAG;
+import static it.gov.pagopa.receipt.pdf.service.utils.ReactiveUtils.checked;
+import static it.gov.pagopa.receipt.pdf.service.utils.ReactiveUtils.fanOut;
 
 @ApplicationScoped
 public class AttachmentsServiceImpl implements AttachmentsService {
 
-    public static final String ANONIMO = "ANONIMO";
+    public static final String ANONIMO = Constants.ANONYMOUS_FISCAL_CODE;
     private final Logger logger = LoggerFactory.getLogger(AttachmentsServiceImpl.class);
 
     private final ReceiptCosmosClient cosmosClient;
     private final CartReceiptCosmosClient cartReceiptCosmosClient;
+    private final ReceiptCosmosAsyncClient cosmosAsyncClient;
+    private final CartReceiptCosmosAsyncClient cartReceiptCosmosAsyncClient;
 
     private final TokenizerService tokenizerService;
 
     private final ReceiptBlobClient receiptBlobClient;
 
+    private final DocumentCache documentCache;
+
+    private final Executor executor;
+
+    private final boolean parallelLookup;
+
     @Inject
     public AttachmentsServiceImpl(
             ReceiptCosmosClient cosmosClient, CartReceiptCosmosClient cartReceiptCosmosClient,
+            ReceiptCosmosAsyncClient cosmosAsyncClient, CartReceiptCosmosAsyncClient cartReceiptCosmosAsyncClient,
             TokenizerService tokenizerService,
-            ReceiptBlobClient receiptBlobClient
+            ReceiptBlobClient receiptBlobClient,
+            DocumentCache documentCache,
+            ManagedExecutor executor,
+            @ConfigProperty(name = "tokenizer.parallel-lookup.enabled") boolean parallelLookup
     ) {
         this.cosmosClient = cosmosClient;
         this.cartReceiptCosmosClient = cartReceiptCosmosClient;
+        this.cosmosAsyncClient = cosmosAsyncClient;
+        this.cartReceiptCosmosAsyncClient = cartReceiptCosmosAsyncClient;
         this.tokenizerService = tokenizerService;
         this.receiptBlobClient = receiptBlobClient;
+        this.documentCache = documentCache;
+        this.executor = executor;
+        this.parallelLookup = parallelLookup;
     }
 
-    @CacheResult(cacheName = "getAttachmentsDetails")
     @Override
     public AttachmentsDetailsResponse getAttachmentsDetails(
             String thirdPartyId, String requestFiscalCode)
@@ -78,6 +107,18 @@ public class AttachmentsServiceImpl implements AttachmentsService {
 
     }
 
+    @Override
+    public Uni<AttachmentsDetailsResponse> getAttachmentsDetailsAsync(String thirdPartyId, String requestFiscalCode) {
+        if (CommonUtils.isCart(thirdPartyId)) {
+            return withToken(getValidCartReceiptAsync(thirdPartyId, true), requestFiscalCode)
+                    .chain(items -> checked(() -> authorizeCartAttachmentDetails(
+                            thirdPartyId, items.getItem1(), items.getItem2().getToken())));
+        }
+        return withToken(getValidReceiptAsync(thirdPartyId), requestFiscalCode)
+                .chain(items -> checked(() -> authorizeSingleReceiptAttachmentDetails(
+                        thirdPartyId, items.getItem1(), items.getItem2().getToken())));
+    }
+
     @Override
     public byte[] getAttachmentBytesFromBlobStorage(String attachmentName)
             throws IOException, AttachmentNotFoundException, BlobStorageClientException {
@@ -101,24 +142,39 @@ public class AttachmentsServiceImpl implements AttachmentsService {
     private AttachmentsDetailsResponse handleSingleReceiptAttachmentDetails(String thirdPartyId, String requestFiscalCode)
             throws ReceiptNotFoundException, InvalidReceiptException, FiscalCodeNotAuthorizedException {
         Receipt receiptDocument;
-        try (PerfTracer t = PerfTracer.start(logger, "cosmos.getReceiptDocument")) {
-            receiptDocument = this.cosmosClient.getReceiptDocument(thirdPartyId);
-            t.tag(FOUND_TAG, receiptDocument != null);
-        }
+        SearchTokenResponse searchTokenResponse;
+        try (TokenLookup tokenLookup = startTokenLookup(requestFiscalCode)) {
+            try (PerfTracer t = PerfTracer.start(logger, "cosmos.getReceiptDocument")) {
+                receiptDocument = readReceipt(thirdPartyId);
+                t.tag(FOUND_TAG, receiptDocument != null);
+            }
 
-        try (PerfTracer t = PerfTracer.start(logger, "receipt.validate")) {
-            validateReceipt(thirdPartyId, receiptDocument);
-            t.tag("valid", true);
-        }
+            try (PerfTracer t = PerfTracer.start(logger, "receipt.validate")) {
+                validateReceipt(thirdPartyId, receiptDocument);
+                t.tag("valid", true);
+            }
+            this.documentCache.putReceipt(thirdPartyId, receiptDocument);
 
-        SearchTokenResponse searchTokenResponse;
-        try (PerfTracer t = PerfTracer.start(logger, "tokenizer.searchToken")) {
-            searchTokenResponse = this.tokenizerService.getSearchTokenResponse(requestFiscalCode);
-            t.tag("hasToken", searchTokenResponse != null && searchTokenResponse.getToken() != null);
+            try (PerfTracer t = PerfTracer.start(logger, "tokenizer.searchToken")) {
+                searchTokenResponse = tokenLookup.await();
+                t.tag("hasToken", searchTokenResponse != null && searchTokenResponse.getToken() != null);
+            }
         }
 
-        String token = searchTokenResponse.getToken();
+        return authorizeSingleReceiptAttachmentDetails(thirdPartyId, receiptDocument, searchTokenResponse.getToken());
+    }
 
+    /**
+     * Build the attachment details of a validated single receipt, if the tokenized fiscal code is authorized to access it
+     *
+     * @param thirdPartyId    the unique identifier of the receipt
+     * @param receiptDocument the validated receipt
+     * @param token           the tokenized fiscal code requesting access
+     * @return the details of the attachment for the specified receipt
+     * @throws FiscalCodeNotAuthorizedException if the fiscal code is not authorized to access the receipt
+     */
+    private AttachmentsDetailsResponse authorizeSingleReceiptAttachmentDetails(
+            String thirdPartyId, Receipt receiptDocument, String token) throws FiscalCodeNotAuthorizedException {
         if (isFiscalCodeNotAuthorized(token, receiptDocument)) {
             String errMsg =
                     String.format(
@@ -156,29 +212,57 @@ public class AttachmentsServiceImpl implements AttachmentsService {
      */
     private AttachmentsDetailsResponse handleCartAttachmentDetails(String thirdPartyId, String requestFiscalCode) throws CartNotFoundException, InvalidReceiptException, FiscalCodeNotAuthorizedException, InvalidCartException {
         String cartId = CommonUtils.getPaymentId(thirdPartyId);
-        String bizEventId = CommonUtils.getBizEventId(thirdPartyId);
 
-        CartForReceipt cartForReceipt;
-        try (PerfTracer t = PerfTracer.start(logger, "cosmos.getCartForReceiptDocument").tag("cartId", cartId)) {
-            cartForReceipt = this.cartReceiptCosmosClient.getCartForReceiptDocument(cartId);
-            int cartSize = cartForReceipt != null && cartForReceipt.getPayload() != null && cartForReceipt.getPayload().getCart() != null
-                    ? cartForReceipt.getPayload().getCart().size() : 0;
-            t.tag("cartSize", cartSize);
-        }
+        CartAuthorizationIndex cartIndex;
+        SearchTokenResponse searchTokenResponse;
+        try (TokenLookup tokenLookup = startTokenLookup(requestFiscalCode)) {
+            Optional<CartAuthorizationIndex> cachedCartIndex = this.documentCache.getCart(thirdPartyId, true);
+            if (cachedCartIndex.isPresent()) {
+                cartIndex = cachedCartIndex.get();
+            } else {
+                try (PerfTracer t = PerfTracer.start(logger, "cosmos.getCartForReceiptDocument").tag("cartId", cartId)) {
+                    CartForReceipt cartForReceipt = this.cartReceiptCosmosClient.getCartAuthorizationView(
+                            cartId, CommonUtils.getBizEventId(thirdPartyId), true);
+                    int cartSize = cartForReceipt != null && cartForReceipt.getPayload() != null && cartForReceipt.getPayload().getCart() != null
+                            ? cartForReceipt.getPayload().getCart().size() : 0;
+                    t.tag("cartSize", cartSize);
+                    cartIndex = CartAuthorizationIndex.of(cartForReceipt);
+                }
+            }
 
-        try (PerfTracer t = PerfTracer.start(logger, "cart.validate").tag("cartId", cartId)) {
-            validateCartReceipt(cartId, cartForReceipt);
-            t.tag("valid", true);
-        }
+            try (PerfTracer t = PerfTracer.start(logger, "cart.validate").tag("cartId", cartId)) {
+                validateCartReceipt(cartId, cartIndex);
+                t.tag("valid", true);
+            }
+            this.documentCache.putCart(thirdPartyId, cartIndex, true);
 
-        SearchTokenResponse searchTokenResponse;
-        try (PerfTracer t = PerfTracer.start(logger, "tokenizer.searchToken")) {
-            searchTokenResponse = this.tokenizerService.getSearchTokenResponse(requestFiscalCode);
-            t.tag("hasToken", searchTokenResponse != null && searchTokenResponse.getToken() != null);
+            try (PerfTracer t = PerfTracer.start(logger, "tokenizer.searchToken")) {
+                searchTokenResponse = tokenLookup.await();
+                t.tag("hasToken", searchTokenResponse != null && searchTokenResponse.getToken() != null);
+            }
         }
 
-        String token = searchTokenResponse.getToken();
-        if (isFiscalCodeNotAuthorized(token, bizEventId, cartForReceipt)) {
+        return authorizeCartAttachmentDetails(thirdPartyId, cartIndex, searchTokenResponse.getToken());
+    }
+
+    /**
+     * Build the attachment details of a validated cart, for the payer or for the debtor of the business event
+     * in the {@code thirdPartyId}, if the tokenized fiscal code is authorized to access them
+     *
+     * @param thirdPartyId the unique identifier of the cart, possibly including a business event ID
+     * @param cartIndex    the authorization index of the validated cart
+     * @param token        the tokenized fiscal code requesting access
+     * @return the details of the attachment for the specified cart
+     * @throws InvalidReceiptException          if the cart attachments are invalid
+     * @throws FiscalCodeNotAuthorizedException if the fiscal code is not authorized to access the cart's attachments
+     */
+    private AttachmentsDetailsResponse authorizeCartAttachmentDetails(
+            String thirdPartyId, CartAuthorizationIndex cartIndex, String token)
+            throws InvalidReceiptException, FiscalCodeNotAuthorizedException {
+        String cartId = CommonUtils.getPaymentId(thirdPartyId);
+        String bizEventId = CommonUtils.getBizEventId(thirdPartyId);
+
+        if (isFiscalCodeNotAuthorized(token, bizEventId, cartIndex)) {
             String errMsg =
                     String.format(
                             "Fiscal code is not authorized to access the receipts for cart with id %s", sanitize(thirdPartyId));
@@ -187,8 +271,9 @@ public class AttachmentsServiceImpl implements AttachmentsService {
         }
         //Payer case -> no need for bizEventId
         if (bizEventId == null) {
+            Recipient payer = cartIndex.getPayer();
 
-            if (cartForReceipt.getPayload().getMdAttachPayer() == null) {
+            if (payer.attachment() == null) {
                 String errMsg =
                         String.format("The retrieved receipt metadata for cart %s has null payer attachment info",
                                 sanitize(cartId));
@@ -196,7 +281,7 @@ public class AttachmentsServiceImpl implements AttachmentsService {
                 throw new InvalidReceiptException(AppErrorCodeEnum.PDFS_712, errMsg);
             }
 
-            if (cartForReceipt.getPayload().getMessagePayer() == null) {
+            if (payer.message() == null) {
                 String errMsg =
                         String.format("The retrieved receipt metadata for cart %s has null payer message data",
                                 sanitize(cartId));
@@ -204,14 +289,13 @@ public class AttachmentsServiceImpl implements AttachmentsService {
                 throw new InvalidReceiptException(AppErrorCodeEnum.PDFS_713, errMsg);
             }
 
-            return buildCartAttachmentDetails(cartForReceipt,
-                    cartForReceipt.getPayload().getMdAttachPayer(), cartForReceipt.getPayload().getMessagePayer(), "cart-payer");
+            return buildCartAttachmentDetails(cartIndex, payer.attachment(), payer.message(), "cart-payer");
         }
 
-        //Debtor case -> obtained receiptmetadata in cart filtered by bizEventId
-        CartPayment cartItem = findDebtorCartPaymentByBizEventId(cartForReceipt, bizEventId);
+        //Debtor case -> obtained receiptmetadata in cart indexed by bizEventId and fiscal code
+        Recipient debtor = cartIndex.getDebtor(bizEventId, token);
 
-        if (cartItem == null || cartItem.getMdAttach() == null) {
+        if (debtor == null || debtor.attachment() == null || debtor.message() == null) {
             String errMsg =
                     String.format("The retrieved receipt metadata for cart %s for the debtor with bizEventId: %s has null debtors attachment info",
                             sanitize(cartId), sanitize(bizEventId));
@@ -219,37 +303,35 @@ public class AttachmentsServiceImpl implements AttachmentsService {
             throw new InvalidReceiptException(AppErrorCodeEnum.PDFS_711, errMsg);
         }
 
-        return buildCartAttachmentDetails(cartForReceipt, cartItem.getMdAttach(), cartItem.getMessageDebtor(), "cart-debtor");
+        return buildCartAttachmentDetails(cartIndex, debtor.attachment(), debtor.message(), "cart-debtor");
 
     }
 
-    /**
-     * Finds the debtor cart payment item in the given cart that matches the specified business event ID.
-     *
-     * @param cartForReceipt the cart containing the list of payments
-     * @param eventId        the business event ID to match
-     * @return the first matching {@link CartPayment} with non-null attachment and message for the debtor, or null if not found
-     */
-    private CartPayment findDebtorCartPaymentByBizEventId(CartForReceipt cartForReceipt, String eventId) {
-        return cartForReceipt.getPayload().getCart() != null
-                ?
-                cartForReceipt.getPayload().getCart().stream()
-                        .filter(elem ->
-                                elem != null
-                                        && elem.getMdAttach() != null
-                                        && elem.getMessageDebtor() != null
-                                        && eventId.equals(elem.getBizEventId())
-                        )
-                        .findFirst()
-                        .orElse(null)
-                :
-                null;
+    @Override
+    public AttachmentContent getAttachment(String thirdPartyId, String requestFiscalCode, String attachmentUrl, AttachmentDownloadOptions downloadOptions)
+            throws ReceiptNotFoundException, InvalidReceiptException, FiscalCodeNotAuthorizedException,
+            BlobStorageClientException, AttachmentNotFoundException, InvalidCartException, CartNotFoundException,
+            RangeNotSatisfiableException {
+
+        try {
+            MDC.put(MDC_THIRD_PARTY_ID, thirdPartyId);
+
+            if (CommonUtils.isCart(thirdPartyId)) {
+                getCartAttachment(thirdPartyId, requestFiscalCode, attachmentUrl);
+            } else {
+                getSingleReceiptAttachment(thirdPartyId, requestFiscalCode, attachmentUrl);
+            }
+
+            return this.receiptBlobClient.openAttachmentStream(attachmentUrl, downloadOptions);
+        } finally {
+            MDC.remove(MDC_THIRD_PARTY_ID);
+        }
     }
 
     @Override
-    public InputStream getAttachment(String thirdPartyId, String requestFiscalCode, String attachmentUrl)
+    public String getAttachmentRedirectUrl(String thirdPartyId, String requestFiscalCode, String attachmentUrl)
             throws ReceiptNotFoundException, InvalidReceiptException, FiscalCodeNotAuthorizedException,
-            BlobStorageClientException, AttachmentNotFoundException, InvalidCartException, CartNotFoundException {
+            BlobStorageClientException, InvalidCartException, CartNotFoundException {
 
         try {
             MDC.put(MDC_THIRD_PARTY_ID, thirdPartyId);
@@ -260,17 +342,82 @@ public class AttachmentsServiceImpl implements AttachmentsService {
                 getSingleReceiptAttachment(thirdPartyId, requestFiscalCode, attachmentUrl);
             }
 
-            return this.receiptBlobClient.getAttachmentFromBlobStorage(attachmentUrl);
+            return this.receiptBlobClient.generateReadSasUrl(attachmentUrl);
         } finally {
             MDC.remove(MDC_THIRD_PARTY_ID);
         }
     }
 
+    @Override
+    public Uni<AttachmentContent> getAttachmentAsync(
+            String thirdPartyId, String requestFiscalCode, String attachmentUrl, AttachmentDownloadOptions downloadOptions) {
+        return authorizeAttachmentAsync(thirdPartyId, requestFiscalCode, attachmentUrl)
+                .chain(() -> this.receiptBlobClient.openAttachmentStreamAsync(attachmentUrl, downloadOptions));
+    }
+
+    @Override
+    public Uni<String> getAttachmentRedirectUrlAsync(String thirdPartyId, String requestFiscalCode, String attachmentUrl) {
+        return authorizeAttachmentAsync(thirdPartyId, requestFiscalCode, attachmentUrl)
+                .chain(ignored -> checked(() -> this.receiptBlobClient.generateReadSasUrl(attachmentUrl)));
+    }
+
+    private Uni<Void> authorizeAttachmentAsync(String thirdPartyId, String requestFiscalCode, String attachmentUrl) {
+        if (CommonUtils.isCart(thirdPartyId)) {
+            return withToken(getValidCartReceiptAsync(thirdPartyId, false), requestFiscalCode)
+                    .chain(items -> checked(() -> {
+                        authorizeCartAttachment(thirdPartyId, attachmentUrl, items.getItem1(), items.getItem2().getToken());
+                        return null;
+                    }));
+        }
+        return withToken(getValidReceiptAsync(thirdPartyId), requestFiscalCode)
+                .chain(items -> checked(() -> {
+                    authorizeSingleReceiptAttachment(thirdPartyId, attachmentUrl, items.getItem1(), items.getItem2().getToken());
+                    return null;
+                }));
+    }
+
+    /**
+     * Pair the validated document with the token of the fiscal code, looked up concurrently with the read
+     * of the document if the parallel lookup is enabled, after it otherwise
+     *
+     * @param document          the read and validation of the document
+     * @param requestFiscalCode the fiscal code requesting access
+     * @param <T>               the type of the document
+     * @return the document and the token, or the failure of the document read if both failed
+     */
+    private <T> Uni<Tuple2<T, SearchTokenResponse>> withToken(Uni<T> document, String requestFiscalCode) {
+        if (this.parallelLookup) {
+            return fanOut(document, this.tokenizerService.getSearchTokenResponseAsync(requestFiscalCode));
+        }
+        return document.chain(item -> this.tokenizerService.getSearchTokenResponseAsync(requestFiscalCode)
+                .map(searchTokenResponse -> Tuple2.of(item, searchTokenResponse)));
+    }
+
+    /**
+     * Start the lookup of the token of the fiscal code, concurrently with the caller if the parallel lookup
+     * is enabled, otherwise the lookup runs when awaited
+     *
+     * @param requestFiscalCode the fiscal code requesting access
+     * @return the lookup, to be closed once the document was read
+     */
+    private TokenLookup startTokenLookup(String requestFiscalCode) {
+        TokenLookup.Call call = () -> this.tokenizerService.getSearchTokenResponse(requestFiscalCode);
+        return this.parallelLookup ? TokenLookup.concurrent(call, this.executor) : TokenLookup.deferred(call);
+    }
+
     private void getSingleReceiptAttachment(String thirdPartyId, String requestFiscalCode, String attachmentUrl) throws ReceiptNotFoundException, InvalidReceiptException, FiscalCodeNotAuthorizedException {
-        Receipt receiptDocument = getReceipt(thirdPartyId);
-        SearchTokenResponse searchTokenResponse = this.tokenizerService.getSearchTokenResponse(requestFiscalCode);
+        Receipt receiptDocument;
+        SearchTokenResponse searchTokenResponse;
+        try (TokenLookup tokenLookup = startTokenLookup(requestFiscalCode)) {
+            receiptDocument = getReceipt(thirdPartyId);
+            searchTokenResponse = tokenLookup.await();
+        }
+        authorizeSingleReceiptAttachment(thirdPartyId, attachmentUrl, receiptDocument, searchTokenResponse.getToken());
+    }
 
-        if (isFiscalCodeNotAuthorized(searchTokenResponse.getToken(), attachmentUrl, receiptDocument)) {
+    private void authorizeSingleReceiptAttachment(String thirdPartyId, String attachmentUrl, Receipt receiptDocument, String token)
+            throws FiscalCodeNotAuthorizedException {
+        if (isFiscalCodeNotAuthorized(token, attachmentUrl, receiptDocument)) {
             String errMsg =
                     String.format(
                             "Fiscal code is not authorized to access the receipts with name: %s, for receipt with id %s",
@@ -281,12 +428,18 @@ public class AttachmentsServiceImpl implements AttachmentsService {
     }
 
     private void getCartAttachment(String thirdPartyId, String requestFiscalCode, String attachmentUrl) throws FiscalCodeNotAuthorizedException, InvalidCartException, CartNotFoundException {
-        String cartId = CommonUtils.getPaymentId(thirdPartyId);
-
-        CartForReceipt cartForReceipt = getCartReceipt(cartId);
-        SearchTokenResponse searchTokenResponse = this.tokenizerService.getSearchTokenResponse(requestFiscalCode);
+        CartAuthorizationIndex cartIndex;
+        SearchTokenResponse searchTokenResponse;
+        try (TokenLookup tokenLookup = startTokenLookup(requestFiscalCode)) {
+            cartIndex = getCartReceipt(thirdPartyId);
+            searchTokenResponse = tokenLookup.await();
+        }
+        authorizeCartAttachment(thirdPartyId, attachmentUrl, cartIndex, searchTokenResponse.getToken());
+    }
 
-        boolean isFiscalCodeNotAuthorized = isFiscalCodeNotAuthorized(attachmentUrl, CommonUtils.getBizEventId(thirdPartyId), searchTokenResponse, cartForReceipt);
+    private void authorizeCartAttachment(String thirdPartyId, String attachmentUrl, CartAuthorizationIndex cartIndex, String token)
+            throws FiscalCodeNotAuthorizedException {
+        boolean isFiscalCodeNotAuthorized = isFiscalCodeNotAuthorized(attachmentUrl, CommonUtils.getBizEventId(thirdPartyId), token, cartIndex);
 
         if (isFiscalCodeNotAuthorized) {
             String errMsg =
@@ -303,27 +456,44 @@ public class AttachmentsServiceImpl implements AttachmentsService {
      *
      * @param attachmentUrl       the attachment url from the request
      * @param bizEventId          the payment bizEventId
-     * @param searchTokenResponse the tokenized fiscal code from the PDV Tokenizer
-     * @param cartForReceipt      the cart for receipt object to check from the DB
+     * @param token               the tokenized fiscal code from the PDV Tokenizer
+     * @param cartIndex           the authorization index of the cart from the DB
      * @return true if the fiscal code is not authorized, false otherwise
      */
-    private static boolean isFiscalCodeNotAuthorized(String attachmentUrl, String bizEventId, SearchTokenResponse searchTokenResponse, CartForReceipt cartForReceipt) {
+    private static boolean isFiscalCodeNotAuthorized(String attachmentUrl, String bizEventId, String token, CartAuthorizationIndex cartIndex) {
         boolean isFiscalCodeNotAuthorized;
         if (bizEventId != null) {
-            isFiscalCodeNotAuthorized = isDebtorFiscalCodeNotAuthorized(searchTokenResponse.getToken(), attachmentUrl, bizEventId, cartForReceipt);
+            isFiscalCodeNotAuthorized = isDebtorFiscalCodeNotAuthorized(token, attachmentUrl, bizEventId, cartIndex);
         } else {
-            isFiscalCodeNotAuthorized = isPayerFiscalCodeNotAuthorized(searchTokenResponse.getToken(), attachmentUrl, cartForReceipt);
+            isFiscalCodeNotAuthorized = isPayerFiscalCodeNotAuthorized(token, attachmentUrl, cartIndex);
         }
         return isFiscalCodeNotAuthorized;
     }
 
     private Receipt getReceipt(String thirdPartyId)
             throws ReceiptNotFoundException, InvalidReceiptException {
-        Receipt receiptDocument = this.cosmosClient.getReceiptDocument(thirdPartyId);
+        Receipt receiptDocument = readReceipt(thirdPartyId);
         validateReceipt(thirdPartyId, receiptDocument);
+        this.documentCache.putReceipt(thirdPartyId, receiptDocument);
         return receiptDocument;
     }
 
+    private Receipt readReceipt(String thirdPartyId) throws ReceiptNotFoundException {
+        Optional<Receipt> cachedReceipt = this.documentCache.getReceipt(thirdPartyId);
+        return cachedReceipt.isPresent() ? cachedReceipt.get() : this.cosmosClient.getReceiptDocument(thirdPartyId);
+    }
+
+    private Uni<Receipt> getValidReceiptAsync(String thirdPartyId) {
+        return this.documentCache.getReceipt(thirdPartyId)
+                .map(receiptDocument -> Uni.createFrom().item(receiptDocument))
+                .orElseGet(() -> this.cosmosAsyncClient.getReceiptDocument(thirdPartyId))
+                .chain(receiptDocument -> checked(() -> {
+                    validateReceipt(thirdPartyId, receiptDocument);
+                    this.documentCache.putReceipt(thirdPartyId, receiptDocument);
+                    return receiptDocument;
+                }));
+    }
+
     private void validateReceipt(String thirdPartyId, Receipt receiptDocument)
             throws InvalidReceiptException {
         if (receiptDocument == null) {
@@ -363,31 +533,45 @@ public class AttachmentsServiceImpl implements AttachmentsService {
         }
     }
 
-    private CartForReceipt getCartReceipt(String cartId) throws CartNotFoundException, InvalidCartException {
-        CartForReceipt cartForReceipt = this.cartReceiptCosmosClient.getCartForReceiptDocument(cartId);
-        validateCartReceipt(cartId, cartForReceipt);
-        return cartForReceipt;
+    private CartAuthorizationIndex getCartReceipt(String thirdPartyId) throws CartNotFoundException, InvalidCartException {
+        String cartId = CommonUtils.getPaymentId(thirdPartyId);
+        // the messages are not needed to authorize the download of an attachment
+        Optional<CartAuthorizationIndex> cachedCartIndex = this.documentCache.getCart(thirdPartyId, false);
+        CartAuthorizationIndex cartIndex = cachedCartIndex.isPresent() ? cachedCartIndex.get() : CartAuthorizationIndex.of(
+                this.cartReceiptCosmosClient.getCartAuthorizationView(cartId, CommonUtils.getBizEventId(thirdPartyId), false));
+        validateCartReceipt(cartId, cartIndex);
+        this.documentCache.putCart(thirdPartyId, cartIndex, false);
+        return cartIndex;
+    }
+
+    private Uni<CartAuthorizationIndex> getValidCartReceiptAsync(String thirdPartyId, boolean withMessage) {
+        String cartId = CommonUtils.getPaymentId(thirdPartyId);
+        return this.documentCache.getCart(thirdPartyId, withMessage)
+                .map(cartIndex -> Uni.createFrom().item(cartIndex))
+                .orElseGet(() -> this.cartReceiptCosmosAsyncClient
+                        .getCartAuthorizationView(cartId, CommonUtils.getBizEventId(thirdPartyId), withMessage)
+                        .map(CartAuthorizationIndex::of))
+                .chain(cartIndex -> checked(() -> {
+                    validateCartReceipt(cartId, cartIndex);
+                    this.documentCache.putCart(thirdPartyId, cartIndex, withMessage);
+                    return cartIndex;
+                }));
     }
 
-    private void validateCartReceipt(String cartId, CartForReceipt cartForReceipt) throws InvalidCartException {
-        if (cartForReceipt == null) {
+    private void validateCartReceipt(String cartId, CartAuthorizationIndex cartIndex) throws InvalidCartException {
+        if (cartIndex == null) {
             String errMsg = String.format("The retrieved cart with id: %s, is null", sanitize(cartId));
             logger.error(errMsg);
             throw new InvalidCartException(AppErrorCodeEnum.PDFS_707, errMsg);
         }
-        if (cartForReceipt.getPayload() == null || cartForReceipt.getPayload().getCart() == null) {
+        if (!cartIndex.isPaymentsPresent()) {
             String errMsg =
                     String.format("The retrieved receipt with id: %s, has null payload", sanitize(cartId));
             logger.error(errMsg);
             throw new InvalidCartException(AppErrorCodeEnum.PDFS_708, errMsg);
         }
 
-        var allDebtorsAreNull = cartForReceipt.getPayload().getCart().stream()
-                .filter(Objects::nonNull)
-                .map(CartPayment::getDebtorFiscalCode)
-                .noneMatch(Objects::nonNull);
-
-        if (allDebtorsAreNull) {
+        if (!cartIndex.isDebtorFiscalCodePresent()) {
             String errMsg =
                     String.format(
                             "The retrieved cart with id: %s, has null debtors fiscal code",
@@ -396,14 +580,8 @@ public class AttachmentsServiceImpl implements AttachmentsService {
             throw new InvalidCartException(AppErrorCodeEnum.PDFS_709, errMsg);
         }
 
-        var allDebtorsAttachAreNull = cartForReceipt.getPayload().getCart().stream()
-                .filter(Objects::nonNull)
-                .map(CartPayment::getMdAttach)
-                .filter(Objects::nonNull)
-                .map(ReceiptMetadata::getName)
-                .noneMatch(Objects::nonNull);
-
-        if (allDebtorsAttachAreNull && cartForReceipt.getPayload().getMdAttachPayer() == null) {
+        Recipient payer = cartIndex.getPayer();
+        if (!cartIndex.isDebtorAttachmentNamePresent() && payer.attachment() == null) {
             String errMsg =
                     String.format(
                             "The retrieved cart with id: %s, has null attachment info",
@@ -412,22 +590,16 @@ public class AttachmentsServiceImpl implements AttachmentsService {
             throw new InvalidCartException(AppErrorCodeEnum.PDFS_710, errMsg);
         }
 
-        for (CartPayment elem : cartForReceipt.getPayload().getCart()) {
-            if ((elem.getDebtorFiscalCode() != null
-                    && !elem.getDebtorFiscalCode().equals(ANONIMO)
-                    && !elem.getDebtorFiscalCode().equals(cartForReceipt.getPayload().getPayerFiscalCode()))
-                    && elem.getMdAttach() == null) {
-                String errMsg =
-                        String.format(
-                                "The retrieved cart with id: %s, has null attachment info for debtor",
-                                sanitize(cartId));
-                logger.error(errMsg);
-                throw new InvalidCartException(AppErrorCodeEnum.PDFS_711, errMsg);
-            }
+        if (cartIndex.isDebtorAttachmentMissing()) {
+            String errMsg =
+                    String.format(
+                            "The retrieved cart with id: %s, has null attachment info for debtor",
+                            sanitize(cartId));
+            logger.error(errMsg);
+            throw new InvalidCartException(AppErrorCodeEnum.PDFS_711, errMsg);
         }
 
-
-        if (cartForReceipt.getPayload().getPayerFiscalCode() != null && cartForReceipt.getPayload().getMdAttachPayer() == null) {
+        if (payer.fiscalCode() != null && payer.attachment() == null) {
             String errMsg =
                     String.format(
                             "The retrieved cart with id: %s, has null attachment info for payer",
@@ -452,13 +624,13 @@ public class AttachmentsServiceImpl implements AttachmentsService {
     }
 
     private AttachmentsDetailsResponse buildCartAttachmentDetails(
-            CartForReceipt cartReceiptDocument, ReceiptMetadata receiptMetadata, MessageData messageData, String flow) {
+            CartAuthorizationIndex cartIndex, ReceiptMetadata receiptMetadata, MessageData messageData, String flow) {
         try (PerfTracer t = PerfTracer.start(logger, "response.build").tag("flow", flow)) {
             return AttachmentsDetailsResponse.builder()
                     .attachments(
                             Collections.singletonList(
                                     Attachment.builder()
-                                            .id(cartReceiptDocument.getId())
+                                            .id(cartIndex.getId())
                                             .contentType("application/pdf")
                                             .url(receiptMetadata.getName())
                                             .name(receiptMetadata.getName())
@@ -498,26 +670,17 @@ public class AttachmentsServiceImpl implements AttachmentsService {
      * @param requestFiscalCode the fiscal code from the request
      * @param attachmentUrl     the attachment url from the request
      * @param eventId           the event id to match in the cart from the request
-     * @param cartForReceipt    the cart for receipt object to check from the DB
+     * @param cartIndex         the authorization index of the cart from the DB
      * @return true if the debtor fiscal code is not authorized, false otherwise
      */
-    private static boolean isDebtorFiscalCodeNotAuthorized(String requestFiscalCode, String attachmentUrl, String eventId, CartForReceipt cartForReceipt) {
-        List<CartPayment> cart = cartForReceipt.getPayload().getCart();
-
-        List<CartPayment> matches = cart == null ? List.of() :
-                cart.stream()
-                        .filter(Objects::nonNull)
-                        .filter(elem -> eventId.equals(elem.getBizEventId()))
-                        .toList();
+    private static boolean isDebtorFiscalCodeNotAuthorized(String requestFiscalCode, String attachmentUrl, String eventId, CartAuthorizationIndex cartIndex) {
+        // a business event found in more than one payment is not authorized
+        Recipient debtor = cartIndex.getDebtor(eventId);
 
-        boolean isDebtorAuthorized = false;
-        if (matches.size() == 1) {
-            CartPayment match = matches.get(0);
-            ReceiptMetadata mdAttach = match.getMdAttach();
-            isDebtorAuthorized = Objects.equals(requestFiscalCode, match.getDebtorFiscalCode())
-                    && mdAttach != null
-                    && Objects.equals(attachmentUrl, mdAttach.getName());
-        }
+        boolean isDebtorAuthorized = debtor != null
+                && Objects.equals(requestFiscalCode, debtor.fiscalCode())
+                && debtor.attachment() != null
+                && Objects.equals(attachmentUrl, debtor.attachmentName());
 
         return !isDebtorAuthorized;
     }
@@ -527,13 +690,14 @@ public class AttachmentsServiceImpl implements AttachmentsService {
      *
      * @param requestFiscalCode the fiscal code from the request
      * @param attachmentUrl     the attachment url from the request
-     * @param cartForReceipt    the cart for receipt object to check from the DB
+     * @param cartIndex         the authorization index of the cart from the DB
      * @return true if the payer fiscal code is not authorized, false otherwise
      */
-    private static boolean isPayerFiscalCodeNotAuthorized(String requestFiscalCode, String attachmentUrl, CartForReceipt cartForReceipt) {
-        boolean isPayerAuthorized = cartForReceipt.getPayload().getMdAttachPayer() != null
-                && attachmentUrl.equals(cartForReceipt.getPayload().getMdAttachPayer().getName())
-                && requestFiscalCode.equals(cartForReceipt.getPayload().getPayerFiscalCode());
+    private static boolean isPayerFiscalCodeNotAuthorized(String requestFiscalCode, String attachmentUrl, CartAuthorizationIndex cartIndex) {
+        Recipient payer = cartIndex.getPayer();
+        boolean isPayerAuthorized = payer.attachment() != null
+                && attachmentUrl.equals(payer.attachmentName())
+                && requestFiscalCode.equals(payer.fiscalCode());
 
         return !isPayerAuthorized;
     }
@@ -551,38 +715,30 @@ public class AttachmentsServiceImpl implements AttachmentsService {
      *
      * @param requestFiscalCode the fiscal code to check
      * @param eventId           the event id
-     * @param cartForReceipt    the cart for receipt
+     * @param cartIndex         the authorization index of the cart
      * @return true if the fiscal code is not authorized, false otherwise
      */
     private boolean isFiscalCodeNotAuthorized(
-            String requestFiscalCode, String eventId, CartForReceipt cartForReceipt) {
+            String requestFiscalCode, String eventId, CartAuthorizationIndex cartIndex) {
 
         // check null cart or payload
-        if (cartForReceipt == null || cartForReceipt.getPayload() == null) {
+        if (cartIndex == null || !cartIndex.isPayloadPresent()) {
             return true;
         }
 
         if (eventId == null) {
             // if third_party_id is a payer then check payer attachment details
 
-            boolean isPayerAuthorized = cartForReceipt.getPayload().getMdAttachPayer() != null
-                    && requestFiscalCode.equals(cartForReceipt.getPayload().getPayerFiscalCode());
+            boolean isPayerAuthorized = cartIndex.getPayer().attachment() != null
+                    && requestFiscalCode.equals(cartIndex.getPayer().fiscalCode());
 
             return !isPayerAuthorized;
 
         } else {
             // else check debtor attachment details
 
-            boolean isDebtorAuthorized = cartForReceipt.getPayload().getCart() != null
-                    && cartForReceipt.getPayload().getCart().stream()
-                    .filter(elem ->
-                            elem != null
-                                    && elem.getMdAttach() != null
-                    )
-                    .anyMatch(elem ->
-                            requestFiscalCode.equals(elem.getDebtorFiscalCode())
-                                    && eventId.equals(elem.getBizEventId())
-                    );
+            Recipient debtor = cartIndex.getDebtor(eventId, requestFiscalCode);
+            boolean isDebtorAuthorized = debtor != null && debtor.attachment() != null;
 
             return !isDebtorAuthorized;
 
@@ -0,0 +1,191 @@
+package it.gov.pagopa.receipt.pdf.service.service.impl;
+
+import it.gov.pagopa.receipt.pdf.service.client.ReceiptBlobClient;
+import it.gov.pagopa.receipt.pdf.service.model.AttachmentContent;
+import it.gov.pagopa.receipt.pdf.service.model.cart.CartForReceipt;
+import it.gov.pagopa.receipt.pdf.service.model.cart.CartPayment;
+import it.gov.pagopa.receipt.pdf.service.model.receipt.ReceiptMetadata;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.context.ManagedExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Service that bundles the PDF receipts of a cart in a ZIP archive.
+ * <p>
+ * The archive is written while it is streamed to the client: the PDFs are downloaded in parallel from the
+ * Blob Storage, at most {@code attachment.archive.max-concurrency} at a time, and each one is written into
+ * the archive as soon as its download is available, so that the whole archive is never held in memory.
+ */
+@ApplicationScoped
+public class PdfArchiveService {
+
+    private final Logger logger = LoggerFactory.getLogger(PdfArchiveService.class);
+
+    private final ReceiptBlobClient receiptBlobClient;
+    private final ManagedExecutor executor;
+    private final int maxConcurrency;
+
+    @Inject
+    public PdfArchiveService(
+            ReceiptBlobClient receiptBlobClient,
+            ManagedExecutor executor,
+            @ConfigProperty(name = "attachment.archive.max-concurrency") int maxConcurrency
+    ) {
+        this.receiptBlobClient = receiptBlobClient;
+        this.executor = executor;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+    }
+
+    /**
+     * Retrieve the names of all the PDFs of a cart, the payer PDF followed by the PDFs of the debtors
+     *
+     * @param cart the cart receipt
+     * @return the names of the generated PDF attachments, without duplicates
+     */
+    public List<String> getCartAttachmentNames(CartForReceipt cart) {
+        Set<String> attachmentNames = new LinkedHashSet<>();
+        if (cart.getPayload() == null) {
+            return new ArrayList<>();
+        }
+        addAttachmentName(attachmentNames, cart.getPayload().getMdAttachPayer());
+        if (cart.getPayload().getCart() != null) {
+            for (CartPayment payment : cart.getPayload().getCart()) {
+                addAttachmentName(attachmentNames, payment.getMdAttach());
+            }
+        }
+        return new ArrayList<>(attachmentNames);
+    }
+
+    /**
+     * Build the streaming ZIP archive of the provided PDF receipts.
+     * The PDFs are downloaded only when the archive is written to the response.
+     *
+     * @param attachmentNames the names of the PDF receipts
+     * @return the streaming output that writes the ZIP archive
+     */
+    public StreamingOutput buildArchive(List<String> attachmentNames) {
+        return output -> writeArchive(attachmentNames, output);
+    }
+
+    private void writeArchive(List<String> attachmentNames, OutputStream output) throws IOException {
+        CompletionService<Map.Entry<String, AttachmentContent>> downloads = new ExecutorCompletionService<>(executor);
+        Iterator<String> pending = attachmentNames.iterator();
+        int inFlight = 0;
+        try {
+            ZipOutputStream zip = new ZipOutputStream(output);
+            // PDFs are already compressed, deflating them again costs CPU for a few bytes
+            zip.setLevel(Deflater.BEST_SPEED);
+            for (; inFlight < maxConcurrency && pending.hasNext(); inFlight++) {
+                submit(downloads, pending.next());
+            }
+            while (inFlight > 0) {
+                Future<Map.Entry<String, AttachmentContent>> completed = take(downloads);
+                inFlight--;
+                Map.Entry<String, AttachmentContent> download = get(completed);
+                if (pending.hasNext()) {
+                    submit(downloads, pending.next());
+                    inFlight++;
+                }
+                writeEntry(zip, download.getKey(), download.getValue());
+            }
+            // not closed on failure, the archive must not look complete if a PDF is missing
+            zip.close();
+        } finally {
+            discard(downloads, inFlight);
+        }
+    }
+
+    private void submit(CompletionService<Map.Entry<String, AttachmentContent>> downloads, String attachmentName) {
+        downloads.submit(() -> Map.entry(attachmentName, receiptBlobClient.openAttachmentStream(attachmentName, null)));
+    }
+
+    private Future<Map.Entry<String, AttachmentContent>> take(
+            CompletionService<Map.Entry<String, AttachmentContent>> downloads
+    ) throws IOException {
+        try {
+            return downloads.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while downloading the PDF receipts of the archive");
+        }
+    }
+
+    private Map.Entry<String, AttachmentContent> get(Future<Map.Entry<String, AttachmentContent>> completed)
+            throws IOException {
+        try {
+            return completed.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while downloading the PDF receipts of the archive");
+        } catch (ExecutionException e) {
+            throw new IOException("Unable to download a PDF receipt of the archive", e.getCause());
+        }
+    }
+
+    private void writeEntry(ZipOutputStream zip, String attachmentName, AttachmentContent attachment) throws IOException {
+        // only the file name is used, so that the archive cannot be extracted outside the target directory
+        zip.putNextEntry(new ZipEntry(attachmentName.substring(attachmentName.lastIndexOf('/') + 1)));
+        if (attachment.getAsyncContent() != null) {
+            WritableByteChannel channel = Channels.newChannel(zip);
+            for (ByteBuffer chunk : attachment.getAsyncContent().subscribe().asIterable()) {
+                channel.write(chunk);
+            }
+        } else {
+            try (InputStream content = attachment.getContent()) {
+                content.transferTo(zip);
+            }
+        }
+        zip.closeEntry();
+    }
+
+    private void discard(CompletionService<Map.Entry<String, AttachmentContent>> downloads, int inFlight) {
+        // the downloads still running when the archive failed are awaited, so that their streams are released
+        for (int i = 0; i < inFlight; i++) {
+            try {
+                AttachmentContent attachment = downloads.take().get().getValue();
+                if (attachment.getContent() != null) {
+                    attachment.getContent().close();
+                }
+                if (attachment.getAsyncContent() != null) {
+                    attachment.getAsyncContent().subscribe().with(chunk -> {}, failure -> {}).cancel();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException | IOException e) {
+                logger.debug("Discarded PDF receipt download failed", e);
+            }
+        }
+    }
+
+    private void addAttachmentName(Set<String> attachmentNames, ReceiptMetadata metadata) {
+        if (metadata != null && metadata.getName() != null && !metadata.getName().isBlank()) {
+            attachmentNames.add(metadata.getName());
+        }
+    }
+}
@@ -1,12 +1,22 @@
 package it.gov.pagopa.receipt.pdf.service.service.impl;
 
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.tuples.Tuple2;
+import it.gov.pagopa.receipt.pdf.service.cache.DocumentCache;
+import it.gov.pagopa.receipt.pdf.service.client.CartReceiptCosmosAsyncClient;
 import it.gov.pagopa.receipt.pdf.service.client.CartReceiptCosmosClient;
 import it.gov.pagopa.receipt.pdf.service.client.ReceiptBlobClient;
+import it.gov.pagopa.receipt.pdf.service.client.ReceiptCosmosAsyncClient;
 import it.gov.pagopa.receipt.pdf.service.client.ReceiptCosmosClient;
 import it.gov.pagopa.receipt.pdf.service.enumeration.ReceiptStatusType;
 import it.gov.pagopa.receipt.pdf.service.exception.*;
+import it.gov.pagopa.receipt.pdf.service.model.AttachmentDownloadOptions;
 import it.gov.pagopa.receipt.pdf.service.model.ReceiptPdfResponse;
+import it.gov.pagopa.receipt.pdf.service.model.SearchTokenResponse;
+import it.gov.pagopa.receipt.pdf.service.model.cart.CartAuthorizationIndex;
+import it.gov.pagopa.receipt.pdf.service.model.cart.CartAuthorizationIndex.Recipient;
 import it.gov.pagopa.receipt.pdf.service.model.cart.CartForReceipt;
+import it.gov.pagopa.receipt.pdf.service.model.cart.CartPayment;
 import it.gov.pagopa.receipt.pdf.service.model.cart.CartStatusType;
 import it.gov.pagopa.receipt.pdf.service.model.cart.Payload;
 import it.gov.pagopa.receipt.pdf.service.model.receipt.Receipt;
@@ -14,13 +24,23 @@ import it.gov.pagopa.receipt.pdf.service.model.receipt.ReceiptMetadata;
 import it.gov.pagopa.receipt.pdf.service.utils.CommonUtils;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.context.ManagedExecutor;
 import org.slf4j.MDC;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
 
 import static it.gov.pagopa.receipt.pdf.service.enumeration.AppErrorCodeEnum.*;
 import static it.gov.pagopa.receipt.pdf.service.utils.CommonUtils.*;
 import static it.gov.pagopa.receipt.pdf.service.utils.Constants.MDC_THIRD_PARTY_ID;
+import static it.gov.pagopa.receipt.pdf.service.utils.ReactiveUtils.checked;
+import static it.gov.pagopa.receipt.pdf.service.utils.ReactiveUtils.fanOut;
 
 @ApplicationScoped
 public class PdfService {
@@ -28,19 +48,33 @@ public class PdfService {
 
     private final ReceiptCosmosClient cosmosClient;
     private final CartReceiptCosmosClient cartReceiptCosmosClient;
+    private final ReceiptCosmosAsyncClient cosmosAsyncClient;
+    private final CartReceiptCosmosAsyncClient cartReceiptCosmosAsyncClient;
     private final TokenizerService tokenizerService;
     private final ReceiptBlobClient receiptBlobClient;
+    private final DocumentCache documentCache;
+    private final Executor executor;
+    private final boolean parallelLookup;
 
     @Inject
     public PdfService(
             ReceiptCosmosClient cosmosClient, CartReceiptCosmosClient cartReceiptCosmosClient,
+            ReceiptCosmosAsyncClient cosmosAsyncClient, CartReceiptCosmosAsyncClient cartReceiptCosmosAsyncClient,
             TokenizerService tokenizerService,
-            ReceiptBlobClient receiptBlobClient
+            ReceiptBlobClient receiptBlobClient,
+            DocumentCache documentCache,
+            ManagedExecutor executor,
+            @ConfigProperty(name = "tokenizer.parallel-lookup.enabled") boolean parallelLookup
     ) {
         this.cosmosClient = cosmosClient;
         this.cartReceiptCosmosClient = cartReceiptCosmosClient;
+        this.cosmosAsyncClient = cosmosAsyncClient;
+        this.cartReceiptCosmosAsyncClient = cartReceiptCosmosAsyncClient;
         this.tokenizerService = tokenizerService;
         this.receiptBlobClient = receiptBlobClient;
+        this.documentCache = documentCache;
+        this.executor = executor;
+        this.parallelLookup = parallelLookup;
     }
 
     /**
@@ -48,6 +82,7 @@ public class PdfService {
      *
      * @param thirdPartyId      the id of the biz event for single receipt, the id of the transaction concatenated with the biz event for cart receipts
      * @param requestFiscalCode the fiscal code of the user that request the receipt
+     * @param downloadOptions   the byte range and If-Range validator of the request, may be null
      * @return the details of the requested attachments
      * @throws AttachmentNotFoundException      thrown if the requested attachment was not found
      * @throws FiscalCodeNotAuthorizedException thrown if the fiscal code is not authorized to access the requested receipt
@@ -56,41 +91,244 @@ public class PdfService {
      * @throws CartNotFoundException            thrown if the cart receipt is not found
      * @throws InvalidReceiptException          thrown if the single receipt is in invalid state
      * @throws InvalidCartException             thrown if the cart receipt is in invalid state
+     * @throws RangeNotSatisfiableException     thrown if the requested range is outside the PDF
      */
-    public ReceiptPdfResponse getReceiptPdf(String thirdPartyId, String requestFiscalCode) throws
+    public ReceiptPdfResponse getReceiptPdf(String thirdPartyId, String requestFiscalCode, AttachmentDownloadOptions downloadOptions) throws
             FiscalCodeNotAuthorizedException, BlobStorageClientException, AttachmentNotFoundException,
-            ReceiptNotFoundException, CartNotFoundException, InvalidReceiptException, InvalidCartException {
-        String attachmentName;
-
+            ReceiptNotFoundException, CartNotFoundException, InvalidReceiptException, InvalidCartException,
+            RangeNotSatisfiableException {
         try {
             MDC.put(MDC_THIRD_PARTY_ID, thirdPartyId);
 
-            if (CommonUtils.isCart(thirdPartyId)) {
-                attachmentName = getCartAttachmentName(thirdPartyId, requestFiscalCode);
-            } else {
-                attachmentName = getReceiptAttachmentName(thirdPartyId, requestFiscalCode);
-            }
+            String attachmentName = getAuthorizedAttachmentName(thirdPartyId, requestFiscalCode);
 
-            if (attachmentName == null || attachmentName.isEmpty() || attachmentName.isBlank()) {
-                throw new AttachmentNotFoundException(PDFS_716, PDFS_716.getErrorMessage());
-            }
+            return ReceiptPdfResponse.builder()
+                    .attachmentName(attachmentName)
+                    .pdfFile(this.receiptBlobClient.openAttachmentStream(attachmentName, downloadOptions))
+                    .build();
+        } finally {
+            MDC.remove(MDC_THIRD_PARTY_ID);
+        }
+    }
+
+    /**
+     * Retrieve a short-lived SAS URL of the PDF of a receipt using the given third party id and fiscalCode,
+     * only if the fiscal code is authorized to access it
+     *
+     * @param thirdPartyId      the id of the biz event for single receipt, the id of the transaction concatenated with the biz event for cart receipts
+     * @param requestFiscalCode the fiscal code of the user that request the receipt
+     * @return the name of the PDF and its read-only SAS URL
+     * @throws AttachmentNotFoundException      thrown if the requested attachment was not found
+     * @throws FiscalCodeNotAuthorizedException thrown if the fiscal code is not authorized to access the requested receipt
+     * @throws BlobStorageClientException       thrown if the SAS URL cannot be generated
+     * @throws ReceiptNotFoundException         thrown if the single receipt is not found
+     * @throws CartNotFoundException            thrown if the cart receipt is not found
+     * @throws InvalidReceiptException          thrown if the single receipt is in invalid state
+     * @throws InvalidCartException             thrown if the cart receipt is in invalid state
+     */
+    public ReceiptPdfResponse getReceiptPdfRedirect(String thirdPartyId, String requestFiscalCode) throws
+            FiscalCodeNotAuthorizedException, BlobStorageClientException, AttachmentNotFoundException,
+            ReceiptNotFoundException, CartNotFoundException, InvalidReceiptException, InvalidCartException {
+        try {
+            MDC.put(MDC_THIRD_PARTY_ID, thirdPartyId);
+
+            String attachmentName = getAuthorizedAttachmentName(thirdPartyId, requestFiscalCode);
 
             return ReceiptPdfResponse.builder()
                     .attachmentName(attachmentName)
-                    .pdfFile(this.receiptBlobClient.getAttachmentFromBlobStorage(attachmentName))
+                    .redirectUrl(this.receiptBlobClient.generateReadSasUrl(attachmentName))
                     .build();
         } finally {
             MDC.remove(MDC_THIRD_PARTY_ID);
         }
     }
 
+    /**
+     * Non-blocking variant of {@link #getReceiptPdf(String, String, AttachmentDownloadOptions)}: the receipt and the
+     * token are read without blocking, and the PDF stream is opened with the Blob Storage async client if enabled
+     *
+     * @param thirdPartyId      the id of the biz event for single receipt, the id of the transaction concatenated with the biz event for cart receipts
+     * @param requestFiscalCode the fiscal code of the user that request the receipt
+     * @param downloadOptions   the byte range and If-Range validator of the request, may be null
+     * @return the name of the PDF and the stream over it, or a failure with the same exceptions of the blocking variant
+     */
+    public Uni<ReceiptPdfResponse> getReceiptPdfAsync(
+            String thirdPartyId, String requestFiscalCode, AttachmentDownloadOptions downloadOptions) {
+        return getAuthorizedAttachmentNameAsync(thirdPartyId, requestFiscalCode)
+                .chain(attachmentName -> this.receiptBlobClient.openAttachmentStreamAsync(attachmentName, downloadOptions)
+                        .map(pdfFile -> ReceiptPdfResponse.builder()
+                                .attachmentName(attachmentName)
+                                .pdfFile(pdfFile)
+                                .build()));
+    }
+
+    /**
+     * Non-blocking variant of {@link #getReceiptPdfRedirect(String, String)}
+     *
+     * @param thirdPartyId      the id of the biz event for single receipt, the id of the transaction concatenated with the biz event for cart receipts
+     * @param requestFiscalCode the fiscal code of the user that request the receipt
+     * @return the name of the PDF and its read-only SAS URL, or a failure with the same exceptions of the blocking variant
+     */
+    public Uni<ReceiptPdfResponse> getReceiptPdfRedirectAsync(String thirdPartyId, String requestFiscalCode) {
+        return getAuthorizedAttachmentNameAsync(thirdPartyId, requestFiscalCode)
+                .chain(attachmentName -> checked(() -> ReceiptPdfResponse.builder()
+                        .attachmentName(attachmentName)
+                        .redirectUrl(this.receiptBlobClient.generateReadSasUrl(attachmentName))
+                        .build()));
+    }
+
+    private Uni<String> getAuthorizedAttachmentNameAsync(String thirdPartyId, String requestFiscalCode) {
+        Uni<String> attachmentName;
+        if (CommonUtils.isCart(thirdPartyId)) {
+            // only the payment of the requested business event is needed to find the attachment of the debtor
+            Uni<CartAuthorizationIndex> validCart = this.documentCache.getCart(thirdPartyId, false)
+                    .map(cartIndex -> Uni.createFrom().item(cartIndex))
+                    .orElseGet(() -> this.cartReceiptCosmosAsyncClient
+                            .getCartAuthorizationView(CommonUtils.getPaymentId(thirdPartyId), CommonUtils.getBizEventId(thirdPartyId), false)
+                            .map(CartAuthorizationIndex::of))
+                    .chain(cartIndex -> checked(() -> {
+                        checkCartPdfStatus(cartIndex);
+                        this.documentCache.putCart(thirdPartyId, cartIndex, false);
+                        return cartIndex;
+                    }));
+            attachmentName = withToken(validCart, requestFiscalCode)
+                    .chain(items -> checked(() ->
+                            getCartAttachmentName(thirdPartyId, items.getItem1(), items.getItem2().getToken())));
+        } else {
+            Uni<Receipt> validReceipt = this.documentCache.getReceipt(thirdPartyId)
+                    .map(receipt -> Uni.createFrom().item(receipt))
+                    .orElseGet(() -> this.cosmosAsyncClient.getReceiptDocument(thirdPartyId))
+                    .chain(receipt -> checked(() -> {
+                        checkReceiptPdfStatus(receipt);
+                        this.documentCache.putReceipt(thirdPartyId, receipt);
+                        return receipt;
+                    }));
+            attachmentName = withToken(validReceipt, requestFiscalCode)
+                    .chain(items -> checked(() ->
+                            getReceiptAttachmentName(thirdPartyId, items.getItem1(), items.getItem2().getToken())));
+        }
+        return attachmentName.chain(name -> checked(() -> checkAttachmentName(name)));
+    }
+
+    /**
+     * Pair the checked document with the token of the fiscal code, looked up concurrently with the read
+     * of the document if the parallel lookup is enabled, after it otherwise
+     *
+     * @param document          the read and check of the document
+     * @param requestFiscalCode the fiscal code of the user that request the receipt
+     * @param <T>               the type of the document
+     * @return the document and the token, or the failure of the document read if both failed
+     */
+    private <T> Uni<Tuple2<T, SearchTokenResponse>> withToken(Uni<T> document, String requestFiscalCode) {
+        if (this.parallelLookup) {
+            return fanOut(document, this.tokenizerService.getSearchTokenResponseAsync(requestFiscalCode));
+        }
+        return document.chain(item -> this.tokenizerService.getSearchTokenResponseAsync(requestFiscalCode)
+                .map(searchTokenResponse -> Tuple2.of(item, searchTokenResponse)));
+    }
+
+    /**
+     * Start the lookup of the token of the fiscal code, concurrently with the caller if the parallel lookup
+     * is enabled, otherwise the lookup runs when awaited
+     *
+     * @param requestFiscalCode the fiscal code of the user that request the receipt
+     * @return the lookup, to be closed once the document was read
+     */
+    private TokenLookup startTokenLookup(String requestFiscalCode) {
+        TokenLookup.Call call = () -> this.tokenizerService.getSearchTokenResponse(requestFiscalCode);
+        return this.parallelLookup ? TokenLookup.concurrent(call, this.executor) : TokenLookup.deferred(call);
+    }
+
+    private String getAuthorizedAttachmentName(String thirdPartyId, String requestFiscalCode) throws
+            FiscalCodeNotAuthorizedException, AttachmentNotFoundException, ReceiptNotFoundException,
+            CartNotFoundException, InvalidReceiptException, InvalidCartException {
+        String attachmentName;
+        if (CommonUtils.isCart(thirdPartyId)) {
+            attachmentName = getCartAttachmentName(thirdPartyId, requestFiscalCode);
+        } else {
+            attachmentName = getReceiptAttachmentName(thirdPartyId, requestFiscalCode);
+        }
+        return checkAttachmentName(attachmentName);
+    }
+
+    private static String checkAttachmentName(String attachmentName) throws AttachmentNotFoundException {
+        if (attachmentName == null || attachmentName.isEmpty() || attachmentName.isBlank()) {
+            throw new AttachmentNotFoundException(PDFS_716, PDFS_716.getErrorMessage());
+        }
+        return attachmentName;
+    }
+
+    /**
+     * Retrieve the names of all the PDFs of a cart that the given fiscal code is authorized to access:
+     * the payer PDF if the fiscal code is the cart payer, and the PDF of every cart payment where the
+     * fiscal code is the debtor
+     *
+     * @param cartId            the id of the cart
+     * @param requestFiscalCode the fiscal code of the user that request the PDFs
+     * @return the names of the PDF attachments, without duplicates
+     * @throws CartNotFoundException            thrown if the cart receipt is not found
+     * @throws InvalidCartException             thrown if the cart receipt is in invalid state
+     * @throws FiscalCodeNotAuthorizedException thrown if the fiscal code is not authorized to access any PDF of the cart
+     * @throws AttachmentNotFoundException      thrown if the PDFs of the cart are not available
+     */
+    public List<String> getCartReceiptPdfNames(String cartId, String requestFiscalCode) throws
+            CartNotFoundException, InvalidCartException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException {
+        try {
+            MDC.put(MDC_THIRD_PARTY_ID, cartId);
+
+            CartForReceipt cart;
+            String fiscalCode;
+            try (TokenLookup tokenLookup = startTokenLookup(requestFiscalCode)) {
+                cart = this.cartReceiptCosmosClient.getCartForReceiptDocument(cartId);
+                checkCartPdfStatus(CartAuthorizationIndex.of(cart));
+                fiscalCode = tokenLookup.await().getToken();
+            }
+            Payload cartPayload = cart.getPayload();
+            Set<String> attachmentNames = new LinkedHashSet<>();
+            if (Objects.equals(cartPayload.getPayerFiscalCode(), fiscalCode)) {
+                attachmentNames.add(getAttachmentName(cartPayload.getMdAttachPayer()));
+            }
+            if (cartPayload.getCart() != null) {
+                for (CartPayment payment : cartPayload.getCart()) {
+                    if (Objects.equals(payment.getDebtorFiscalCode(), fiscalCode)) {
+                        attachmentNames.add(getAttachmentName(payment.getMdAttach()));
+                    }
+                }
+            }
+            if (attachmentNames.isEmpty()) {
+                throw new FiscalCodeNotAuthorizedException(PDFS_706, String.format(
+                        "Fiscal code is not authorized to access the receipts of the cart with id %s", sanitize(cartId)));
+            }
+            return new ArrayList<>(attachmentNames);
+        } finally {
+            MDC.remove(MDC_THIRD_PARTY_ID);
+        }
+    }
+
+    private String getAttachmentName(ReceiptMetadata metadata) throws InvalidCartException {
+        if (metadata == null || metadata.getName() == null || metadata.getName().isBlank()) {
+            throw new InvalidCartException(PDFS_716, PDFS_716.getErrorMessage());
+        }
+        return metadata.getName();
+    }
+
     private String getReceiptAttachmentName(
             String thirdPartyId,
             String requestFiscalCode
     ) throws ReceiptNotFoundException, InvalidReceiptException, FiscalCodeNotAuthorizedException, InvalidCartException, AttachmentNotFoundException {
-        String attachmentName;
-        Receipt receipt = this.cosmosClient.getReceiptDocument(thirdPartyId);
+        Receipt receipt;
+        String fiscalCode;
+        try (TokenLookup tokenLookup = startTokenLookup(requestFiscalCode)) {
+            Optional<Receipt> cachedReceipt = this.documentCache.getReceipt(thirdPartyId);
+            receipt = cachedReceipt.isPresent() ? cachedReceipt.get() : this.cosmosClient.getReceiptDocument(thirdPartyId);
+            checkReceiptPdfStatus(receipt);
+            this.documentCache.putReceipt(thirdPartyId, receipt);
+            fiscalCode = tokenLookup.await().getToken();
+        }
+        return getReceiptAttachmentName(thirdPartyId, receipt, fiscalCode);
+    }
 
+    private void checkReceiptPdfStatus(Receipt receipt) throws AttachmentNotFoundException, InvalidReceiptException {
         if (ReceiptStatusType.PDF_WAITING_TO_BE_GENERATED.contains(receipt.getStatus())) {
             throw new AttachmentNotFoundException(PDFS_714, PDFS_714.getErrorMessage());
         }
@@ -100,8 +338,11 @@ public class PdfService {
             }
             throw new AttachmentNotFoundException(PDFS_715, PDFS_715.getErrorMessage());
         }
+    }
 
-        String fiscalCode = this.tokenizerService.getSearchTokenResponse(requestFiscalCode).getToken();
+    private String getReceiptAttachmentName(String thirdPartyId, Receipt receipt, String fiscalCode)
+            throws FiscalCodeNotAuthorizedException, InvalidCartException {
+        String attachmentName;
         if (Objects.equals(receipt.getEventData().getDebtorFiscalCode(), fiscalCode)) {
             if (receipt.getMdAttach() == null) {
                 throw new InvalidCartException(PDFS_716, PDFS_716.getErrorMessage());
@@ -123,55 +364,53 @@ public class PdfService {
             String thirdPartyId,
             String requestFiscalCode
     ) throws CartNotFoundException, InvalidCartException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException {
-        String attachmentName;
         String cartId = CommonUtils.getPaymentId(thirdPartyId);
 
-        CartForReceipt cart = this.cartReceiptCosmosClient.getCartForReceiptDocument(cartId);
-
-        if (CartStatusType.PDF_WAITING_TO_BE_GENERATED.contains(cart.getStatus())) {
-            throw new AttachmentNotFoundException(PDFS_714, PDFS_714.getErrorMessage());
-        }
-        if (CartStatusType.PDF_FAILED_TO_BE_GENERATED.contains(cart.getStatus())) {
-            if (isCartInCriticalFailure(cart)) {
-                throw new InvalidCartException(PDFS_716, PDFS_716.getErrorMessage());
-            }
-            throw new AttachmentNotFoundException(PDFS_715, PDFS_715.getErrorMessage());
+        CartAuthorizationIndex cartIndex;
+        String fiscalCode;
+        try (TokenLookup tokenLookup = startTokenLookup(requestFiscalCode)) {
+            Optional<CartAuthorizationIndex> cachedCartIndex = this.documentCache.getCart(thirdPartyId, false);
+            cartIndex = cachedCartIndex.isPresent() ? cachedCartIndex.get() : CartAuthorizationIndex.of(
+                    this.cartReceiptCosmosClient.getCartAuthorizationView(cartId, CommonUtils.getBizEventId(thirdPartyId), false));
+            checkCartPdfStatus(cartIndex);
+            this.documentCache.putCart(thirdPartyId, cartIndex, false);
+            fiscalCode = tokenLookup.await().getToken();
         }
+        return getCartAttachmentName(thirdPartyId, cartIndex, fiscalCode);
+    }
 
-        String fiscalCode = this.tokenizerService.getSearchTokenResponse(requestFiscalCode).getToken();
-        Payload cartPayload = cart.getPayload();
-        if (Objects.equals(cartPayload.getPayerFiscalCode(), fiscalCode)) {
-            if (cartPayload.getMdAttachPayer() == null) {
-                throw new InvalidCartException(PDFS_716, PDFS_716.getErrorMessage());
-            }
-            attachmentName = cartPayload.getMdAttachPayer().getName();
+    private String getCartAttachmentName(String thirdPartyId, CartAuthorizationIndex cartIndex, String fiscalCode)
+            throws FiscalCodeNotAuthorizedException, InvalidCartException {
+        Recipient payer = cartIndex.getPayer();
+        Recipient recipient;
+        if (payer != null && Objects.equals(payer.fiscalCode(), fiscalCode)) {
+            recipient = payer;
         } else {
             String bizEventId = CommonUtils.getBizEventId(thirdPartyId);
-            ReceiptMetadata mdAttach = cartPayload.getCart().stream()
-                    .filter(md ->
-                            Objects.equals(md.getDebtorFiscalCode(), fiscalCode) &&
-                                    Objects.equals(md.getBizEventId(), bizEventId)
-                    )
-                    .findFirst().orElseThrow(() -> new FiscalCodeNotAuthorizedException(
-                            PDFS_706,
-                            String.format("Fiscal code is not authorized to access the receipt with biz event id %s", bizEventId)
-                    ))
-                    .getMdAttach();
-            if (mdAttach == null) {
-                throw new InvalidCartException(PDFS_716, PDFS_716.getErrorMessage());
+            recipient = cartIndex.getDebtor(bizEventId);
+            if (recipient == null || !Objects.equals(recipient.fiscalCode(), fiscalCode)) {
+                throw new FiscalCodeNotAuthorizedException(
+                        PDFS_706,
+                        String.format("Fiscal code is not authorized to access the receipt with biz event id %s", bizEventId)
+                );
             }
-
-            attachmentName = mdAttach.getName();
         }
-        return attachmentName;
+        if (recipient.attachment() == null) {
+            throw new InvalidCartException(PDFS_716, PDFS_716.getErrorMessage());
+        }
+        return recipient.attachmentName();
     }
 
-    private boolean isCartInCriticalFailure(CartForReceipt cart) {
-        return cart.getPayload() != null &&
-                ((cart.getPayload().getReasonErrPayer() != null && cart.getPayload().getReasonErrPayer().getCode() == PDF_TEMPLATE_ERROR_CODE) ||
-                        (cart.getPayload().getCart() != null && cart.getPayload().getCart().stream().anyMatch(
-                                c -> c.getReasonErrDebtor() != null && c.getReasonErrDebtor().getCode() == PDF_TEMPLATE_ERROR_CODE)
-                        ));
+    private void checkCartPdfStatus(CartAuthorizationIndex cartIndex) throws AttachmentNotFoundException, InvalidCartException {
+        if (CartStatusType.PDF_WAITING_TO_BE_GENERATED.contains(cartIndex.getStatus())) {
+            throw new AttachmentNotFoundException(PDFS_714, PDFS_714.getErrorMessage());
+        }
+        if (CartStatusType.PDF_FAILED_TO_BE_GENERATED.contains(cartIndex.getStatus())) {
+            if (cartIndex.hasReasonError(PDF_TEMPLATE_ERROR_CODE)) {
+                throw new InvalidCartException(PDFS_716, PDFS_716.getErrorMessage());
+            }
+            throw new AttachmentNotFoundException(PDFS_715, PDFS_715.getErrorMessage());
+        }
     }
 
     private boolean isSingleReceiptInCriticalFailure(Receipt receipt) {
@@ -0,0 +1,94 @@
+package it.gov.pagopa.receipt.pdf.service.service.impl;
+
+import it.gov.pagopa.receipt.pdf.service.exception.FiscalCodeNotAuthorizedException;
+import it.gov.pagopa.receipt.pdf.service.model.SearchTokenResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Lookup of the token of a fiscal code, that may run concurrently with the read of the receipt it authorizes.
+ * <p>
+ * The lookup is joined with {@link #await()}; closing it before that cancels it, so that the lookup is abandoned
+ * when the read of the receipt fails. A concurrent lookup already sent to the tokenizer is not interrupted,
+ * its result is discarded.
+ */
+public final class TokenLookup implements AutoCloseable {
+
+    private final CompletableFuture<SearchTokenResponse> concurrent;
+    private final Call deferred;
+
+    private TokenLookup(CompletableFuture<SearchTokenResponse> concurrent, Call deferred) {
+        this.concurrent = concurrent;
+        this.deferred = deferred;
+    }
+
+    /**
+     * Start the lookup on the provided executor
+     *
+     * @param call     the lookup
+     * @param executor the executor of the lookup
+     * @return the running lookup
+     */
+    public static TokenLookup concurrent(Call call, Executor executor) {
+        return new TokenLookup(CompletableFuture.supplyAsync(() -> {
+            try {
+                return call.searchToken();
+            } catch (FiscalCodeNotAuthorizedException e) {
+                throw new CompletionException(e);
+            }
+        }, executor), null);
+    }
+
+    /**
+     * Prepare the lookup, that runs on the calling thread only when awaited
+     *
+     * @param call the lookup
+     * @return the lookup
+     */
+    public static TokenLookup deferred(Call call) {
+        return new TokenLookup(null, call);
+    }
+
+    /**
+     * Wait for the result of the lookup
+     *
+     * @return the token of the fiscal code
+     * @throws FiscalCodeNotAuthorizedException if the token cannot be retrieved
+     */
+    public SearchTokenResponse await() throws FiscalCodeNotAuthorizedException {
+        if (deferred != null) {
+            return deferred.searchToken();
+        }
+        try {
+            return concurrent.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof FiscalCodeNotAuthorizedException fiscalCodeNotAuthorizedException) {
+                throw fiscalCodeNotAuthorizedException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Cancel the lookup if it has not been awaited
+     */
+    @Override
+    public void close() {
+        if (concurrent != null) {
+            concurrent.cancel(false);
+        }
+    }
+
+    /**
+     * The call to the tokenizer
+     */
+    @FunctionalInterface
+    public interface Call {
+        SearchTokenResponse searchToken() throws FiscalCodeNotAuthorizedException;
+    }
+}
@@ -1,44 +1,257 @@
 package it.gov.pagopa.receipt.pdf.service.service.impl;
 
+import io.smallrye.mutiny.Uni;
+import it.gov.pagopa.receipt.pdf.service.cache.TokenCache;
+import it.gov.pagopa.receipt.pdf.service.cache.TokenCache.CachedToken;
 import it.gov.pagopa.receipt.pdf.service.client.PDVTokenizerClient;
+import it.gov.pagopa.receipt.pdf.service.client.impl.AdaptiveConcurrencyLimiter;
+import it.gov.pagopa.receipt.pdf.service.client.impl.AdaptiveConcurrencyLimiter.Permit;
 import it.gov.pagopa.receipt.pdf.service.enumeration.AppErrorCodeEnum;
 import it.gov.pagopa.receipt.pdf.service.exception.FiscalCodeNotAuthorizedException;
+import it.gov.pagopa.receipt.pdf.service.exception.PDVTokenizerClientException;
+import it.gov.pagopa.receipt.pdf.service.exception.TokenizerOverloadedException;
+import it.gov.pagopa.receipt.pdf.service.exception.TooManyRequestsException;
 import it.gov.pagopa.receipt.pdf.service.model.SearchTokenRequest;
 import it.gov.pagopa.receipt.pdf.service.model.SearchTokenResponse;
 import it.gov.pagopa.receipt.pdf.service.utils.PerfTracer;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.faulttolerance.exceptions.BulkheadException;
+import org.eclipse.microprofile.faulttolerance.exceptions.CircuitBreakerOpenException;
+import org.eclipse.microprofile.faulttolerance.exceptions.TimeoutException;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Retrieve the tokens of the fiscal codes from the PDV tokenizer.
+ * <p>
+ * The tokens are cached, the concurrent lookups of the same fiscal code share a single call to the tokenizer and
+ * the calls are bounded by an {@link AdaptiveConcurrencyLimiter}: a lookup over the limit, rejected by the bulkhead
+ * of the client or with its circuit breaker open fails immediately with a {@link TokenizerOverloadedException}.
+ */
 @ApplicationScoped
 public class TokenizerService {
+    private static final String MISSING_TOKEN = "Missing token";
+    private static final String TOKEN_ERROR = "Could not recover fiscal code token for authentication in the request";
+
     private final Logger logger = LoggerFactory.getLogger(TokenizerService.class);
     private final PDVTokenizerClient pdvTokenizerClient;
+    private final TokenCache tokenCache;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    // in-flight lookups, by cache key of the fiscal code
+    private final ConcurrentMap<String, CompletableFuture<SearchTokenResponse>> inFlightLookups = new ConcurrentHashMap<>();
 
     @Inject
-    public TokenizerService(@RestClient PDVTokenizerClient pdvTokenizerClient) {
+    public TokenizerService(
+            @RestClient PDVTokenizerClient pdvTokenizerClient,
+            TokenCache tokenCache,
+            AdaptiveConcurrencyLimiter concurrencyLimiter
+    ) {
         this.pdvTokenizerClient = pdvTokenizerClient;
+        this.tokenCache = tokenCache;
+        this.concurrencyLimiter = concurrencyLimiter;
     }
 
     public SearchTokenResponse getSearchTokenResponse(String requestFiscalCode)
             throws FiscalCodeNotAuthorizedException {
+        String cacheKey = cacheKey(requestFiscalCode);
+        Optional<CachedToken> cached = tokenCache.get(cacheKey);
+        if (cached.isPresent()) {
+            return fromCache(cached.get());
+        }
+
+        CompletableFuture<SearchTokenResponse> lookup = new CompletableFuture<>();
+        CompletableFuture<SearchTokenResponse> inFlight = inFlightLookups.putIfAbsent(cacheKey, lookup);
+        if (inFlight != null) {
+            return join(inFlight);
+        }
+        try {
+            SearchTokenResponse searchTokenResponse = searchToken(cacheKey, requestFiscalCode);
+            lookup.complete(searchTokenResponse);
+            return searchTokenResponse;
+        } catch (Throwable e) {
+            // the waiting lookups must always be completed, or they would wait forever
+            lookup.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLookups.remove(cacheKey, lookup);
+        }
+    }
+
+    public Uni<SearchTokenResponse> getSearchTokenResponseAsync(String requestFiscalCode) {
+        return Uni.createFrom().deferred(() -> {
+            String cacheKey = cacheKey(requestFiscalCode);
+            Optional<CachedToken> cached = tokenCache.get(cacheKey);
+            if (cached.isPresent()) {
+                return cached.get().isNotFound()
+                        ? Uni.createFrom().failure(new FiscalCodeNotAuthorizedException(AppErrorCodeEnum.PDFS_700, MISSING_TOKEN))
+                        : Uni.createFrom().item(new SearchTokenResponse(cached.get().token()));
+            }
+
+            CompletableFuture<SearchTokenResponse> lookup = new CompletableFuture<>();
+            CompletableFuture<SearchTokenResponse> inFlight = inFlightLookups.putIfAbsent(cacheKey, lookup);
+            if (inFlight != null) {
+                return Uni.createFrom().completionStage(inFlight.copy());
+            }
+            // the shared call is not bound to this subscriber: every subscriber waits on its own copy of the lookup,
+            // so a cancelled subscriber cancels only its copy and the other lookups still receive the token
+            searchTokenAsync(cacheKey, requestFiscalCode).subscribe().with(
+                    searchTokenResponse -> {
+                        inFlightLookups.remove(cacheKey, lookup);
+                        lookup.complete(searchTokenResponse);
+                    },
+                    failure -> {
+                        inFlightLookups.remove(cacheKey, lookup);
+                        lookup.completeExceptionally(failure);
+                    });
+            return Uni.createFrom().completionStage(lookup.copy());
+        });
+    }
+
+    /**
+     * Check if a lookup is still waiting for the tokenizer, e.g. a concurrent lookup abandoned by a failed read
+     *
+     * @return true if a lookup is in flight
+     */
+    boolean hasInFlightLookups() {
+        return !inFlightLookups.isEmpty();
+    }
+
+    private SearchTokenResponse searchToken(String cacheKey, String requestFiscalCode) throws FiscalCodeNotAuthorizedException {
+        Permit permit = acquirePermit();
         try (PerfTracer tracer = PerfTracer.start(logger, "tokenizer.searchToken.http")) {
-            SearchTokenResponse searchTokenResponse =
-                    pdvTokenizerClient.searchToken(new SearchTokenRequest(requestFiscalCode));
+            SearchTokenResponse searchTokenResponse;
+            try {
+                searchTokenResponse = pdvTokenizerClient.searchToken(new SearchTokenRequest(requestFiscalCode));
+            } catch (Exception e) {
+                release(permit, e);
+                throw e;
+            }
+            permit.onSuccess();
             boolean hasToken = searchTokenResponse != null && searchTokenResponse.getToken() != null;
             tracer.tag("hasToken", hasToken).tag("status", hasToken ? "ok" : "missingToken");
             if (!hasToken) {
-                throw new FiscalCodeNotAuthorizedException(AppErrorCodeEnum.PDFS_700, "Missing token");
+                tokenCache.putNotFound(cacheKey);
+                throw new FiscalCodeNotAuthorizedException(AppErrorCodeEnum.PDFS_700, MISSING_TOKEN);
             }
+            tokenCache.putToken(cacheKey, searchTokenResponse.getToken());
             return searchTokenResponse;
         } catch (FiscalCodeNotAuthorizedException e) {
             throw e;
         } catch (Exception e) {
-            String errMsg = "Could not recover fiscal code token for authentication in the request";
-            logger.error(errMsg, e);
-            throw new FiscalCodeNotAuthorizedException(AppErrorCodeEnum.PDFS_700, errMsg);
+            throw toFiscalCodeNotAuthorized(cacheKey, e);
+        }
+    }
+
+    private Uni<SearchTokenResponse> searchTokenAsync(String cacheKey, String requestFiscalCode) {
+        return Uni.createFrom().deferred(() -> {
+            Permit permit;
+            try {
+                permit = acquirePermit();
+            } catch (TokenizerOverloadedException e) {
+                return Uni.createFrom().failure(e);
+            }
+            PerfTracer tracer = PerfTracer.start(logger, "tokenizer.searchToken.http");
+            return pdvTokenizerClient.searchTokenAsync(new SearchTokenRequest(requestFiscalCode))
+                    .onItemOrFailure().invoke((searchTokenResponse, failure) -> {
+                        if (failure != null) {
+                            release(permit, failure);
+                        } else {
+                            permit.onSuccess();
+                        }
+                        try (tracer) {
+                            boolean hasToken = searchTokenResponse != null && searchTokenResponse.getToken() != null;
+                            tracer.tag("hasToken", hasToken)
+                                    .tag("status", failure != null ? "error" : hasToken ? "ok" : "missingToken");
+                        }
+                    })
+                    .onCancellation().invoke(permit::onIgnore)
+                    .onFailure().transform(e -> toFiscalCodeNotAuthorized(cacheKey, e))
+                    .onItem().transformToUni(searchTokenResponse -> {
+                        if (searchTokenResponse == null || searchTokenResponse.getToken() == null) {
+                            tokenCache.putNotFound(cacheKey);
+                            return Uni.createFrom().failure(
+                                    new FiscalCodeNotAuthorizedException(AppErrorCodeEnum.PDFS_700, MISSING_TOKEN));
+                        }
+                        tokenCache.putToken(cacheKey, searchTokenResponse.getToken());
+                        return Uni.createFrom().item(searchTokenResponse);
+                    });
+        });
+    }
+
+    private Permit acquirePermit() throws TokenizerOverloadedException {
+        return concurrencyLimiter.tryAcquire().orElseThrow(() -> {
+            logger.warn("Tokenizer call rejected, the concurrency limit of {} calls is reached", concurrencyLimiter.getLimit());
+            return new TokenizerOverloadedException(AppErrorCodeEnum.PDFS_717, AppErrorCodeEnum.PDFS_717.getErrorMessage());
+        });
+    }
+
+    private static void release(Permit permit, Throwable failure) {
+        if (isTooManyRequests(failure) || failure instanceof TimeoutException) {
+            permit.onOverload();
+        } else {
+            permit.onIgnore();
+        }
+    }
+
+    private static boolean isTooManyRequests(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof TooManyRequestsException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String cacheKey(String requestFiscalCode) {
+        return tokenCache.key(Objects.requireNonNullElse(requestFiscalCode, ""));
+    }
+
+    private static SearchTokenResponse fromCache(CachedToken cached) throws FiscalCodeNotAuthorizedException {
+        if (cached.isNotFound()) {
+            throw new FiscalCodeNotAuthorizedException(AppErrorCodeEnum.PDFS_700, MISSING_TOKEN);
+        }
+        return new SearchTokenResponse(cached.token());
+    }
+
+    private static SearchTokenResponse join(CompletableFuture<SearchTokenResponse> lookup) throws FiscalCodeNotAuthorizedException {
+        try {
+            return lookup.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof FiscalCodeNotAuthorizedException fiscalCodeNotAuthorizedException) {
+                throw fiscalCodeNotAuthorizedException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    private FiscalCodeNotAuthorizedException toFiscalCodeNotAuthorized(String cacheKey, Throwable e) {
+        if (e instanceof FiscalCodeNotAuthorizedException fiscalCodeNotAuthorizedException) {
+            return fiscalCodeNotAuthorizedException;
+        }
+        if (e instanceof CircuitBreakerOpenException || e instanceof BulkheadException) {
+            logger.warn("Tokenizer call rejected by the fault tolerance policy: {}", e.getMessage());
+            return new TokenizerOverloadedException(AppErrorCodeEnum.PDFS_717, AppErrorCodeEnum.PDFS_717.getErrorMessage());
+        }
+        // only the fiscal codes unknown to the tokenizer are cached, the transient errors are retried at the next request
+        if (e instanceof PDVTokenizerClientException clientException
+                && clientException.getStatus() == Response.Status.NOT_FOUND.getStatusCode()) {
+            tokenCache.putNotFound(cacheKey);
         }
+        logger.error(TOKEN_ERROR, e);
+        return new FiscalCodeNotAuthorizedException(AppErrorCodeEnum.PDFS_700, TOKEN_ERROR);
     }
 }
@@ -9,6 +9,7 @@ import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.PBEKeySpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
 import java.security.spec.KeySpec;
 import java.util.Base64;
@@ -25,7 +26,12 @@ public class Aes256Utils {
     public static final String ALGORITHM = "AES";
 
     private static final int AES_UNEXPECTED_ERROR = 701;
+    private static final int IV_LENGTH = 16;
 
+    /* Key derived from the secret and the salt, reset when the keys change */
+    private static volatile SecretKeySpec derivedKey;
+    private static final ThreadLocal<Cipher> CIPHER = ThreadLocal.withInitial(Aes256Utils::newCipher);
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
 
     /**
      * Hide from public usage.
@@ -34,28 +40,22 @@ public class Aes256Utils {
     }
 
     /* Method used by test */
-    public static void setKeys(String key, String salt) {
+    public static synchronized void setKeys(String key, String salt) {
         aesSecretKey = key;
         aesSalt = salt;
+        derivedKey = null;
     }
 
     public static String encrypt(String strToEncrypt) throws Aes256Exception {
 
         try {
-
-            SecureRandom secureRandom = new SecureRandom();
-            byte[] iv = new byte[16];
-            secureRandom.nextBytes(iv);
+            byte[] iv = new byte[IV_LENGTH];
+            SECURE_RANDOM.nextBytes(iv);
             IvParameterSpec ivspec = new IvParameterSpec(iv);
 
-            SecretKeyFactory factory = SecretKeyFactory.getInstance(PBKDF_2_WITH_HMAC_SHA_256);
-            KeySpec spec = new PBEKeySpec(aesSecretKey.toCharArray(), aesSalt.getBytes(), ITERATION_COUNT, KEY_LENGTH);
-            SecretKey tmp = factory.generateSecret(spec);
-            SecretKeySpec secretKeySpec = new SecretKeySpec(tmp.getEncoded(), ALGORITHM);
-
             //Padding vulnerability rule java:S5542 ignored because encryption is used inside application workflow
-            Cipher cipher = Cipher.getInstance(AES_CBC_PKCS_5_PADDING);
-            cipher.init(Cipher.ENCRYPT_MODE, secretKeySpec, ivspec);
+            Cipher cipher = CIPHER.get();
+            cipher.init(Cipher.ENCRYPT_MODE, getSecretKey(), ivspec);
 
             byte[] cipherText = cipher.doFinal(strToEncrypt.getBytes(StandardCharsets.UTF_8));
             byte[] encryptedData = new byte[iv.length + cipherText.length];
@@ -71,26 +71,44 @@ public class Aes256Utils {
     public static String decrypt(String strToDecrypt) throws Aes256Exception {
         try{
             byte[] encryptedData = Base64.getDecoder().decode(strToDecrypt);
-            byte[] iv = new byte[16];
-            System.arraycopy(encryptedData, 0, iv, 0, iv.length);
-            IvParameterSpec ivspec = new IvParameterSpec(iv);
-
-            SecretKeyFactory factory = SecretKeyFactory.getInstance(PBKDF_2_WITH_HMAC_SHA_256);
-            KeySpec spec = new PBEKeySpec(aesSecretKey.toCharArray(), aesSalt.getBytes(), ITERATION_COUNT, KEY_LENGTH);
-            SecretKey tmp = factory.generateSecret(spec);
-            SecretKeySpec secretKeySpec = new SecretKeySpec(tmp.getEncoded(), ALGORITHM);
+            IvParameterSpec ivspec = new IvParameterSpec(encryptedData, 0, IV_LENGTH);
 
             //Padding vulnerability rule java:S5542 ignored because decryption is used inside application workflow
-            Cipher cipher = Cipher.getInstance(AES_CBC_PKCS_5_PADDING);
-            cipher.init(Cipher.DECRYPT_MODE, secretKeySpec, ivspec);
+            Cipher cipher = CIPHER.get();
+            cipher.init(Cipher.DECRYPT_MODE, getSecretKey(), ivspec);
 
-            byte[] cipherText = new byte[encryptedData.length - 16];
-            System.arraycopy(encryptedData, 16, cipherText, 0, cipherText.length);
-
-            byte[] decryptedText = cipher.doFinal(cipherText);
+            byte[] decryptedText = cipher.doFinal(encryptedData, IV_LENGTH, encryptedData.length - IV_LENGTH);
             return new String(decryptedText, StandardCharsets.UTF_8);
         } catch (Exception e) {
             throw new Aes256Exception("Unexpected error when decrypting the given string", AES_UNEXPECTED_ERROR, e);
         }
     }
+
+    /**
+     * Return the AES key derived from the secret and the salt, deriving it only the first time because
+     * PBKDF2 is expensive on purpose
+     */
+    private static SecretKeySpec getSecretKey() throws GeneralSecurityException {
+        SecretKeySpec current = derivedKey;
+        if (current != null) {
+            return current;
+        }
+        synchronized (Aes256Utils.class) {
+            if (derivedKey == null) {
+                SecretKeyFactory factory = SecretKeyFactory.getInstance(PBKDF_2_WITH_HMAC_SHA_256);
+                KeySpec spec = new PBEKeySpec(aesSecretKey.toCharArray(), aesSalt.getBytes(), ITERATION_COUNT, KEY_LENGTH);
+                SecretKey tmp = factory.generateSecret(spec);
+                derivedKey = new SecretKeySpec(tmp.getEncoded(), ALGORITHM);
+            }
+            return derivedKey;
+        }
+    }
+
+    private static Cipher newCipher() {
+        try {
+            return Cipher.getInstance(AES_CBC_PKCS_5_PADDING);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to initialize the AES cipher", e);
+        }
+    }
 }
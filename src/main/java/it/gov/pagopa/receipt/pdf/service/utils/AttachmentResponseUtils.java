@@ -0,0 +1,106 @@
+package it.gov.pagopa.receipt.pdf.service.utils;
+
+import it.gov.pagopa.receipt.pdf.service.model.AttachmentContent;
+import it.gov.pagopa.receipt.pdf.service.model.AttachmentDownloadOptions;
+import it.gov.pagopa.receipt.pdf.service.resource.writer.AsyncPdfBody;
+import jakarta.ws.rs.core.StreamingOutput;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.jboss.resteasy.reactive.RestResponse;
+
+import java.net.URI;
+
+/**
+ * Utility methods to build the HTTP responses that return a PDF attachment
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class AttachmentResponseUtils {
+
+    /**
+     * Build the download options from the conditional and Range headers of the request
+     *
+     * @param rangeHeader       the value of the Range header, may be null
+     * @param ifRangeHeader     the value of the If-Range header, may be null
+     * @param ifNoneMatchHeader the value of the If-None-Match header, may be null
+     * @return the download options, null if neither a supported range nor a validator was provided
+     */
+    public static AttachmentDownloadOptions buildDownloadOptions(String rangeHeader, String ifRangeHeader, String ifNoneMatchHeader) {
+        var range = CommonUtils.parseRangeHeader(rangeHeader);
+        if (range == null && ifNoneMatchHeader == null) {
+            return null;
+        }
+        return AttachmentDownloadOptions.builder()
+                .range(range)
+                .ifRange(range != null ? ifRangeHeader : null)
+                .ifNoneMatch(ifNoneMatchHeader)
+                .build();
+    }
+
+    /**
+     * Build the response builder for the provided attachment: 304 Not Modified if the client copy is still
+     * valid, 206 Partial Content with the Content-Range header if only a byte range is returned, 200 OK otherwise.
+     * The ETag of the attachment is always returned together with the provided Cache-Control directives.
+     *
+     * @param attachment   the attachment to return
+     * @param cacheControl the value of the Cache-Control header
+     * @return the response builder with the content and the headers of the PDF
+     */
+    public static RestResponse.ResponseBuilder<Object> buildPdfResponse(AttachmentContent attachment, String cacheControl) {
+        if (attachment.isNotModified()) {
+            return RestResponse.ResponseBuilder.<Object>create(RestResponse.Status.NOT_MODIFIED)
+                    .header("etag", attachment.getETag())
+                    .header("cache-control", cacheControl);
+        }
+        Object entity;
+        if (attachment.getAsyncContent() != null) {
+            entity = new AsyncPdfBody(attachment.getAsyncContent());
+        } else {
+            entity = attachment.getContent();
+        }
+        RestResponse.ResponseBuilder<Object> builder;
+        if (attachment.isPartial()) {
+            long lastByte = attachment.getOffset() + attachment.getContentLength() - 1;
+            builder = RestResponse.ResponseBuilder.create(RestResponse.Status.PARTIAL_CONTENT)
+                    .entity(entity)
+                    .header("content-range", String.format("bytes %d-%d/%d",
+                            attachment.getOffset(), lastByte, attachment.getTotalLength()));
+        } else {
+            builder = RestResponse.ResponseBuilder.ok(entity);
+        }
+        return builder
+                .header("content-type", "application/pdf")
+                .header("content-disposition", "attachment;")
+                .header("content-length", attachment.getContentLength())
+                .header("accept-ranges", "bytes")
+                .header("etag", attachment.getETag())
+                .header("cache-control", cacheControl);
+    }
+
+    /**
+     * Build the 302 redirect to the SAS URL of a PDF attachment, so that its bytes are served
+     * directly by the Blob Storage. The redirect must not be cached beyond the SAS expiry.
+     *
+     * @param redirectUrl the read-only SAS URL of the attachment
+     * @return the response builder of the redirect
+     */
+    public static RestResponse.ResponseBuilder<Object> buildRedirectResponse(String redirectUrl) {
+        return RestResponse.ResponseBuilder.<Object>create(RestResponse.Status.FOUND)
+                .location(URI.create(redirectUrl))
+                .header("cache-control", "no-store");
+    }
+
+    /**
+     * Build the response builder for the ZIP archive with the PDF receipts of a cart
+     *
+     * @param archive the streaming output that writes the archive
+     * @param cartId  the id of the cart, used to name the archive
+     * @return the response builder with the archive and its headers
+     */
+    public static RestResponse.ResponseBuilder<Object> buildArchiveResponse(StreamingOutput archive, String cartId) {
+        // only safe characters are kept in the file name of the archive
+        String fileName = "cart-" + cartId.replaceAll("[^A-Za-z0-9_-]", "") + ".zip";
+        return RestResponse.ResponseBuilder.ok((Object) archive)
+                .header("content-type", "application/zip")
+                .header("content-disposition", "attachment; filename=\"" + fileName + "\"");
+    }
+}
@@ -1,5 +1,6 @@
 package it.gov.pagopa.receipt.pdf.service.utils;
 
+import it.gov.pagopa.receipt.pdf.service.model.ByteRange;
 import it.gov.pagopa.receipt.pdf.service.model.ProblemJson;
 import jakarta.ws.rs.core.Response;
 import lombok.AccessLevel;
@@ -10,6 +11,7 @@ import static it.gov.pagopa.receipt.pdf.service.utils.Constants.CART;
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class CommonUtils {
 
+    private static final String BYTES_UNIT = "bytes=";
 
     /**
      * This method sanitizes the input string by escaping special characters to prevent XSS attacks.
@@ -62,4 +64,63 @@ public class CommonUtils {
         }
         return thirdPartyId;
     }
+
+    /**
+     * Parse the value of an HTTP {@code Range} header. Only a single byte range is supported,
+     * multiple ranges and malformed values are ignored so that the whole attachment is returned.
+     *
+     * @param rangeHeader the value of the Range header
+     * @return the requested byte range, null if the header is missing, invalid or not supported
+     */
+    public static ByteRange parseRangeHeader(String rangeHeader) {
+        if (rangeHeader == null || !rangeHeader.startsWith(BYTES_UNIT)) {
+            return null;
+        }
+        String rangeSpec = rangeHeader.substring(BYTES_UNIT.length()).trim();
+        int separator = rangeSpec.indexOf('-');
+        if (rangeSpec.contains(",") || separator < 0) {
+            return null;
+        }
+        try {
+            String first = rangeSpec.substring(0, separator).trim();
+            String last = rangeSpec.substring(separator + 1).trim();
+            if (first.isEmpty()) {
+                long suffixLength = Long.parseLong(last);
+                return suffixLength > 0 ? ByteRange.builder().suffixLength(suffixLength).build() : null;
+            }
+            long start = Long.parseLong(first);
+            Long end = last.isEmpty() ? null : Long.parseLong(last);
+            if (start < 0 || (end != null && end < start)) {
+                return null;
+            }
+            return ByteRange.builder().start(start).end(end).build();
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Check if an ETag matches the value of an HTTP {@code If-None-Match} header, using the weak comparison.
+     *
+     * @param ifNoneMatch the value of the If-None-Match header, a list of ETags or the wildcard
+     * @param eTag        the current ETag of the resource
+     * @return true if the ETag matches one of the provided values
+     */
+    public static boolean matchesETag(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || eTag == null) {
+            return false;
+        }
+        String opaqueTag = stripWeakPrefix(eTag.trim());
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if ("*".equals(value) || stripWeakPrefix(value).equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeakPrefix(String eTag) {
+        return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+    }
 }
@@ -7,9 +7,14 @@ import lombok.NoArgsConstructor;
 public class Constants {
     public static final String FISCAL_CODE_HEADER = "fiscal_code";
     public static final String THIRD_PARTY_ID_PARAM = "tp_id";
+    public static final String CART_ID_PARAM = "cart_id";
     public static final int FISCAL_CODE_LENGTH = 16;
     public static final String FILENAME_RESPONSE_HEADER = "filename";
     public static final String CART = "_CART_";
+    public static final String RANGE_HEADER = "Range";
+    public static final String IF_RANGE_HEADER = "If-Range";
+    public static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+    public static final String ANONYMOUS_FISCAL_CODE = "ANONIMO";
 
     public static final String MDC_THIRD_PARTY_ID = "thirdPartyId";
 }
@@ -0,0 +1,87 @@
+package it.gov.pagopa.receipt.pdf.service.utils;
+
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import io.smallrye.mutiny.tuples.Tuple2;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import mutiny.zero.flow.adapters.AdaptersToFlow;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.Callable;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class ReactiveUtils {
+
+    /**
+     * Convert a Reactor {@link Mono}, as returned by the Azure SDK async clients, to a {@link Uni}.
+     * The Mono is subscribed only when the Uni is, and cancelling the Uni cancels the underlying request.
+     *
+     * @param mono the mono to convert
+     * @param <T>  the type of the item
+     * @return the uni emitting the item of the mono, or null if the mono is empty
+     */
+    public static <T> Uni<T> toUni(Mono<T> mono) {
+        return Uni.createFrom().publisher(AdaptersToFlow.publisher(mono));
+    }
+
+    /**
+     * Run a blocking call on the worker pool, so that it never runs on the event loop
+     *
+     * @param call the blocking call, its checked exceptions fail the returned uni
+     * @param <T>  the type of the result
+     * @return the uni emitting the result of the call
+     */
+    public static <T> Uni<T> blocking(Callable<T> call) {
+        return Uni.createFrom().<T>emitter(emitter -> {
+            try {
+                emitter.complete(call.call());
+            } catch (Exception e) {
+                emitter.fail(e);
+            }
+        }).runSubscriptionOn(Infrastructure.getDefaultWorkerPool());
+    }
+
+    /**
+     * Run a call that throws the checked exceptions of the services, usually as the mapping of
+     * {@link Uni#chain(java.util.function.Function)}: an exception thrown by the call fails the returned uni
+     *
+     * @param call the call, run on the calling thread
+     * @param <T>  the type of the result
+     * @return the uni emitting the result of the call
+     */
+    public static <T> Uni<T> checked(Callable<T> call) {
+        try {
+            return Uni.createFrom().item(call.call());
+        } catch (Exception e) {
+            return Uni.createFrom().failure(e);
+        }
+    }
+
+    /**
+     * Subscribe to both the unis at the same time and join their items.
+     * <p>
+     * The failure of the primary uni takes precedence: it cancels the secondary one and fails the result.
+     * A failure of the secondary uni fails the result only once the primary one has succeeded, so that the
+     * failure reported is the same of running them one after the other.
+     *
+     * @param primary   the primary uni, usually the read of a document
+     * @param secondary the secondary uni
+     * @param <A>       the type of the primary item
+     * @param <B>       the type of the secondary item
+     * @return the uni emitting both the items
+     */
+    public static <A, B> Uni<Tuple2<A, B>> fanOut(Uni<A> primary, Uni<B> secondary) {
+        // the secondary failure is carried as an item, otherwise it would cancel the primary uni
+        Uni<Outcome<B>> secondaryOutcome = secondary
+                .map(item -> new Outcome<>(item, null))
+                .onFailure().recoverWithItem(failure -> new Outcome<>(null, failure));
+        return Uni.combine().all().unis(primary, secondaryOutcome).asTuple()
+                .chain(items -> items.getItem2().failure() != null
+                        ? Uni.createFrom().failure(items.getItem2().failure())
+                        : Uni.createFrom().item(Tuple2.of(items.getItem1(), items.getItem2().item())));
+    }
+
+    private record Outcome<T>(T item, Throwable failure) {
+    }
+}
@@ -0,0 +1,159 @@
+package it.gov.pagopa.receipt.pdf.service.cache;
+
+import it.gov.pagopa.receipt.pdf.service.model.CachedAttachment;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AttachmentDiskCacheTest {
+
+    private static final String BLOB_NAME = "receipt.pdf";
+    private static final String ETAG = "\"0x8DC0000000000000\"";
+    private static final byte[] PDF = "pdf-content".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    @SneakyThrows
+    void cacheWhileReadingStoresFullyReadAttachment() {
+        AttachmentDiskCache sut = buildCache(1024, 1024);
+
+        try (InputStream stream = sut.cacheWhileReading(BLOB_NAME, ETAG, PDF.length, new ByteArrayInputStream(PDF))) {
+            assertArrayEquals(PDF, stream.readAllBytes());
+        }
+
+        Optional<CachedAttachment> cached = sut.get(BLOB_NAME);
+        assertTrue(cached.isPresent());
+        assertEquals(ETAG, cached.get().getETag());
+        assertEquals(PDF.length, cached.get().getSize());
+        assertArrayEquals(PDF, Files.readAllBytes(cached.get().getFile()));
+        assertEquals(PDF.length, sut.getCurrentSizeBytes());
+        cached.get().getChannel().close();
+    }
+
+    @Test
+    @SneakyThrows
+    void getKeepsFileReadableAfterEviction() {
+        AttachmentDiskCache sut = buildCache(PDF.length, 1024);
+        store(sut, BLOB_NAME);
+        CachedAttachment cached = sut.get(BLOB_NAME).orElseThrow();
+
+        store(sut, "other.pdf");
+
+        assertFalse(Files.exists(cached.getFile()));
+        try (InputStream stream = new FileChannelInputStream(cached.getChannel(), 0, cached.getSize())) {
+            assertArrayEquals(PDF, stream.readAllBytes());
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void getDropsEntryWithMissingFile() {
+        AttachmentDiskCache sut = buildCache(1024, 1024);
+        store(sut, BLOB_NAME);
+        CachedAttachment cached = sut.get(BLOB_NAME).orElseThrow();
+        cached.getChannel().close();
+        Files.delete(cached.getFile());
+
+        assertTrue(sut.get(BLOB_NAME).isEmpty());
+        assertEquals(0, sut.getCurrentSizeBytes());
+    }
+
+    @Test
+    @SneakyThrows
+    void cacheWhileReadingDiscardsPartiallyReadAttachment() {
+        AttachmentDiskCache sut = buildCache(1024, 1024);
+
+        try (InputStream stream = sut.cacheWhileReading(BLOB_NAME, ETAG, PDF.length, new ByteArrayInputStream(PDF))) {
+            assertEquals(3, stream.read(new byte[3]));
+        }
+
+        assertTrue(sut.get(BLOB_NAME).isEmpty());
+        assertEquals(0, sut.getCurrentSizeBytes());
+        try (var partialFiles = Files.list(directory.resolve("tmp"))) {
+            assertEquals(0, partialFiles.count());
+        }
+    }
+
+    @Test
+    void cacheWhileReadingSkipsAttachmentOverEntryLimit() {
+        AttachmentDiskCache sut = buildCache(1024, PDF.length - 1);
+        InputStream source = new ByteArrayInputStream(PDF);
+
+        assertSame(source, sut.cacheWhileReading(BLOB_NAME, ETAG, PDF.length, source));
+    }
+
+    @Test
+    void cacheWhileReadingReturnsSourceIfDisabled() {
+        AttachmentDiskCache sut = new AttachmentDiskCache(false, directory.toString(), 1024, 1024);
+        sut.init();
+        InputStream source = new ByteArrayInputStream(PDF);
+
+        assertSame(source, sut.cacheWhileReading(BLOB_NAME, ETAG, PDF.length, source));
+        assertTrue(sut.get(BLOB_NAME).isEmpty());
+    }
+
+    @Test
+    @SneakyThrows
+    void evictLeastRecentlyUsedAttachmentOverBudget() {
+        AttachmentDiskCache sut = buildCache(PDF.length * 2L, 1024);
+        store(sut, "first.pdf");
+        store(sut, "second.pdf");
+        // access the first one so that the second one is the least recently used
+        assertTrue(isCached(sut, "first.pdf"));
+
+        store(sut, "third.pdf");
+
+        assertTrue(isCached(sut, "first.pdf"));
+        assertFalse(isCached(sut, "second.pdf"));
+        assertTrue(isCached(sut, "third.pdf"));
+        assertEquals(PDF.length * 2L, sut.getCurrentSizeBytes());
+    }
+
+    @Test
+    @SneakyThrows
+    void rebuildIndexFromDirectoryScan() {
+        AttachmentDiskCache previous = buildCache(1024, 1024);
+        store(previous, BLOB_NAME);
+
+        AttachmentDiskCache sut = buildCache(1024, 1024);
+
+        Optional<CachedAttachment> cached = sut.get(BLOB_NAME);
+        assertTrue(cached.isPresent());
+        assertEquals(ETAG, cached.get().getETag());
+        assertEquals(PDF.length, sut.getCurrentSizeBytes());
+        cached.get().getChannel().close();
+    }
+
+    @SneakyThrows
+    private boolean isCached(AttachmentDiskCache cache, String blobName) {
+        Optional<CachedAttachment> cached = cache.get(blobName);
+        if (cached.isPresent()) {
+            cached.get().getChannel().close();
+        }
+        return cached.isPresent();
+    }
+
+    private AttachmentDiskCache buildCache(long maxSizeBytes, long maxEntrySizeBytes) {
+        AttachmentDiskCache cache = new AttachmentDiskCache(true, directory.toString(), maxSizeBytes, maxEntrySizeBytes);
+        cache.init();
+        return cache;
+    }
+
+    @SneakyThrows
+    private void store(AttachmentDiskCache cache, String blobName) {
+        try (InputStream stream = cache.cacheWhileReading(blobName, ETAG, PDF.length, new ByteArrayInputStream(PDF))) {
+            stream.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package it.gov.pagopa.receipt.pdf.service.cache;
+
+import io.opentelemetry.api.OpenTelemetry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AttachmentETagCacheTest {
+
+    private static final String ATTACHMENT_NAME = "attachment.pdf";
+    private static final String ETAG = "\"0x8DC0000000000000\"";
+
+    @Test
+    void getReturnsLastStoredETag() {
+        AttachmentETagCache sut = buildCache(true);
+        assertTrue(sut.get(ATTACHMENT_NAME).isEmpty());
+
+        sut.put(ATTACHMENT_NAME, "\"old\"");
+        sut.put(ATTACHMENT_NAME, ETAG);
+        sut.put(ATTACHMENT_NAME, null);
+
+        assertEquals(ETAG, sut.get(ATTACHMENT_NAME).orElseThrow());
+        assertTrue(sut.get("another.pdf").isEmpty());
+    }
+
+    @Test
+    void disabledCacheStoresNothing() {
+        AttachmentETagCache sut = buildCache(false);
+
+        sut.put(ATTACHMENT_NAME, ETAG);
+
+        assertTrue(sut.get(ATTACHMENT_NAME).isEmpty());
+    }
+
+    private static AttachmentETagCache buildCache(boolean enabled) {
+        return new AttachmentETagCache(enabled, 10, 60, OpenTelemetry.noop().getMeter("test"));
+    }
+}
@@ -0,0 +1,127 @@
+package it.gov.pagopa.receipt.pdf.service.cache;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.smallrye.mutiny.Multi;
+import it.gov.pagopa.receipt.pdf.service.model.CachedAttachment;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AttachmentMemoryCacheTest {
+
+    private static final String BLOB_NAME = "receipt.pdf";
+    private static final String ETAG = "\"0x8DC0000000000000\"";
+    private static final byte[] PDF = "pdf-content".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    @SneakyThrows
+    void putStoresAttachmentOffHeap() {
+        AttachmentMemoryCache sut = buildCache(true, 1024, 1024);
+
+        sut.put(BLOB_NAME, ETAG, PDF);
+        sut.cleanUp();
+
+        Optional<CachedAttachment> cached = sut.get(BLOB_NAME);
+        assertTrue(cached.isPresent());
+        assertTrue(cached.get().getBuffer().isDirect());
+        assertTrue(cached.get().getBuffer().isReadOnly());
+        assertEquals(ETAG, cached.get().getETag());
+        assertEquals(PDF.length, cached.get().getSize());
+        assertArrayEquals(PDF, new ByteBufferInputStream(cached.get().getBuffer().duplicate()).readAllBytes());
+        assertEquals(PDF.length, sut.getCurrentSizeBytes());
+    }
+
+    @Test
+    void putSkipsAttachmentOverEntryLimit() {
+        AttachmentMemoryCache sut = buildCache(true, 1024, PDF.length - 1);
+
+        sut.put(BLOB_NAME, ETAG, PDF);
+
+        assertTrue(sut.get(BLOB_NAME).isEmpty());
+    }
+
+    @Test
+    void putSkipsAttachmentIfDisabled() {
+        AttachmentMemoryCache sut = buildCache(false, 1024, 1024);
+
+        sut.put(BLOB_NAME, ETAG, PDF);
+
+        assertTrue(sut.get(BLOB_NAME).isEmpty());
+    }
+
+    @Test
+    @SneakyThrows
+    void cacheWhileReadingStoresFullyReadAttachment() {
+        AttachmentMemoryCache sut = buildCache(true, 1024, 1024);
+
+        try (InputStream stream = sut.cacheWhileReading(BLOB_NAME, ETAG, PDF.length, new ByteArrayInputStream(PDF))) {
+            assertArrayEquals(PDF, stream.readAllBytes());
+        }
+
+        Optional<CachedAttachment> cached = sut.get(BLOB_NAME);
+        assertTrue(cached.isPresent());
+        assertArrayEquals(PDF, new ByteBufferInputStream(cached.get().getBuffer().duplicate()).readAllBytes());
+    }
+
+    @Test
+    @SneakyThrows
+    void cacheWhileReadingDiscardsPartiallyReadAttachment() {
+        AttachmentMemoryCache sut = buildCache(true, 1024, 1024);
+
+        try (InputStream stream = sut.cacheWhileReading(BLOB_NAME, ETAG, PDF.length, new ByteArrayInputStream(PDF))) {
+            assertEquals(3, stream.read(new byte[3]));
+        }
+
+        assertTrue(sut.get(BLOB_NAME).isEmpty());
+    }
+
+    @Test
+    @SneakyThrows
+    void cacheWhileEmittingStoresFullyEmittedAttachment() {
+        AttachmentMemoryCache sut = buildCache(true, 1024, 1024);
+
+        Multi<ByteBuffer> chunks = sut.cacheWhileEmitting(BLOB_NAME, ETAG, PDF.length, Multi.createFrom().items(
+                ByteBuffer.wrap(PDF, 0, 4), ByteBuffer.wrap(PDF, 4, PDF.length - 4)));
+        assertEquals(2, chunks.collect().asList().await().indefinitely().size());
+
+        Optional<CachedAttachment> cached = sut.get(BLOB_NAME);
+        assertTrue(cached.isPresent());
+        assertArrayEquals(PDF, new ByteBufferInputStream(cached.get().getBuffer().duplicate()).readAllBytes());
+    }
+
+    @Test
+    void cacheWhileEmittingDiscardsFailedAttachment() {
+        AttachmentMemoryCache sut = buildCache(true, 1024, 1024);
+
+        Multi<ByteBuffer> chunks = sut.cacheWhileEmitting(BLOB_NAME, ETAG, PDF.length, Multi.createBy().concatenating().streams(
+                Multi.createFrom().item(ByteBuffer.wrap(PDF, 0, 4)),
+                Multi.createFrom().failure(new IllegalStateException("connection reset"))));
+        assertThrows(IllegalStateException.class, () -> chunks.collect().asList().await().indefinitely());
+
+        assertTrue(sut.get(BLOB_NAME).isEmpty());
+    }
+
+    @Test
+    void evictAttachmentsOverBudget() {
+        AttachmentMemoryCache sut = buildCache(true, PDF.length * 2L, 1024);
+
+        sut.put("first.pdf", ETAG, PDF);
+        sut.put("second.pdf", ETAG, PDF);
+        sut.put("third.pdf", ETAG, PDF);
+        sut.cleanUp();
+
+        assertTrue(sut.getCurrentSizeBytes() <= PDF.length * 2L);
+    }
+
+    private AttachmentMemoryCache buildCache(boolean enabled, long maxSizeBytes, long maxEntrySizeBytes) {
+        return new AttachmentMemoryCache(enabled, maxSizeBytes, maxEntrySizeBytes,
+                OpenTelemetry.noop().getMeter("test"));
+    }
+}
@@ -0,0 +1,72 @@
+package it.gov.pagopa.receipt.pdf.service.cache;
+
+import io.opentelemetry.api.OpenTelemetry;
+import it.gov.pagopa.receipt.pdf.service.model.cart.CartAuthorizationIndex;
+import it.gov.pagopa.receipt.pdf.service.model.cart.CartForReceipt;
+import it.gov.pagopa.receipt.pdf.service.model.receipt.Receipt;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocumentCacheTest {
+
+    private static final String RECEIPT_ID = "receiptId";
+    private static final String CART_ID = "cartId_CART_bizEventId";
+
+    @Test
+    void getReceiptReturnsFirstStoredReceipt() {
+        DocumentCache sut = buildCache(true);
+        Receipt receipt = Receipt.builder().id(RECEIPT_ID).build();
+        assertTrue(sut.getReceipt(RECEIPT_ID).isEmpty());
+
+        sut.putReceipt(RECEIPT_ID, receipt);
+        sut.putReceipt(RECEIPT_ID, Receipt.builder().id("another").build());
+
+        assertSame(receipt, sut.getReceipt(RECEIPT_ID).orElseThrow());
+        assertTrue(sut.getCart(RECEIPT_ID, false).isEmpty());
+    }
+
+    @Test
+    void getCartWithMessageSkipsIndexLoadedWithoutMessage() {
+        DocumentCache sut = buildCache(true);
+        CartAuthorizationIndex withoutMessage = index();
+
+        sut.putCart(CART_ID, withoutMessage, false);
+
+        assertSame(withoutMessage, sut.getCart(CART_ID, false).orElseThrow());
+        assertTrue(sut.getCart(CART_ID, true).isEmpty());
+    }
+
+    @Test
+    void putCartReplacesIndexWithoutMessageOnly() {
+        DocumentCache sut = buildCache(true);
+        CartAuthorizationIndex withMessage = index();
+
+        sut.putCart(CART_ID, index(), false);
+        sut.putCart(CART_ID, withMessage, true);
+        sut.putCart(CART_ID, index(), false);
+        sut.putCart(CART_ID, index(), true);
+
+        assertSame(withMessage, sut.getCart(CART_ID, true).orElseThrow());
+        assertSame(withMessage, sut.getCart(CART_ID, false).orElseThrow());
+    }
+
+    @Test
+    void disabledCacheStoresNothing() {
+        DocumentCache sut = buildCache(false);
+
+        sut.putReceipt(RECEIPT_ID, Receipt.builder().id(RECEIPT_ID).build());
+        sut.putCart(CART_ID, index(), true);
+
+        assertTrue(sut.getReceipt(RECEIPT_ID).isEmpty());
+        assertTrue(sut.getCart(CART_ID, false).isEmpty());
+    }
+
+    private static CartAuthorizationIndex index() {
+        return CartAuthorizationIndex.of(CartForReceipt.builder().id("cartId").build());
+    }
+
+    private static DocumentCache buildCache(boolean enabled) {
+        return new DocumentCache(enabled, 10, 60, OpenTelemetry.noop().getMeter("test"));
+    }
+}
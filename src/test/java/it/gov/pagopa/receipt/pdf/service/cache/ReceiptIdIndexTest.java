@@ -0,0 +1,80 @@
+package it.gov.pagopa.receipt.pdf.service.cache;
+
+import io.opentelemetry.api.OpenTelemetry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReceiptIdIndexTest {
+
+    private static final String EVENT_ID = "eventId";
+    private static final String RECEIPT_ID = "receiptId";
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void putAndGet() {
+        ReceiptIdIndex sut = buildIndex(true, null);
+
+        sut.put(EVENT_ID, RECEIPT_ID);
+
+        assertEquals(Optional.of(RECEIPT_ID), sut.get(EVENT_ID));
+        assertTrue(sut.get("anotherEventId").isEmpty());
+    }
+
+    @Test
+    void sameIdIsNotIndexed() {
+        ReceiptIdIndex sut = buildIndex(true, null);
+
+        sut.put(EVENT_ID, EVENT_ID);
+        sut.put("event\tId", RECEIPT_ID);
+        sut.put("nullId", null);
+
+        assertTrue(sut.get(EVENT_ID).isEmpty());
+        assertTrue(sut.get("event\tId").isEmpty());
+        assertTrue(sut.get("nullId").isEmpty());
+    }
+
+    @Test
+    void invalidateRemovesMapping() {
+        ReceiptIdIndex sut = buildIndex(true, null);
+        sut.put(EVENT_ID, RECEIPT_ID);
+
+        sut.invalidate(EVENT_ID);
+
+        assertTrue(sut.get(EVENT_ID).isEmpty());
+    }
+
+    @Test
+    void disabledIndexIsAlwaysEmpty() {
+        ReceiptIdIndex sut = buildIndex(false, null);
+
+        sut.put(EVENT_ID, RECEIPT_ID);
+
+        assertTrue(sut.get(EVENT_ID).isEmpty());
+    }
+
+    @Test
+    void indexIsWrittenAtShutdownAndLoadedAtStartup() {
+        Path path = directory.resolve("index").resolve("receipt-id.index");
+        ReceiptIdIndex previous = buildIndex(true, path);
+        previous.init();
+        previous.put(EVENT_ID, RECEIPT_ID);
+        previous.shutdown();
+
+        ReceiptIdIndex sut = buildIndex(true, path);
+        sut.init();
+
+        assertEquals(Optional.of(RECEIPT_ID), sut.get(EVENT_ID));
+    }
+
+    private static ReceiptIdIndex buildIndex(boolean enabled, Path path) {
+        return new ReceiptIdIndex(enabled, 100, Optional.ofNullable(path).map(Path::toString),
+                OpenTelemetry.noop().getMeter("test"));
+    }
+}
@@ -0,0 +1,116 @@
+package it.gov.pagopa.receipt.pdf.service.cache;
+
+import io.opentelemetry.api.OpenTelemetry;
+import it.gov.pagopa.receipt.pdf.service.cache.TokenCache.ExportedToken;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenCacheSnapshotTest {
+
+    private static final String SALT = "salt";
+    private static final String ENCRYPTION_KEY = Base64.getEncoder().encodeToString(new byte[32]);
+    private static final String FISCAL_CODE = "AAAAAA00A00A000A";
+    private static final String TOKEN = "token";
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    @SneakyThrows
+    void snapshotIsRestoredByNewInstance() {
+        TokenCache previousCache = buildCache(SALT);
+        String key = previousCache.key(FISCAL_CODE);
+        previousCache.putToken(key, TOKEN);
+        TokenCacheSnapshot previousSnapshot = buildSnapshot(previousCache, ENCRYPTION_KEY);
+        previousSnapshot.init();
+        previousSnapshot.shutdown();
+
+        byte[] content = Files.readAllBytes(snapshotPath());
+        assertFalse(new String(content, StandardCharsets.ISO_8859_1).contains(TOKEN));
+
+        TokenCache newCache = buildCache(SALT);
+        TokenCacheSnapshot newSnapshot = buildSnapshot(newCache, ENCRYPTION_KEY);
+        newSnapshot.init();
+        newSnapshot.shutdown();
+
+        assertEquals(TOKEN, newCache.get(newCache.key(FISCAL_CODE)).orElseThrow().token());
+    }
+
+    @Test
+    void restoreKeepsTtlAndSkipsExpiredTokens() {
+        TokenCache sut = buildCache(SALT);
+        long now = System.currentTimeMillis();
+
+        sut.restore(new ExportedToken("expired", TOKEN, now - 1));
+        sut.restore(new ExportedToken("valid", TOKEN, now + 30_000));
+
+        assertTrue(sut.get("expired").isEmpty());
+        List<ExportedToken> exported = sut.export();
+        assertEquals(1, exported.size());
+        // the TTL left is measured with the cache ticker, allow for the rounding to the wall clock
+        long expiresAt = exported.get(0).expiresAtEpochMillis();
+        assertTrue(expiresAt > now + 20_000 && expiresAt <= now + 31_000);
+    }
+
+    @Test
+    void snapshotWithAnotherKeyIsIgnored() {
+        TokenCache previousCache = buildCache(SALT);
+        previousCache.putToken(previousCache.key(FISCAL_CODE), TOKEN);
+        buildSnapshot(previousCache, ENCRYPTION_KEY).write();
+
+        byte[] anotherKey = new byte[32];
+        anotherKey[0] = 1;
+        TokenCacheSnapshot sut = buildSnapshot(buildCache(SALT), Base64.getEncoder().encodeToString(anotherKey));
+
+        assertTrue(sut.read().isEmpty());
+    }
+
+    @Test
+    void snapshotIsMergedWithTheOneOnDisk() {
+        TokenCache firstCache = buildCache(SALT);
+        firstCache.putToken(firstCache.key(FISCAL_CODE), TOKEN);
+        buildSnapshot(firstCache, ENCRYPTION_KEY).write();
+
+        TokenCache secondCache = buildCache(SALT);
+        secondCache.putToken(secondCache.key("BBBBBB00B00B000B"), "another-token");
+        TokenCacheSnapshot sut = buildSnapshot(secondCache, ENCRYPTION_KEY);
+        sut.write();
+
+        assertEquals(2, sut.read().size());
+    }
+
+    @Test
+    void snapshotDisabledWithoutSalt() {
+        TokenCache cache = buildCache(null);
+        cache.putToken(cache.key(FISCAL_CODE), TOKEN);
+        TokenCacheSnapshot sut = buildSnapshot(cache, ENCRYPTION_KEY);
+
+        sut.init();
+        sut.shutdown();
+
+        assertFalse(Files.exists(snapshotPath()));
+    }
+
+    private Path snapshotPath() {
+        return directory.resolve("snapshot").resolve("token-cache.snapshot");
+    }
+
+    private TokenCacheSnapshot buildSnapshot(TokenCache tokenCache, String encryptionKey) {
+        return new TokenCacheSnapshot(tokenCache, true, snapshotPath().toString(), 3600, Optional.of(encryptionKey), 100);
+    }
+
+    private static TokenCache buildCache(String salt) {
+        return new TokenCache(true, 100, 60, 100, 60, Optional.ofNullable(salt),
+                OpenTelemetry.noop().getMeter("test"));
+    }
+}
@@ -0,0 +1,75 @@
+package it.gov.pagopa.receipt.pdf.service.cache;
+
+import io.opentelemetry.api.OpenTelemetry;
+import it.gov.pagopa.receipt.pdf.service.cache.TokenCache.CachedToken;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenCacheTest {
+
+    private static final String FISCAL_CODE = "AAAAAA00A00A000A";
+    private static final String TOKEN = "token";
+
+    @Test
+    void keyIsSaltedHashOfFiscalCode() {
+        TokenCache sut = buildCache(true, "salt");
+
+        String key = sut.key(FISCAL_CODE);
+
+        assertEquals(key, sut.key(FISCAL_CODE));
+        assertFalse(key.contains(FISCAL_CODE));
+        assertNotEquals(key, buildCache(true, "another-salt").key(FISCAL_CODE));
+        assertEquals(key, buildCache(true, "salt").key(FISCAL_CODE));
+    }
+
+    @Test
+    void keyWithGeneratedSaltDiffersBetweenInstances() {
+        assertNotEquals(buildCache(true, null).key(FISCAL_CODE), buildCache(true, null).key(FISCAL_CODE));
+    }
+
+    @Test
+    void getReturnsCachedToken() {
+        TokenCache sut = buildCache(true, "salt");
+        String key = sut.key(FISCAL_CODE);
+        assertTrue(sut.get(key).isEmpty());
+
+        sut.putToken(key, TOKEN);
+
+        Optional<CachedToken> cached = sut.get(key);
+        assertTrue(cached.isPresent());
+        assertFalse(cached.get().isNotFound());
+        assertEquals(TOKEN, cached.get().token());
+        assertEquals(1, sut.getEstimatedSize());
+    }
+
+    @Test
+    void getReturnsNotFoundUntilTokenIsStored() {
+        TokenCache sut = buildCache(true, "salt");
+        String key = sut.key(FISCAL_CODE);
+
+        sut.putNotFound(key);
+        assertTrue(sut.get(key).orElseThrow().isNotFound());
+
+        sut.putToken(key, TOKEN);
+        assertEquals(TOKEN, sut.get(key).orElseThrow().token());
+    }
+
+    @Test
+    void disabledCacheStoresNothing() {
+        TokenCache sut = buildCache(false, "salt");
+        String key = sut.key(FISCAL_CODE);
+
+        sut.putToken(key, TOKEN);
+        sut.putNotFound(key);
+
+        assertTrue(sut.get(key).isEmpty());
+    }
+
+    private static TokenCache buildCache(boolean enabled, String salt) {
+        return new TokenCache(enabled, 100, 60, 100, 60, Optional.ofNullable(salt),
+                OpenTelemetry.noop().getMeter("test"));
+    }
+}
@@ -2,6 +2,7 @@ package it.gov.pagopa.receipt.pdf.service.client;
 
 import io.quarkus.test.junit.QuarkusTest;
 import it.gov.pagopa.receipt.pdf.service.exception.PDVTokenizerClientException;
+import it.gov.pagopa.receipt.pdf.service.exception.TokenNotFoundException;
 import it.gov.pagopa.receipt.pdf.service.exception.TooManyRequestsException;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.Response.Status;
@@ -21,7 +22,17 @@ class PDVTokenizerClientTest {
   @Test
   void errorStatusShouldReturnProperError() {
     Response response = Response.status(Status.INTERNAL_SERVER_ERROR).build();
-    assertInstanceOf(PDVTokenizerClientException.class, PDVTokenizerClient.toException(response));
+    PDVTokenizerClientException exception =
+        assertInstanceOf(PDVTokenizerClientException.class, PDVTokenizerClient.toException(response));
+    assertEquals(500, exception.getStatus());
+  }
+
+  @Test
+  void notFoundStatusShouldReturnProperError() {
+    Response response = Response.status(Status.NOT_FOUND).build();
+    TokenNotFoundException exception =
+        assertInstanceOf(TokenNotFoundException.class, PDVTokenizerClient.toException(response));
+    assertEquals(404, exception.getStatus());
   }
 
 }
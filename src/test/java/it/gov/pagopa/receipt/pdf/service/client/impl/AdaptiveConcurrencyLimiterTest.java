@@ -0,0 +1,93 @@
+package it.gov.pagopa.receipt.pdf.service.client.impl;
+
+import io.opentelemetry.api.OpenTelemetry;
+import it.gov.pagopa.receipt.pdf.service.client.impl.AdaptiveConcurrencyLimiter.Permit;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long LATENCY_THRESHOLD_MS = 60_000;
+
+    @Test
+    void tryAcquireRejectsOverLimit() {
+        AdaptiveConcurrencyLimiter sut = buildLimiter(true, 2, 1, 10, LATENCY_THRESHOLD_MS);
+
+        Optional<Permit> first = sut.tryAcquire();
+        Optional<Permit> second = sut.tryAcquire();
+
+        assertTrue(first.isPresent());
+        assertTrue(second.isPresent());
+        assertTrue(sut.tryAcquire().isEmpty());
+        assertEquals(2, sut.getInFlight());
+
+        first.get().onIgnore();
+        assertEquals(1, sut.getInFlight());
+        assertTrue(sut.tryAcquire().isPresent());
+    }
+
+    @Test
+    void limitGrowsWithSuccessfulCalls() {
+        AdaptiveConcurrencyLimiter sut = buildLimiter(true, 2, 1, 3, LATENCY_THRESHOLD_MS);
+
+        for (int i = 0; i < 10; i++) {
+            sut.tryAcquire().orElseThrow().onSuccess();
+        }
+
+        assertEquals(3, sut.getLimit());
+        assertEquals(0, sut.getInFlight());
+    }
+
+    @Test
+    void limitShrinksOnOverloadDownToMinimum() {
+        AdaptiveConcurrencyLimiter sut = buildLimiter(true, 10, 2, 10, LATENCY_THRESHOLD_MS);
+
+        sut.tryAcquire().orElseThrow().onOverload();
+        assertEquals(5, sut.getLimit());
+
+        for (int i = 0; i < 5; i++) {
+            sut.tryAcquire().orElseThrow().onOverload();
+        }
+        assertEquals(2, sut.getLimit());
+    }
+
+    @Test
+    void limitShrinksOnSlowCall() {
+        AdaptiveConcurrencyLimiter sut = buildLimiter(true, 10, 2, 10, -1);
+
+        sut.tryAcquire().orElseThrow().onSuccess();
+
+        assertEquals(5, sut.getLimit());
+    }
+
+    @Test
+    void permitIsReleasedOnce() {
+        AdaptiveConcurrencyLimiter sut = buildLimiter(true, 10, 2, 10, LATENCY_THRESHOLD_MS);
+        sut.tryAcquire();
+        Permit permit = sut.tryAcquire().orElseThrow();
+
+        permit.onOverload();
+        permit.onOverload();
+
+        assertEquals(1, sut.getInFlight());
+        assertEquals(5, sut.getLimit());
+    }
+
+    @Test
+    void disabledLimiterNeverRejects() {
+        AdaptiveConcurrencyLimiter sut = buildLimiter(false, 1, 1, 1, LATENCY_THRESHOLD_MS);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(sut.tryAcquire().isPresent());
+        }
+        assertEquals(0, sut.getInFlight());
+    }
+
+    private static AdaptiveConcurrencyLimiter buildLimiter(boolean enabled, int initialLimit, int minLimit, int maxLimit, long latencyThresholdMillis) {
+        return new AdaptiveConcurrencyLimiter(enabled, initialLimit, minLimit, maxLimit, 0.5, latencyThresholdMillis,
+                OpenTelemetry.noop().getMeter("test"));
+    }
+}
@@ -0,0 +1,223 @@
+package it.gov.pagopa.receipt.pdf.service.client.impl;
+
+import it.gov.pagopa.receipt.pdf.service.exception.AttachmentNotFoundException;
+import it.gov.pagopa.receipt.pdf.service.model.AttachmentContent;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static it.gov.pagopa.receipt.pdf.service.enumeration.AppErrorCodeEnum.PDFS_602;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AttachmentDownloadCoalescerTest {
+
+    private static final String BLOB_NAME = "receipt.pdf";
+    private static final byte[] PDF = "pdf-content".getBytes(StandardCharsets.UTF_8);
+
+    private final AtomicInteger downloads = new AtomicInteger();
+    private final DownloadBufferPool bufferPool = new DownloadBufferPool(true, 16, 1024, 4096, true);
+
+    @Test
+    @SneakyThrows
+    void openWithoutCoalescingIfDisabled() {
+        AttachmentDownloadCoalescer sut = new AttachmentDownloadCoalescer(false, 1024, bufferPool);
+
+        AttachmentContent first = sut.open(BLOB_NAME, () -> download(new TrackedInputStream(PDF)));
+        AttachmentContent second = sut.open(BLOB_NAME, () -> download(new TrackedInputStream(PDF)));
+
+        assertEquals(2, downloads.get());
+        assertArrayEquals(PDF, first.getContent().readAllBytes());
+        assertArrayEquals(PDF, second.getContent().readAllBytes());
+    }
+
+    @Test
+    @SneakyThrows
+    void openJoinsDownloadInFlight() {
+        AttachmentDownloadCoalescer sut = new AttachmentDownloadCoalescer(true, 1024, bufferPool);
+        TrackedInputStream source = new TrackedInputStream(PDF);
+
+        AttachmentContent leader = sut.open(BLOB_NAME, () -> download(source));
+        AttachmentContent follower = sut.open(BLOB_NAME, () -> download(new TrackedInputStream(PDF)));
+
+        assertEquals(1, downloads.get());
+        assertEquals(PDF.length, follower.getContentLength());
+        assertArrayEquals(PDF, leader.getContent().readAllBytes());
+        assertArrayEquals(PDF, follower.getContent().readAllBytes());
+        assertTrue(source.closed);
+        leader.getContent().close();
+        assertEquals(1, bufferPool.getOutstandingBuffers());
+        follower.getContent().close();
+        assertEquals(0, bufferPool.getOutstandingBuffers());
+    }
+
+    @Test
+    @SneakyThrows
+    void openStartsNewDownloadOnceCompleted() {
+        AttachmentDownloadCoalescer sut = new AttachmentDownloadCoalescer(true, 1024, bufferPool);
+
+        AttachmentContent first = sut.open(BLOB_NAME, () -> download(new TrackedInputStream(PDF)));
+        assertArrayEquals(PDF, first.getContent().readAllBytes());
+        AttachmentContent second = sut.open(BLOB_NAME, () -> download(new TrackedInputStream(PDF)));
+
+        assertEquals(2, downloads.get());
+        assertArrayEquals(PDF, second.getContent().readAllBytes());
+    }
+
+    @Test
+    @SneakyThrows
+    void openAbortsDownloadWhenAllReadersAreClosed() {
+        AttachmentDownloadCoalescer sut = new AttachmentDownloadCoalescer(true, 1024, bufferPool);
+        TrackedInputStream source = new TrackedInputStream(PDF);
+
+        AttachmentContent first = sut.open(BLOB_NAME, () -> download(source));
+        AttachmentContent second = sut.open(BLOB_NAME, () -> download(new TrackedInputStream(PDF)));
+        assertEquals(3, first.getContent().read(new byte[3]));
+        first.getContent().close();
+        assertFalse(source.closed);
+        second.getContent().close();
+
+        assertTrue(source.closed);
+        AttachmentContent third = sut.open(BLOB_NAME, () -> download(new TrackedInputStream(PDF)));
+        assertEquals(2, downloads.get());
+        assertArrayEquals(PDF, third.getContent().readAllBytes());
+        third.getContent().close();
+        assertEquals(0, bufferPool.getOutstandingBuffers());
+    }
+
+    @Test
+    @SneakyThrows
+    void openReusesBufferOfCompletedDownload() {
+        AttachmentDownloadCoalescer sut = new AttachmentDownloadCoalescer(true, 1024, bufferPool);
+
+        for (int i = 0; i < 3; i++) {
+            try (InputStream content = sut.open(BLOB_NAME, () -> download(new TrackedInputStream(PDF))).getContent()) {
+                assertArrayEquals(PDF, content.readAllBytes());
+            }
+        }
+
+        assertEquals(3, downloads.get());
+        assertEquals(1, bufferPool.getAllocatedBuffers());
+        assertEquals(0, bufferPool.getOutstandingBuffers());
+    }
+
+    @Test
+    @SneakyThrows
+    void openSkipsCoalescingForBlobOverSizeLimit() {
+        AttachmentDownloadCoalescer sut = new AttachmentDownloadCoalescer(true, PDF.length - 1, bufferPool);
+        TrackedInputStream source = new TrackedInputStream(PDF);
+
+        AttachmentContent first = sut.open(BLOB_NAME, () -> download(source));
+        sut.open(BLOB_NAME, () -> download(new TrackedInputStream(PDF)));
+
+        assertSame(source, first.getContent());
+        assertEquals(2, downloads.get());
+    }
+
+    @Test
+    @SneakyThrows
+    void openPropagatesSourceFailureToEveryReader() {
+        AttachmentDownloadCoalescer sut = new AttachmentDownloadCoalescer(true, 1024, bufferPool);
+        InputStream failing = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("connection reset");
+            }
+        };
+
+        AttachmentContent first = sut.open(BLOB_NAME, () -> download(failing));
+        AttachmentContent second = sut.open(BLOB_NAME, () -> download(new TrackedInputStream(PDF)));
+
+        InputStream firstContent = first.getContent();
+        InputStream secondContent = second.getContent();
+        assertThrows(IOException.class, firstContent::readAllBytes);
+        assertThrows(IOException.class, secondContent::readAllBytes);
+        assertEquals(1, downloads.get());
+    }
+
+    @Test
+    @SneakyThrows
+    void openPropagatesDownloadFailureToWaitingRequests() {
+        AttachmentDownloadCoalescer sut = new AttachmentDownloadCoalescer(true, 1024, bufferPool);
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLeader = new CountDownLatch(1);
+
+        CompletableFuture<AttachmentContent> leader = CompletableFuture.supplyAsync(() -> {
+            try {
+                return sut.open(BLOB_NAME, () -> {
+                    leaderStarted.countDown();
+                    awaitQuietly(releaseLeader);
+                    throw new AttachmentNotFoundException(PDFS_602, "not found");
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<AttachmentContent> follower = CompletableFuture.supplyAsync(() -> {
+            try {
+                return sut.open(BLOB_NAME, () -> download(new TrackedInputStream(PDF)));
+            } catch (AttachmentNotFoundException e) {
+                return null;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        // give the follower the time to join the download in flight
+        Thread.sleep(200);
+        releaseLeader.countDown();
+
+        assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        assertNull(follower.get(5, TimeUnit.SECONDS));
+        assertEquals(0, downloads.get());
+    }
+
+    private AttachmentContent download(InputStream source) {
+        downloads.incrementAndGet();
+        return AttachmentContent.builder()
+                .content(source)
+                .contentLength(PDF.length)
+                .totalLength(PDF.length)
+                .eTag("\"etag\"")
+                .build();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Source returning the content in small chunks, as a network stream would
+     */
+    private static class TrackedInputStream extends ByteArrayInputStream {
+
+        private boolean closed;
+
+        TrackedInputStream(byte[] content) {
+            super(content);
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            return super.read(b, off, Math.min(len, 4));
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package it.gov.pagopa.receipt.pdf.service.client.impl;
+
+import com.azure.cosmos.CosmosAsyncContainer;
+import com.azure.cosmos.CosmosException;
+import com.azure.cosmos.models.CosmosItemResponse;
+import com.azure.cosmos.models.CosmosQueryRequestOptions;
+import com.azure.cosmos.models.SqlQuerySpec;
+import com.azure.cosmos.util.CosmosPagedFlux;
+import io.smallrye.mutiny.helpers.test.UniAssertSubscriber;
+import it.gov.pagopa.receipt.pdf.service.enumeration.AppErrorCodeEnum;
+import it.gov.pagopa.receipt.pdf.service.exception.CartNotFoundException;
+import it.gov.pagopa.receipt.pdf.service.model.cart.CartForReceipt;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CartReceiptCosmosAsyncClientImplTest {
+
+    private static final String CART_ID = "cartId";
+
+    private CosmosAsyncContainer containerCartReceiptsMock;
+
+    private CartReceiptCosmosAsyncClientImpl sut;
+
+    @BeforeEach
+    void setUp() {
+        containerCartReceiptsMock = mock(CosmosAsyncContainer.class);
+        when(containerCartReceiptsMock.getId()).thenReturn("cart-for-receipts");
+
+        sut = new CartReceiptCosmosAsyncClientImpl(containerCartReceiptsMock, true);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getCartForReceiptDocumentSuccess() {
+        CartForReceipt cart = new CartForReceipt();
+        CosmosItemResponse<CartForReceipt> response = mock(CosmosItemResponse.class);
+        when(response.getItem()).thenReturn(cart);
+        doReturn(Mono.just(response)).when(containerCartReceiptsMock).readItem(eq(CART_ID), any(), eq(CartForReceipt.class));
+
+        CartForReceipt result = sut.getCartForReceiptDocument(CART_ID)
+                .subscribe().withSubscriber(UniAssertSubscriber.create()).awaitItem().getItem();
+
+        assertSame(cart, result);
+    }
+
+    @Test
+    void getCartForReceiptDocumentNotFound() {
+        doReturn(Mono.error(cosmosException(404))).when(containerCartReceiptsMock)
+                .readItem(eq(CART_ID), any(), eq(CartForReceipt.class));
+
+        Throwable failure = sut.getCartForReceiptDocument(CART_ID)
+                .subscribe().withSubscriber(UniAssertSubscriber.create()).awaitFailure().getFailure();
+
+        CartNotFoundException e = assertInstanceOf(CartNotFoundException.class, failure);
+        assertEquals(AppErrorCodeEnum.PDFS_801, e.getErrorCode());
+    }
+
+    @Test
+    void getCartForReceiptDocumentGenericError() {
+        CosmosException cosmosException = cosmosException(500);
+        doReturn(Mono.error(cosmosException)).when(containerCartReceiptsMock)
+                .readItem(eq(CART_ID), any(), eq(CartForReceipt.class));
+
+        Throwable failure = sut.getCartForReceiptDocument(CART_ID)
+                .subscribe().withSubscriber(UniAssertSubscriber.create()).awaitFailure().getFailure();
+
+        assertSame(cosmosException, failure);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getCartAuthorizationViewSuccess() {
+        CartForReceipt cart = new CartForReceipt();
+        CosmosPagedFlux<CartForReceipt> queryResult = mock(CosmosPagedFlux.class);
+        when(queryResult.next()).thenReturn(Mono.just(cart));
+        ArgumentCaptor<SqlQuerySpec> querySpec = ArgumentCaptor.forClass(SqlQuerySpec.class);
+        doReturn(queryResult).when(containerCartReceiptsMock)
+                .queryItems(querySpec.capture(), any(CosmosQueryRequestOptions.class), eq(CartForReceipt.class));
+
+        CartForReceipt result = sut.getCartAuthorizationView(CART_ID, "bizEventId", true)
+                .subscribe().withSubscriber(UniAssertSubscriber.create()).awaitItem().getItem();
+
+        assertSame(cart, result);
+        assertEquals(Boolean.FALSE, parameter(querySpec.getValue(), "@payerMessage"));
+        assertEquals("bizEventId", parameter(querySpec.getValue(), "@debtorMessageBizEventId"));
+        verify(containerCartReceiptsMock, never()).readItem(any(), any(), eq(CartForReceipt.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getCartAuthorizationViewNotFound() {
+        CosmosPagedFlux<CartForReceipt> queryResult = mock(CosmosPagedFlux.class);
+        when(queryResult.next()).thenReturn(Mono.empty());
+        doReturn(queryResult).when(containerCartReceiptsMock)
+                .queryItems(any(SqlQuerySpec.class), any(CosmosQueryRequestOptions.class), eq(CartForReceipt.class));
+
+        Throwable failure = sut.getCartAuthorizationView(CART_ID, null, false)
+                .subscribe().withSubscriber(UniAssertSubscriber.create()).awaitFailure().getFailure();
+
+        CartNotFoundException e = assertInstanceOf(CartNotFoundException.class, failure);
+        assertEquals(AppErrorCodeEnum.PDFS_801, e.getErrorCode());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getCartAuthorizationViewDisabledReadsWholeCart() {
+        CartForReceipt cart = new CartForReceipt();
+        CosmosItemResponse<CartForReceipt> response = mock(CosmosItemResponse.class);
+        when(response.getItem()).thenReturn(cart);
+        doReturn(Mono.just(response)).when(containerCartReceiptsMock).readItem(eq(CART_ID), any(), eq(CartForReceipt.class));
+        sut = new CartReceiptCosmosAsyncClientImpl(containerCartReceiptsMock, false);
+
+        CartForReceipt result = sut.getCartAuthorizationView(CART_ID, null, true)
+                .subscribe().withSubscriber(UniAssertSubscriber.create()).awaitItem().getItem();
+
+        assertSame(cart, result);
+        verify(containerCartReceiptsMock, never()).queryItems(any(SqlQuerySpec.class), any(), eq(CartForReceipt.class));
+    }
+
+    private static Object parameter(SqlQuerySpec querySpec, String name) {
+        return querySpec.getParameters().stream()
+                .filter(parameter -> name.equals(parameter.getName()))
+                .findFirst()
+                .map(parameter -> parameter.getValue(Object.class))
+                .orElse(null);
+    }
+
+    private static CosmosException cosmosException(int statusCode) {
+        CosmosException cosmosException = mock(CosmosException.class);
+        when(cosmosException.getStatusCode()).thenReturn(statusCode);
+        return cosmosException;
+    }
+}
@@ -49,6 +49,7 @@ class CartReceiptCosmosClientImplTest {
     private static CosmosItemResponse<CartForReceipt> cartReceiptItemResponseMock;
     private static Stream<CartIOMessage> ioMessageStreamMock;
     private static CosmosItemResponse<CartReceiptError> cartReceiptErrorItemResponseMock;
+    private static Stream<CartForReceipt> cartStreamMock;
 
 
     @BeforeAll
@@ -82,8 +83,14 @@ class CartReceiptCosmosClientImplTest {
         ioMessageStreamMock = mock(Stream.class);
         cartReceiptErrorItemResponseMock = mock(CosmosItemResponse.class);
 
+        CosmosPagedIterable<CartForReceipt> mockCartIterable = mock(CosmosPagedIterable.class);
+        cartStreamMock = mock(Stream.class);
+
         doReturn(cartReceiptItemResponseMock).when(containerCartReceiptMock)
                 .readItem(anyString(), any(), eq(CartForReceipt.class));
+        doReturn(mockCartIterable).when(containerCartReceiptMock)
+                .queryItems(any(SqlQuerySpec.class), any(), eq(CartForReceipt.class));
+        doReturn(cartStreamMock).when(mockCartIterable).stream();
         doReturn(mockIOMessageIterable)
                 .when(containerIOMessagesMock).queryItems(any(SqlQuerySpec.class), any(), eq(CartIOMessage.class));
         doReturn(ioMessageStreamMock).when(mockIOMessageIterable).stream();
@@ -130,6 +137,29 @@ class CartReceiptCosmosClientImplTest {
         assertNotNull(e);
     }
 
+    @SneakyThrows
+    @Test
+    void getCartAuthorizationViewSuccess() {
+        CartForReceipt cart = new CartForReceipt();
+
+        doReturn(Optional.of(cart)).when(cartStreamMock).findFirst();
+
+        CartForReceipt result = assertDoesNotThrow(() -> sut.getCartAuthorizationView("id", "bizEventId", true));
+
+        assertEquals(cart, result);
+    }
+
+    @SneakyThrows
+    @Test
+    void getCartAuthorizationViewNotFound() {
+        doReturn(Optional.empty()).when(cartStreamMock).findFirst();
+
+        CartNotFoundException e = assertThrows(CartNotFoundException.class,
+                () -> sut.getCartAuthorizationView("id", null, false));
+
+        assertEquals(AppErrorCodeEnum.PDFS_801, e.getErrorCode());
+    }
+
     @SneakyThrows
     @Test
     void getCartIoMessageSuccess() {
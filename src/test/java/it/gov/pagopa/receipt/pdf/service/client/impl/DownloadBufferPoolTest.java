@@ -0,0 +1,145 @@
+package it.gov.pagopa.receipt.pdf.service.client.impl;
+
+import it.gov.pagopa.receipt.pdf.service.client.impl.DownloadBufferPool.PooledBuffer;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DownloadBufferPoolTest {
+
+    private static final int MIN_BUFFER_SIZE = 16;
+    private static final int MAX_BUFFER_SIZE = 256;
+
+    @Test
+    void acquireReturnsSmallestSizeClassThatFits() {
+        DownloadBufferPool sut = buildSut(4096);
+
+        assertEquals(MIN_BUFFER_SIZE, sut.acquire(0).array().length);
+        assertEquals(MIN_BUFFER_SIZE, sut.acquire(MIN_BUFFER_SIZE).array().length);
+        assertEquals(64, sut.acquire(33).array().length);
+        assertEquals(MAX_BUFFER_SIZE, sut.acquire(MAX_BUFFER_SIZE).array().length);
+        assertEquals(MAX_BUFFER_SIZE + 1, sut.acquire(MAX_BUFFER_SIZE + 1).array().length);
+        assertEquals(5, sut.getOutstandingBuffers());
+    }
+
+    @Test
+    void acquireReusesReleasedBuffer() {
+        DownloadBufferPool sut = buildSut(4096);
+
+        PooledBuffer first = sut.acquire(100);
+        byte[] array = first.array();
+        first.release();
+        // a second release must not return the same array to the pool twice
+        first.release();
+        PooledBuffer second = sut.acquire(120);
+        PooledBuffer third = sut.acquire(120);
+
+        assertSame(array, second.array());
+        assertNotSame(array, third.array());
+        assertEquals(2, sut.getAllocatedBuffers());
+        assertEquals(2, sut.getOutstandingBuffers());
+    }
+
+    @Test
+    void releaseDropsBuffersOverBudget() {
+        // the budget is split among the 5 size classes, the largest class retains a single buffer
+        DownloadBufferPool sut = buildSut(MAX_BUFFER_SIZE);
+
+        PooledBuffer first = sut.acquire(MAX_BUFFER_SIZE);
+        PooledBuffer second = sut.acquire(MAX_BUFFER_SIZE);
+        first.release();
+        second.release();
+        sut.acquire(MAX_BUFFER_SIZE);
+        sut.acquire(MAX_BUFFER_SIZE);
+
+        assertEquals(3, sut.getAllocatedBuffers());
+    }
+
+    @Test
+    void acquireNeverReusesBuffersIfDisabled() {
+        DownloadBufferPool sut = new DownloadBufferPool(false, MIN_BUFFER_SIZE, MAX_BUFFER_SIZE, 4096, false);
+
+        PooledBuffer first = sut.acquire(100);
+        first.release();
+        PooledBuffer second = sut.acquire(100);
+
+        assertNotSame(first.array(), second.array());
+        assertEquals(100, second.array().length);
+        assertEquals(1, sut.getOutstandingBuffers());
+    }
+
+    @Test
+    @SneakyThrows
+    void outputStreamGrowsThroughSizeClasses() {
+        DownloadBufferPool sut = buildSut(4096);
+        byte[] content = new byte[200];
+        new Random(42).nextBytes(content);
+
+        PooledOutputStream outputStream = sut.newOutputStream(0);
+        outputStream.write(content, 0, 10);
+        outputStream.write(content[10]);
+        outputStream.write(content, 11, content.length - 11);
+        assertEquals(content.length, outputStream.size());
+        assertEquals(1, sut.getOutstandingBuffers());
+
+        try (InputStream inputStream = outputStream.toInputStream()) {
+            assertEquals(content.length, inputStream.available());
+            assertArrayEquals(content, inputStream.readAllBytes());
+            assertThrows(IOException.class, () -> outputStream.write(1));
+        }
+        assertEquals(0, sut.getOutstandingBuffers());
+    }
+
+    @Test
+    @SneakyThrows
+    void outputStreamReleasesBufferIfClosedWithoutReading() {
+        DownloadBufferPool sut = buildSut(4096);
+
+        PooledOutputStream outputStream = sut.newOutputStream(32);
+        outputStream.write(new byte[32]);
+        outputStream.close();
+        outputStream.close();
+
+        assertEquals(0, sut.getOutstandingBuffers());
+    }
+
+    @Test
+    @SneakyThrows
+    void steadyStateDownloadsDoNotAllocate() {
+        DownloadBufferPool sut = buildSut(4096);
+        byte[] content = new byte[150];
+
+        for (int i = 0; i < 100; i++) {
+            PooledOutputStream outputStream = sut.newOutputStream(content.length);
+            outputStream.write(content);
+            outputStream.toInputStream().close();
+        }
+
+        assertEquals(1, sut.getAllocatedBuffers());
+        assertEquals(0, sut.getOutstandingBuffers());
+    }
+
+    @Test
+    @SneakyThrows
+    void leakDetectionReportsBufferNeverReleased() {
+        DownloadBufferPool sut = buildSut(4096);
+
+        sut.acquire(MIN_BUFFER_SIZE);
+        for (int i = 0; i < 50 && sut.getLeakedBuffers() == 0; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+
+        assertEquals(1, sut.getLeakedBuffers());
+        assertEquals(1, sut.getOutstandingBuffers());
+    }
+
+    private DownloadBufferPool buildSut(long maxPooledBytes) {
+        return new DownloadBufferPool(true, MIN_BUFFER_SIZE, MAX_BUFFER_SIZE, maxPooledBytes, true);
+    }
+}
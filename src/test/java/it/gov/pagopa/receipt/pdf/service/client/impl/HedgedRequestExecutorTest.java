@@ -0,0 +1,262 @@
+package it.gov.pagopa.receipt.pdf.service.client.impl;
+
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.helpers.test.UniAssertSubscriber;
+import lombok.SneakyThrows;
+import org.eclipse.microprofile.context.ManagedExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class HedgedRequestExecutorTest {
+
+    private static final long INITIAL_DELAY_MS = 50;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private ManagedExecutor managedExecutor;
+
+    @BeforeEach
+    void setUp() {
+        managedExecutor = mock(ManagedExecutor.class);
+        doAnswer(invocation -> {
+            executor.execute(invocation.getArgument(0));
+            return null;
+        }).when(managedExecutor).execute(any(Runnable.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void executeDisabledRunsReadOnly() {
+        HedgedRequestExecutor sut = new HedgedRequestExecutor(false, 0.95, 10, INITIAL_DELAY_MS, managedExecutor);
+        AtomicInteger hedges = new AtomicInteger();
+
+        String result = sut.execute(() -> "read", () -> "hedge" + hedges.incrementAndGet(), discarded -> fail());
+
+        assertEquals("read", result);
+        assertEquals(0, hedges.get());
+    }
+
+    @Test
+    void executeFastReadIsNotHedged() {
+        HedgedRequestExecutor sut = buildSut();
+        AtomicInteger hedges = new AtomicInteger();
+
+        String result = sut.execute(() -> "read", () -> "hedge" + hedges.incrementAndGet(), discarded -> fail());
+
+        assertEquals("read", result);
+        assertEquals(0, hedges.get());
+        assertEquals(0, sut.getHedgedRequests());
+    }
+
+    @Test
+    @SneakyThrows
+    void executeSlowReadIsHedgedAndDiscarded() {
+        HedgedRequestExecutor sut = buildSut();
+        CountDownLatch hedgeSent = new CountDownLatch(1);
+        List<String> discarded = new CopyOnWriteArrayList<>();
+
+        String result = sut.execute(
+                () -> {
+                    await(hedgeSent);
+                    // the hedged read completes while the read is still running
+                    sleep(INITIAL_DELAY_MS);
+                    return "read";
+                },
+                () -> {
+                    hedgeSent.countDown();
+                    return "hedge";
+                },
+                discarded::add);
+
+        assertEquals("hedge", result);
+        assertEquals(1, sut.getHedgedRequests());
+        assertEquals(List.of("read"), discarded);
+    }
+
+    @Test
+    void executeSlowReadOnCallingThreadWinsOverFailedHedge() {
+        HedgedRequestExecutor sut = buildSut();
+        Thread caller = Thread.currentThread();
+        CountDownLatch hedgeFailed = new CountDownLatch(1);
+
+        String result = sut.execute(
+                () -> {
+                    assertSame(caller, Thread.currentThread());
+                    await(hedgeFailed);
+                    return "read";
+                },
+                () -> {
+                    // the secondary does not have the blob written moments earlier on the primary yet
+                    hedgeFailed.countDown();
+                    throw new IllegalStateException("blob not found on the secondary");
+                },
+                value -> fail());
+
+        assertEquals("read", result);
+        assertEquals(1, sut.getHedgedRequests());
+    }
+
+    @Test
+    void executeFailedHedgeWaitsForTheRead() {
+        HedgedRequestExecutor sut = buildSut();
+
+        String result = sut.execute(
+                () -> {
+                    sleep(INITIAL_DELAY_MS * 3);
+                    return "read";
+                },
+                () -> {
+                    throw new IllegalStateException("hedge failed");
+                },
+                value -> fail());
+
+        assertEquals("read", result);
+    }
+
+    @Test
+    void executeBothFailedThrowsTheReadFailure() {
+        HedgedRequestExecutor sut = buildSut();
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> sut.execute(
+                () -> {
+                    sleep(INITIAL_DELAY_MS * 3);
+                    throw new IllegalArgumentException("read failed");
+                },
+                () -> {
+                    throw new IllegalStateException("hedge failed");
+                },
+                value -> fail()));
+
+        assertEquals("read failed", e.getMessage());
+    }
+
+    @Test
+    void executeFastReadFailureIsNotHedged() {
+        HedgedRequestExecutor sut = buildSut();
+        AtomicInteger hedges = new AtomicInteger();
+
+        assertThrows(IllegalArgumentException.class, () -> sut.execute(
+                () -> {
+                    throw new IllegalArgumentException("read failed");
+                },
+                () -> "hedge" + hedges.incrementAndGet(),
+                value -> fail()));
+        assertEquals(0, hedges.get());
+    }
+
+    @Test
+    void executeAsyncFastReadIsNotHedged() {
+        HedgedRequestExecutor sut = buildSut();
+        AtomicInteger hedges = new AtomicInteger();
+
+        String result = sut.executeAsync(
+                        () -> Uni.createFrom().item("read"),
+                        () -> Uni.createFrom().item(() -> "hedge" + hedges.incrementAndGet()),
+                        discarded -> fail())
+                .await().atMost(Duration.ofSeconds(5));
+
+        assertEquals("read", result);
+        assertEquals(0, hedges.get());
+        assertEquals(0, sut.getHedgedRequests());
+    }
+
+    @Test
+    @SneakyThrows
+    void executeAsyncSlowReadIsHedgedAndDiscarded() {
+        HedgedRequestExecutor sut = buildSut();
+        CountDownLatch discardedLatch = new CountDownLatch(1);
+        List<String> discarded = new CopyOnWriteArrayList<>();
+
+        String result = sut.executeAsync(
+                        () -> Uni.createFrom().item("read").onItem().delayIt().by(Duration.ofMillis(INITIAL_DELAY_MS * 3)),
+                        () -> Uni.createFrom().item("hedge"),
+                        value -> {
+                            discarded.add(value);
+                            discardedLatch.countDown();
+                        })
+                .await().atMost(Duration.ofSeconds(5));
+
+        assertEquals("hedge", result);
+        assertEquals(1, sut.getHedgedRequests());
+        assertTrue(discardedLatch.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("read"), discarded);
+    }
+
+    @Test
+    void executeAsyncBothFailedFailsWithTheReadFailure() {
+        HedgedRequestExecutor sut = buildSut();
+
+        UniAssertSubscriber<String> subscriber = sut.<String>executeAsync(
+                        () -> Uni.createFrom().<String>failure(new IllegalArgumentException("read failed"))
+                                .onFailure().call(() -> Uni.createFrom().voidItem()
+                                        .onItem().delayIt().by(Duration.ofMillis(INITIAL_DELAY_MS * 3))),
+                        () -> Uni.createFrom().failure(new IllegalStateException("hedge failed")),
+                        value -> fail())
+                .subscribe().withSubscriber(UniAssertSubscriber.create());
+
+        subscriber.awaitFailure(Duration.ofSeconds(5))
+                .assertFailedWith(IllegalArgumentException.class, "read failed");
+    }
+
+    @Test
+    @SneakyThrows
+    void executeAsyncCancelledDiscardsTheRead() {
+        HedgedRequestExecutor sut = new HedgedRequestExecutor(true, 0.95, 10, 5_000, managedExecutor);
+        CountDownLatch discardedLatch = new CountDownLatch(1);
+
+        UniAssertSubscriber<String> subscriber = sut.executeAsync(
+                        () -> Uni.createFrom().item("read").onItem().delayIt().by(Duration.ofMillis(INITIAL_DELAY_MS)),
+                        () -> Uni.createFrom().item("hedge"),
+                        value -> discardedLatch.countDown())
+                .subscribe().withSubscriber(UniAssertSubscriber.create());
+        subscriber.cancel();
+
+        assertTrue(discardedLatch.await(5, TimeUnit.SECONDS));
+        assertEquals(0, sut.getHedgedRequests());
+    }
+
+    @Test
+    void thresholdFollowsRecordedLatencies() {
+        HedgedRequestExecutor sut = buildSut();
+        assertEquals(INITIAL_DELAY_MS, sut.getThresholdMillis());
+
+        for (int i = 0; i < HedgedRequestExecutor.MIN_SAMPLES + 64; i++) {
+            sut.execute(() -> "read", () -> "hedge", value -> {});
+        }
+
+        // the reads complete immediately, the threshold drops to the minimum delay
+        assertEquals(10, sut.getThresholdMillis());
+    }
+
+    private HedgedRequestExecutor buildSut() {
+        return new HedgedRequestExecutor(true, 0.95, 10, INITIAL_DELAY_MS, managedExecutor);
+    }
+
+    @SneakyThrows
+    private static void await(CountDownLatch latch) {
+        latch.await(5, TimeUnit.SECONDS);
+    }
+
+    @SneakyThrows
+    private static void sleep(long millis) {
+        Thread.sleep(millis);
+    }
+}
@@ -0,0 +1,144 @@
+package it.gov.pagopa.receipt.pdf.service.client.impl;
+
+import com.azure.core.http.HttpResponse;
+import com.azure.core.util.Context;
+import com.azure.storage.blob.BlobClient;
+import com.azure.storage.blob.models.BlobRange;
+import com.azure.storage.blob.models.BlobRequestConditions;
+import com.azure.storage.blob.models.BlobStorageException;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ParallelRangeInputStreamTest {
+
+    private static final String ETAG = "\"0x8DC0000000000000\"";
+    private static final int FIRST_BLOCK = 1000;
+    private static final int CHUNK_SIZE = 700;
+    private static final int MAX_CONCURRENCY = 3;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(MAX_CONCURRENCY * 2);
+    private final DownloadBufferPool bufferPool = new DownloadBufferPool(true, 256, 1024, 65536, true);
+
+    @AfterEach
+    @SneakyThrows
+    void tearDown() {
+        // every chunk buffer is released, also the ones still in flight when the stream was closed
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(0, bufferPool.getOutstandingBuffers());
+    }
+
+    @Test
+    @SneakyThrows
+    void readReassemblesRangesInOrder() {
+        byte[] blob = randomBytes(10_000);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        BlobClient blobClient = mockRangedReads(blob, inFlight, maxInFlight);
+
+        try (InputStream sut = buildStream(blobClient, blob, 0, blob.length)) {
+            assertArrayEquals(blob, sut.readAllBytes());
+        }
+
+        int expectedRanges = (blob.length - FIRST_BLOCK + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        verify(blobClient, times(expectedRanges)).downloadStreamWithResponse(any(OutputStream.class),
+                any(BlobRange.class), eq(null), argThat(conditions -> ETAG.equals(conditions.getIfMatch())),
+                anyBoolean(), any(Duration.class), any(Context.class));
+        assertTrue(maxInFlight.get() <= MAX_CONCURRENCY);
+        // the buffers of the consumed chunks are reused by the following ones
+        assertTrue(bufferPool.getAllocatedBuffers() <= MAX_CONCURRENCY + 1);
+    }
+
+    @Test
+    @SneakyThrows
+    void readServesRequestedRangeOnly() {
+        byte[] blob = randomBytes(10_000);
+        BlobClient blobClient = mockRangedReads(blob, new AtomicInteger(), new AtomicInteger());
+
+        try (InputStream sut = buildStream(blobClient, blob, 2_000, 6_500)) {
+            byte[] expected = new byte[4_500];
+            System.arraycopy(blob, 2_000, expected, 0, expected.length);
+            assertArrayEquals(expected, sut.readAllBytes());
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void readFailsIfRangedReadFails() {
+        byte[] blob = randomBytes(5_000);
+        BlobClient blobClient = mock(BlobClient.class);
+        HttpResponse responseMock = mock(HttpResponse.class);
+        doReturn(412).when(responseMock).getStatusCode();
+        doThrow(new BlobStorageException("", responseMock, null)).when(blobClient).downloadStreamWithResponse(
+                any(OutputStream.class), any(BlobRange.class), eq(null), any(BlobRequestConditions.class),
+                anyBoolean(), any(Duration.class), any(Context.class));
+
+        try (InputStream sut = buildStream(blobClient, blob, 0, blob.length)) {
+            assertEquals(FIRST_BLOCK, sut.readNBytes(FIRST_BLOCK).length);
+            IOException e = assertThrows(IOException.class, sut::read);
+            assertInstanceOf(BlobStorageException.class, e.getCause());
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void closeClosesFirstBlock() {
+        byte[] blob = randomBytes(5_000);
+        BlobClient blobClient = mockRangedReads(blob, new AtomicInteger(), new AtomicInteger());
+        InputStream firstBlock = spy(new ByteArrayInputStream(blob, 0, FIRST_BLOCK));
+
+        InputStream sut = new ParallelRangeInputStream(blobClient, firstBlock, FIRST_BLOCK, 0, blob.length,
+                CHUNK_SIZE, MAX_CONCURRENCY, ETAG, executor, bufferPool, Duration.ofSeconds(10));
+        sut.close();
+
+        verify(firstBlock).close();
+        assertThrows(IOException.class, sut::read);
+    }
+
+    private InputStream buildStream(BlobClient blobClient, byte[] blob, int start, int end) {
+        return new ParallelRangeInputStream(blobClient, new ByteArrayInputStream(blob, start, FIRST_BLOCK),
+                FIRST_BLOCK, start, end, CHUNK_SIZE, MAX_CONCURRENCY, ETAG, executor, bufferPool, Duration.ofSeconds(10));
+    }
+
+    private BlobClient mockRangedReads(byte[] blob, AtomicInteger inFlight, AtomicInteger maxInFlight) {
+        BlobClient blobClient = mock(BlobClient.class);
+        Random random = new Random();
+        doAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            // complete the ranges out of order
+            Thread.sleep(random.nextInt(20));
+            OutputStream outputStream = invocation.getArgument(0);
+            BlobRange range = invocation.getArgument(1);
+            outputStream.write(blob, (int) range.getOffset(), range.getCount().intValue());
+            inFlight.decrementAndGet();
+            return null;
+        }).when(blobClient).downloadStreamWithResponse(any(OutputStream.class), any(BlobRange.class), eq(null),
+                any(BlobRequestConditions.class), anyBoolean(), any(Duration.class), any(Context.class));
+        return blobClient;
+    }
+
+    private byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+}
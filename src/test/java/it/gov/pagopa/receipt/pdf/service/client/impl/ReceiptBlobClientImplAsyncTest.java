@@ -0,0 +1,242 @@
+package it.gov.pagopa.receipt.pdf.service.client.impl;
+
+import com.azure.core.http.HttpResponse;
+import com.azure.storage.blob.BlobAsyncClient;
+import com.azure.storage.blob.BlobClient;
+import com.azure.storage.blob.BlobContainerAsyncClient;
+import com.azure.storage.blob.BlobContainerClient;
+import com.azure.storage.blob.models.BlobDownloadAsyncResponse;
+import com.azure.storage.blob.models.BlobDownloadHeaders;
+import com.azure.storage.blob.models.BlobProperties;
+import com.azure.storage.blob.models.BlobRange;
+import com.azure.storage.blob.models.BlobRequestConditions;
+import com.azure.storage.blob.models.BlobStorageException;
+import com.azure.storage.blob.models.DownloadRetryOptions;
+import io.quarkus.test.junit.QuarkusMock;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.helpers.test.UniAssertSubscriber;
+import it.gov.pagopa.receipt.pdf.service.cache.AttachmentDiskCache;
+import it.gov.pagopa.receipt.pdf.service.cache.AttachmentMemoryCache;
+import it.gov.pagopa.receipt.pdf.service.client.ReceiptBlobClient;
+import it.gov.pagopa.receipt.pdf.service.enumeration.AppErrorCodeEnum;
+import it.gov.pagopa.receipt.pdf.service.exception.AttachmentNotFoundException;
+import it.gov.pagopa.receipt.pdf.service.exception.RangeNotSatisfiableException;
+import it.gov.pagopa.receipt.pdf.service.model.AttachmentContent;
+import it.gov.pagopa.receipt.pdf.service.model.AttachmentDownloadOptions;
+import it.gov.pagopa.receipt.pdf.service.model.ByteRange;
+import jakarta.inject.Inject;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@QuarkusTest
+@TestProfile(ReceiptBlobClientImplAsyncTest.AsyncDownloadProfile.class)
+class ReceiptBlobClientImplAsyncTest {
+
+    private static final String ATTACHMENT_PDF = "attachment.pdf";
+    private static final String ETAG = "\"0x8DC0000000000000\"";
+    private static final byte[] CONTENT = "async-pdf-content".getBytes(StandardCharsets.UTF_8);
+
+    public static class AsyncDownloadProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("blob.storage.client.async.enabled", "true");
+        }
+    }
+
+    @Inject
+    private ReceiptBlobClient sut;
+
+    private static BlobClient blobClientMock;
+
+    private static BlobAsyncClient blobAsyncClientMock;
+
+    private static AttachmentMemoryCache memoryCacheMock;
+
+    @BeforeAll
+    static void setUp() {
+        blobClientMock = mock(BlobClient.class);
+        BlobContainerClient blobContainerClientMock = mock(BlobContainerClient.class);
+        doReturn(blobClientMock).when(blobContainerClientMock).getBlobClient(anyString());
+        QuarkusMock.installMockForType(blobContainerClientMock, BlobContainerClient.class);
+
+        blobAsyncClientMock = mock(BlobAsyncClient.class);
+        BlobContainerAsyncClient blobContainerAsyncClientMock = mock(BlobContainerAsyncClient.class);
+        doReturn(blobAsyncClientMock).when(blobContainerAsyncClientMock).getBlobAsyncClient(anyString());
+        QuarkusMock.installMockForType(blobContainerAsyncClientMock, BlobContainerAsyncClient.class);
+
+        AttachmentDiskCache diskCacheMock = mock(AttachmentDiskCache.class);
+        doReturn(Optional.empty()).when(diskCacheMock).get(anyString());
+        QuarkusMock.installMockForType(diskCacheMock, AttachmentDiskCache.class);
+
+        memoryCacheMock = mock(AttachmentMemoryCache.class);
+        QuarkusMock.installMockForType(memoryCacheMock, AttachmentMemoryCache.class);
+    }
+
+    @BeforeEach
+    void resetMocks() {
+        reset(memoryCacheMock, blobAsyncClientMock);
+        clearInvocations(blobClientMock);
+        doReturn(Optional.empty()).when(memoryCacheMock).get(anyString());
+        doAnswer(invocation -> invocation.getArgument(3))
+                .when(memoryCacheMock).cacheWhileEmitting(anyString(), any(), anyLong(), any());
+    }
+
+    @Test
+    @SneakyThrows
+    void openAttachmentStreamAsyncSuccess() {
+        BlobDownloadHeaders headers = new BlobDownloadHeaders()
+                .setContentLength((long) CONTENT.length)
+                .setETag(ETAG);
+        doReturn(Mono.just(buildResponse(headers, ByteBuffer.wrap(CONTENT, 0, 5), ByteBuffer.wrap(CONTENT, 5, CONTENT.length - 5))))
+                .when(blobAsyncClientMock).downloadStreamWithResponse(
+                        (BlobRange) eq(null), (DownloadRetryOptions) eq(null), (BlobRequestConditions) eq(null), anyBoolean());
+
+        AttachmentContent result = sut.openAttachmentStream(ATTACHMENT_PDF, null);
+
+        assertNotNull(result);
+        assertNull(result.getContent());
+        assertFalse(result.isPartial());
+        assertEquals(CONTENT.length, result.getContentLength());
+        assertEquals(CONTENT.length, result.getTotalLength());
+        assertEquals(ETAG, result.getETag());
+        assertArrayEquals(CONTENT, collect(result.getAsyncContent()));
+        verify(memoryCacheMock).cacheWhileEmitting(eq(ATTACHMENT_PDF), eq(ETAG), eq((long) CONTENT.length), any());
+        verifyNoInteractions(blobClientMock);
+    }
+
+    @Test
+    @SneakyThrows
+    void openAttachmentStreamAsyncRangeSuccess() {
+        BlobDownloadHeaders headers = new BlobDownloadHeaders()
+                .setContentLength(4L)
+                .setContentRange("bytes 2-5/" + CONTENT.length)
+                .setETag(ETAG);
+        doReturn(Mono.just(buildResponse(headers, ByteBuffer.wrap(CONTENT, 2, 4))))
+                .when(blobAsyncClientMock).downloadStreamWithResponse(
+                        argThat(range -> range != null && range.getOffset() == 2 && range.getCount() == 4),
+                        (DownloadRetryOptions) eq(null), (BlobRequestConditions) eq(null), anyBoolean());
+
+        AttachmentContent result = sut.openAttachmentStream(ATTACHMENT_PDF, AttachmentDownloadOptions.builder()
+                .range(ByteRange.builder().start(2L).end(5L).build())
+                .build());
+
+        assertNotNull(result);
+        assertTrue(result.isPartial());
+        assertEquals(2, result.getOffset());
+        assertEquals(4, result.getContentLength());
+        assertEquals(CONTENT.length, result.getTotalLength());
+        assertArrayEquals("ync-".getBytes(StandardCharsets.UTF_8), collect(result.getAsyncContent()));
+        verify(memoryCacheMock, never()).cacheWhileEmitting(anyString(), any(), anyLong(), any());
+    }
+
+    @Test
+    @SneakyThrows
+    void openAttachmentStreamAsyncFailNotFound() {
+        HttpResponse responseMock = mock(HttpResponse.class);
+        doReturn(404).when(responseMock).getStatusCode();
+        doReturn(Mono.error(new BlobStorageException("", responseMock, null)))
+                .when(blobAsyncClientMock).downloadStreamWithResponse(
+                        (BlobRange) eq(null), (DownloadRetryOptions) eq(null), (BlobRequestConditions) eq(null), anyBoolean());
+
+        AttachmentNotFoundException e = assertThrows(AttachmentNotFoundException.class, () -> sut.openAttachmentStream(ATTACHMENT_PDF, null));
+
+        assertNotNull(e);
+        assertEquals(AppErrorCodeEnum.PDFS_602, e.getErrorCode());
+    }
+
+    @Test
+    void openAttachmentStreamAsyncUniSuccess() {
+        BlobDownloadHeaders headers = new BlobDownloadHeaders()
+                .setContentLength((long) CONTENT.length)
+                .setETag(ETAG);
+        doReturn(Mono.just(buildResponse(headers, ByteBuffer.wrap(CONTENT))))
+                .when(blobAsyncClientMock).downloadStreamWithResponse(
+                        (BlobRange) eq(null), (DownloadRetryOptions) eq(null), (BlobRequestConditions) eq(null), anyBoolean());
+
+        AttachmentContent result = sut.openAttachmentStreamAsync(ATTACHMENT_PDF, null)
+                .subscribe().withSubscriber(UniAssertSubscriber.create())
+                .awaitItem(Duration.ofSeconds(5)).getItem();
+
+        assertFalse(result.isPartial());
+        assertEquals(CONTENT.length, result.getContentLength());
+        assertEquals(ETAG, result.getETag());
+        assertArrayEquals(CONTENT, collect(result.getAsyncContent()));
+        verify(memoryCacheMock).cacheWhileEmitting(eq(ATTACHMENT_PDF), eq(ETAG), eq((long) CONTENT.length), any());
+        verifyNoInteractions(blobClientMock);
+    }
+
+    @Test
+    void openAttachmentStreamAsyncUniFailNotFound() {
+        HttpResponse responseMock = mock(HttpResponse.class);
+        doReturn(404).when(responseMock).getStatusCode();
+        doReturn(Mono.error(new BlobStorageException("", responseMock, null)))
+                .when(blobAsyncClientMock).downloadStreamWithResponse(
+                        (BlobRange) eq(null), (DownloadRetryOptions) eq(null), (BlobRequestConditions) eq(null), anyBoolean());
+
+        sut.openAttachmentStreamAsync(ATTACHMENT_PDF, null)
+                .subscribe().withSubscriber(UniAssertSubscriber.create())
+                .awaitFailure(Duration.ofSeconds(5))
+                .assertFailedWith(AttachmentNotFoundException.class);
+        verifyNoInteractions(blobClientMock);
+    }
+
+    @Test
+    void openAttachmentStreamAsyncUniFailRangeNotSatisfiable() {
+        HttpResponse responseMock = mock(HttpResponse.class);
+        doReturn(416).when(responseMock).getStatusCode();
+        doReturn(Mono.error(new BlobStorageException("", responseMock, null)))
+                .when(blobAsyncClientMock).downloadStreamWithResponse(
+                        any(BlobRange.class), (DownloadRetryOptions) eq(null), (BlobRequestConditions) eq(null), anyBoolean());
+        BlobProperties properties = mock(BlobProperties.class);
+        doReturn((long) CONTENT.length).when(properties).getBlobSize();
+        doReturn(Mono.just(properties)).when(blobAsyncClientMock).getProperties();
+
+        Throwable failure = sut.openAttachmentStreamAsync(ATTACHMENT_PDF, AttachmentDownloadOptions.builder()
+                        .range(ByteRange.builder().start(100L).build())
+                        .build())
+                .subscribe().withSubscriber(UniAssertSubscriber.create())
+                .awaitFailure(Duration.ofSeconds(5)).getFailure();
+
+        RangeNotSatisfiableException e = assertInstanceOf(RangeNotSatisfiableException.class, failure);
+        assertEquals(AppErrorCodeEnum.PDFS_604, e.getErrorCode());
+        assertEquals(CONTENT.length, e.getAttachmentSize());
+        verifyNoInteractions(blobClientMock);
+    }
+
+    private BlobDownloadAsyncResponse buildResponse(BlobDownloadHeaders headers, ByteBuffer... chunks) {
+        return new BlobDownloadAsyncResponse(null, 200, null, Flux.just(chunks), headers);
+    }
+
+    private byte[] collect(Multi<ByteBuffer> chunks) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        chunks.subscribe().asStream().forEach(chunk -> {
+            byte[] bytes = new byte[chunk.remaining()];
+            chunk.get(bytes);
+            outputStream.writeBytes(bytes);
+        });
+        return outputStream.toByteArray();
+    }
+}
@@ -1,25 +1,54 @@
 package it.gov.pagopa.receipt.pdf.service.client.impl;
 
+import com.azure.core.http.HttpHeaderName;
+import com.azure.core.http.HttpClient;
 import com.azure.core.http.HttpResponse;
+import com.azure.core.http.rest.SimpleResponse;
 import com.azure.core.util.Context;
 import com.azure.storage.blob.BlobClient;
+import com.azure.storage.blob.BlobClientBuilder;
 import com.azure.storage.blob.BlobContainerClient;
+import com.azure.storage.blob.models.BlobProperties;
 import com.azure.storage.blob.models.BlobStorageException;
+import com.azure.storage.blob.options.BlobInputStreamOptions;
+import com.azure.storage.blob.specialized.BlobInputStream;
+import com.azure.storage.common.policy.RequestRetryOptions;
+import com.azure.storage.common.policy.RetryPolicyType;
+import io.opentelemetry.api.OpenTelemetry;
 import io.quarkus.test.junit.QuarkusMock;
 import io.quarkus.test.junit.QuarkusTest;
+import it.gov.pagopa.receipt.pdf.service.cache.AttachmentDiskCache;
+import it.gov.pagopa.receipt.pdf.service.cache.AttachmentETagCache;
+import it.gov.pagopa.receipt.pdf.service.cache.AttachmentMemoryCache;
 import it.gov.pagopa.receipt.pdf.service.client.ReceiptBlobClient;
 import it.gov.pagopa.receipt.pdf.service.enumeration.AppErrorCodeEnum;
 import it.gov.pagopa.receipt.pdf.service.exception.AttachmentNotFoundException;
 import it.gov.pagopa.receipt.pdf.service.exception.BlobStorageClientException;
+import it.gov.pagopa.receipt.pdf.service.exception.RangeNotSatisfiableException;
+import it.gov.pagopa.receipt.pdf.service.model.AttachmentContent;
+import it.gov.pagopa.receipt.pdf.service.model.AttachmentDownloadOptions;
+import it.gov.pagopa.receipt.pdf.service.model.ByteRange;
+import it.gov.pagopa.receipt.pdf.service.model.CachedAttachment;
 import jakarta.inject.Inject;
 import lombok.SneakyThrows;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -30,14 +59,39 @@ import static org.mockito.Mockito.*;
 class ReceiptBlobClientImplTest {
 
     public static final String ATTACHMENT_PDF = "attachment.pdf";
+    public static final String ETAG = "\"0x8DC0000000000000\"";
+    private static final String SAS_ATTACHMENT_PDF = "sas-attachment.pdf";
+    private static final String STALLED_ATTACHMENT_PDF = "stalled-attachment.pdf";
+    private static final String CACHED_ATTACHMENT_PDF = "cached-attachment.pdf";
+    // well known development account of the Azurite storage emulator
+    private static final String AZURITE_CONNECTION_STRING = "DefaultEndpointsProtocol=http;AccountName=devstoreaccount1;"
+            + "AccountKey=Eby8vdM02xNOcqFlqUwJPLlmEtlCDXJ1OUzFT50uSRZ6IFsuFq2UVErCz4I6tq/K1SZFPTOtr/KBHBeksoGMGw==;"
+            + "BlobEndpoint=http://127.0.0.1:10000/devstoreaccount1;";
     @Inject
     private ReceiptBlobClient sut;
 
     @Inject
     private BlobContainerClient blobContainerClientMock;
 
+    @Inject
+    private DownloadBufferPool bufferPool;
+
+    @Inject
+    private HttpClient httpClient;
+
+    @ConfigProperty(name = "blob.storage.client.timeout")
+    private int timeout;
+
     private static BlobClient blobClientMockMock;
 
+    private static BlobContainerClient blobContainerClientStaticMock;
+
+    private static AttachmentDiskCache diskCacheMock;
+
+    private static AttachmentMemoryCache memoryCacheMock;
+
+    private AttachmentETagCache eTagCache;
+
 
     @BeforeAll
     static void setUp() {
@@ -45,6 +99,26 @@ class ReceiptBlobClientImplTest {
         BlobContainerClient blobContainerClientMock = mock(BlobContainerClient.class);
         doReturn(blobClientMockMock).when(blobContainerClientMock).getBlobClient(anyString());
         QuarkusMock.installMockForType(blobContainerClientMock, BlobContainerClient.class);
+        blobContainerClientStaticMock = blobContainerClientMock;
+
+        diskCacheMock = mock(AttachmentDiskCache.class);
+        QuarkusMock.installMockForType(diskCacheMock, AttachmentDiskCache.class);
+
+        memoryCacheMock = mock(AttachmentMemoryCache.class);
+        QuarkusMock.installMockForType(memoryCacheMock, AttachmentMemoryCache.class);
+    }
+
+    @BeforeEach
+    void resetCaches() {
+        eTagCache = new AttachmentETagCache(true, 10, 60, OpenTelemetry.noop().getMeter("test"));
+        QuarkusMock.installMockForType(eTagCache, AttachmentETagCache.class);
+        reset(diskCacheMock, memoryCacheMock);
+        doReturn(Optional.empty()).when(diskCacheMock).get(anyString());
+        doAnswer(invocation -> invocation.getArgument(3)).when(diskCacheMock)
+                .cacheWhileReading(anyString(), any(), anyLong(), any());
+        doReturn(Optional.empty()).when(memoryCacheMock).get(anyString());
+        doAnswer(invocation -> invocation.getArgument(3)).when(memoryCacheMock)
+                .cacheWhileReading(anyString(), any(), anyLong(), any());
     }
 
 
@@ -62,9 +136,13 @@ class ReceiptBlobClientImplTest {
                         any(Context.class)
                 );
 
+        int outstandingBuffers = bufferPool.getOutstandingBuffers();
         InputStream result = sut.getAttachmentFromBlobStorage(ATTACHMENT_PDF);
 
         assertNotNull(result);
+        assertEquals(outstandingBuffers + 1, bufferPool.getOutstandingBuffers());
+        result.close();
+        assertEquals(outstandingBuffers, bufferPool.getOutstandingBuffers());
     }
 
     @Test
@@ -81,10 +159,12 @@ class ReceiptBlobClientImplTest {
                         any(Context.class)
                 );
 
+        int outstandingBuffers = bufferPool.getOutstandingBuffers();
         BlobStorageClientException e = assertThrows(BlobStorageClientException.class, () -> sut.getAttachmentFromBlobStorage(ATTACHMENT_PDF));
 
         assertNotNull(e);
         assertEquals(AppErrorCodeEnum.PDFS_601, e.getErrorCode());
+        assertEquals(outstandingBuffers, bufferPool.getOutstandingBuffers());
     }
 
     @Test
@@ -130,4 +210,405 @@ class ReceiptBlobClientImplTest {
         assertNotNull(e);
         assertEquals(AppErrorCodeEnum.PDFS_603, e.getErrorCode());
     }
-}
\ No newline at end of file
+
+    @Test
+    @SneakyThrows
+    void openAttachmentStreamSuccess() {
+        BlobInputStream blobInputStreamMock = mock(BlobInputStream.class);
+        BlobProperties propertiesMock = mock(BlobProperties.class);
+        doReturn(1024L).when(propertiesMock).getBlobSize();
+        doReturn(ETAG).when(propertiesMock).getETag();
+        doReturn(propertiesMock).when(blobInputStreamMock).getProperties();
+        doReturn(blobInputStreamMock).when(blobClientMockMock)
+                .openInputStream(any(BlobInputStreamOptions.class), any(Context.class));
+
+        AttachmentContent result = sut.openAttachmentStream(ATTACHMENT_PDF, null);
+
+        assertNotNull(result);
+        assertEquals(blobInputStreamMock, result.getContent());
+        assertEquals(1024L, result.getContentLength());
+        assertEquals(ETAG, result.getETag());
+    }
+
+    @Test
+    @SneakyThrows
+    void openAttachmentStreamFailAttachmentNotFound() {
+        HttpResponse responseMock = mock(HttpResponse.class);
+        doReturn(404).when(responseMock).getStatusCode();
+        doThrow(new BlobStorageException("", responseMock, null)).when(blobClientMockMock)
+                .openInputStream(any(BlobInputStreamOptions.class), any(Context.class));
+
+        AttachmentNotFoundException e = assertThrows(AttachmentNotFoundException.class, () -> sut.openAttachmentStream(ATTACHMENT_PDF, null));
+
+        assertNotNull(e);
+        assertEquals(AppErrorCodeEnum.PDFS_602, e.getErrorCode());
+    }
+
+    @Test
+    @SneakyThrows
+    void openAttachmentStreamFailThrowsBlobStorageException() {
+        HttpResponse responseMock = mock(HttpResponse.class);
+        doReturn(500).when(responseMock).getStatusCode();
+        doThrow(new BlobStorageException("", responseMock, null)).when(blobClientMockMock)
+                .openInputStream(any(BlobInputStreamOptions.class), any(Context.class));
+
+        BlobStorageClientException e = assertThrows(BlobStorageClientException.class, () -> sut.openAttachmentStream(ATTACHMENT_PDF, null));
+
+        assertNotNull(e);
+        assertEquals(AppErrorCodeEnum.PDFS_603, e.getErrorCode());
+    }
+
+    @Test
+    @SneakyThrows
+    void openAttachmentStreamWithRangeSuccess() {
+        BlobInputStream blobInputStreamMock = mockBlobInputStream(1024L);
+        doReturn(blobInputStreamMock).when(blobClientMockMock)
+                .openInputStream(any(BlobInputStreamOptions.class), any(Context.class));
+
+        AttachmentContent result = sut.openAttachmentStream(ATTACHMENT_PDF, AttachmentDownloadOptions.builder()
+                .range(ByteRange.builder().start(1000L).end(2000L).build())
+                .build());
+
+        assertTrue(result.isPartial());
+        assertEquals(1000L, result.getOffset());
+        assertEquals(24L, result.getContentLength());
+        assertEquals(1024L, result.getTotalLength());
+        verify(blobClientMockMock).openInputStream(
+                argThat((BlobInputStreamOptions options) -> options.getRange() != null
+                        && options.getRange().getOffset() == 1000L
+                        && options.getRange().getCount() == 1001L),
+                any(Context.class));
+    }
+
+    @Test
+    @SneakyThrows
+    void openAttachmentStreamWithSuffixRangeSuccess() {
+        BlobInputStream blobInputStreamMock = mockBlobInputStream(1024L);
+        doReturn(blobInputStreamMock).when(blobClientMockMock)
+                .openInputStream(any(BlobInputStreamOptions.class), any(Context.class));
+        BlobProperties propertiesMock = mock(BlobProperties.class);
+        doReturn(1024L).when(propertiesMock).getBlobSize();
+        doReturn(new SimpleResponse<>(null, 200, null, propertiesMock)).when(blobClientMockMock)
+                .getPropertiesWithResponse(any(), any(Duration.class), any(Context.class));
+
+        AttachmentContent result = sut.openAttachmentStream(ATTACHMENT_PDF, AttachmentDownloadOptions.builder()
+                .range(ByteRange.builder().suffixLength(24L).build())
+                .build());
+
+        assertTrue(result.isPartial());
+        assertEquals(1000L, result.getOffset());
+        assertEquals(24L, result.getContentLength());
+    }
+
+    @Test
+    @SneakyThrows
+    void openAttachmentStreamWithStaleIfRangeReturnsWholeAttachment() {
+        HttpResponse responseMock = mock(HttpResponse.class);
+        doReturn(412).when(responseMock).getStatusCode();
+        BlobInputStream blobInputStreamMock = mockBlobInputStream(1024L);
+        doThrow(new BlobStorageException("", responseMock, null))
+                .doReturn(blobInputStreamMock)
+                .when(blobClientMockMock)
+                .openInputStream(any(BlobInputStreamOptions.class), any(Context.class));
+
+        AttachmentContent result = sut.openAttachmentStream(ATTACHMENT_PDF, AttachmentDownloadOptions.builder()
+                .range(ByteRange.builder().start(0L).end(9L).build())
+                .ifRange(ETAG)
+                .build());
+
+        assertFalse(result.isPartial());
+        assertEquals(1024L, result.getContentLength());
+    }
+
+    @Test
+    @SneakyThrows
+    void openAttachmentStreamWithRangeFailRangeNotSatisfiable() {
+        HttpResponse responseMock = mock(HttpResponse.class);
+        doReturn(416).when(responseMock).getStatusCode();
+        doThrow(new BlobStorageException("", responseMock, null)).when(blobClientMockMock)
+                .openInputStream(any(BlobInputStreamOptions.class), any(Context.class));
+        BlobProperties propertiesMock = mock(BlobProperties.class);
+        doReturn(1024L).when(propertiesMock).getBlobSize();
+        doReturn(propertiesMock).when(blobClientMockMock).getProperties();
+
+        RangeNotSatisfiableException e = assertThrows(RangeNotSatisfiableException.class,
+                () -> sut.openAttachmentStream(ATTACHMENT_PDF, AttachmentDownloadOptions.builder()
+                        .range(ByteRange.builder().start(2048L).build())
+                        .build()));
+
+        assertEquals(AppErrorCodeEnum.PDFS_604, e.getErrorCode());
+        assertEquals(1024L, e.getAttachmentSize());
+    }
+
+    @Test
+    @SneakyThrows
+    void openAttachmentStreamWithIfNoneMatchReturnsNotModified() {
+        HttpResponse responseMock = mock(HttpResponse.class);
+        doReturn(304).when(responseMock).getStatusCode();
+        doReturn(ETAG).when(responseMock).getHeaderValue(HttpHeaderName.ETAG);
+        doThrow(new BlobStorageException("", responseMock, null)).when(blobClientMockMock)
+                .openInputStream(any(BlobInputStreamOptions.class), any(Context.class));
+
+        AttachmentContent result = sut.openAttachmentStream(ATTACHMENT_PDF, AttachmentDownloadOptions.builder()
+                .ifNoneMatch(ETAG)
+                .build());
+
+        assertTrue(result.isNotModified());
+        assertNull(result.getContent());
+        assertEquals(ETAG, result.getETag());
+        verify(blobClientMockMock).openInputStream(
+                argThat((BlobInputStreamOptions options) -> options.getRequestConditions() != null
+                        && ETAG.equals(options.getRequestConditions().getIfNoneMatch())),
+                any(Context.class));
+    }
+
+    @Test
+    @SneakyThrows
+    void openAttachmentStreamWithIfNoneMatchReturnsNotModifiedFromCachedETag() {
+        BlobClient blobClientMock = mock(BlobClient.class);
+        doReturn(blobClientMock).when(blobContainerClientStaticMock).getBlobClient(CACHED_ATTACHMENT_PDF);
+        eTagCache.put(CACHED_ATTACHMENT_PDF, ETAG);
+
+        AttachmentContent result = sut.openAttachmentStream(CACHED_ATTACHMENT_PDF, AttachmentDownloadOptions.builder()
+                .ifNoneMatch(ETAG)
+                .build());
+
+        assertTrue(result.isNotModified());
+        assertNull(result.getContent());
+        assertEquals(ETAG, result.getETag());
+        verifyNoInteractions(blobClientMock);
+    }
+
+    @Test
+    @SneakyThrows
+    void openAttachmentStreamCachesETagOfDownload() {
+        BlobClient blobClientMock = mock(BlobClient.class);
+        doReturn(blobClientMock).when(blobContainerClientStaticMock).getBlobClient(CACHED_ATTACHMENT_PDF);
+        BlobInputStream blobInputStreamMock = mockBlobInputStream(1024L);
+        doReturn(blobInputStreamMock).when(blobClientMock)
+                .openInputStream(any(BlobInputStreamOptions.class), any(Context.class));
+        assertTrue(eTagCache.get(CACHED_ATTACHMENT_PDF).isEmpty());
+
+        AttachmentContent result = sut.openAttachmentStream(CACHED_ATTACHMENT_PDF, null);
+
+        assertFalse(result.isNotModified());
+        assertEquals(ETAG, eTagCache.get(CACHED_ATTACHMENT_PDF).orElseThrow());
+    }
+
+    @Test
+    @SneakyThrows
+    void openAttachmentStreamWithIfNoneMatchNotMatchingCachedETagReturnsContent() {
+        BlobClient blobClientMock = mock(BlobClient.class);
+        doReturn(blobClientMock).when(blobContainerClientStaticMock).getBlobClient(CACHED_ATTACHMENT_PDF);
+        BlobInputStream blobInputStreamMock = mockBlobInputStream(1024L);
+        doReturn(blobInputStreamMock).when(blobClientMock)
+                .openInputStream(any(BlobInputStreamOptions.class), any(Context.class));
+        eTagCache.put(CACHED_ATTACHMENT_PDF, ETAG);
+
+        AttachmentContent result = sut.openAttachmentStream(CACHED_ATTACHMENT_PDF, AttachmentDownloadOptions.builder()
+                .ifNoneMatch("\"other\"")
+                .build());
+
+        assertFalse(result.isNotModified());
+        assertNotNull(result.getContent());
+        assertEquals(1024L, result.getContentLength());
+        verify(blobClientMock).openInputStream(
+                argThat((BlobInputStreamOptions options) -> options.getRequestConditions() != null
+                        && "\"other\"".equals(options.getRequestConditions().getIfNoneMatch())),
+                any(Context.class));
+    }
+
+    @Test
+    @SneakyThrows
+    void openAttachmentStreamWithIfNoneMatchListReturnsNotModified() {
+        BlobInputStream blobInputStreamMock = mockBlobInputStream(1024L);
+        doReturn(blobInputStreamMock).when(blobClientMockMock)
+                .openInputStream(any(BlobInputStreamOptions.class), any(Context.class));
+
+        AttachmentContent result = sut.openAttachmentStream(ATTACHMENT_PDF, AttachmentDownloadOptions.builder()
+                .ifNoneMatch("\"other\", " + ETAG)
+                .build());
+
+        assertTrue(result.isNotModified());
+        assertNull(result.getContent());
+        verify(blobInputStreamMock).close();
+    }
+
+    @Test
+    @SneakyThrows
+    void openAttachmentStreamWithStaleIfNoneMatchReturnsContent() {
+        BlobInputStream blobInputStreamMock = mockBlobInputStream(1024L);
+        doReturn(blobInputStreamMock).when(blobClientMockMock)
+                .openInputStream(any(BlobInputStreamOptions.class), any(Context.class));
+
+        AttachmentContent result = sut.openAttachmentStream(ATTACHMENT_PDF, AttachmentDownloadOptions.builder()
+                .ifNoneMatch("\"other\"")
+                .build());
+
+        assertFalse(result.isNotModified());
+        assertEquals(blobInputStreamMock, result.getContent());
+        assertEquals(ETAG, result.getETag());
+    }
+
+    @Test
+    @SneakyThrows
+    void openAttachmentStreamStoresAttachmentInDiskCache() {
+        BlobInputStream blobInputStreamMock = mockBlobInputStream(1024L);
+        doReturn(blobInputStreamMock).when(blobClientMockMock)
+                .openInputStream(any(BlobInputStreamOptions.class), any(Context.class));
+        InputStream cachingStream = mock(InputStream.class);
+        doReturn(cachingStream).when(diskCacheMock).cacheWhileReading(ATTACHMENT_PDF, ETAG, 1024L, blobInputStreamMock);
+
+        AttachmentContent result = sut.openAttachmentStream(ATTACHMENT_PDF, null);
+
+        assertEquals(cachingStream, result.getContent());
+    }
+
+    @Test
+    @SneakyThrows
+    void openAttachmentStreamFromDiskCache() {
+        byte[] pdf = new byte[1024];
+        pdf[1000] = 42;
+        Path file = Files.createTempFile("cached", ".pdf");
+        Files.write(file, pdf);
+        FileChannel channel = FileChannel.open(file);
+        doReturn(Optional.of(CachedAttachment.builder().file(file).channel(channel).size(1024L).eTag(ETAG).build())).when(diskCacheMock).get(ATTACHMENT_PDF);
+        clearInvocations(blobClientMockMock);
+
+        AttachmentContent result = sut.openAttachmentStream(ATTACHMENT_PDF, AttachmentDownloadOptions.builder()
+                .range(ByteRange.builder().start(1000L).build())
+                .ifRange(ETAG)
+                .build());
+
+        assertTrue(result.isPartial());
+        assertEquals(1000L, result.getOffset());
+        assertEquals(24L, result.getContentLength());
+        assertEquals(1024L, result.getTotalLength());
+        try (InputStream content = result.getContent()) {
+            byte[] range = content.readAllBytes();
+            assertEquals(24, range.length);
+            assertEquals(42, range[0]);
+        }
+        assertFalse(channel.isOpen());
+        verifyNoInteractions(blobClientMockMock);
+        Files.delete(file);
+    }
+
+    @Test
+    @SneakyThrows
+    void openAttachmentStreamFromDiskCacheFailRangeNotSatisfiable() {
+        Path file = Files.createTempFile("cached", ".pdf");
+        FileChannel channel = FileChannel.open(file);
+        doReturn(Optional.of(CachedAttachment.builder().file(file).channel(channel).size(1024L).eTag(ETAG).build())).when(diskCacheMock).get(ATTACHMENT_PDF);
+
+        RangeNotSatisfiableException e = assertThrows(RangeNotSatisfiableException.class,
+                () -> sut.openAttachmentStream(ATTACHMENT_PDF, AttachmentDownloadOptions.builder()
+                        .range(ByteRange.builder().start(2048L).build())
+                        .build()));
+
+        assertEquals(1024L, e.getAttachmentSize());
+        assertFalse(channel.isOpen());
+        Files.delete(file);
+    }
+
+    @Test
+    @SneakyThrows
+    void openAttachmentStreamFromMemoryCache() {
+        byte[] pdf = "pdf-content".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(pdf.length).put(pdf).flip().asReadOnlyBuffer();
+        doReturn(Optional.of(CachedAttachment.builder().buffer(buffer).size(pdf.length).eTag(ETAG).build()))
+                .when(memoryCacheMock).get(ATTACHMENT_PDF);
+        clearInvocations(blobClientMockMock);
+
+        AttachmentContent result = sut.openAttachmentStream(ATTACHMENT_PDF, AttachmentDownloadOptions.builder()
+                .range(ByteRange.builder().suffixLength(7L).build())
+                .build());
+
+        assertTrue(result.isPartial());
+        assertEquals(4L, result.getOffset());
+        assertEquals(7L, result.getContentLength());
+        assertArrayEquals("content".getBytes(StandardCharsets.UTF_8), result.getContent().readAllBytes());
+        verifyNoInteractions(blobClientMockMock, diskCacheMock);
+    }
+
+    @Test
+    @SneakyThrows
+    void getAttachmentFromBlobStorageFromMemoryCache() {
+        byte[] pdf = "pdf-content".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(pdf.length).put(pdf).flip().asReadOnlyBuffer();
+        doReturn(Optional.of(CachedAttachment.builder().buffer(buffer).size(pdf.length).eTag(ETAG).build()))
+                .when(memoryCacheMock).get(ATTACHMENT_PDF);
+        clearInvocations(blobClientMockMock);
+
+        InputStream result = sut.getAttachmentFromBlobStorage(ATTACHMENT_PDF);
+
+        assertArrayEquals(pdf, result.readAllBytes());
+        verifyNoInteractions(blobClientMockMock);
+    }
+
+    @Test
+    @SneakyThrows
+    void generateReadSasUrlSuccess() {
+        BlobClient azuriteBlobClient = new BlobClientBuilder()
+                .connectionString(AZURITE_CONNECTION_STRING)
+                .containerName("receipts")
+                .blobName(SAS_ATTACHMENT_PDF)
+                .buildClient();
+        doReturn(azuriteBlobClient).when(blobContainerClientStaticMock).getBlobClient(SAS_ATTACHMENT_PDF);
+
+        String result = sut.generateReadSasUrl(SAS_ATTACHMENT_PDF);
+
+        assertTrue(result.startsWith("http://127.0.0.1:10000/devstoreaccount1/receipts/" + SAS_ATTACHMENT_PDF + "?"));
+        assertTrue(result.contains("sp=r&"));
+        assertTrue(result.contains("sr=b&"));
+        assertTrue(result.contains("sig="));
+        assertTrue(result.contains("rsct=application%2Fpdf"));
+        OffsetDateTime expiry = OffsetDateTime.parse(URLDecoder.decode(
+                result.replaceAll(".*[?&]se=([^&]+).*", "$1"), StandardCharsets.UTF_8));
+        assertTrue(expiry.isAfter(OffsetDateTime.now()));
+        assertTrue(expiry.isBefore(OffsetDateTime.now().plusMinutes(10)));
+    }
+
+    @Test
+    @SneakyThrows
+    void generateReadSasUrlFailWithoutAccountKey() {
+        BlobClient anonymousBlobClient = new BlobClientBuilder()
+                .endpoint("http://127.0.0.1:10000/devstoreaccount1/receipts/" + SAS_ATTACHMENT_PDF)
+                .buildClient();
+        doReturn(anonymousBlobClient).when(blobContainerClientStaticMock).getBlobClient(SAS_ATTACHMENT_PDF);
+
+        BlobStorageClientException e = assertThrows(BlobStorageClientException.class, () -> sut.generateReadSasUrl(SAS_ATTACHMENT_PDF));
+
+        assertEquals(AppErrorCodeEnum.PDFS_605, e.getErrorCode());
+    }
+
+    @Test
+    @SneakyThrows
+    void openAttachmentStreamFailWhenBlobStorageStalls() {
+        // the connection is accepted by the server socket backlog and never answered
+        try (ServerSocket stalledServer = new ServerSocket(0)) {
+            BlobClient stalledBlobClient = new BlobClientBuilder()
+                    .endpoint("http://127.0.0.1:" + stalledServer.getLocalPort() + "/devstoreaccount1/receipts/" + STALLED_ATTACHMENT_PDF)
+                    .httpClient(httpClient)
+                    .retryOptions(new RequestRetryOptions(RetryPolicyType.FIXED, 1, (Duration) null, null, null, null))
+                    .buildClient();
+            doReturn(stalledBlobClient).when(blobContainerClientStaticMock).getBlobClient(STALLED_ATTACHMENT_PDF);
+
+            long start = System.nanoTime();
+            BlobStorageClientException e = assertThrows(BlobStorageClientException.class,
+                    () -> sut.openAttachmentStream(STALLED_ATTACHMENT_PDF, null));
+
+            assertEquals(AppErrorCodeEnum.PDFS_603, e.getErrorCode());
+            assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(timeout + 5)) < 0);
+        }
+    }
+
+    private static BlobInputStream mockBlobInputStream(long blobSize) {
+        BlobInputStream blobInputStreamMock = mock(BlobInputStream.class);
+        BlobProperties propertiesMock = mock(BlobProperties.class);
+        doReturn(blobSize).when(propertiesMock).getBlobSize();
+        doReturn(ETAG).when(propertiesMock).getETag();
+        doReturn(propertiesMock).when(blobInputStreamMock).getProperties();
+        return blobInputStreamMock;
+    }
+}
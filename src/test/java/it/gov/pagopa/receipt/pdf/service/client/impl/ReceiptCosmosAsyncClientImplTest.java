@@ -0,0 +1,160 @@
+package it.gov.pagopa.receipt.pdf.service.client.impl;
+
+import com.azure.cosmos.CosmosAsyncContainer;
+import com.azure.cosmos.CosmosException;
+import com.azure.cosmos.models.CosmosItemResponse;
+import com.azure.cosmos.models.SqlQuerySpec;
+import com.azure.cosmos.util.CosmosPagedFlux;
+import io.opentelemetry.api.OpenTelemetry;
+import io.smallrye.mutiny.helpers.test.UniAssertSubscriber;
+import it.gov.pagopa.receipt.pdf.service.cache.ReceiptIdIndex;
+import it.gov.pagopa.receipt.pdf.service.enumeration.AppErrorCodeEnum;
+import it.gov.pagopa.receipt.pdf.service.exception.ReceiptNotFoundException;
+import it.gov.pagopa.receipt.pdf.service.model.receipt.Receipt;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReceiptCosmosAsyncClientImplTest {
+
+    private static final String THIRD_PARTY_ID = "thirdPartyId";
+    private static final String RECEIPT_ID = "receiptId";
+
+    private CosmosAsyncContainer containerReceiptsMock;
+    private CosmosPagedFlux<Receipt> queryResultMock;
+    private ReceiptIdIndex receiptIdIndex;
+
+    private ReceiptCosmosAsyncClientImpl sut;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        containerReceiptsMock = mock(CosmosAsyncContainer.class);
+        queryResultMock = mock(CosmosPagedFlux.class);
+        when(containerReceiptsMock.getId()).thenReturn("receipts");
+        doReturn(queryResultMock).when(containerReceiptsMock)
+                .queryItems(any(SqlQuerySpec.class), any(), eq(Receipt.class));
+
+        receiptIdIndex = new ReceiptIdIndex(true, 100, Optional.empty(), OpenTelemetry.noop().getMeter("test"));
+        sut = new ReceiptCosmosAsyncClientImpl(containerReceiptsMock, receiptIdIndex);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getReceiptDocumentPointReadSuccess() {
+        Receipt receipt = new Receipt();
+        CosmosItemResponse<Receipt> response = mock(CosmosItemResponse.class);
+        when(response.getItem()).thenReturn(receipt);
+        doReturn(Mono.just(response)).when(containerReceiptsMock).readItem(eq(THIRD_PARTY_ID), any(), eq(Receipt.class));
+
+        Receipt result = sut.getReceiptDocument(THIRD_PARTY_ID)
+                .subscribe().withSubscriber(UniAssertSubscriber.create()).awaitItem().getItem();
+
+        assertSame(receipt, result);
+        verify(containerReceiptsMock, never()).queryItems(any(SqlQuerySpec.class), any(), eq(Receipt.class));
+    }
+
+    @Test
+    void getReceiptDocumentFallbackToQuerySuccess() {
+        Receipt receipt = new Receipt();
+        doReturn(Mono.error(cosmosException(404))).when(containerReceiptsMock)
+                .readItem(anyString(), any(), eq(Receipt.class));
+        when(queryResultMock.next()).thenReturn(Mono.just(receipt));
+
+        Receipt result = sut.getReceiptDocument(THIRD_PARTY_ID)
+                .subscribe().withSubscriber(UniAssertSubscriber.create()).awaitItem().getItem();
+
+        assertSame(receipt, result);
+    }
+
+    @Test
+    void getReceiptDocumentNotFound() {
+        doReturn(Mono.error(cosmosException(404))).when(containerReceiptsMock)
+                .readItem(anyString(), any(), eq(Receipt.class));
+        when(queryResultMock.next()).thenReturn(Mono.empty());
+
+        Throwable failure = sut.getReceiptDocument(THIRD_PARTY_ID)
+                .subscribe().withSubscriber(UniAssertSubscriber.create()).awaitFailure().getFailure();
+
+        ReceiptNotFoundException e = assertInstanceOf(ReceiptNotFoundException.class, failure);
+        assertEquals(AppErrorCodeEnum.PDFS_800, e.getErrorCode());
+    }
+
+    @Test
+    void getReceiptDocumentGenericError() {
+        CosmosException cosmosException = cosmosException(500);
+        doReturn(Mono.error(cosmosException)).when(containerReceiptsMock)
+                .readItem(anyString(), any(), eq(Receipt.class));
+
+        Throwable failure = sut.getReceiptDocument(THIRD_PARTY_ID)
+                .subscribe().withSubscriber(UniAssertSubscriber.create()).awaitFailure().getFailure();
+
+        assertSame(cosmosException, failure);
+        verify(containerReceiptsMock, never()).queryItems(any(SqlQuerySpec.class), any(), eq(Receipt.class));
+    }
+
+    @Test
+    void getReceiptDocumentFoundWithQueryIsIndexed() {
+        Receipt receipt = Receipt.builder().id(RECEIPT_ID).eventId(THIRD_PARTY_ID).build();
+        doReturn(Mono.error(cosmosException(404))).when(containerReceiptsMock)
+                .readItem(eq(THIRD_PARTY_ID), any(), eq(Receipt.class));
+        when(queryResultMock.next()).thenReturn(Mono.just(receipt));
+
+        sut.getReceiptDocument(THIRD_PARTY_ID)
+                .subscribe().withSubscriber(UniAssertSubscriber.create()).awaitItem();
+
+        assertEquals(Optional.of(RECEIPT_ID), receiptIdIndex.get(THIRD_PARTY_ID));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getReceiptDocumentIndexedPointReadSuccess() {
+        Receipt receipt = Receipt.builder().id(RECEIPT_ID).eventId(THIRD_PARTY_ID).build();
+        receiptIdIndex.put(THIRD_PARTY_ID, RECEIPT_ID);
+        CosmosItemResponse<Receipt> response = mock(CosmosItemResponse.class);
+        when(response.getItem()).thenReturn(receipt);
+        doReturn(Mono.just(response)).when(containerReceiptsMock).readItem(eq(RECEIPT_ID), any(), eq(Receipt.class));
+
+        Receipt result = sut.getReceiptDocument(THIRD_PARTY_ID)
+                .subscribe().withSubscriber(UniAssertSubscriber.create()).awaitItem().getItem();
+
+        assertSame(receipt, result);
+        verify(containerReceiptsMock, never()).readItem(eq(THIRD_PARTY_ID), any(), eq(Receipt.class));
+        verify(containerReceiptsMock, never()).queryItems(any(SqlQuerySpec.class), any(), eq(Receipt.class));
+    }
+
+    @Test
+    void getReceiptDocumentIndexedPointReadNotFoundInvalidatesIndex() {
+        receiptIdIndex.put(THIRD_PARTY_ID, RECEIPT_ID);
+        doReturn(Mono.error(cosmosException(404))).when(containerReceiptsMock)
+                .readItem(anyString(), any(), eq(Receipt.class));
+        when(queryResultMock.next()).thenReturn(Mono.empty());
+
+        Throwable failure = sut.getReceiptDocument(THIRD_PARTY_ID)
+                .subscribe().withSubscriber(UniAssertSubscriber.create()).awaitFailure().getFailure();
+
+        assertInstanceOf(ReceiptNotFoundException.class, failure);
+        assertTrue(receiptIdIndex.get(THIRD_PARTY_ID).isEmpty());
+    }
+
+    private static CosmosException cosmosException(int statusCode) {
+        CosmosException cosmosException = mock(CosmosException.class);
+        when(cosmosException.getStatusCode()).thenReturn(statusCode);
+        return cosmosException;
+    }
+}
@@ -34,6 +34,8 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @QuarkusTest
@@ -153,6 +155,28 @@ class ReceiptCosmosClientImplTest {
         assertNotNull(e);
     }
 
+    @SneakyThrows
+    @Test
+    void getReceiptDocumentSuccess_foundWithIterateThenWithIndexedPointRead() {
+        Receipt receipt = Receipt.builder().id("receiptId").eventId("indexedEventId").build();
+        CosmosItemResponse<Receipt> cosmosItemResponseMock = mock(CosmosItemResponse.class);
+        CosmosException cosmosExceptionMock = mock(CosmosException.class);
+
+        when(cosmosExceptionMock.getStatusCode()).thenReturn(404);
+        when(containerReceiptsMock.readItem(eq("indexedEventId"), any(), eq(Receipt.class)))
+                .thenThrow(cosmosExceptionMock);
+        when(containerReceiptsMock.readItem(eq("receiptId"), any(), eq(Receipt.class)))
+                .thenReturn(cosmosItemResponseMock);
+        when(cosmosItemResponseMock.getItem()).thenReturn(receipt);
+        when(mockReceiptStream.findFirst()).thenReturn(Optional.of(receipt));
+
+        assertEquals(receipt, sut.getReceiptDocument("indexedEventId"));
+        assertEquals(receipt, sut.getReceiptDocument("indexedEventId"));
+
+        verify(containerReceiptsMock, times(1)).readItem(eq("indexedEventId"), any(), eq(Receipt.class));
+        verify(containerReceiptsMock, times(1)).readItem(eq("receiptId"), any(), eq(Receipt.class));
+    }
+
     @SneakyThrows
     @Test
     void getIoMessageSuccess() {
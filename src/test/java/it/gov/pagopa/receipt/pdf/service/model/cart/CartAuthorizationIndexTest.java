@@ -0,0 +1,121 @@
+package it.gov.pagopa.receipt.pdf.service.model.cart;
+
+import it.gov.pagopa.receipt.pdf.service.model.cart.CartAuthorizationIndex.Recipient;
+import it.gov.pagopa.receipt.pdf.service.model.receipt.ReasonError;
+import it.gov.pagopa.receipt.pdf.service.model.receipt.ReceiptMetadata;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CartAuthorizationIndexTest {
+
+    @Test
+    void ofIndexesPayerAndDebtorsByBizEventId() {
+        CartForReceipt cart = cart(Arrays.asList(
+                payment("biz-1", "debtor-1", "attachment-1"),
+                null,
+                payment("biz-2", "debtor-2", "attachment-2")));
+
+        CartAuthorizationIndex index = CartAuthorizationIndex.of(cart);
+
+        assertEquals("cartId", index.getId());
+        assertEquals(CartStatusType.IO_NOTIFIED, index.getStatus());
+        assertTrue(index.isPaymentsPresent());
+        assertEquals("payer", index.getPayer().fiscalCode());
+        assertEquals("attachment-payer", index.getPayer().attachmentName());
+        assertEquals("payer message", index.getPayer().message().getMarkdown());
+        Recipient debtor = index.getDebtor("biz-2", "debtor-2");
+        assertEquals("debtor-2", debtor.fiscalCode());
+        assertEquals("attachment-2", debtor.attachmentName());
+        assertEquals("message biz-2", debtor.message().getMarkdown());
+        assertNull(index.getDebtor("biz-2", "debtor-1"));
+        assertNull(index.getDebtor("biz-3", "debtor-2"));
+        assertNull(index.getDebtor(null, "debtor-2"));
+        assertEquals("debtor-2", index.getDebtor("biz-2").fiscalCode());
+        assertNull(index.getDebtor("biz-3"));
+        assertNull(index.getDebtor(null));
+        assertTrue(index.isDebtorFiscalCodePresent());
+        assertTrue(index.isDebtorAttachmentNamePresent());
+        assertFalse(index.isDebtorAttachmentMissing());
+    }
+
+    @Test
+    void ofKeepsEveryDebtorOfDuplicatedBizEventIds() {
+        CartForReceipt cart = cart(List.of(
+                payment("biz-1", "debtor-1", "attachment-1"),
+                payment("biz-1", "debtor-2", "attachment-2"),
+                payment("biz-2", "debtor-2", "attachment-3")));
+
+        CartAuthorizationIndex index = CartAuthorizationIndex.of(cart);
+
+        assertEquals("attachment-1", index.getDebtor("biz-1", "debtor-1").attachmentName());
+        assertEquals("attachment-2", index.getDebtor("biz-1", "debtor-2").attachmentName());
+        assertEquals("attachment-3", index.getDebtor("biz-2", "debtor-2").attachmentName());
+        assertNull(index.getDebtor("biz-1", "debtor-3"));
+        assertNull(index.getDebtor("biz-2", "debtor-1"));
+        assertNull(index.getDebtor("biz-1"));
+        assertEquals("attachment-3", index.getDebtor("biz-2").attachmentName());
+    }
+
+    @Test
+    void ofFlagsMissingDebtorAttachmentAndReasonErrors() {
+        CartPayment anonymous = payment("biz-1", "ANONIMO", null);
+        CartPayment payerAsDebtor = payment("biz-2", "payer", null);
+        CartPayment failed = payment("biz-3", "debtor-3", "attachment-3");
+        failed.setReasonErrDebtor(new ReasonError(903, "template error"));
+        CartForReceipt cart = cart(new ArrayList<>(List.of(anonymous, payerAsDebtor, failed)));
+
+        CartAuthorizationIndex index = CartAuthorizationIndex.of(cart);
+
+        assertFalse(index.isDebtorAttachmentMissing());
+        assertTrue(index.hasReasonError(903));
+        assertFalse(index.hasReasonError(500));
+        assertNull(index.getDebtor("biz-1", "ANONIMO").attachment());
+
+        cart.getPayload().getCart().add(payment("biz-4", "debtor-4", null));
+
+        assertTrue(CartAuthorizationIndex.of(cart).isDebtorAttachmentMissing());
+    }
+
+    @Test
+    void ofHandlesMissingCartAndPayload() {
+        CartForReceipt withoutPayload = CartForReceipt.builder().id("cartId").build();
+
+        assertNull(CartAuthorizationIndex.of(null));
+        CartAuthorizationIndex index = CartAuthorizationIndex.of(withoutPayload);
+        assertFalse(index.isPayloadPresent());
+        assertFalse(index.isPaymentsPresent());
+        assertNull(index.getPayer());
+        assertNull(index.getDebtor("biz-1", "debtor-1"));
+        assertFalse(index.isDebtorFiscalCodePresent());
+    }
+
+    private static CartForReceipt cart(List<CartPayment> payments) {
+        return CartForReceipt.builder()
+                .id("cartId")
+                .status(CartStatusType.IO_NOTIFIED)
+                .payload(Payload.builder()
+                        .payerFiscalCode("payer")
+                        .mdAttachPayer(ReceiptMetadata.builder().name("attachment-payer").build())
+                        .messagePayer(MessageData.builder().markdown("payer message").build())
+                        .cart(payments)
+                        .build())
+                .build();
+    }
+
+    private static CartPayment payment(String bizEventId, String debtorFiscalCode, String attachmentName) {
+        return CartPayment.builder()
+                .bizEventId(bizEventId)
+                .debtorFiscalCode(debtorFiscalCode)
+                .mdAttach(attachmentName != null ? ReceiptMetadata.builder().name(attachmentName).build() : null)
+                .messageDebtor(MessageData.builder().markdown("message " + bizEventId).build())
+                .build();
+    }
+}
@@ -0,0 +1,99 @@
+package it.gov.pagopa.receipt.pdf.service.producer;
+
+import com.azure.core.http.HttpClient;
+import com.azure.core.http.HttpMethod;
+import com.azure.core.http.HttpRequest;
+import com.azure.core.http.HttpResponse;
+import com.azure.core.util.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpServer;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AzureHttpClientProducerTest {
+
+    private Vertx vertx;
+    private HttpServer server;
+    private final AtomicInteger connections = new AtomicInteger();
+
+    @BeforeEach
+    @SneakyThrows
+    void setUp() {
+        vertx = Vertx.vertx();
+        server = vertx.createHttpServer()
+                .connectionHandler(connection -> connections.incrementAndGet())
+                .requestHandler(request -> request.response().end("pdf"))
+                .listen(0)
+                .toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+    }
+
+    @AfterEach
+    @SneakyThrows
+    void tearDown() {
+        vertx.close().toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void buildHttpClientOptionsFromConfig() {
+        HttpClientOptions options = buildSut(true).buildHttpClientOptions();
+
+        assertEquals(8, options.getMaxPoolSize());
+        assertTrue(options.isKeepAlive());
+        assertEquals(30, options.getKeepAliveTimeout());
+        assertEquals(500, options.getPoolCleanerPeriod());
+        assertEquals(2000, options.getConnectTimeout());
+        assertEquals(TimeUnit.MILLISECONDS, options.getIdleTimeoutUnit());
+        assertEquals(5000, options.getReadIdleTimeout());
+    }
+
+    @Test
+    @SneakyThrows
+    void azureHttpClientReusesKeepAliveConnection() {
+        HttpClient sut = buildSut(true).azureHttpClient();
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals("pdf", send(sut));
+        }
+
+        assertEquals(1, connections.get());
+    }
+
+    @Test
+    @SneakyThrows
+    void azureHttpClientOpensNewConnectionsWithoutKeepAlive() {
+        HttpClient sut = buildSut(false).azureHttpClient();
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("pdf", send(sut));
+        }
+
+        assertEquals(3, connections.get());
+    }
+
+    private String send(HttpClient httpClient) {
+        HttpRequest request = new HttpRequest(HttpMethod.GET, "http://localhost:" + server.actualPort() + "/receipt.pdf");
+        try (HttpResponse response = httpClient.sendSync(request, Context.NONE)) {
+            assertEquals(200, response.getStatusCode());
+            return response.getBodyAsBinaryData().toString();
+        }
+    }
+
+    private AzureHttpClientProducer buildSut(boolean keepAlive) {
+        AzureHttpClientProducer producer = new AzureHttpClientProducer(vertx);
+        producer.maxConnections = 8;
+        producer.keepAlive = keepAlive;
+        producer.keepAliveTimeoutSeconds = 30;
+        producer.poolCleanerPeriodMillis = 500;
+        producer.connectTimeoutMillis = 2000;
+        producer.readTimeoutMillis = 5000;
+        return producer;
+    }
+}
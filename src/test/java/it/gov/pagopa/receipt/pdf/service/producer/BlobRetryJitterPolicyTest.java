@@ -0,0 +1,76 @@
+package it.gov.pagopa.receipt.pdf.service.producer;
+
+import com.azure.core.http.HttpClient;
+import com.azure.core.http.HttpMethod;
+import com.azure.core.http.HttpPipeline;
+import com.azure.core.http.HttpPipelineBuilder;
+import com.azure.core.http.HttpPipelinePosition;
+import com.azure.core.http.HttpRequest;
+import com.azure.core.http.HttpResponse;
+import com.azure.core.http.policy.HttpPipelinePolicy;
+import com.azure.storage.common.policy.RequestRetryOptions;
+import com.azure.storage.common.policy.RequestRetryPolicy;
+import com.azure.storage.common.policy.RetryPolicyType;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+class BlobRetryJitterPolicyTest {
+
+    private static final Duration MAX_JITTER = Duration.ofMillis(300);
+
+    @Test
+    void retriesAreJitteredAfterTheFirstTry() {
+        List<Object> tryCounts = new CopyOnWriteArrayList<>();
+        List<Long> tryTimes = new CopyOnWriteArrayList<>();
+        AtomicInteger calls = new AtomicInteger();
+        HttpClient httpClient = request -> {
+            tryTimes.add(System.nanoTime());
+            return Mono.just(mockResponse(request, calls.incrementAndGet() < 3 ? 503 : 200));
+        };
+        HttpPipelinePolicy recordTryCount = new HttpPipelinePolicy() {
+            @Override
+            public Mono<HttpResponse> process(com.azure.core.http.HttpPipelineCallContext context,
+                                              com.azure.core.http.HttpPipelineNextPolicy next) {
+                tryCounts.add(context.getData(BlobRetryJitterPolicy.RETRY_COUNT_KEY).orElse(null));
+                return next.process();
+            }
+
+            @Override
+            public HttpPipelinePosition getPipelinePosition() {
+                return HttpPipelinePosition.PER_RETRY;
+            }
+        };
+        HttpPipeline pipeline = new HttpPipelineBuilder()
+                .httpClient(httpClient)
+                .policies(
+                        new RequestRetryPolicy(new RequestRetryOptions(RetryPolicyType.FIXED, 3,
+                                Duration.ofSeconds(5), Duration.ofMillis(1), Duration.ofMillis(1), null)),
+                        new BlobRetryJitterPolicy(MAX_JITTER),
+                        recordTryCount)
+                .build();
+
+        HttpResponse response = pipeline.send(new HttpRequest(HttpMethod.GET, "http://127.0.0.1:10000/devstoreaccount1/receipts/receipt.pdf")).block();
+
+        assertNotNull(response);
+        assertEquals(200, response.getStatusCode());
+        // the storage retry policy stores the number of the current try where the jitter policy reads it
+        assertEquals(List.of(1, 2, 3), tryCounts);
+        assertEquals(3, tryTimes.size());
+    }
+
+    private static HttpResponse mockResponse(HttpRequest request, int statusCode) {
+        HttpResponse response = mock(HttpResponse.class);
+        doReturn(statusCode).when(response).getStatusCode();
+        doReturn(request).when(response).getRequest();
+        return response;
+    }
+}
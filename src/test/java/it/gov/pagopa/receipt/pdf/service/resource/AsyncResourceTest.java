@@ -0,0 +1,132 @@
+package it.gov.pagopa.receipt.pdf.service.resource;
+
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.smallrye.mutiny.Uni;
+import it.gov.pagopa.receipt.pdf.service.exception.FiscalCodeNotAuthorizedException;
+import it.gov.pagopa.receipt.pdf.service.model.Attachment;
+import it.gov.pagopa.receipt.pdf.service.model.AttachmentContent;
+import it.gov.pagopa.receipt.pdf.service.model.AttachmentsDetailsResponse;
+import it.gov.pagopa.receipt.pdf.service.model.ReceiptPdfResponse;
+import it.gov.pagopa.receipt.pdf.service.service.AttachmentsService;
+import it.gov.pagopa.receipt.pdf.service.service.impl.PdfService;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static it.gov.pagopa.receipt.pdf.service.enumeration.AppErrorCodeEnum.PDFS_700;
+import static it.gov.pagopa.receipt.pdf.service.enumeration.AppErrorCodeEnum.PDFS_706;
+import static it.gov.pagopa.receipt.pdf.service.utils.Constants.FILENAME_RESPONSE_HEADER;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@QuarkusTest
+@TestProfile(AsyncResourceTest.AsyncProfile.class)
+class AsyncResourceTest {
+
+    private static final String THIRD_PARTY_ID = "test-id";
+    private static final String FISCAL_CODE = "AAAAAAAAAAAAAAAA";
+    private static final String ATTACHMENT_URL = "receipt.pdf";
+
+    public static class AsyncProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("cosmos.async.enabled", "true");
+        }
+    }
+
+    @InjectMock
+    private AttachmentsService attachmentsServiceMock;
+
+    @InjectMock
+    private PdfService pdfServiceMock;
+
+    @Test
+    @SneakyThrows
+    void getAttachmentDetailsUsesAsyncService() {
+        AttachmentsDetailsResponse details = AttachmentsDetailsResponse.builder()
+                .attachments(Collections.singletonList(Attachment.builder()
+                        .id(THIRD_PARTY_ID)
+                        .contentType("application/pdf")
+                        .name(ATTACHMENT_URL)
+                        .url(ATTACHMENT_URL)
+                        .build()))
+                .build();
+        doReturn(Uni.createFrom().item(details))
+                .when(attachmentsServiceMock).getAttachmentsDetailsAsync(THIRD_PARTY_ID, FISCAL_CODE);
+
+        given()
+                .queryParam("fiscal_code", FISCAL_CODE)
+                .when().get("/messages/" + THIRD_PARTY_ID)
+                .then()
+                .statusCode(200)
+                .body("attachments[0].id", equalTo(THIRD_PARTY_ID));
+
+        verify(attachmentsServiceMock, never()).getAttachmentsDetails(anyString(), anyString());
+    }
+
+    @Test
+    void getAttachmentDetailsMapsAsyncFailure() {
+        doReturn(Uni.createFrom().failure(new FiscalCodeNotAuthorizedException(PDFS_700, PDFS_700.getErrorMessage())))
+                .when(attachmentsServiceMock).getAttachmentsDetailsAsync(THIRD_PARTY_ID, FISCAL_CODE);
+
+        given()
+                .queryParam("fiscal_code", FISCAL_CODE)
+                .when().get("/messages/" + THIRD_PARTY_ID)
+                .then()
+                .statusCode(500)
+                .body(containsString(PDFS_700.getErrorCode()));
+    }
+
+    @Test
+    void getAttachmentMapsAsyncFailure() {
+        doReturn(Uni.createFrom().failure(new FiscalCodeNotAuthorizedException(PDFS_706, PDFS_706.getErrorMessage())))
+                .when(attachmentsServiceMock).getAttachmentAsync(eq(THIRD_PARTY_ID), eq(FISCAL_CODE), eq(ATTACHMENT_URL), isNull());
+
+        given()
+                .queryParam("fiscal_code", FISCAL_CODE)
+                .when().get("/messages/" + THIRD_PARTY_ID + "/" + ATTACHMENT_URL)
+                .then()
+                .statusCode(500)
+                .body(containsString(PDFS_706.getErrorCode()));
+    }
+
+    @Test
+    @SneakyThrows
+    void getReceiptPdfUsesAsyncService() {
+        byte[] pdf = "pdf".getBytes(StandardCharsets.UTF_8);
+        ReceiptPdfResponse response = ReceiptPdfResponse.builder()
+                .attachmentName(ATTACHMENT_URL)
+                .pdfFile(AttachmentContent.builder()
+                        .content(new ByteArrayInputStream(pdf))
+                        .contentLength(pdf.length)
+                        .build())
+                .build();
+        doReturn(Uni.createFrom().item(response))
+                .when(pdfServiceMock).getReceiptPdfAsync(eq(THIRD_PARTY_ID), eq(FISCAL_CODE), any());
+
+        given()
+                .queryParam("fiscal_code", FISCAL_CODE)
+                .when().get("/pdf/" + THIRD_PARTY_ID)
+                .then()
+                .statusCode(200)
+                .header(FILENAME_RESPONSE_HEADER, ATTACHMENT_URL)
+                .body(equalTo("pdf"));
+
+        verify(pdfServiceMock, never()).getReceiptPdf(anyString(), anyString(), any());
+    }
+}
@@ -3,10 +3,15 @@ package it.gov.pagopa.receipt.pdf.service.resource;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.quarkus.test.InjectMock;
 import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.mutiny.Multi;
+import it.gov.pagopa.receipt.pdf.service.cache.FileChannelInputStream;
 import it.gov.pagopa.receipt.pdf.service.exception.AttachmentNotFoundException;
+import it.gov.pagopa.receipt.pdf.service.exception.BlobStorageClientException;
 import it.gov.pagopa.receipt.pdf.service.exception.FiscalCodeNotAuthorizedException;
+import it.gov.pagopa.receipt.pdf.service.exception.RangeNotSatisfiableException;
 import it.gov.pagopa.receipt.pdf.service.exception.ReceiptNotFoundException;
 import it.gov.pagopa.receipt.pdf.service.model.Attachment;
+import it.gov.pagopa.receipt.pdf.service.model.AttachmentContent;
 import it.gov.pagopa.receipt.pdf.service.model.AttachmentsDetailsResponse;
 import it.gov.pagopa.receipt.pdf.service.model.ErrorResponse;
 import it.gov.pagopa.receipt.pdf.service.service.AttachmentsService;
@@ -14,14 +19,25 @@ import lombok.SneakyThrows;
 import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.UUID;
 
 import static io.restassured.RestAssured.given;
 import static it.gov.pagopa.receipt.pdf.service.enumeration.AppErrorCodeEnum.*;
+import static it.gov.pagopa.receipt.pdf.service.utils.Constants.IF_NONE_MATCH_HEADER;
+import static it.gov.pagopa.receipt.pdf.service.utils.Constants.IF_RANGE_HEADER;
+import static it.gov.pagopa.receipt.pdf.service.utils.Constants.RANGE_HEADER;
 import static jakarta.ws.rs.core.Response.Status.*;
+import static org.hamcrest.Matchers.containsString;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 
@@ -32,6 +48,7 @@ class AttachmentResourceTest {
     private static final String FISCAL_CODE = "AAAAAAAAAAAAAAAA";
     private static final String INVALID_FISCAL_CODE = "tooShort";
     private static final String ATTACHMENT_URL = "url";
+    private static final String ETAG = "\"0x8DC0000000000000\"";
 
     @InjectMock
     private AttachmentsService attachmentsServiceMock;
@@ -206,8 +223,13 @@ class AttachmentResourceTest {
     @Test
     @SneakyThrows
     void getAttachmentSuccess() {
-        byte[] attachment = "".getBytes(StandardCharsets.UTF_8);
-        doReturn(new ByteArrayInputStream(attachment)).when(attachmentsServiceMock).getAttachment(THIRD_PARTY_ID, FISCAL_CODE, ATTACHMENT_URL);
+        byte[] attachment = "pdf".getBytes(StandardCharsets.UTF_8);
+        AttachmentContent attachmentContent = AttachmentContent.builder()
+                .content(new ByteArrayInputStream(attachment))
+                .contentLength(attachment.length)
+                .eTag(ETAG)
+                .build();
+        doReturn(attachmentContent).when(attachmentsServiceMock).getAttachment(THIRD_PARTY_ID, FISCAL_CODE, ATTACHMENT_URL, null);
 
         byte[] response =
                 given()
@@ -217,6 +239,9 @@ class AttachmentResourceTest {
                         .statusCode(200)
                         .contentType("application/pdf")
                         .header("content-disposition", "attachment;")
+                        .header("content-length", String.valueOf(attachment.length))
+                        .header("etag", ETAG)
+                        .header("cache-control", containsString("max-age"))
                         .extract()
                         .asByteArray();
 
@@ -226,6 +251,205 @@ class AttachmentResourceTest {
 
     }
 
+    @Test
+    @SneakyThrows
+    void getAttachmentPartialContentSuccess() {
+        byte[] attachment = "pdf".getBytes(StandardCharsets.UTF_8);
+        AttachmentContent attachmentContent = AttachmentContent.builder()
+                .content(new ByteArrayInputStream(attachment))
+                .contentLength(attachment.length)
+                .totalLength(100)
+                .offset(10)
+                .partial(true)
+                .build();
+        doReturn(attachmentContent).when(attachmentsServiceMock).getAttachment(
+                eq(THIRD_PARTY_ID),
+                eq(FISCAL_CODE),
+                eq(ATTACHMENT_URL),
+                argThat(options -> options != null
+                        && options.getRange().getStart() == 10L
+                        && options.getRange().getEnd() == 12L
+                        && "\"etag\"".equals(options.getIfRange()))
+        );
+
+        byte[] response =
+                given()
+                        .queryParam("fiscal_code", FISCAL_CODE)
+                        .header(RANGE_HEADER, "bytes=10-12")
+                        .header(IF_RANGE_HEADER, "\"etag\"")
+                        .when().get(String.format("/messages/%s/%s", THIRD_PARTY_ID, ATTACHMENT_URL))
+                        .then()
+                        .statusCode(206)
+                        .contentType("application/pdf")
+                        .header("content-range", "bytes 10-12/100")
+                        .header("content-length", String.valueOf(attachment.length))
+                        .header("accept-ranges", "bytes")
+                        .extract()
+                        .asByteArray();
+
+        assertArrayEquals(attachment, response);
+    }
+
+    @Test
+    @SneakyThrows
+    void getAttachmentFromDiskCacheSuccess() {
+        byte[] attachment = "cached-pdf".getBytes(StandardCharsets.UTF_8);
+        Path file = Files.createTempFile("attachment", ".pdf");
+        Files.write(file, attachment);
+        AttachmentContent attachmentContent = AttachmentContent.builder()
+                .content(new FileChannelInputStream(FileChannel.open(file), 7, 3))
+                .offset(7)
+                .contentLength(3)
+                .totalLength(attachment.length)
+                .partial(true)
+                .eTag(ETAG)
+                .build();
+        doReturn(attachmentContent).when(attachmentsServiceMock).getAttachment(
+                eq(THIRD_PARTY_ID), eq(FISCAL_CODE), eq(ATTACHMENT_URL), any());
+
+        byte[] response =
+                given()
+                        .queryParam("fiscal_code", FISCAL_CODE)
+                        .header(RANGE_HEADER, "bytes=7-")
+                        .when().get(String.format("/messages/%s/%s", THIRD_PARTY_ID, ATTACHMENT_URL))
+                        .then()
+                        .statusCode(206)
+                        .contentType("application/pdf")
+                        .header("content-range", "bytes 7-9/10")
+                        .extract()
+                        .asByteArray();
+
+        assertArrayEquals("pdf".getBytes(StandardCharsets.UTF_8), response);
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    @SneakyThrows
+    void getAttachmentAsyncContentSuccess() {
+        byte[] attachment = "async-pdf-content".getBytes(StandardCharsets.UTF_8);
+        AttachmentContent attachmentContent = AttachmentContent.builder()
+                .asyncContent(Multi.createFrom().items(
+                        ByteBuffer.wrap(attachment, 0, 6),
+                        ByteBuffer.wrap(attachment, 6, attachment.length - 6)))
+                .contentLength(attachment.length)
+                .totalLength(attachment.length)
+                .eTag(ETAG)
+                .build();
+        doReturn(attachmentContent).when(attachmentsServiceMock).getAttachment(THIRD_PARTY_ID, FISCAL_CODE, ATTACHMENT_URL, null);
+
+        byte[] response =
+                given()
+                        .queryParam("fiscal_code", FISCAL_CODE)
+                        .when().get(String.format("/messages/%s/%s", THIRD_PARTY_ID, ATTACHMENT_URL))
+                        .then()
+                        .statusCode(200)
+                        .contentType("application/pdf")
+                        .header("content-length", String.valueOf(attachment.length))
+                        .header("etag", ETAG)
+                        .extract()
+                        .asByteArray();
+
+        assertArrayEquals(attachment, response);
+    }
+
+    @Test
+    @SneakyThrows
+    void getAttachmentAsyncContentFailBeforeFirstChunk() {
+        AttachmentContent attachmentContent = AttachmentContent.builder()
+                .asyncContent(Multi.createFrom().failure(new BlobStorageClientException(PDFS_601, PDFS_601.getErrorMessage())))
+                .contentLength(10)
+                .totalLength(10)
+                .eTag(ETAG)
+                .build();
+        doReturn(attachmentContent).when(attachmentsServiceMock).getAttachment(THIRD_PARTY_ID, FISCAL_CODE, ATTACHMENT_URL, null);
+
+        String responseString =
+                given()
+                        .queryParam("fiscal_code", FISCAL_CODE)
+                        .when().get(String.format("/messages/%s/%s", THIRD_PARTY_ID, ATTACHMENT_URL))
+                        .then()
+                        .statusCode(500)
+                        .contentType("application/json")
+                        .extract()
+                        .asString();
+
+        ErrorResponse response = objectMapper.readValue(responseString, ErrorResponse.class);
+        assertEquals(PDFS_601.getErrorCode(), response.getInstance());
+    }
+
+    @Test
+    @SneakyThrows
+    void getAttachmentAsyncContentFailAfterFirstChunkClosesConnection() {
+        byte[] attachment = "async-pdf-content".getBytes(StandardCharsets.UTF_8);
+        AttachmentContent attachmentContent = AttachmentContent.builder()
+                .asyncContent(Multi.createBy().concatenating().streams(
+                        Multi.createFrom().item(ByteBuffer.wrap(attachment, 0, 6)),
+                        Multi.createFrom().failure(new BlobStorageClientException(PDFS_601, PDFS_601.getErrorMessage()))))
+                .contentLength(attachment.length)
+                .totalLength(attachment.length)
+                .eTag(ETAG)
+                .build();
+        doReturn(attachmentContent).when(attachmentsServiceMock).getAttachment(THIRD_PARTY_ID, FISCAL_CODE, ATTACHMENT_URL, null);
+
+        // the status was already sent with the first chunk, the download is truncated instead of mapped to an error
+        assertThrows(Exception.class, () -> given()
+                .queryParam("fiscal_code", FISCAL_CODE)
+                .when().get(String.format("/messages/%s/%s", THIRD_PARTY_ID, ATTACHMENT_URL))
+                .then()
+                .statusCode(200)
+                .extract()
+                .asByteArray());
+    }
+
+    @Test
+    @SneakyThrows
+    void getAttachmentNotModified() {
+        String eTag = "\"0x8DC0000000000000\"";
+        AttachmentContent attachmentContent = AttachmentContent.builder()
+                .notModified(true)
+                .eTag(eTag)
+                .build();
+        doReturn(attachmentContent).when(attachmentsServiceMock).getAttachment(
+                eq(THIRD_PARTY_ID),
+                eq(FISCAL_CODE),
+                eq(ATTACHMENT_URL),
+                argThat(options -> options != null && eTag.equals(options.getIfNoneMatch()))
+        );
+
+        given()
+                .queryParam("fiscal_code", FISCAL_CODE)
+                .header(IF_NONE_MATCH_HEADER, eTag)
+                .when().get(String.format("/messages/%s/%s", THIRD_PARTY_ID, ATTACHMENT_URL))
+                .then()
+                .statusCode(304)
+                .header("etag", eTag)
+                .header("cache-control", containsString("max-age"));
+    }
+
+    @Test
+    @SneakyThrows
+    void getAttachmentFailRangeNotSatisfiable() {
+        doThrow(new RangeNotSatisfiableException(PDFS_604, "", 100, null)).when(attachmentsServiceMock)
+                .getAttachment(eq(THIRD_PARTY_ID), eq(FISCAL_CODE), eq(ATTACHMENT_URL), any());
+
+        String responseString =
+                given()
+                        .queryParam("fiscal_code", FISCAL_CODE)
+                        .header(RANGE_HEADER, "bytes=200-")
+                        .when().get(String.format("/messages/%s/%s", THIRD_PARTY_ID, ATTACHMENT_URL))
+                        .then()
+                        .statusCode(416)
+                        .header("content-range", "bytes */100")
+                        .contentType("application/json")
+                        .extract()
+                        .asString();
+
+        ErrorResponse response = objectMapper.readValue(responseString, ErrorResponse.class);
+        assertNotNull(response);
+        assertEquals(PDFS_604.getErrorCode(), response.getInstance());
+        assertEquals(REQUESTED_RANGE_NOT_SATISFIABLE.getStatusCode(), response.getStatus());
+    }
+
     @Test
     @SneakyThrows
     void getAttachmentFailMissingFiscalCodeHeader() {
@@ -278,7 +502,7 @@ class AttachmentResourceTest {
     @Test
     @SneakyThrows
     void getAttachmentFailGetReceiptError400() {
-        doThrow(new AttachmentNotFoundException(PDFS_602, "")).when(attachmentsServiceMock).getAttachment(THIRD_PARTY_ID, FISCAL_CODE, ATTACHMENT_URL);
+        doThrow(new AttachmentNotFoundException(PDFS_602, "")).when(attachmentsServiceMock).getAttachment(THIRD_PARTY_ID, FISCAL_CODE, ATTACHMENT_URL, null);
 
         String responseString =
                 given()
@@ -305,7 +529,7 @@ class AttachmentResourceTest {
     @Test
     @SneakyThrows
     void getAttachmentFailGetReceiptError500() {
-        doThrow(new FiscalCodeNotAuthorizedException(PDFS_706, "")).when(attachmentsServiceMock).getAttachment(THIRD_PARTY_ID, FISCAL_CODE, ATTACHMENT_URL);
+        doThrow(new FiscalCodeNotAuthorizedException(PDFS_706, "")).when(attachmentsServiceMock).getAttachment(THIRD_PARTY_ID, FISCAL_CODE, ATTACHMENT_URL, null);
 
         String responseString =
                 given()
@@ -0,0 +1,95 @@
+package it.gov.pagopa.receipt.pdf.service.resource;
+
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import it.gov.pagopa.receipt.pdf.service.exception.FiscalCodeNotAuthorizedException;
+import it.gov.pagopa.receipt.pdf.service.model.ReceiptPdfResponse;
+import it.gov.pagopa.receipt.pdf.service.service.AttachmentsService;
+import it.gov.pagopa.receipt.pdf.service.service.impl.PdfService;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static it.gov.pagopa.receipt.pdf.service.enumeration.AppErrorCodeEnum.PDFS_706;
+import static it.gov.pagopa.receipt.pdf.service.utils.Constants.FILENAME_RESPONSE_HEADER;
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@QuarkusTest
+@TestProfile(PdfRedirectResourceTest.RedirectProfile.class)
+class PdfRedirectResourceTest {
+
+    private static final String THIRD_PARTY_ID = "test-id";
+    private static final String FISCAL_CODE = "AAAAAAAAAAAAAAAA";
+    private static final String ATTACHMENT_URL = "receipt.pdf";
+    private static final String SAS_URL = "http://127.0.0.1:10000/devstoreaccount1/receipts/receipt.pdf?sp=r&sig=signature";
+
+    public static class RedirectProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("attachment.redirect.enabled", "true");
+        }
+    }
+
+    @InjectMock
+    private AttachmentsService attachmentsServiceMock;
+
+    @InjectMock
+    private PdfService pdfServiceMock;
+
+    @Test
+    @SneakyThrows
+    void getAttachmentRedirectsToSasUrl() {
+        doReturn(SAS_URL).when(attachmentsServiceMock).getAttachmentRedirectUrl(THIRD_PARTY_ID, FISCAL_CODE, ATTACHMENT_URL);
+
+        given()
+                .redirects().follow(false)
+                .queryParam("fiscal_code", FISCAL_CODE)
+                .when().get("/messages/" + THIRD_PARTY_ID + "/" + ATTACHMENT_URL)
+                .then()
+                .statusCode(302)
+                .header("location", SAS_URL)
+                .header("cache-control", "no-store");
+
+        verify(attachmentsServiceMock, never()).getAttachment(anyString(), anyString(), anyString(), any());
+    }
+
+    @Test
+    @SneakyThrows
+    void getAttachmentRedirectFailFiscalCodeNotAuthorized() {
+        doThrow(new FiscalCodeNotAuthorizedException(PDFS_706, PDFS_706.getErrorMessage()))
+                .when(attachmentsServiceMock).getAttachmentRedirectUrl(THIRD_PARTY_ID, FISCAL_CODE, ATTACHMENT_URL);
+
+        given()
+                .redirects().follow(false)
+                .queryParam("fiscal_code", FISCAL_CODE)
+                .when().get("/messages/" + THIRD_PARTY_ID + "/" + ATTACHMENT_URL)
+                .then()
+                .statusCode(500)
+                .body(containsString(PDFS_706.getErrorCode()));
+    }
+
+    @Test
+    @SneakyThrows
+    void getReceiptPdfRedirectsToSasUrl() {
+        doReturn(ReceiptPdfResponse.builder().attachmentName(ATTACHMENT_URL).redirectUrl(SAS_URL).build())
+                .when(pdfServiceMock).getReceiptPdfRedirect(THIRD_PARTY_ID, FISCAL_CODE);
+
+        given()
+                .redirects().follow(false)
+                .queryParam("fiscal_code", FISCAL_CODE)
+                .when().get("/pdf/" + THIRD_PARTY_ID)
+                .then()
+                .statusCode(302)
+                .header("location", SAS_URL)
+                .header(FILENAME_RESPONSE_HEADER, ATTACHMENT_URL);
+
+        verify(pdfServiceMock, never()).getReceiptPdf(anyString(), anyString(), any());
+    }
+}
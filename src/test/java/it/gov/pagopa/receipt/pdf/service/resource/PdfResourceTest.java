@@ -2,13 +2,17 @@ package it.gov.pagopa.receipt.pdf.service.resource;
 
 import io.quarkus.test.InjectMock;
 import io.quarkus.test.junit.QuarkusTest;
+import it.gov.pagopa.receipt.pdf.service.model.AttachmentContent;
 import it.gov.pagopa.receipt.pdf.service.model.ReceiptPdfResponse;
+import it.gov.pagopa.receipt.pdf.service.service.impl.PdfArchiveService;
 import it.gov.pagopa.receipt.pdf.service.service.impl.PdfService;
+import jakarta.ws.rs.core.StreamingOutput;
 import lombok.SneakyThrows;
 import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayInputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 import static io.restassured.RestAssured.given;
 import static it.gov.pagopa.receipt.pdf.service.enumeration.AppErrorCodeEnum.PDFS_901;
@@ -24,20 +28,27 @@ class PdfResourceTest {
     public static final String THIRD_PARTY_ID = "thirdPartyId";
     public static final String INVALID_CF = "invalidCF";
     public static final String PDF_NAME = "pdfName";
+    public static final String CART_ID = "cartId";
 
     @InjectMock
     private PdfService pdfService;
 
+    @InjectMock
+    private PdfArchiveService pdfArchiveService;
+
     @Test
     @SneakyThrows
     void getReceiptPdf_200() {
         byte[] pdf = "temp".getBytes(StandardCharsets.UTF_8);
         ReceiptPdfResponse receiptPdfResponse = ReceiptPdfResponse.builder()
-                .pdfFile(new ByteArrayInputStream(pdf))
+                .pdfFile(AttachmentContent.builder()
+                        .content(new ByteArrayInputStream(pdf))
+                        .contentLength(pdf.length)
+                        .build())
                 .attachmentName(PDF_NAME)
                 .build();
 
-        when(pdfService.getReceiptPdf(THIRD_PARTY_ID, FISCAL_CODE))
+        when(pdfService.getReceiptPdf(THIRD_PARTY_ID, FISCAL_CODE, null))
                 .thenReturn(receiptPdfResponse);
 
         byte[] responseBytes =
@@ -50,6 +61,7 @@ class PdfResourceTest {
                         .contentType("application/pdf")
                         .header("content-disposition", "attachment;")
                         .header(FILENAME_RESPONSE_HEADER, PDF_NAME)
+                        .header("content-length", String.valueOf(pdf.length))
                         .extract()
                         .asByteArray();
 
@@ -71,6 +83,50 @@ class PdfResourceTest {
                         .asString();
 
         assertTrue(responseString.contains(PDFS_901.getErrorCode()));
-        verify(pdfService, never()).getReceiptPdf(anyString(), anyString());
+        verify(pdfService, never()).getReceiptPdf(anyString(), anyString(), any());
+    }
+
+    @Test
+    @SneakyThrows
+    void getCartReceiptPdfArchive_200() {
+        byte[] archive = "archive".getBytes(StandardCharsets.UTF_8);
+        List<String> attachmentNames = List.of(PDF_NAME);
+        StreamingOutput output = outputStream -> outputStream.write(archive);
+
+        when(pdfService.getCartReceiptPdfNames(CART_ID, FISCAL_CODE)).thenReturn(attachmentNames);
+        when(pdfArchiveService.buildArchive(attachmentNames)).thenReturn(output);
+
+        byte[] responseBytes =
+                given()
+                        .queryParam("fiscal_code", FISCAL_CODE)
+                        .when()
+                        .get("/pdf/carts/" + CART_ID)
+                        .then()
+                        .statusCode(200)
+                        .contentType("application/zip")
+                        .header("content-disposition", "attachment; filename=\"cart-" + CART_ID + ".zip\"")
+                        .extract()
+                        .asByteArray();
+
+        assertArrayEquals(archive, responseBytes);
+    }
+
+    @Test
+    @SneakyThrows
+    void getCartReceiptPdfArchive_400_InvalidFiscalCode() {
+        String responseString =
+                given()
+                        .queryParam("fiscal_code", INVALID_CF)
+                        .when()
+                        .get("/pdf/carts/" + CART_ID)
+                        .then()
+                        .statusCode(400)
+                        .contentType("application/json")
+                        .extract()
+                        .asString();
+
+        assertTrue(responseString.contains(PDFS_901.getErrorCode()));
+        verify(pdfService, never()).getCartReceiptPdfNames(anyString(), anyString());
+        verify(pdfArchiveService, never()).buildArchive(any());
     }
 }
@@ -9,11 +9,17 @@ import it.gov.pagopa.receipt.pdf.service.model.cart.CartForReceipt;
 import it.gov.pagopa.receipt.pdf.service.model.cart.CartStatusType;
 import it.gov.pagopa.receipt.pdf.service.model.receipt.ReasonError;
 import it.gov.pagopa.receipt.pdf.service.service.impl.CartReceiptCosmosService;
+import it.gov.pagopa.receipt.pdf.service.service.impl.PdfArchiveService;
+import jakarta.ws.rs.core.StreamingOutput;
 import org.apache.http.HttpStatus;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.mockito.Mockito.when;
 
 @QuarkusTest
@@ -24,6 +30,9 @@ class GetCartReceiptTest {
     @InjectMock
     private CartReceiptCosmosService cartReceiptCosmosService;
 
+    @InjectMock
+    private PdfArchiveService pdfArchiveService;
+
     // --- TEST getCartReceipt ---
 
     @Test
@@ -72,6 +81,63 @@ class GetCartReceiptTest {
                 .body("detail", equalTo("[HELPDESK] " + errorMessage));
     }
 
+    // --- TEST getCartReceiptPdfArchive ---
+
+    @Test
+    void getCartReceiptPdfArchiveSuccess() throws CartNotFoundException {
+        CartForReceipt receipt = buildReceipt();
+        byte[] archive = "archive".getBytes(StandardCharsets.UTF_8);
+        List<String> attachmentNames = List.of("receipt.pdf");
+        StreamingOutput output = outputStream -> outputStream.write(archive);
+        when(cartReceiptCosmosService.getCartReceipt(CART_ID)).thenReturn(receipt);
+        when(pdfArchiveService.getCartAttachmentNames(receipt)).thenReturn(attachmentNames);
+        when(pdfArchiveService.buildArchive(attachmentNames)).thenReturn(output);
+
+        byte[] responseBody = given()
+                .pathParam("cart-id", CART_ID)
+                .when()
+                .get("/cart-receipts/{cart-id}/pdf-receipts")
+                .then()
+                .statusCode(HttpStatus.SC_OK)
+                .contentType("application/zip")
+                .extract()
+                .asByteArray();
+
+        assertArrayEquals(archive, responseBody);
+    }
+
+    @Test
+    void getCartReceiptPdfArchiveWithoutPdf() throws CartNotFoundException {
+        CartForReceipt receipt = buildReceipt();
+        when(cartReceiptCosmosService.getCartReceipt(CART_ID)).thenReturn(receipt);
+        when(pdfArchiveService.getCartAttachmentNames(receipt)).thenReturn(List.of());
+
+        given()
+                .pathParam("cart-id", CART_ID)
+                .when()
+                .get("/cart-receipts/{cart-id}/pdf-receipts")
+                .then()
+                .statusCode(HttpStatus.SC_NOT_FOUND)
+                .contentType(ContentType.JSON)
+                .body("status", equalTo(404))
+                .body("detail", equalTo("[HELPDESK] The receipt with cartId " + CART_ID + " has no pdf"));
+    }
+
+    @Test
+    void getCartReceiptPdfArchiveNotFound() throws CartNotFoundException {
+        when(cartReceiptCosmosService.getCartReceipt(CART_ID)).thenThrow(new CartNotFoundException(AppErrorCodeEnum.PDFS_800, "not found"));
+
+        given()
+                .pathParam("cart-id", CART_ID)
+                .when()
+                .get("/cart-receipts/{cart-id}/pdf-receipts")
+                .then()
+                .statusCode(HttpStatus.SC_NOT_FOUND)
+                .contentType(ContentType.JSON)
+                .body("status", equalTo(404))
+                .body("detail", equalTo("[HELPDESK] Unable to retrieve the receipt with cartId " + CART_ID));
+    }
+
     // --- HELPER ---
 
     private CartForReceipt buildReceipt() {
@@ -0,0 +1,40 @@
+package it.gov.pagopa.receipt.pdf.service.resource.writer;
+
+import io.smallrye.mutiny.Multi;
+import jakarta.ws.rs.core.MediaType;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncPdfBodyWriterTest {
+
+    private final AsyncPdfBodyWriter sut = new AsyncPdfBodyWriter();
+
+    @Test
+    @SneakyThrows
+    void writeToWritesEveryChunk() {
+        byte[] pdf = "async-pdf-content".getBytes(StandardCharsets.UTF_8);
+        AsyncPdfBody body = new AsyncPdfBody(Multi.createFrom().items(
+                ByteBuffer.wrap(pdf, 0, 6),
+                ByteBuffer.wrap(pdf, 6, pdf.length - 6)));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        sut.writeTo(body, AsyncPdfBody.class, AsyncPdfBody.class, null, MediaType.valueOf("application/pdf"), null, output);
+
+        assertArrayEquals(pdf, output.toByteArray());
+    }
+
+    @Test
+    void writeToPropagatesDownloadFailure() {
+        AsyncPdfBody body = new AsyncPdfBody(Multi.createFrom().failure(new IOException("download failed")));
+
+        assertThrows(Exception.class, () -> sut.writeTo(
+                body, AsyncPdfBody.class, AsyncPdfBody.class, null, MediaType.valueOf("application/pdf"), null, new ByteArrayOutputStream()));
+    }
+}
@@ -2,15 +2,20 @@ package it.gov.pagopa.receipt.pdf.service.service.impl;
 
 import io.quarkus.test.InjectMock;
 import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.helpers.test.UniAssertSubscriber;
+import it.gov.pagopa.receipt.pdf.service.client.CartReceiptCosmosAsyncClient;
 import it.gov.pagopa.receipt.pdf.service.client.CartReceiptCosmosClient;
 import it.gov.pagopa.receipt.pdf.service.client.PDVTokenizerClient;
 import it.gov.pagopa.receipt.pdf.service.client.ReceiptBlobClient;
+import it.gov.pagopa.receipt.pdf.service.client.ReceiptCosmosAsyncClient;
 import it.gov.pagopa.receipt.pdf.service.client.ReceiptCosmosClient;
 import it.gov.pagopa.receipt.pdf.service.enumeration.AppErrorCodeEnum;
 import it.gov.pagopa.receipt.pdf.service.exception.FiscalCodeNotAuthorizedException;
 import it.gov.pagopa.receipt.pdf.service.exception.InvalidCartException;
 import it.gov.pagopa.receipt.pdf.service.exception.InvalidReceiptException;
 import it.gov.pagopa.receipt.pdf.service.model.Attachment;
+import it.gov.pagopa.receipt.pdf.service.model.AttachmentContent;
 import it.gov.pagopa.receipt.pdf.service.model.AttachmentsDetailsResponse;
 import it.gov.pagopa.receipt.pdf.service.model.SearchTokenRequest;
 import it.gov.pagopa.receipt.pdf.service.model.SearchTokenResponse;
@@ -25,13 +30,14 @@ import it.gov.pagopa.receipt.pdf.service.service.AttachmentsService;
 import jakarta.inject.Inject;
 import lombok.SneakyThrows;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
-import java.io.InputStream;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import static it.gov.pagopa.receipt.pdf.service.utils.Constants.CART;
 import static org.junit.jupiter.api.Assertions.*;
@@ -55,6 +61,12 @@ class AttachmentsServiceImplTest {
     @InjectMock
     private CartReceiptCosmosClient cosmosClientCartMock;
 
+    @InjectMock
+    private ReceiptCosmosAsyncClient cosmosAsyncClientReceiptsMock;
+
+    @InjectMock
+    private CartReceiptCosmosAsyncClient cosmosAsyncClientCartMock;
+
     @InjectMock
     private ReceiptBlobClient receiptBlobClientMock;
 
@@ -65,6 +77,9 @@ class AttachmentsServiceImplTest {
     @Inject
     private AttachmentsService sut;
 
+    @Inject
+    private TokenizerService tokenizerService;
+
     @BeforeEach
     void init() {
         Mockito.reset(cosmosClientReceiptsMock, receiptBlobClientMock, restClientMock);
@@ -78,7 +93,26 @@ class AttachmentsServiceImplTest {
         when(restClientMock.searchToken(
                 new SearchTokenRequest(MISSING_FISCAL_CODE)))
                 .thenThrow(new RuntimeException());
+        when(restClientMock.searchTokenAsync(
+                new SearchTokenRequest(FISCAL_CODE_A)))
+                .thenReturn(Uni.createFrom().item(new SearchTokenResponse(TOKEN_A)));
+        when(restClientMock.searchTokenAsync(
+                new SearchTokenRequest(FISCAL_CODE_B)))
+                .thenReturn(Uni.createFrom().item(new SearchTokenResponse(TOKEN_B)));
+        when(restClientMock.searchTokenAsync(
+                new SearchTokenRequest(MISSING_FISCAL_CODE)))
+                .thenReturn(Uni.createFrom().failure(new RuntimeException()));
+
+    }
 
+    @AfterEach
+    @SneakyThrows
+    void awaitAbandonedTokenLookups() {
+        // a concurrent lookup abandoned by a failed read must not reach the tokenizer mock reset by the next test
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (tokenizerService.hasInFlightLookups() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
     }
 
 
@@ -298,9 +332,9 @@ class AttachmentsServiceImplTest {
         Receipt receipt = buildReceiptWithDifferentPayerDebtor(id, fileNameDebtor, fileNamePayer);
 
         doReturn(receipt).when(cosmosClientReceiptsMock).getReceiptDocument(anyString());
-        doReturn(mock(InputStream.class)).when(receiptBlobClientMock).getAttachmentFromBlobStorage(anyString());
+        doReturn(mock(AttachmentContent.class)).when(receiptBlobClientMock).openAttachmentStream(anyString(), any());
 
-        InputStream result = assertDoesNotThrow(() -> sut.getAttachment("tp-id", FISCAL_CODE_B, fileNamePayer));
+        AttachmentContent result = assertDoesNotThrow(() -> sut.getAttachment("tp-id", FISCAL_CODE_B, fileNamePayer, null));
 
         assertNotNull(result);
     }
@@ -313,13 +347,49 @@ class AttachmentsServiceImplTest {
         Receipt receipt = buildReceiptWithSamePayerDebtor(id, fileNameDebtor);
 
         doReturn(receipt).when(cosmosClientReceiptsMock).getReceiptDocument(anyString());
-        doReturn(mock(InputStream.class)).when(receiptBlobClientMock).getAttachmentFromBlobStorage(anyString());
+        doReturn(mock(AttachmentContent.class)).when(receiptBlobClientMock).openAttachmentStream(anyString(), any());
 
-        InputStream result = assertDoesNotThrow(() -> sut.getAttachment("tp-id", FISCAL_CODE_A, fileNameDebtor));
+        AttachmentContent result = assertDoesNotThrow(() -> sut.getAttachment("tp-id", FISCAL_CODE_A, fileNameDebtor, null));
 
         assertNotNull(result);
     }
 
+    @Test
+    @SneakyThrows
+    void getAttachmentRedirectUrlSuccess() {
+        String id = UUID.randomUUID().toString();
+        String fileNameDebtor = "file1.pdf";
+        String sasUrl = "https://account.blob.core.windows.net/container/file1.pdf?sig=signature";
+        Receipt receipt = buildReceiptWithSamePayerDebtor(id, fileNameDebtor);
+
+        doReturn(receipt).when(cosmosClientReceiptsMock).getReceiptDocument(anyString());
+        doReturn(sasUrl).when(receiptBlobClientMock).generateReadSasUrl(fileNameDebtor);
+
+        String result = assertDoesNotThrow(() -> sut.getAttachmentRedirectUrl("tp-id", FISCAL_CODE_A, fileNameDebtor));
+
+        assertEquals(sasUrl, result);
+        verify(receiptBlobClientMock, never()).openAttachmentStream(anyString(), any());
+    }
+
+    @Test
+    @SneakyThrows
+    void getAttachmentRedirectUrlFailFiscalCodeNotAuthorized() {
+        String id = UUID.randomUUID().toString();
+        String fileNameDebtor = "file1.pdf";
+        String fileNamePayer = "file2.pdf";
+        Receipt receipt = buildReceiptWithDifferentPayerDebtor(id, fileNameDebtor, fileNamePayer);
+
+        doReturn(receipt).when(cosmosClientReceiptsMock).getReceiptDocument(anyString());
+
+        FiscalCodeNotAuthorizedException e = assertThrows(
+                FiscalCodeNotAuthorizedException.class,
+                () -> sut.getAttachmentRedirectUrl("tp-id", FISCAL_CODE_B, fileNameDebtor)
+        );
+
+        assertEquals(AppErrorCodeEnum.PDFS_706, e.getErrorCode());
+        verify(receiptBlobClientMock, never()).generateReadSasUrl(anyString());
+    }
+
     @Test
     @SneakyThrows
     void getAttachmentFailWithDifferentPayerDebtorPayerRequestDebtorReceipt() {
@@ -329,11 +399,11 @@ class AttachmentsServiceImplTest {
         Receipt receipt = buildReceiptWithDifferentPayerDebtor(id, fileNameDebtor, fileNamePayer);
 
         doReturn(receipt).when(cosmosClientReceiptsMock).getReceiptDocument(anyString());
-        doReturn(mock(InputStream.class)).when(receiptBlobClientMock).getAttachmentFromBlobStorage(anyString());
+        doReturn(mock(AttachmentContent.class)).when(receiptBlobClientMock).openAttachmentStream(anyString(), any());
 
         FiscalCodeNotAuthorizedException e = assertThrows(
                 FiscalCodeNotAuthorizedException.class,
-                () -> sut.getAttachment("tp-id", FISCAL_CODE_B, fileNameDebtor)
+                () -> sut.getAttachment("tp-id", FISCAL_CODE_B, fileNameDebtor, null)
         );
 
         assertNotNull(e);
@@ -349,11 +419,11 @@ class AttachmentsServiceImplTest {
         Receipt receipt = buildReceiptWithDifferentPayerDebtor(id, fileNameDebtor, fileNamePayer);
 
         doReturn(receipt).when(cosmosClientReceiptsMock).getReceiptDocument(anyString());
-        doReturn(mock(InputStream.class)).when(receiptBlobClientMock).getAttachmentFromBlobStorage(anyString());
+        doReturn(mock(AttachmentContent.class)).when(receiptBlobClientMock).openAttachmentStream(anyString(), any());
 
         FiscalCodeNotAuthorizedException e = assertThrows(
                 FiscalCodeNotAuthorizedException.class,
-                () -> sut.getAttachment("tp-id", FISCAL_CODE_A, fileNamePayer)
+                () -> sut.getAttachment("tp-id", FISCAL_CODE_A, fileNamePayer, null)
         );
 
         assertNotNull(e);
@@ -368,11 +438,11 @@ class AttachmentsServiceImplTest {
         Receipt receipt = buildReceiptWithSamePayerDebtor(id, fileNameDebtor);
 
         doReturn(receipt).when(cosmosClientReceiptsMock).getReceiptDocument(anyString());
-        doReturn(mock(InputStream.class)).when(receiptBlobClientMock).getAttachmentFromBlobStorage(anyString());
+        doReturn(mock(AttachmentContent.class)).when(receiptBlobClientMock).openAttachmentStream(anyString(), any());
 
         FiscalCodeNotAuthorizedException e = assertThrows(
                 FiscalCodeNotAuthorizedException.class,
-                () -> sut.getAttachment("tp-id", FISCAL_CODE_A, UUID.randomUUID().toString())
+                () -> sut.getAttachment("tp-id", FISCAL_CODE_A, UUID.randomUUID().toString(), null)
         );
 
         assertNotNull(e);
@@ -403,11 +473,11 @@ class AttachmentsServiceImplTest {
         Receipt receipt = buildReceiptWithSamePayerDebtor(id, fileNameDebtor);
 
         doReturn(receipt).when(cosmosClientReceiptsMock).getReceiptDocument(anyString());
-        doReturn(mock(InputStream.class)).when(receiptBlobClientMock).getAttachmentFromBlobStorage(anyString());
+        doReturn(mock(AttachmentContent.class)).when(receiptBlobClientMock).openAttachmentStream(anyString(), any());
 
         assertThrows(
                 FiscalCodeNotAuthorizedException.class,
-                () -> sut.getAttachment("tp-id", MISSING_FISCAL_CODE, fileNameDebtor)
+                () -> sut.getAttachment("tp-id", MISSING_FISCAL_CODE, fileNameDebtor, null)
         );
 
     }
@@ -433,17 +503,18 @@ class AttachmentsServiceImplTest {
                         .build())
                 .build();
 
-        doReturn(cart).when(cosmosClientCartMock).getCartForReceiptDocument(anyString());
+        doReturn(cart).when(cosmosClientCartMock).getCartAuthorizationView(anyString(), any(), anyBoolean());
 
         when(restClientMock.searchToken(
                 new SearchTokenRequest(payerFiscalCode)))
                 .thenReturn(new SearchTokenResponse(TOKEN_A));
-        doReturn(mock(InputStream.class)).when(receiptBlobClientMock).getAttachmentFromBlobStorage(anyString());
+        doReturn(mock(AttachmentContent.class)).when(receiptBlobClientMock).openAttachmentStream(anyString(), any());
 
 
-        InputStream result = sut.getAttachment("test_CART_", payerFiscalCode, fileNamePayer);
+        AttachmentContent result = sut.getAttachment("test_CART_", payerFiscalCode, fileNamePayer, null);
 
         assertNotNull(result);
+        verify(cosmosClientCartMock).getCartAuthorizationView(anyString(), isNull(), eq(false));
     }
 
     @Test
@@ -468,19 +539,62 @@ class AttachmentsServiceImplTest {
                         .build())
                 .build();
 
-        doReturn(cart).when(cosmosClientCartMock).getCartForReceiptDocument(anyString());
+        doReturn(cart).when(cosmosClientCartMock).getCartAuthorizationView(anyString(), any(), anyBoolean());
 
         when(restClientMock.searchToken(
                 new SearchTokenRequest(debtorFiscalCode)))
                 .thenReturn(new SearchTokenResponse(TOKEN_B));
-        doReturn(mock(InputStream.class)).when(receiptBlobClientMock).getAttachmentFromBlobStorage(anyString());
+        doReturn(mock(AttachmentContent.class)).when(receiptBlobClientMock).openAttachmentStream(anyString(), any());
 
 
-        InputStream result = sut.getAttachment("test_CART_biz1", debtorFiscalCode, fileNameDebtor);
+        AttachmentContent result = sut.getAttachment("test_CART_biz1", debtorFiscalCode, fileNameDebtor, null);
 
         assertNotNull(result);
     }
 
+    @Test
+    @SneakyThrows
+    void getAttachmentCartDebtorSharedBizEventIdNotAuthorized() {
+        String fileNameDebtor = "file1.pdf";
+        String debtorFiscalCode = "12345";
+        CartForReceipt cart = CartForReceipt.builder()
+                .payload(Payload.builder()
+                        .payerFiscalCode(TOKEN_A)
+                        .mdAttachPayer(ReceiptMetadata.builder()
+                                .name("file2.pdf")
+                                .build())
+                        .cart(List.of(
+                                CartPayment.builder()
+                                        .bizEventId("biz1")
+                                        .debtorFiscalCode(TOKEN_B)
+                                        .mdAttach(ReceiptMetadata.builder()
+                                                .name(fileNameDebtor)
+                                                .build())
+                                        .build(),
+                                CartPayment.builder()
+                                        .bizEventId("biz1")
+                                        .debtorFiscalCode(TOKEN_A)
+                                        .mdAttach(ReceiptMetadata.builder()
+                                                .name("file3.pdf")
+                                                .build())
+                                        .build()))
+                        .build())
+                .build();
+
+        doReturn(cart).when(cosmosClientCartMock).getCartAuthorizationView(anyString(), any(), anyBoolean());
+
+        when(restClientMock.searchToken(
+                new SearchTokenRequest(debtorFiscalCode)))
+                .thenReturn(new SearchTokenResponse(TOKEN_B));
+
+        FiscalCodeNotAuthorizedException e = assertThrows(
+                FiscalCodeNotAuthorizedException.class,
+                () -> sut.getAttachment("test_CART_biz1", debtorFiscalCode, fileNameDebtor, null));
+
+        assertEquals(AppErrorCodeEnum.PDFS_706, e.getErrorCode());
+        verify(receiptBlobClientMock, never()).openAttachmentStream(anyString(), any());
+    }
+
 
     @Test
     @SneakyThrows
@@ -489,17 +603,17 @@ class AttachmentsServiceImplTest {
         String payerFiscalCode = "12345";
         CartForReceipt cart = null;
 
-        doReturn(cart).when(cosmosClientCartMock).getCartForReceiptDocument(anyString());
+        doReturn(cart).when(cosmosClientCartMock).getCartAuthorizationView(anyString(), any(), anyBoolean());
 
         when(restClientMock.searchToken(
                 new SearchTokenRequest(payerFiscalCode)))
                 .thenReturn(new SearchTokenResponse(TOKEN_A));
-        doReturn(mock(InputStream.class)).when(receiptBlobClientMock).getAttachmentFromBlobStorage(anyString());
+        doReturn(mock(AttachmentContent.class)).when(receiptBlobClientMock).openAttachmentStream(anyString(), any());
 
 
         InvalidCartException e = assertThrows(
                 InvalidCartException.class,
-                () -> sut.getAttachment("test_CART_", payerFiscalCode, fileNamePayer));
+                () -> sut.getAttachment("test_CART_", payerFiscalCode, fileNamePayer, null));
 
         assertNotNull(e);
         assertEquals(AppErrorCodeEnum.PDFS_707, e.getErrorCode());
@@ -514,17 +628,17 @@ class AttachmentsServiceImplTest {
                 .payload(null)
                 .build();
 
-        doReturn(cart).when(cosmosClientCartMock).getCartForReceiptDocument(anyString());
+        doReturn(cart).when(cosmosClientCartMock).getCartAuthorizationView(anyString(), any(), anyBoolean());
 
         when(restClientMock.searchToken(
                 new SearchTokenRequest(payerFiscalCode)))
                 .thenReturn(new SearchTokenResponse(TOKEN_A));
-        doReturn(mock(InputStream.class)).when(receiptBlobClientMock).getAttachmentFromBlobStorage(anyString());
+        doReturn(mock(AttachmentContent.class)).when(receiptBlobClientMock).openAttachmentStream(anyString(), any());
 
 
         InvalidCartException e = assertThrows(
                 InvalidCartException.class,
-                () -> sut.getAttachment("test_CART_", payerFiscalCode, fileNamePayer));
+                () -> sut.getAttachment("test_CART_", payerFiscalCode, fileNamePayer, null));
 
         assertNotNull(e);
         assertEquals(AppErrorCodeEnum.PDFS_708, e.getErrorCode());
@@ -541,17 +655,17 @@ class AttachmentsServiceImplTest {
                         .build())
                 .build();
 
-        doReturn(cart).when(cosmosClientCartMock).getCartForReceiptDocument(anyString());
+        doReturn(cart).when(cosmosClientCartMock).getCartAuthorizationView(anyString(), any(), anyBoolean());
 
         when(restClientMock.searchToken(
                 new SearchTokenRequest(payerFiscalCode)))
                 .thenReturn(new SearchTokenResponse(TOKEN_A));
-        doReturn(mock(InputStream.class)).when(receiptBlobClientMock).getAttachmentFromBlobStorage(anyString());
+        doReturn(mock(AttachmentContent.class)).when(receiptBlobClientMock).openAttachmentStream(anyString(), any());
 
 
         InvalidCartException e = assertThrows(
                 InvalidCartException.class,
-                () -> sut.getAttachment("test_CART_", payerFiscalCode, fileNamePayer));
+                () -> sut.getAttachment("test_CART_", payerFiscalCode, fileNamePayer, null));
 
         assertNotNull(e);
         assertEquals(AppErrorCodeEnum.PDFS_708, e.getErrorCode());
@@ -570,17 +684,17 @@ class AttachmentsServiceImplTest {
                         .build())
                 .build();
 
-        doReturn(cart).when(cosmosClientCartMock).getCartForReceiptDocument(anyString());
+        doReturn(cart).when(cosmosClientCartMock).getCartAuthorizationView(anyString(), any(), anyBoolean());
 
         when(restClientMock.searchToken(
                 new SearchTokenRequest(payerFiscalCode)))
                 .thenReturn(new SearchTokenResponse(TOKEN_A));
-        doReturn(mock(InputStream.class)).when(receiptBlobClientMock).getAttachmentFromBlobStorage(anyString());
+        doReturn(mock(AttachmentContent.class)).when(receiptBlobClientMock).openAttachmentStream(anyString(), any());
 
 
         InvalidCartException e = assertThrows(
                 InvalidCartException.class,
-                () -> sut.getAttachment("test_CART_", payerFiscalCode, fileNamePayer));
+                () -> sut.getAttachment("test_CART_", payerFiscalCode, fileNamePayer, null));
 
         assertNotNull(e);
         assertEquals(AppErrorCodeEnum.PDFS_709, e.getErrorCode());
@@ -608,17 +722,17 @@ class AttachmentsServiceImplTest {
                         .build())
                 .build();
 
-        doReturn(cart).when(cosmosClientCartMock).getCartForReceiptDocument(anyString());
+        doReturn(cart).when(cosmosClientCartMock).getCartAuthorizationView(anyString(), any(), anyBoolean());
 
         when(restClientMock.searchToken(
                 new SearchTokenRequest(payerFiscalCode)))
                 .thenReturn(new SearchTokenResponse(TOKEN_A));
-        doReturn(mock(InputStream.class)).when(receiptBlobClientMock).getAttachmentFromBlobStorage(anyString());
+        doReturn(mock(AttachmentContent.class)).when(receiptBlobClientMock).openAttachmentStream(anyString(), any());
 
 
         FiscalCodeNotAuthorizedException e = assertThrows(
                 FiscalCodeNotAuthorizedException.class,
-                () -> sut.getAttachment("test_CART_", payerFiscalCode, fileNamePayer));
+                () -> sut.getAttachment("test_CART_", payerFiscalCode, fileNamePayer, null));
 
         assertNotNull(e);
     }
@@ -645,17 +759,17 @@ class AttachmentsServiceImplTest {
                         .build())
                 .build();
 
-        doReturn(cart).when(cosmosClientCartMock).getCartForReceiptDocument(anyString());
+        doReturn(cart).when(cosmosClientCartMock).getCartAuthorizationView(anyString(), any(), anyBoolean());
 
         when(restClientMock.searchToken(
                 new SearchTokenRequest(payerFiscalCode)))
                 .thenReturn(new SearchTokenResponse(TOKEN_B));
-        doReturn(mock(InputStream.class)).when(receiptBlobClientMock).getAttachmentFromBlobStorage(anyString());
+        doReturn(mock(AttachmentContent.class)).when(receiptBlobClientMock).openAttachmentStream(anyString(), any());
 
 
         FiscalCodeNotAuthorizedException e = assertThrows(
                 FiscalCodeNotAuthorizedException.class,
-                () -> sut.getAttachment("test_CART_biz1", "wrong", fileNamePayer));
+                () -> sut.getAttachment("test_CART_biz1", "wrong", fileNamePayer, null));
 
         assertNotNull(e);
     }
@@ -676,17 +790,17 @@ class AttachmentsServiceImplTest {
                         .build())
                 .build();
 
-        doReturn(cart).when(cosmosClientCartMock).getCartForReceiptDocument(anyString());
+        doReturn(cart).when(cosmosClientCartMock).getCartAuthorizationView(anyString(), any(), anyBoolean());
 
         when(restClientMock.searchToken(
                 new SearchTokenRequest(payerFiscalCode)))
                 .thenReturn(new SearchTokenResponse(TOKEN_B));
-        doReturn(mock(InputStream.class)).when(receiptBlobClientMock).getAttachmentFromBlobStorage(anyString());
+        doReturn(mock(AttachmentContent.class)).when(receiptBlobClientMock).openAttachmentStream(anyString(), any());
 
 
         InvalidCartException e = assertThrows(
                 InvalidCartException.class,
-                () -> sut.getAttachment("test_CART_biz1", payerFiscalCode, fileNamePayer));
+                () -> sut.getAttachment("test_CART_biz1", payerFiscalCode, fileNamePayer, null));
 
         assertNotNull(e);
         assertEquals(AppErrorCodeEnum.PDFS_710, e.getErrorCode());
@@ -713,17 +827,17 @@ class AttachmentsServiceImplTest {
                         .build())
                 .build();
 
-        doReturn(cart).when(cosmosClientCartMock).getCartForReceiptDocument(anyString());
+        doReturn(cart).when(cosmosClientCartMock).getCartAuthorizationView(anyString(), any(), anyBoolean());
 
         when(restClientMock.searchToken(
                 new SearchTokenRequest(payerFiscalCode)))
                 .thenReturn(new SearchTokenResponse(TOKEN_B));
-        doReturn(mock(InputStream.class)).when(receiptBlobClientMock).getAttachmentFromBlobStorage(anyString());
+        doReturn(mock(AttachmentContent.class)).when(receiptBlobClientMock).openAttachmentStream(anyString(), any());
 
 
         InvalidCartException e = assertThrows(
                 InvalidCartException.class,
-                () -> sut.getAttachment("test_CART_biz1", payerFiscalCode, fileNamePayer));
+                () -> sut.getAttachment("test_CART_biz1", payerFiscalCode, fileNamePayer, null));
 
         assertNotNull(e);
         assertEquals(AppErrorCodeEnum.PDFS_712, e.getErrorCode());
@@ -886,7 +1000,7 @@ class AttachmentsServiceImplTest {
                         .build())
                 .build();
 
-        when(cosmosClientCartMock.getCartForReceiptDocument(anyString())).thenReturn(cart);
+        when(cosmosClientCartMock.getCartAuthorizationView(anyString(), any(), anyBoolean())).thenReturn(cart);
         when(restClientMock.searchToken(any())).thenReturn(new SearchTokenResponse(payer));
 
         AttachmentsDetailsResponse resp = sut.getAttachmentsDetails(cartId + CART, payer);
@@ -917,7 +1031,7 @@ class AttachmentsServiceImplTest {
                         .build())
                 .build();
 
-        when(cosmosClientCartMock.getCartForReceiptDocument(anyString())).thenReturn(cart);
+        when(cosmosClientCartMock.getCartAuthorizationView(anyString(), any(), anyBoolean())).thenReturn(cart);
         when(restClientMock.searchToken(any())).thenReturn(new SearchTokenResponse(debtor));
 
         AttachmentsDetailsResponse resp = sut.getAttachmentsDetails(cartId + CART + bizId, debtor);
@@ -925,6 +1039,7 @@ class AttachmentsServiceImplTest {
         assertNotNull(resp);
         assertEquals(fileName, resp.getAttachments().get(0).getName());
         assertEquals("subj", resp.getDetails().getSubject());
+        verify(cosmosClientCartMock).getCartAuthorizationView(cartId, bizId, true);
     }
 
     @Test
@@ -947,7 +1062,7 @@ class AttachmentsServiceImplTest {
                         .build())
                 .build();
 
-        when(cosmosClientCartMock.getCartForReceiptDocument(anyString())).thenReturn(cart);
+        when(cosmosClientCartMock.getCartAuthorizationView(anyString(), any(), anyBoolean())).thenReturn(cart);
         when(restClientMock.searchToken(any())).thenReturn(new SearchTokenResponse("OTHER"));
 
         FiscalCodeNotAuthorizedException ex = assertThrows(FiscalCodeNotAuthorizedException.class,
@@ -955,6 +1070,47 @@ class AttachmentsServiceImplTest {
         assertEquals(AppErrorCodeEnum.PDFS_700, ex.getErrorCode());
     }
 
+    @Test
+    @SneakyThrows
+    void getAttachmentsDetails_cart_debtors_sharingBizEventId_authorizedByFiscalCode() {
+        String cartId = "cart4";
+        String debtor = "DEBTOR";
+        String otherDebtor = "OTHER_DEBTOR";
+        String bizId = "BIZ";
+        CartForReceipt cart = CartForReceipt.builder()
+                .id(cartId)
+                .payload(Payload.builder()
+                        .payerFiscalCode("PAYER")
+                        .mdAttachPayer(ReceiptMetadata.builder().name("receipt.pdf").url("url").build())
+                        .cart(List.of(
+                                CartPayment.builder()
+                                        .bizEventId(bizId)
+                                        .debtorFiscalCode(debtor)
+                                        .mdAttach(ReceiptMetadata.builder().name("debtor.pdf").build())
+                                        .messageDebtor(MessageData.builder().subject("subj").markdown("md").build())
+                                        .build(),
+                                CartPayment.builder()
+                                        .bizEventId(bizId)
+                                        .debtorFiscalCode(otherDebtor)
+                                        .mdAttach(ReceiptMetadata.builder().name("other.pdf").build())
+                                        .messageDebtor(MessageData.builder().subject("subj").markdown("md").build())
+                                        .build()))
+                        .build())
+                .build();
+
+        when(cosmosClientCartMock.getCartAuthorizationView(anyString(), any(), anyBoolean())).thenReturn(cart);
+        when(restClientMock.searchToken(any())).thenAnswer(invocation ->
+                new SearchTokenResponse(invocation.getArgument(0, SearchTokenRequest.class).getPii()));
+
+        assertEquals("debtor.pdf", sut.getAttachmentsDetails(cartId + CART + bizId, debtor)
+                .getAttachments().get(0).getName());
+        assertEquals("other.pdf", sut.getAttachmentsDetails(cartId + CART + bizId, otherDebtor)
+                .getAttachments().get(0).getName());
+        FiscalCodeNotAuthorizedException ex = assertThrows(FiscalCodeNotAuthorizedException.class,
+                () -> sut.getAttachmentsDetails(cartId + CART + bizId, "PAYER"));
+        assertEquals(AppErrorCodeEnum.PDFS_700, ex.getErrorCode());
+    }
+
 
     @Test
     void getAttachmentsDetails_cart_missing_payer() throws Exception {
@@ -980,7 +1136,7 @@ class AttachmentsServiceImplTest {
                         .build())
                 .build();
 
-        when(cosmosClientCartMock.getCartForReceiptDocument(anyString())).thenReturn(cart);
+        when(cosmosClientCartMock.getCartAuthorizationView(anyString(), any(), anyBoolean())).thenReturn(cart);
         when(restClientMock.searchToken(any())).thenReturn(new SearchTokenResponse(payer));
 
 
@@ -989,6 +1145,79 @@ class AttachmentsServiceImplTest {
         assertEquals(AppErrorCodeEnum.PDFS_713, ex.getErrorCode());
     }
 
-}
+    @Test
+    @SneakyThrows
+    void getAttachmentsDetailsAsyncSuccessWithDifferentPayerDebtor() {
+        String id = UUID.randomUUID().toString();
+        String fileNameDebtor = "file1.pdf";
+        String fileNamePayer = "file2.pdf";
+        Receipt receipt = buildReceiptWithDifferentPayerDebtor(id, fileNameDebtor, fileNamePayer);
+
+        doReturn(Uni.createFrom().item(receipt)).when(cosmosAsyncClientReceiptsMock).getReceiptDocument(id);
+
+        AttachmentsDetailsResponse result = sut.getAttachmentsDetailsAsync(id, FISCAL_CODE_B)
+                .subscribe().withSubscriber(UniAssertSubscriber.create()).awaitItem().getItem();
+
+        assertEquals(fileNamePayer, result.getAttachments().get(0).getName());
+        verify(cosmosClientReceiptsMock, never()).getReceiptDocument(anyString());
+        verify(restClientMock, never()).searchToken(any());
+    }
+
+    @Test
+    void getAttachmentsDetailsAsyncFailWithMissingToken() {
+        String id = UUID.randomUUID().toString();
+        Receipt receipt = buildReceiptWithSamePayerDebtor(id, "file1.pdf");
 
+        doReturn(Uni.createFrom().item(receipt)).when(cosmosAsyncClientReceiptsMock).getReceiptDocument(id);
 
+        Throwable failure = sut.getAttachmentsDetailsAsync(id, MISSING_FISCAL_CODE)
+                .subscribe().withSubscriber(UniAssertSubscriber.create()).awaitFailure().getFailure();
+
+        FiscalCodeNotAuthorizedException e = assertInstanceOf(FiscalCodeNotAuthorizedException.class, failure);
+        assertEquals(AppErrorCodeEnum.PDFS_700, e.getErrorCode());
+    }
+
+    @Test
+    @SneakyThrows
+    void getAttachmentAsyncCartDebtorUnauthorized() {
+        String cartId = UUID.randomUUID().toString();
+        CartForReceipt cart = CartForReceipt.builder()
+                .id(cartId)
+                .payload(Payload.builder()
+                        .payerFiscalCode(TOKEN_A)
+                        .mdAttachPayer(ReceiptMetadata.builder().name("payer.pdf").build())
+                        .cart(List.of(CartPayment.builder()
+                                .bizEventId("BIZ")
+                                .debtorFiscalCode(TOKEN_A)
+                                .mdAttach(ReceiptMetadata.builder().name("debtor.pdf").build())
+                                .build()))
+                        .build())
+                .build();
+
+        doReturn(Uni.createFrom().item(cart)).when(cosmosAsyncClientCartMock).getCartAuthorizationView(eq(cartId), any(), anyBoolean());
+
+        Throwable failure = sut.getAttachmentAsync(cartId + CART + "BIZ", FISCAL_CODE_B, "debtor.pdf", null)
+                .subscribe().withSubscriber(UniAssertSubscriber.create()).awaitFailure().getFailure();
+
+        FiscalCodeNotAuthorizedException e = assertInstanceOf(FiscalCodeNotAuthorizedException.class, failure);
+        assertEquals(AppErrorCodeEnum.PDFS_706, e.getErrorCode());
+        verify(receiptBlobClientMock, never()).openAttachmentStreamAsync(anyString(), any());
+    }
+
+    @Test
+    @SneakyThrows
+    void getAttachmentAsyncSuccessWithSamePayerDebtor() {
+        String id = UUID.randomUUID().toString();
+        String fileNameDebtor = "file1.pdf";
+        Receipt receipt = buildReceiptWithSamePayerDebtor(id, fileNameDebtor);
+        AttachmentContent content = mock(AttachmentContent.class);
+
+        doReturn(Uni.createFrom().item(receipt)).when(cosmosAsyncClientReceiptsMock).getReceiptDocument(id);
+        doReturn(Uni.createFrom().item(content)).when(receiptBlobClientMock).openAttachmentStreamAsync(fileNameDebtor, null);
+
+        AttachmentContent result = sut.getAttachmentAsync(id, FISCAL_CODE_A, fileNameDebtor, null)
+                .subscribe().withSubscriber(UniAssertSubscriber.create()).awaitItem().getItem();
+
+        assertSame(content, result);
+    }
+}
@@ -0,0 +1,143 @@
+package it.gov.pagopa.receipt.pdf.service.service.impl;
+
+import it.gov.pagopa.receipt.pdf.service.client.ReceiptBlobClient;
+import it.gov.pagopa.receipt.pdf.service.enumeration.AppErrorCodeEnum;
+import it.gov.pagopa.receipt.pdf.service.exception.AttachmentNotFoundException;
+import it.gov.pagopa.receipt.pdf.service.model.AttachmentContent;
+import it.gov.pagopa.receipt.pdf.service.model.cart.CartForReceipt;
+import it.gov.pagopa.receipt.pdf.service.model.cart.CartPayment;
+import it.gov.pagopa.receipt.pdf.service.model.cart.Payload;
+import it.gov.pagopa.receipt.pdf.service.model.receipt.ReceiptMetadata;
+import lombok.SneakyThrows;
+import org.eclipse.microprofile.context.ManagedExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PdfArchiveServiceTest {
+
+    private static final int MAX_CONCURRENCY = 2;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(MAX_CONCURRENCY * 2);
+
+    private ReceiptBlobClient receiptBlobClient;
+    private PdfArchiveService sut;
+
+    @BeforeEach
+    void setUp() {
+        receiptBlobClient = mock(ReceiptBlobClient.class);
+        ManagedExecutor managedExecutor = mock(ManagedExecutor.class);
+        doAnswer(invocation -> {
+            executor.execute(invocation.getArgument(0));
+            return null;
+        }).when(managedExecutor).execute(any(Runnable.class));
+        sut = new PdfArchiveService(receiptBlobClient, managedExecutor, MAX_CONCURRENCY);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void getCartAttachmentNamesReturnsPayerFirstWithoutDuplicates() {
+        CartForReceipt cart = CartForReceipt.builder()
+                .payload(Payload.builder()
+                        .mdAttachPayer(ReceiptMetadata.builder().name("payer.pdf").build())
+                        .cart(List.of(
+                                CartPayment.builder().mdAttach(ReceiptMetadata.builder().name("debtor1.pdf").build()).build(),
+                                CartPayment.builder().mdAttach(ReceiptMetadata.builder().name("payer.pdf").build()).build(),
+                                CartPayment.builder().mdAttach(ReceiptMetadata.builder().name(" ").build()).build(),
+                                CartPayment.builder().build()
+                        ))
+                        .build())
+                .build();
+
+        assertEquals(List.of("payer.pdf", "debtor1.pdf"), sut.getCartAttachmentNames(cart));
+    }
+
+    @Test
+    void getCartAttachmentNamesWithoutPayload() {
+        assertTrue(sut.getCartAttachmentNames(CartForReceipt.builder().build()).isEmpty());
+    }
+
+    @Test
+    @SneakyThrows
+    void buildArchiveWritesAllPdfs() {
+        List<String> names = List.of("folder/first.pdf", "second.pdf", "third.pdf", "fourth.pdf", "fifth.pdf");
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        doAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(10);
+            inFlight.decrementAndGet();
+            return buildAttachment(invocation.getArgument(0));
+        }).when(receiptBlobClient).openAttachmentStream(anyString(), eq(null));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        sut.buildArchive(names).write(output);
+
+        Map<String, String> entries = readArchive(output.toByteArray());
+        assertEquals(names.size(), entries.size());
+        assertEquals("content of folder/first.pdf", entries.get("first.pdf"));
+        assertEquals("content of fifth.pdf", entries.get("fifth.pdf"));
+        assertTrue(maxInFlight.get() <= MAX_CONCURRENCY);
+    }
+
+    @Test
+    @SneakyThrows
+    void buildArchiveFailsIfPdfIsMissing() {
+        InputStream content = spy(new ByteArrayInputStream(new byte[0]));
+        doReturn(AttachmentContent.builder().content(content).build())
+                .when(receiptBlobClient).openAttachmentStream(eq("first.pdf"), eq(null));
+        doThrow(new AttachmentNotFoundException(AppErrorCodeEnum.PDFS_602, "not found"))
+                .when(receiptBlobClient).openAttachmentStream(eq("second.pdf"), eq(null));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        IOException e = assertThrows(IOException.class,
+                () -> sut.buildArchive(List.of("first.pdf", "second.pdf")).write(output));
+
+        assertInstanceOf(AttachmentNotFoundException.class, e.getCause());
+        verify(content, atLeastOnce()).close();
+    }
+
+    private AttachmentContent buildAttachment(String name) {
+        byte[] content = ("content of " + name).getBytes(StandardCharsets.UTF_8);
+        return AttachmentContent.builder()
+                .content(new ByteArrayInputStream(content))
+                .contentLength(content.length)
+                .build();
+    }
+
+    @SneakyThrows
+    private Map<String, String> readArchive(byte[] archive) {
+        Map<String, String> entries = new HashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+}
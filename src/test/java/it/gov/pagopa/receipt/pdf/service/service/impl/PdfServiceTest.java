@@ -1,12 +1,20 @@
 package it.gov.pagopa.receipt.pdf.service.service.impl;
 
+import io.opentelemetry.api.OpenTelemetry;
 import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.helpers.test.UniAssertSubscriber;
+import it.gov.pagopa.receipt.pdf.service.cache.DocumentCache;
+import it.gov.pagopa.receipt.pdf.service.client.CartReceiptCosmosAsyncClient;
 import it.gov.pagopa.receipt.pdf.service.client.CartReceiptCosmosClient;
 import it.gov.pagopa.receipt.pdf.service.client.ReceiptBlobClient;
+import it.gov.pagopa.receipt.pdf.service.client.ReceiptCosmosAsyncClient;
 import it.gov.pagopa.receipt.pdf.service.client.ReceiptCosmosClient;
 import it.gov.pagopa.receipt.pdf.service.enumeration.AppErrorCodeEnum;
 import it.gov.pagopa.receipt.pdf.service.enumeration.ReceiptStatusType;
 import it.gov.pagopa.receipt.pdf.service.exception.*;
+import it.gov.pagopa.receipt.pdf.service.model.AttachmentContent;
+import it.gov.pagopa.receipt.pdf.service.model.ReceiptPdfResponse;
 import it.gov.pagopa.receipt.pdf.service.model.SearchTokenResponse;
 import it.gov.pagopa.receipt.pdf.service.model.cart.CartForReceipt;
 import it.gov.pagopa.receipt.pdf.service.model.cart.CartPayment;
@@ -16,7 +24,9 @@ import it.gov.pagopa.receipt.pdf.service.model.receipt.EventData;
 import it.gov.pagopa.receipt.pdf.service.model.receipt.ReasonError;
 import it.gov.pagopa.receipt.pdf.service.model.receipt.Receipt;
 import it.gov.pagopa.receipt.pdf.service.model.receipt.ReceiptMetadata;
+import jakarta.inject.Inject;
 import lombok.SneakyThrows;
+import org.eclipse.microprofile.context.ManagedExecutor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -65,20 +75,52 @@ class PdfServiceTest {
     @Mock
     private CartReceiptCosmosClient cartReceiptCosmosClient;
     @Mock
+    private ReceiptCosmosAsyncClient receiptCosmosAsyncClient;
+    @Mock
+    private CartReceiptCosmosAsyncClient cartReceiptCosmosAsyncClient;
+    @Mock
     private TokenizerService tokenizerService;
     @Mock
     private ReceiptBlobClient receiptBlobClient;
 
+    @Inject
+    ManagedExecutor managedExecutor;
+
+    private DocumentCache documentCache;
     private PdfService sut;
 
     @BeforeEach
     void setUp() {
         receiptCosmosClient = mock(ReceiptCosmosClient.class);
         cartReceiptCosmosClient = mock(CartReceiptCosmosClient.class);
+        receiptCosmosAsyncClient = mock(ReceiptCosmosAsyncClient.class);
+        cartReceiptCosmosAsyncClient = mock(CartReceiptCosmosAsyncClient.class);
         tokenizerService = mock(TokenizerService.class);
         receiptBlobClient = mock(ReceiptBlobClient.class);
+        documentCache = new DocumentCache(false, 1, 1, OpenTelemetry.noop().getMeter("test"));
+
+        sut = new PdfService(receiptCosmosClient, cartReceiptCosmosClient, receiptCosmosAsyncClient, cartReceiptCosmosAsyncClient, tokenizerService, receiptBlobClient, documentCache, managedExecutor, false);
+    }
+
+    private PdfService parallelLookupSut() {
+        return new PdfService(receiptCosmosClient, cartReceiptCosmosClient, receiptCosmosAsyncClient, cartReceiptCosmosAsyncClient, tokenizerService, receiptBlobClient, documentCache, managedExecutor, true);
+    }
+
+    private PdfService cachedSut() {
+        DocumentCache enabledCache = new DocumentCache(true, 10, 60, OpenTelemetry.noop().getMeter("test"));
+        return new PdfService(receiptCosmosClient, cartReceiptCosmosClient, receiptCosmosAsyncClient, cartReceiptCosmosAsyncClient, tokenizerService, receiptBlobClient, enabledCache, managedExecutor, false);
+    }
+
+    private static AttachmentContent buildAttachmentContent() {
+        byte[] pdf = "temp".getBytes(StandardCharsets.UTF_8);
+        return AttachmentContent.builder()
+                .content(new ByteArrayInputStream(pdf))
+                .contentLength(pdf.length)
+                .build();
+    }
 
-        sut = new PdfService(receiptCosmosClient, cartReceiptCosmosClient, tokenizerService, receiptBlobClient);
+    private static Throwable awaitFailure(Uni<?> uni) {
+        return uni.subscribe().withSubscriber(UniAssertSubscriber.create()).awaitFailure().getFailure();
     }
 
     @Nested
@@ -94,7 +136,7 @@ class PdfServiceTest {
                 "UNABLE_TO_SEND",
                 "NOT_TO_NOTIFY"
         })
-        void getReceiptPdf_Receipt_Payer_OK(ReceiptStatusType status) throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException {
+        void getReceiptPdf_Receipt_Payer_OK(ReceiptStatusType status) throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException, RangeNotSatisfiableException {
             Receipt receipt = getReceipt(status, null, null);
             when(receiptCosmosClient.getReceiptDocument(GENERIC_EVENT_ID)).thenReturn(receipt);
 
@@ -102,9 +144,9 @@ class PdfServiceTest {
             searchTokenResponse.setToken(PAYER_FISCAL_CODE_TOKENIZED);
             when(tokenizerService.getSearchTokenResponse(PAYER_FISCAL_CODE)).thenReturn(searchTokenResponse);
 
-            when(receiptBlobClient.getAttachmentFromBlobStorage(ATTACHMENT_NAME_PAYER)).thenReturn(new ByteArrayInputStream("temp".getBytes(StandardCharsets.UTF_8)));
+            when(receiptBlobClient.openAttachmentStream(ATTACHMENT_NAME_PAYER, null)).thenReturn(buildAttachmentContent());
 
-            assertDoesNotThrow(() -> sut.getReceiptPdf(THIRD_PARTY_ID_RECEIPT, PAYER_FISCAL_CODE));
+            assertDoesNotThrow(() -> sut.getReceiptPdf(THIRD_PARTY_ID_RECEIPT, PAYER_FISCAL_CODE, null));
             verify(cartReceiptCosmosClient, never()).getCartForReceiptDocument(anyString());
         }
 
@@ -118,7 +160,7 @@ class PdfServiceTest {
                 "UNABLE_TO_SEND",
                 "NOT_TO_NOTIFY"
         })
-        void getReceiptPdf_Receipt_Debtor_OK(ReceiptStatusType status) throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException {
+        void getReceiptPdf_Receipt_Debtor_OK(ReceiptStatusType status) throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException, RangeNotSatisfiableException {
             Receipt receipt = getReceipt(status, null, null);
             when(receiptCosmosClient.getReceiptDocument(GENERIC_EVENT_ID)).thenReturn(receipt);
 
@@ -126,12 +168,175 @@ class PdfServiceTest {
             searchTokenResponse.setToken(DEBTOR_FISCAL_CODE_1_TOKENIZED);
             when(tokenizerService.getSearchTokenResponse(DEBTOR_FISCAL_CODE_1)).thenReturn(searchTokenResponse);
 
-            when(receiptBlobClient.getAttachmentFromBlobStorage(ATTACHMENT_NAME_DEBTOR_1)).thenReturn(new ByteArrayInputStream("temp".getBytes(StandardCharsets.UTF_8)));
+            when(receiptBlobClient.openAttachmentStream(ATTACHMENT_NAME_DEBTOR_1, null)).thenReturn(buildAttachmentContent());
 
-            assertDoesNotThrow(() -> sut.getReceiptPdf(THIRD_PARTY_ID_RECEIPT, DEBTOR_FISCAL_CODE_1));
+            assertDoesNotThrow(() -> sut.getReceiptPdf(THIRD_PARTY_ID_RECEIPT, DEBTOR_FISCAL_CODE_1, null));
             verify(cartReceiptCosmosClient, never()).getCartForReceiptDocument(anyString());
         }
 
+        @Test
+        @SneakyThrows
+        void getReceiptPdfAsync_Receipt_Debtor_OK() {
+            Receipt receipt = getReceipt(ReceiptStatusType.IO_NOTIFIED, null, null);
+            when(receiptCosmosAsyncClient.getReceiptDocument(GENERIC_EVENT_ID)).thenReturn(Uni.createFrom().item(receipt));
+
+            SearchTokenResponse searchTokenResponse = new SearchTokenResponse();
+            searchTokenResponse.setToken(DEBTOR_FISCAL_CODE_1_TOKENIZED);
+            when(tokenizerService.getSearchTokenResponseAsync(DEBTOR_FISCAL_CODE_1)).thenReturn(Uni.createFrom().item(searchTokenResponse));
+
+            when(receiptBlobClient.openAttachmentStreamAsync(ATTACHMENT_NAME_DEBTOR_1, null)).thenReturn(Uni.createFrom().item(buildAttachmentContent()));
+
+            ReceiptPdfResponse result = sut.getReceiptPdfAsync(THIRD_PARTY_ID_RECEIPT, DEBTOR_FISCAL_CODE_1, null)
+                    .await().indefinitely();
+
+            assertEquals(ATTACHMENT_NAME_DEBTOR_1, result.getAttachmentName());
+            assertNotNull(result.getPdfFile());
+            verify(receiptCosmosClient, never()).getReceiptDocument(anyString());
+            verify(tokenizerService, never()).getSearchTokenResponse(anyString());
+        }
+
+        @Test
+        @SneakyThrows
+        void getReceiptPdfAsync_Receipt_KO_Still_Generating() {
+            Receipt receipt = getReceipt(ReceiptStatusType.INSERTED, null, null);
+            when(receiptCosmosAsyncClient.getReceiptDocument(GENERIC_EVENT_ID)).thenReturn(Uni.createFrom().item(receipt));
+
+            Uni<ReceiptPdfResponse> result = sut.getReceiptPdfAsync(THIRD_PARTY_ID_RECEIPT, PAYER_FISCAL_CODE, null);
+
+            AttachmentNotFoundException exception = assertInstanceOf(AttachmentNotFoundException.class, awaitFailure(result));
+            assertEquals(PDFS_714, exception.getErrorCode());
+            verify(tokenizerService, never()).getSearchTokenResponseAsync(anyString());
+            verify(receiptBlobClient, never()).openAttachmentStreamAsync(anyString(), any());
+        }
+
+        @Test
+        @SneakyThrows
+        void getReceiptPdf_Receipt_ParallelLookup_OK() {
+            Receipt receipt = getReceipt(ReceiptStatusType.IO_NOTIFIED, null, null);
+            when(receiptCosmosClient.getReceiptDocument(GENERIC_EVENT_ID)).thenReturn(receipt);
+
+            SearchTokenResponse searchTokenResponse = new SearchTokenResponse();
+            searchTokenResponse.setToken(DEBTOR_FISCAL_CODE_1_TOKENIZED);
+            when(tokenizerService.getSearchTokenResponse(DEBTOR_FISCAL_CODE_1)).thenReturn(searchTokenResponse);
+
+            when(receiptBlobClient.openAttachmentStream(ATTACHMENT_NAME_DEBTOR_1, null)).thenReturn(buildAttachmentContent());
+
+            ReceiptPdfResponse result = parallelLookupSut().getReceiptPdf(THIRD_PARTY_ID_RECEIPT, DEBTOR_FISCAL_CODE_1, null);
+
+            assertEquals(ATTACHMENT_NAME_DEBTOR_1, result.getAttachmentName());
+            verify(tokenizerService).getSearchTokenResponse(DEBTOR_FISCAL_CODE_1);
+        }
+
+        @Test
+        @SneakyThrows
+        void getReceiptPdf_Receipt_ParallelLookup_KO_ReceiptErrorWins() {
+            when(receiptCosmosClient.getReceiptDocument(GENERIC_EVENT_ID))
+                    .thenThrow(new ReceiptNotFoundException(PDFS_800, "not found"));
+            when(tokenizerService.getSearchTokenResponse(PAYER_FISCAL_CODE))
+                    .thenThrow(new FiscalCodeNotAuthorizedException(PDFS_700, "tokenizer down"));
+
+            PdfService parallelSut = parallelLookupSut();
+            ReceiptNotFoundException exception = assertThrows(
+                    ReceiptNotFoundException.class,
+                    () -> parallelSut.getReceiptPdf(THIRD_PARTY_ID_RECEIPT, PAYER_FISCAL_CODE, null)
+            );
+            assertEquals(PDFS_800, exception.getErrorCode());
+            verify(receiptBlobClient, never()).openAttachmentStream(anyString(), any());
+        }
+
+        @Test
+        @SneakyThrows
+        void getReceiptPdf_Receipt_ParallelLookup_KO_TokenizerError() {
+            Receipt receipt = getReceipt(ReceiptStatusType.IO_NOTIFIED, null, null);
+            when(receiptCosmosClient.getReceiptDocument(GENERIC_EVENT_ID)).thenReturn(receipt);
+            when(tokenizerService.getSearchTokenResponse(PAYER_FISCAL_CODE))
+                    .thenThrow(new FiscalCodeNotAuthorizedException(PDFS_700, "tokenizer down"));
+
+            PdfService parallelSut = parallelLookupSut();
+            FiscalCodeNotAuthorizedException exception = assertThrows(
+                    FiscalCodeNotAuthorizedException.class,
+                    () -> parallelSut.getReceiptPdf(THIRD_PARTY_ID_RECEIPT, PAYER_FISCAL_CODE, null)
+            );
+            assertEquals(PDFS_700, exception.getErrorCode());
+        }
+
+        @Test
+        @SneakyThrows
+        void getReceiptPdfAsync_Receipt_ParallelLookup_KO_ReceiptErrorWins() {
+            when(receiptCosmosAsyncClient.getReceiptDocument(GENERIC_EVENT_ID))
+                    .thenReturn(Uni.createFrom().failure(new ReceiptNotFoundException(PDFS_800, "not found")));
+            when(tokenizerService.getSearchTokenResponseAsync(PAYER_FISCAL_CODE))
+                    .thenReturn(Uni.createFrom().failure(new FiscalCodeNotAuthorizedException(PDFS_700, "tokenizer down")));
+
+            Uni<ReceiptPdfResponse> result = parallelLookupSut().getReceiptPdfAsync(THIRD_PARTY_ID_RECEIPT, PAYER_FISCAL_CODE, null);
+
+            ReceiptNotFoundException exception = assertInstanceOf(ReceiptNotFoundException.class, awaitFailure(result));
+            assertEquals(PDFS_800, exception.getErrorCode());
+        }
+
+        @Test
+        @SneakyThrows
+        void getReceiptPdfAsync_Receipt_ParallelLookup_OK() {
+            Receipt receipt = getReceipt(ReceiptStatusType.IO_NOTIFIED, null, null);
+            when(receiptCosmosAsyncClient.getReceiptDocument(GENERIC_EVENT_ID)).thenReturn(Uni.createFrom().item(receipt));
+
+            SearchTokenResponse searchTokenResponse = new SearchTokenResponse();
+            searchTokenResponse.setToken(PAYER_FISCAL_CODE_TOKENIZED);
+            when(tokenizerService.getSearchTokenResponseAsync(PAYER_FISCAL_CODE)).thenReturn(Uni.createFrom().item(searchTokenResponse));
+
+            when(receiptBlobClient.openAttachmentStreamAsync(ATTACHMENT_NAME_PAYER, null)).thenReturn(Uni.createFrom().item(buildAttachmentContent()));
+
+            ReceiptPdfResponse result = parallelLookupSut().getReceiptPdfAsync(THIRD_PARTY_ID_RECEIPT, PAYER_FISCAL_CODE, null)
+                    .subscribe().withSubscriber(UniAssertSubscriber.create()).awaitItem().getItem();
+
+            assertEquals(ATTACHMENT_NAME_PAYER, result.getAttachmentName());
+        }
+
+        @Test
+        @SneakyThrows
+        void getReceiptPdf_Receipt_CachedDocument_OK() {
+            Receipt receipt = getReceipt(ReceiptStatusType.IO_NOTIFIED, null, null);
+            when(receiptCosmosClient.getReceiptDocument(GENERIC_EVENT_ID)).thenReturn(receipt);
+
+            SearchTokenResponse payerToken = new SearchTokenResponse();
+            payerToken.setToken(PAYER_FISCAL_CODE_TOKENIZED);
+            when(tokenizerService.getSearchTokenResponse(PAYER_FISCAL_CODE)).thenReturn(payerToken);
+            SearchTokenResponse invalidToken = new SearchTokenResponse();
+            invalidToken.setToken(INVALID_FISCAL_CODE_TOKENIZED);
+            when(tokenizerService.getSearchTokenResponse(INVALID_FISCAL_CODE)).thenReturn(invalidToken);
+
+            when(receiptBlobClient.openAttachmentStream(ATTACHMENT_NAME_PAYER, null)).thenReturn(buildAttachmentContent());
+
+            PdfService cachedSut = cachedSut();
+            assertEquals(ATTACHMENT_NAME_PAYER, cachedSut.getReceiptPdf(THIRD_PARTY_ID_RECEIPT, PAYER_FISCAL_CODE, null).getAttachmentName());
+            assertThrows(
+                    FiscalCodeNotAuthorizedException.class,
+                    () -> cachedSut.getReceiptPdf(THIRD_PARTY_ID_RECEIPT, INVALID_FISCAL_CODE, null)
+            );
+            verify(receiptCosmosClient).getReceiptDocument(GENERIC_EVENT_ID);
+        }
+
+        @Test
+        @SneakyThrows
+        void getReceiptPdfAsync_Receipt_CachedDocument_OK() {
+            Receipt receipt = getReceipt(ReceiptStatusType.IO_NOTIFIED, null, null);
+            when(receiptCosmosAsyncClient.getReceiptDocument(GENERIC_EVENT_ID)).thenReturn(Uni.createFrom().item(receipt));
+
+            SearchTokenResponse searchTokenResponse = new SearchTokenResponse();
+            searchTokenResponse.setToken(PAYER_FISCAL_CODE_TOKENIZED);
+            when(tokenizerService.getSearchTokenResponseAsync(PAYER_FISCAL_CODE)).thenReturn(Uni.createFrom().item(searchTokenResponse));
+
+            when(receiptBlobClient.openAttachmentStreamAsync(ATTACHMENT_NAME_PAYER, null)).thenAnswer(invocation -> Uni.createFrom().item(buildAttachmentContent()));
+
+            PdfService cachedSut = cachedSut();
+            cachedSut.getReceiptPdfAsync(THIRD_PARTY_ID_RECEIPT, PAYER_FISCAL_CODE, null).await().indefinitely();
+            ReceiptPdfResponse result = cachedSut.getReceiptPdfAsync(THIRD_PARTY_ID_RECEIPT, PAYER_FISCAL_CODE, null)
+                    .await().indefinitely();
+
+            assertEquals(ATTACHMENT_NAME_PAYER, result.getAttachmentName());
+            verify(receiptCosmosAsyncClient, times(1)).getReceiptDocument(GENERIC_EVENT_ID);
+        }
+
         @ParameterizedTest
         @SneakyThrows
         @EnumSource(value = ReceiptStatusType.class, names = {
@@ -144,13 +349,13 @@ class PdfServiceTest {
 
             AttachmentNotFoundException exception = assertThrows(
                     AttachmentNotFoundException.class,
-                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_RECEIPT, PAYER_FISCAL_CODE)
+                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_RECEIPT, PAYER_FISCAL_CODE, null)
             );
             assertEquals(PDFS_714, exception.getErrorCode());
 
             verify(tokenizerService, never()).getSearchTokenResponse(anyString());
             verify(cartReceiptCosmosClient, never()).getCartForReceiptDocument(anyString());
-            verify(receiptBlobClient, never()).getAttachmentFromBlobStorage(anyString());
+            verify(receiptBlobClient, never()).openAttachmentStream(anyString(), any());
         }
 
         @ParameterizedTest
@@ -166,13 +371,13 @@ class PdfServiceTest {
 
             AttachmentNotFoundException exception = assertThrows(
                     AttachmentNotFoundException.class,
-                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_RECEIPT, PAYER_FISCAL_CODE)
+                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_RECEIPT, PAYER_FISCAL_CODE, null)
             );
             assertEquals(PDFS_715, exception.getErrorCode());
 
             verify(tokenizerService, never()).getSearchTokenResponse(anyString());
             verify(cartReceiptCosmosClient, never()).getCartForReceiptDocument(anyString());
-            verify(receiptBlobClient, never()).getAttachmentFromBlobStorage(anyString());
+            verify(receiptBlobClient, never()).openAttachmentStream(anyString(), any());
         }
 
         @ParameterizedTest
@@ -181,19 +386,19 @@ class PdfServiceTest {
                 "FAILED",
                 "TO_REVIEW"
         })
-        void getReceiptPdf_Receipt_KO_CriticalFailure_Payer(ReceiptStatusType status) throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException {
+        void getReceiptPdf_Receipt_KO_CriticalFailure_Payer(ReceiptStatusType status) throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException, RangeNotSatisfiableException {
             Receipt receipt = getReceipt(status, ERROR_CODE_CRITICAL, null);
             when(receiptCosmosClient.getReceiptDocument(GENERIC_EVENT_ID)).thenReturn(receipt);
 
             InvalidReceiptException exception = assertThrows(
                     InvalidReceiptException.class,
-                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_RECEIPT, PAYER_FISCAL_CODE)
+                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_RECEIPT, PAYER_FISCAL_CODE, null)
             );
             assertEquals(PDFS_716, exception.getErrorCode());
 
             verify(tokenizerService, never()).getSearchTokenResponse(anyString());
             verify(cartReceiptCosmosClient, never()).getCartForReceiptDocument(anyString());
-            verify(receiptBlobClient, never()).getAttachmentFromBlobStorage(anyString());
+            verify(receiptBlobClient, never()).openAttachmentStream(anyString(), any());
         }
 
         @ParameterizedTest
@@ -202,19 +407,19 @@ class PdfServiceTest {
                 "FAILED",
                 "TO_REVIEW"
         })
-        void getReceiptPdf_Receipt_KO_CriticalFailure_Debtor(ReceiptStatusType status) throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException {
+        void getReceiptPdf_Receipt_KO_CriticalFailure_Debtor(ReceiptStatusType status) throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException, RangeNotSatisfiableException {
             Receipt receipt = getReceipt(status, null, ERROR_CODE_CRITICAL);
             when(receiptCosmosClient.getReceiptDocument(GENERIC_EVENT_ID)).thenReturn(receipt);
 
             InvalidReceiptException exception = assertThrows(
                     InvalidReceiptException.class,
-                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_RECEIPT, DEBTOR_FISCAL_CODE_1)
+                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_RECEIPT, DEBTOR_FISCAL_CODE_1, null)
             );
             assertEquals(PDFS_716, exception.getErrorCode());
 
             verify(tokenizerService, never()).getSearchTokenResponse(anyString());
             verify(cartReceiptCosmosClient, never()).getCartForReceiptDocument(anyString());
-            verify(receiptBlobClient, never()).getAttachmentFromBlobStorage(anyString());
+            verify(receiptBlobClient, never()).openAttachmentStream(anyString(), any());
         }
 
         @ParameterizedTest
@@ -223,19 +428,19 @@ class PdfServiceTest {
                 "FAILED",
                 "TO_REVIEW"
         })
-        void getReceiptPdf_Receipt_KO_OneCriticalFailure_OneRetryableFailure(ReceiptStatusType status) throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException {
+        void getReceiptPdf_Receipt_KO_OneCriticalFailure_OneRetryableFailure(ReceiptStatusType status) throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException, RangeNotSatisfiableException {
             Receipt receipt = getReceipt(status, ERROR_CODE_RETRYABLE, ERROR_CODE_CRITICAL);
             when(receiptCosmosClient.getReceiptDocument(GENERIC_EVENT_ID)).thenReturn(receipt);
 
             InvalidReceiptException exception = assertThrows(
                     InvalidReceiptException.class,
-                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_RECEIPT, DEBTOR_FISCAL_CODE_1)
+                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_RECEIPT, DEBTOR_FISCAL_CODE_1, null)
             );
             assertEquals(PDFS_716, exception.getErrorCode());
 
             verify(tokenizerService, never()).getSearchTokenResponse(anyString());
             verify(cartReceiptCosmosClient, never()).getCartForReceiptDocument(anyString());
-            verify(receiptBlobClient, never()).getAttachmentFromBlobStorage(anyString());
+            verify(receiptBlobClient, never()).openAttachmentStream(anyString(), any());
         }
 
         @ParameterizedTest
@@ -251,17 +456,17 @@ class PdfServiceTest {
 
             AttachmentNotFoundException exception = assertThrows(
                     AttachmentNotFoundException.class,
-                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_RECEIPT, DEBTOR_FISCAL_CODE_1)
+                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_RECEIPT, DEBTOR_FISCAL_CODE_1, null)
             );
             assertEquals(PDFS_715, exception.getErrorCode());
 
             verify(tokenizerService, never()).getSearchTokenResponse(anyString());
             verify(cartReceiptCosmosClient, never()).getCartForReceiptDocument(anyString());
-            verify(receiptBlobClient, never()).getAttachmentFromBlobStorage(anyString());
+            verify(receiptBlobClient, never()).openAttachmentStream(anyString(), any());
         }
 
         @Test
-        void getReceiptPdf_Receipt_KO_TokenizedFiscalCodeNotFound() throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException {
+        void getReceiptPdf_Receipt_KO_TokenizedFiscalCodeNotFound() throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException, RangeNotSatisfiableException {
             Receipt receipt = getReceipt(ReceiptStatusType.IO_NOTIFIED, null, null);
             when(receiptCosmosClient.getReceiptDocument(GENERIC_EVENT_ID)).thenReturn(receipt);
 
@@ -269,16 +474,16 @@ class PdfServiceTest {
 
             FiscalCodeNotAuthorizedException exception = assertThrows(
                     FiscalCodeNotAuthorizedException.class,
-                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_RECEIPT, PAYER_FISCAL_CODE)
+                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_RECEIPT, PAYER_FISCAL_CODE, null)
             );
             assertEquals(PDFS_700, exception.getErrorCode());
 
             verify(cartReceiptCosmosClient, never()).getCartForReceiptDocument(anyString());
-            verify(receiptBlobClient, never()).getAttachmentFromBlobStorage(anyString());
+            verify(receiptBlobClient, never()).openAttachmentStream(anyString(), any());
         }
 
         @Test
-        void getReceiptPdf_Receipt_KO_FiscalCodeNotFoundInReceipt() throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException {
+        void getReceiptPdf_Receipt_KO_FiscalCodeNotFoundInReceipt() throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException, RangeNotSatisfiableException {
             Receipt receipt = getReceipt(ReceiptStatusType.IO_NOTIFIED, null, null);
             when(receiptCosmosClient.getReceiptDocument(GENERIC_EVENT_ID)).thenReturn(receipt);
 
@@ -288,16 +493,16 @@ class PdfServiceTest {
 
             FiscalCodeNotAuthorizedException exception = assertThrows(
                     FiscalCodeNotAuthorizedException.class,
-                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_RECEIPT, INVALID_FISCAL_CODE)
+                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_RECEIPT, INVALID_FISCAL_CODE, null)
             );
             assertEquals(PDFS_706, exception.getErrorCode());
 
             verify(cartReceiptCosmosClient, never()).getCartForReceiptDocument(anyString());
-            verify(receiptBlobClient, never()).getAttachmentFromBlobStorage(anyString());
+            verify(receiptBlobClient, never()).openAttachmentStream(anyString(), any());
         }
 
         @Test
-        void getReceiptPdf_Receipt_Payer_KO_MdAttachPayerNull() throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException {
+        void getReceiptPdf_Receipt_Payer_KO_MdAttachPayerNull() throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException, RangeNotSatisfiableException {
             Receipt receipt = getReceipt(ReceiptStatusType.IO_NOTIFIED, null, null);
             receipt.setMdAttachPayer(null);
             when(receiptCosmosClient.getReceiptDocument(GENERIC_EVENT_ID)).thenReturn(receipt);
@@ -308,16 +513,16 @@ class PdfServiceTest {
 
             InvalidCartException exception = assertThrows(
                     InvalidCartException.class,
-                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_RECEIPT, PAYER_FISCAL_CODE)
+                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_RECEIPT, PAYER_FISCAL_CODE, null)
             );
             assertEquals(PDFS_716, exception.getErrorCode());
 
             verify(cartReceiptCosmosClient, never()).getCartForReceiptDocument(anyString());
-            verify(receiptBlobClient, never()).getAttachmentFromBlobStorage(anyString());
+            verify(receiptBlobClient, never()).openAttachmentStream(anyString(), any());
         }
 
         @Test
-        void getReceiptPdf_Receipt_Debtor_KO_MdAttachNull() throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException {
+        void getReceiptPdf_Receipt_Debtor_KO_MdAttachNull() throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException, RangeNotSatisfiableException {
             Receipt receipt = getReceipt(ReceiptStatusType.IO_NOTIFIED, null, null);
             receipt.setMdAttach(null);
             when(receiptCosmosClient.getReceiptDocument(GENERIC_EVENT_ID)).thenReturn(receipt);
@@ -328,18 +533,18 @@ class PdfServiceTest {
 
             InvalidCartException exception = assertThrows(
                     InvalidCartException.class,
-                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_RECEIPT, DEBTOR_FISCAL_CODE_1)
+                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_RECEIPT, DEBTOR_FISCAL_CODE_1, null)
             );
             assertEquals(PDFS_716, exception.getErrorCode());
 
             verify(cartReceiptCosmosClient, never()).getCartForReceiptDocument(anyString());
-            verify(receiptBlobClient, never()).getAttachmentFromBlobStorage(anyString());
+            verify(receiptBlobClient, never()).openAttachmentStream(anyString(), any());
         }
 
         @ParameterizedTest
         @NullAndEmptySource
         @ValueSource(strings = {" "})
-        void getReceiptPdf_Receipt_KO_AttachmentNameInvalid(String attachmentName) throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException {
+        void getReceiptPdf_Receipt_KO_AttachmentNameInvalid(String attachmentName) throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException, RangeNotSatisfiableException {
             Receipt receipt = getReceipt(ReceiptStatusType.IO_NOTIFIED, null, null);
             receipt.setMdAttachPayer(ReceiptMetadata.builder().name(attachmentName).build());
             when(receiptCosmosClient.getReceiptDocument(GENERIC_EVENT_ID)).thenReturn(receipt);
@@ -350,12 +555,12 @@ class PdfServiceTest {
 
             AttachmentNotFoundException exception = assertThrows(
                     AttachmentNotFoundException.class,
-                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_RECEIPT, PAYER_FISCAL_CODE)
+                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_RECEIPT, PAYER_FISCAL_CODE, null)
             );
             assertEquals(PDFS_716, exception.getErrorCode());
 
             verify(cartReceiptCosmosClient, never()).getCartForReceiptDocument(anyString());
-            verify(receiptBlobClient, never()).getAttachmentFromBlobStorage(anyString());
+            verify(receiptBlobClient, never()).openAttachmentStream(anyString(), any());
         }
 
         private Receipt getReceipt(ReceiptStatusType receiptStatusType, Integer errorCodePayer, Integer errorCodeDebtor) {
@@ -384,17 +589,17 @@ class PdfServiceTest {
                 "UNABLE_TO_SEND",
                 "NOT_TO_NOTIFY"
         })
-        void getReceiptPdf_Cart_Payer_OK(CartStatusType status) throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException {
+        void getReceiptPdf_Cart_Payer_OK(CartStatusType status) throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException, RangeNotSatisfiableException {
             CartForReceipt cart = getCart(status, null, null, null);
-            when(cartReceiptCosmosClient.getCartForReceiptDocument(CART_ID)).thenReturn(cart);
+            when(cartReceiptCosmosClient.getCartAuthorizationView(eq(CART_ID), any(), eq(false))).thenReturn(cart);
 
             SearchTokenResponse searchTokenResponse = new SearchTokenResponse();
             searchTokenResponse.setToken(PAYER_FISCAL_CODE_TOKENIZED);
             when(tokenizerService.getSearchTokenResponse(PAYER_FISCAL_CODE)).thenReturn(searchTokenResponse);
 
-            when(receiptBlobClient.getAttachmentFromBlobStorage(ATTACHMENT_NAME_PAYER)).thenReturn(new ByteArrayInputStream("temp".getBytes(StandardCharsets.UTF_8)));
+            when(receiptBlobClient.openAttachmentStream(ATTACHMENT_NAME_PAYER, null)).thenReturn(buildAttachmentContent());
 
-            assertDoesNotThrow(() -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_PAYER, PAYER_FISCAL_CODE));
+            assertDoesNotThrow(() -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_PAYER, PAYER_FISCAL_CODE, null));
             verify(receiptCosmosClient, never()).getReceiptDocument(anyString());
         }
 
@@ -408,18 +613,19 @@ class PdfServiceTest {
                 "UNABLE_TO_SEND",
                 "NOT_TO_NOTIFY"
         })
-        void getReceiptPdf_Cart_Debtor1_OK(CartStatusType status) throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException {
+        void getReceiptPdf_Cart_Debtor1_OK(CartStatusType status) throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException, RangeNotSatisfiableException {
             CartForReceipt cart = getCart(status, null, null, null);
-            when(cartReceiptCosmosClient.getCartForReceiptDocument(CART_ID)).thenReturn(cart);
+            when(cartReceiptCosmosClient.getCartAuthorizationView(eq(CART_ID), any(), eq(false))).thenReturn(cart);
 
             SearchTokenResponse searchTokenResponse = new SearchTokenResponse();
             searchTokenResponse.setToken(DEBTOR_FISCAL_CODE_1_TOKENIZED);
             when(tokenizerService.getSearchTokenResponse(DEBTOR_FISCAL_CODE_1)).thenReturn(searchTokenResponse);
 
-            when(receiptBlobClient.getAttachmentFromBlobStorage(ATTACHMENT_NAME_DEBTOR_1)).thenReturn(new ByteArrayInputStream("temp".getBytes(StandardCharsets.UTF_8)));
+            when(receiptBlobClient.openAttachmentStream(ATTACHMENT_NAME_DEBTOR_1, null)).thenReturn(buildAttachmentContent());
 
-            assertDoesNotThrow(() -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_DEBTOR_1, DEBTOR_FISCAL_CODE_1));
+            assertDoesNotThrow(() -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_DEBTOR_1, DEBTOR_FISCAL_CODE_1, null));
             verify(receiptCosmosClient, never()).getReceiptDocument(anyString());
+            verify(cartReceiptCosmosClient).getCartAuthorizationView(CART_ID, DEBTOR_1_EVENT_ID, false);
         }
 
         @ParameterizedTest
@@ -432,17 +638,17 @@ class PdfServiceTest {
                 "UNABLE_TO_SEND",
                 "NOT_TO_NOTIFY"
         })
-        void getReceiptPdf_Cart_Debtor2_OK(CartStatusType status) throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException {
+        void getReceiptPdf_Cart_Debtor2_OK(CartStatusType status) throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException, RangeNotSatisfiableException {
             CartForReceipt cart = getCart(status, null, null, null);
-            when(cartReceiptCosmosClient.getCartForReceiptDocument(CART_ID)).thenReturn(cart);
+            when(cartReceiptCosmosClient.getCartAuthorizationView(eq(CART_ID), any(), eq(false))).thenReturn(cart);
 
             SearchTokenResponse searchTokenResponse = new SearchTokenResponse();
             searchTokenResponse.setToken(DEBTOR_FISCAL_CODE_2_TOKENIZED);
             when(tokenizerService.getSearchTokenResponse(DEBTOR_FISCAL_CODE_2)).thenReturn(searchTokenResponse);
 
-            when(receiptBlobClient.getAttachmentFromBlobStorage(ATTACHMENT_NAME_DEBTOR_2)).thenReturn(new ByteArrayInputStream("temp".getBytes(StandardCharsets.UTF_8)));
+            when(receiptBlobClient.openAttachmentStream(ATTACHMENT_NAME_DEBTOR_2, null)).thenReturn(buildAttachmentContent());
 
-            assertDoesNotThrow(() -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_DEBTOR_2, DEBTOR_FISCAL_CODE_2));
+            assertDoesNotThrow(() -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_DEBTOR_2, DEBTOR_FISCAL_CODE_2, null));
             verify(receiptCosmosClient, never()).getReceiptDocument(anyString());
         }
 
@@ -455,17 +661,17 @@ class PdfServiceTest {
         })
         void getReceiptPdf_Cart_KO_Still_Generating(CartStatusType status) {
             CartForReceipt cart = getCart(status, null, null, null);
-            when(cartReceiptCosmosClient.getCartForReceiptDocument(CART_ID)).thenReturn(cart);
+            when(cartReceiptCosmosClient.getCartAuthorizationView(eq(CART_ID), any(), eq(false))).thenReturn(cart);
 
             AttachmentNotFoundException exception = assertThrows(
                     AttachmentNotFoundException.class,
-                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_PAYER, PAYER_FISCAL_CODE)
+                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_PAYER, PAYER_FISCAL_CODE, null)
             );
             assertEquals(PDFS_714, exception.getErrorCode());
 
             verify(tokenizerService, never()).getSearchTokenResponse(anyString());
             verify(receiptCosmosClient, never()).getReceiptDocument(anyString());
-            verify(receiptBlobClient, never()).getAttachmentFromBlobStorage(anyString());
+            verify(receiptBlobClient, never()).openAttachmentStream(anyString(), any());
         }
 
         @ParameterizedTest
@@ -477,17 +683,17 @@ class PdfServiceTest {
         })
         void getReceiptPdf_Cart_KO_RetryableFailure(CartStatusType status) {
             CartForReceipt cart = getCart(status, ERROR_CODE_RETRYABLE, null, null);
-            when(cartReceiptCosmosClient.getCartForReceiptDocument(CART_ID)).thenReturn(cart);
+            when(cartReceiptCosmosClient.getCartAuthorizationView(eq(CART_ID), any(), eq(false))).thenReturn(cart);
 
             AttachmentNotFoundException exception = assertThrows(
                     AttachmentNotFoundException.class,
-                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_PAYER, PAYER_FISCAL_CODE)
+                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_PAYER, PAYER_FISCAL_CODE, null)
             );
             assertEquals(PDFS_715, exception.getErrorCode());
 
             verify(tokenizerService, never()).getSearchTokenResponse(anyString());
             verify(receiptCosmosClient, never()).getReceiptDocument(anyString());
-            verify(receiptBlobClient, never()).getAttachmentFromBlobStorage(anyString());
+            verify(receiptBlobClient, never()).openAttachmentStream(anyString(), any());
         }
 
         @ParameterizedTest
@@ -496,19 +702,19 @@ class PdfServiceTest {
                 "FAILED",
                 "TO_REVIEW"
         })
-        void getReceiptPdf_Cart_Payer_KO_CriticalFailure(CartStatusType status) throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException {
+        void getReceiptPdf_Cart_Payer_KO_CriticalFailure(CartStatusType status) throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException, RangeNotSatisfiableException {
             CartForReceipt cart = getCart(status, ERROR_CODE_CRITICAL, null, null);
-            when(cartReceiptCosmosClient.getCartForReceiptDocument(CART_ID)).thenReturn(cart);
+            when(cartReceiptCosmosClient.getCartAuthorizationView(eq(CART_ID), any(), eq(false))).thenReturn(cart);
 
             InvalidCartException exception = assertThrows(
                     InvalidCartException.class,
-                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_PAYER, PAYER_FISCAL_CODE)
+                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_PAYER, PAYER_FISCAL_CODE, null)
             );
             assertEquals(PDFS_716, exception.getErrorCode());
 
             verify(tokenizerService, never()).getSearchTokenResponse(anyString());
             verify(receiptCosmosClient, never()).getReceiptDocument(anyString());
-            verify(receiptBlobClient, never()).getAttachmentFromBlobStorage(anyString());
+            verify(receiptBlobClient, never()).openAttachmentStream(anyString(), any());
         }
 
         @ParameterizedTest
@@ -517,19 +723,19 @@ class PdfServiceTest {
                 "FAILED",
                 "TO_REVIEW"
         })
-        void getReceiptPdf_Cart_Debtor1_KO_CriticalFailure(CartStatusType status) throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException {
+        void getReceiptPdf_Cart_Debtor1_KO_CriticalFailure(CartStatusType status) throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException, RangeNotSatisfiableException {
             CartForReceipt cart = getCart(status, null, ERROR_CODE_CRITICAL, null);
-            when(cartReceiptCosmosClient.getCartForReceiptDocument(CART_ID)).thenReturn(cart);
+            when(cartReceiptCosmosClient.getCartAuthorizationView(eq(CART_ID), any(), eq(false))).thenReturn(cart);
 
             InvalidCartException exception = assertThrows(
                     InvalidCartException.class,
-                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_DEBTOR_1, DEBTOR_FISCAL_CODE_1)
+                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_DEBTOR_1, DEBTOR_FISCAL_CODE_1, null)
             );
             assertEquals(PDFS_716, exception.getErrorCode());
 
             verify(tokenizerService, never()).getSearchTokenResponse(anyString());
             verify(receiptCosmosClient, never()).getReceiptDocument(anyString());
-            verify(receiptBlobClient, never()).getAttachmentFromBlobStorage(anyString());
+            verify(receiptBlobClient, never()).openAttachmentStream(anyString(), any());
         }
 
         @ParameterizedTest
@@ -538,19 +744,19 @@ class PdfServiceTest {
                 "FAILED",
                 "TO_REVIEW"
         })
-        void getReceiptPdf_Cart_Debtor2_KO_CriticalFailure(CartStatusType status) throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException {
+        void getReceiptPdf_Cart_Debtor2_KO_CriticalFailure(CartStatusType status) throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException, RangeNotSatisfiableException {
             CartForReceipt cart = getCart(status, null, null, ERROR_CODE_CRITICAL);
-            when(cartReceiptCosmosClient.getCartForReceiptDocument(CART_ID)).thenReturn(cart);
+            when(cartReceiptCosmosClient.getCartAuthorizationView(eq(CART_ID), any(), eq(false))).thenReturn(cart);
 
             InvalidCartException exception = assertThrows(
                     InvalidCartException.class,
-                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_DEBTOR_2, DEBTOR_FISCAL_CODE_2)
+                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_DEBTOR_2, DEBTOR_FISCAL_CODE_2, null)
             );
             assertEquals(PDFS_716, exception.getErrorCode());
 
             verify(tokenizerService, never()).getSearchTokenResponse(anyString());
             verify(receiptCosmosClient, never()).getReceiptDocument(anyString());
-            verify(receiptBlobClient, never()).getAttachmentFromBlobStorage(anyString());
+            verify(receiptBlobClient, never()).openAttachmentStream(anyString(), any());
         }
 
         @ParameterizedTest
@@ -562,17 +768,17 @@ class PdfServiceTest {
         })
         void getReceiptPdf_Cart_KO_EmptyReasonErr(CartStatusType status) {
             CartForReceipt cart = getCart(status, null, null, null);
-            when(cartReceiptCosmosClient.getCartForReceiptDocument(CART_ID)).thenReturn(cart);
+            when(cartReceiptCosmosClient.getCartAuthorizationView(eq(CART_ID), any(), eq(false))).thenReturn(cart);
 
             AttachmentNotFoundException exception = assertThrows(
                     AttachmentNotFoundException.class,
-                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_PAYER, PAYER_FISCAL_CODE)
+                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_PAYER, PAYER_FISCAL_CODE, null)
             );
             assertEquals(PDFS_715, exception.getErrorCode());
 
             verify(tokenizerService, never()).getSearchTokenResponse(anyString());
             verify(receiptCosmosClient, never()).getReceiptDocument(anyString());
-            verify(receiptBlobClient, never()).getAttachmentFromBlobStorage(anyString());
+            verify(receiptBlobClient, never()).openAttachmentStream(anyString(), any());
         }
 
         @ParameterizedTest
@@ -585,17 +791,17 @@ class PdfServiceTest {
         void getReceiptPdf_Cart_KO_EmptyPayload(CartStatusType status) {
             CartForReceipt cart = getCart(status, null, null, null);
             cart.setPayload(null);
-            when(cartReceiptCosmosClient.getCartForReceiptDocument(CART_ID)).thenReturn(cart);
+            when(cartReceiptCosmosClient.getCartAuthorizationView(eq(CART_ID), any(), eq(false))).thenReturn(cart);
 
             AttachmentNotFoundException exception = assertThrows(
                     AttachmentNotFoundException.class,
-                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_PAYER, PAYER_FISCAL_CODE)
+                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_PAYER, PAYER_FISCAL_CODE, null)
             );
             assertEquals(PDFS_715, exception.getErrorCode());
 
             verify(tokenizerService, never()).getSearchTokenResponse(anyString());
             verify(receiptCosmosClient, never()).getReceiptDocument(anyString());
-            verify(receiptBlobClient, never()).getAttachmentFromBlobStorage(anyString());
+            verify(receiptBlobClient, never()).openAttachmentStream(anyString(), any());
         }
 
         @ParameterizedTest
@@ -608,17 +814,17 @@ class PdfServiceTest {
         void getReceiptPdf_Cart_KO_EmptyCart(CartStatusType status) {
             CartForReceipt cart = getCart(status, null, null, null);
             cart.getPayload().setCart(null);
-            when(cartReceiptCosmosClient.getCartForReceiptDocument(CART_ID)).thenReturn(cart);
+            when(cartReceiptCosmosClient.getCartAuthorizationView(eq(CART_ID), any(), eq(false))).thenReturn(cart);
 
             AttachmentNotFoundException exception = assertThrows(
                     AttachmentNotFoundException.class,
-                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_PAYER, PAYER_FISCAL_CODE)
+                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_PAYER, PAYER_FISCAL_CODE, null)
             );
             assertEquals(PDFS_715, exception.getErrorCode());
 
             verify(tokenizerService, never()).getSearchTokenResponse(anyString());
             verify(receiptCosmosClient, never()).getReceiptDocument(anyString());
-            verify(receiptBlobClient, never()).getAttachmentFromBlobStorage(anyString());
+            verify(receiptBlobClient, never()).openAttachmentStream(anyString(), any());
         }
 
         @ParameterizedTest
@@ -627,19 +833,19 @@ class PdfServiceTest {
                 "FAILED",
                 "TO_REVIEW"
         })
-        void getReceiptPdf_Cart_KO_PayerRetryableFailure_Debtor1CriticalFailure(CartStatusType status) throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException {
+        void getReceiptPdf_Cart_KO_PayerRetryableFailure_Debtor1CriticalFailure(CartStatusType status) throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException, RangeNotSatisfiableException {
             CartForReceipt cart = getCart(status, ERROR_CODE_RETRYABLE, ERROR_CODE_CRITICAL, null);
-            when(cartReceiptCosmosClient.getCartForReceiptDocument(CART_ID)).thenReturn(cart);
+            when(cartReceiptCosmosClient.getCartAuthorizationView(eq(CART_ID), any(), eq(false))).thenReturn(cart);
 
             InvalidCartException exception = assertThrows(
                     InvalidCartException.class,
-                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_PAYER, PAYER_FISCAL_CODE)
+                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_PAYER, PAYER_FISCAL_CODE, null)
             );
             assertEquals(PDFS_716, exception.getErrorCode());
 
             verify(tokenizerService, never()).getSearchTokenResponse(anyString());
             verify(receiptCosmosClient, never()).getReceiptDocument(anyString());
-            verify(receiptBlobClient, never()).getAttachmentFromBlobStorage(anyString());
+            verify(receiptBlobClient, never()).openAttachmentStream(anyString(), any());
         }
 
         @ParameterizedTest
@@ -648,42 +854,42 @@ class PdfServiceTest {
                 "FAILED",
                 "TO_REVIEW"
         })
-        void getReceiptPdf_Cart_KO_Debtor1RetryableFailure_Debtor2CriticalFailure(CartStatusType status) throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException {
+        void getReceiptPdf_Cart_KO_Debtor1RetryableFailure_Debtor2CriticalFailure(CartStatusType status) throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException, RangeNotSatisfiableException {
             CartForReceipt cart = getCart(status, null, ERROR_CODE_RETRYABLE, ERROR_CODE_CRITICAL);
-            when(cartReceiptCosmosClient.getCartForReceiptDocument(CART_ID)).thenReturn(cart);
+            when(cartReceiptCosmosClient.getCartAuthorizationView(eq(CART_ID), any(), eq(false))).thenReturn(cart);
 
             InvalidCartException exception = assertThrows(
                     InvalidCartException.class,
-                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_DEBTOR_1, DEBTOR_FISCAL_CODE_1)
+                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_DEBTOR_1, DEBTOR_FISCAL_CODE_1, null)
             );
             assertEquals(PDFS_716, exception.getErrorCode());
 
             verify(tokenizerService, never()).getSearchTokenResponse(anyString());
             verify(receiptCosmosClient, never()).getReceiptDocument(anyString());
-            verify(receiptBlobClient, never()).getAttachmentFromBlobStorage(anyString());
+            verify(receiptBlobClient, never()).openAttachmentStream(anyString(), any());
         }
 
         @Test
-        void getReceiptPdf_Cart_KO_TokenizedFiscalCodeNotFound() throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException {
+        void getReceiptPdf_Cart_KO_TokenizedFiscalCodeNotFound() throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException, RangeNotSatisfiableException {
             CartForReceipt cart = getCart(CartStatusType.IO_NOTIFIED, null, null, null);
-            when(cartReceiptCosmosClient.getCartForReceiptDocument(CART_ID)).thenReturn(cart);
+            when(cartReceiptCosmosClient.getCartAuthorizationView(eq(CART_ID), any(), eq(false))).thenReturn(cart);
 
             doThrow(new FiscalCodeNotAuthorizedException(AppErrorCodeEnum.PDFS_700, "")).when(tokenizerService).getSearchTokenResponse(PAYER_FISCAL_CODE);
 
             FiscalCodeNotAuthorizedException exception = assertThrows(
                     FiscalCodeNotAuthorizedException.class,
-                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_PAYER, PAYER_FISCAL_CODE)
+                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_PAYER, PAYER_FISCAL_CODE, null)
             );
             assertEquals(PDFS_700, exception.getErrorCode());
 
             verify(receiptCosmosClient, never()).getReceiptDocument(anyString());
-            verify(receiptBlobClient, never()).getAttachmentFromBlobStorage(anyString());
+            verify(receiptBlobClient, never()).openAttachmentStream(anyString(), any());
         }
 
         @Test
-        void getReceiptPdf_Cart_KO_FiscalCodeNotFoundInReceipt() throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException {
+        void getReceiptPdf_Cart_KO_FiscalCodeNotFoundInReceipt() throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException, RangeNotSatisfiableException {
             CartForReceipt cart = getCart(CartStatusType.IO_NOTIFIED, null, null, null);
-            when(cartReceiptCosmosClient.getCartForReceiptDocument(CART_ID)).thenReturn(cart);
+            when(cartReceiptCosmosClient.getCartAuthorizationView(eq(CART_ID), any(), eq(false))).thenReturn(cart);
 
             SearchTokenResponse searchTokenResponse = new SearchTokenResponse();
             searchTokenResponse.setToken(INVALID_FISCAL_CODE_TOKENIZED);
@@ -691,18 +897,18 @@ class PdfServiceTest {
 
             FiscalCodeNotAuthorizedException exception = assertThrows(
                     FiscalCodeNotAuthorizedException.class,
-                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_PAYER, INVALID_FISCAL_CODE)
+                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_PAYER, INVALID_FISCAL_CODE, null)
             );
             assertEquals(PDFS_706, exception.getErrorCode());
 
             verify(receiptCosmosClient, never()).getReceiptDocument(anyString());
-            verify(receiptBlobClient, never()).getAttachmentFromBlobStorage(anyString());
+            verify(receiptBlobClient, never()).openAttachmentStream(anyString(), any());
         }
 
         @Test
-        void getReceiptPdf_Cart_KO_DebtorBizEventNotFoundInReceipt() throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException {
+        void getReceiptPdf_Cart_KO_DebtorBizEventNotFoundInReceipt() throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException, RangeNotSatisfiableException {
             CartForReceipt cart = getCart(CartStatusType.IO_NOTIFIED, null, null, null);
-            when(cartReceiptCosmosClient.getCartForReceiptDocument(CART_ID)).thenReturn(cart);
+            when(cartReceiptCosmosClient.getCartAuthorizationView(eq(CART_ID), any(), eq(false))).thenReturn(cart);
 
             SearchTokenResponse searchTokenResponse = new SearchTokenResponse();
             searchTokenResponse.setToken(DEBTOR_FISCAL_CODE_1_TOKENIZED);
@@ -710,19 +916,38 @@ class PdfServiceTest {
 
             FiscalCodeNotAuthorizedException exception = assertThrows(
                     FiscalCodeNotAuthorizedException.class,
-                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_INVALID_BIZ_EVENT, DEBTOR_FISCAL_CODE_1)
+                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_INVALID_BIZ_EVENT, DEBTOR_FISCAL_CODE_1, null)
             );
             assertEquals(PDFS_706, exception.getErrorCode());
 
             verify(receiptCosmosClient, never()).getReceiptDocument(anyString());
-            verify(receiptBlobClient, never()).getAttachmentFromBlobStorage(anyString());
+            verify(receiptBlobClient, never()).openAttachmentStream(anyString(), any());
+        }
+
+        @Test
+        void getReceiptPdf_Cart_KO_DebtorBizEventSharedByPayments() throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException, RangeNotSatisfiableException {
+            CartForReceipt cart = getCart(CartStatusType.IO_NOTIFIED, null, null, null);
+            cart.getPayload().getCart().get(1).setBizEventId(DEBTOR_1_EVENT_ID);
+            when(cartReceiptCosmosClient.getCartAuthorizationView(eq(CART_ID), any(), eq(false))).thenReturn(cart);
+
+            SearchTokenResponse searchTokenResponse = new SearchTokenResponse();
+            searchTokenResponse.setToken(DEBTOR_FISCAL_CODE_1_TOKENIZED);
+            when(tokenizerService.getSearchTokenResponse(DEBTOR_FISCAL_CODE_1)).thenReturn(searchTokenResponse);
+
+            FiscalCodeNotAuthorizedException exception = assertThrows(
+                    FiscalCodeNotAuthorizedException.class,
+                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_DEBTOR_1, DEBTOR_FISCAL_CODE_1, null)
+            );
+            assertEquals(PDFS_706, exception.getErrorCode());
+
+            verify(receiptBlobClient, never()).openAttachmentStream(anyString(), any());
         }
 
         @Test
-        void getReceiptPdf_Cart_Payer_KO_MdAttachPayerNull() throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException {
+        void getReceiptPdf_Cart_Payer_KO_MdAttachPayerNull() throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException, RangeNotSatisfiableException {
             CartForReceipt cart = getCart(CartStatusType.IO_NOTIFIED, null, null, null);
             cart.getPayload().setMdAttachPayer(null);
-            when(cartReceiptCosmosClient.getCartForReceiptDocument(CART_ID)).thenReturn(cart);
+            when(cartReceiptCosmosClient.getCartAuthorizationView(eq(CART_ID), any(), eq(false))).thenReturn(cart);
 
             SearchTokenResponse searchTokenResponse = new SearchTokenResponse();
             searchTokenResponse.setToken(PAYER_FISCAL_CODE_TOKENIZED);
@@ -730,19 +955,19 @@ class PdfServiceTest {
 
             InvalidCartException exception = assertThrows(
                     InvalidCartException.class,
-                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_PAYER, PAYER_FISCAL_CODE)
+                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_PAYER, PAYER_FISCAL_CODE, null)
             );
             assertEquals(PDFS_716, exception.getErrorCode());
 
             verify(receiptCosmosClient, never()).getReceiptDocument(anyString());
-            verify(receiptBlobClient, never()).getAttachmentFromBlobStorage(anyString());
+            verify(receiptBlobClient, never()).openAttachmentStream(anyString(), any());
         }
 
         @Test
-        void getReceiptPdf_Cart_Debtor1_KO_MdAttachNull() throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException {
+        void getReceiptPdf_Cart_Debtor1_KO_MdAttachNull() throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException, RangeNotSatisfiableException {
             CartForReceipt cart = getCart(CartStatusType.IO_NOTIFIED, null, null, null);
             cart.getPayload().getCart().get(0).setMdAttach(null);
-            when(cartReceiptCosmosClient.getCartForReceiptDocument(CART_ID)).thenReturn(cart);
+            when(cartReceiptCosmosClient.getCartAuthorizationView(eq(CART_ID), any(), eq(false))).thenReturn(cart);
 
             SearchTokenResponse searchTokenResponse = new SearchTokenResponse();
             searchTokenResponse.setToken(DEBTOR_FISCAL_CODE_1_TOKENIZED);
@@ -750,19 +975,19 @@ class PdfServiceTest {
 
             InvalidCartException exception = assertThrows(
                     InvalidCartException.class,
-                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_DEBTOR_1, DEBTOR_FISCAL_CODE_1)
+                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_DEBTOR_1, DEBTOR_FISCAL_CODE_1, null)
             );
             assertEquals(PDFS_716, exception.getErrorCode());
 
             verify(receiptCosmosClient, never()).getReceiptDocument(anyString());
-            verify(receiptBlobClient, never()).getAttachmentFromBlobStorage(anyString());
+            verify(receiptBlobClient, never()).openAttachmentStream(anyString(), any());
         }
 
         @Test
-        void getReceiptPdf_Cart_Debtor2_KO_MdAttachNull() throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException {
+        void getReceiptPdf_Cart_Debtor2_KO_MdAttachNull() throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException, RangeNotSatisfiableException {
             CartForReceipt cart = getCart(CartStatusType.IO_NOTIFIED, null, null, null);
             cart.getPayload().getCart().get(1).setMdAttach(null);
-            when(cartReceiptCosmosClient.getCartForReceiptDocument(CART_ID)).thenReturn(cart);
+            when(cartReceiptCosmosClient.getCartAuthorizationView(eq(CART_ID), any(), eq(false))).thenReturn(cart);
 
             SearchTokenResponse searchTokenResponse = new SearchTokenResponse();
             searchTokenResponse.setToken(DEBTOR_FISCAL_CODE_2_TOKENIZED);
@@ -770,21 +995,21 @@ class PdfServiceTest {
 
             InvalidCartException exception = assertThrows(
                     InvalidCartException.class,
-                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_DEBTOR_2, DEBTOR_FISCAL_CODE_2)
+                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_DEBTOR_2, DEBTOR_FISCAL_CODE_2, null)
             );
             assertEquals(PDFS_716, exception.getErrorCode());
 
             verify(receiptCosmosClient, never()).getReceiptDocument(anyString());
-            verify(receiptBlobClient, never()).getAttachmentFromBlobStorage(anyString());
+            verify(receiptBlobClient, never()).openAttachmentStream(anyString(), any());
         }
 
         @ParameterizedTest
         @NullAndEmptySource
         @ValueSource(strings = {" "})
-        void getReceiptPdf_Cart_KO_AttachmentNameInvalid(String attachmentName) throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException {
+        void getReceiptPdf_Cart_KO_AttachmentNameInvalid(String attachmentName) throws ReceiptNotFoundException, FiscalCodeNotAuthorizedException, AttachmentNotFoundException, BlobStorageClientException, CartNotFoundException, RangeNotSatisfiableException {
             CartForReceipt cart = getCart(CartStatusType.IO_NOTIFIED, null, null, null);
             cart.getPayload().setMdAttachPayer(ReceiptMetadata.builder().name(attachmentName).build());
-            when(cartReceiptCosmosClient.getCartForReceiptDocument(CART_ID)).thenReturn(cart);
+            when(cartReceiptCosmosClient.getCartAuthorizationView(eq(CART_ID), any(), eq(false))).thenReturn(cart);
 
             SearchTokenResponse searchTokenResponse = new SearchTokenResponse();
             searchTokenResponse.setToken(PAYER_FISCAL_CODE_TOKENIZED);
@@ -792,12 +1017,179 @@ class PdfServiceTest {
 
             AttachmentNotFoundException exception = assertThrows(
                     AttachmentNotFoundException.class,
-                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_PAYER, PAYER_FISCAL_CODE)
+                    () -> sut.getReceiptPdf(THIRD_PARTY_ID_CART_PAYER, PAYER_FISCAL_CODE, null)
             );
             assertEquals(PDFS_716, exception.getErrorCode());
 
             verify(receiptCosmosClient, never()).getReceiptDocument(anyString());
-            verify(receiptBlobClient, never()).getAttachmentFromBlobStorage(anyString());
+            verify(receiptBlobClient, never()).openAttachmentStream(anyString(), any());
+        }
+
+        @Test
+        @SneakyThrows
+        void getReceiptPdfRedirect_Cart_Payer_OK() {
+            CartForReceipt cart = getCart(CartStatusType.IO_NOTIFIED, null, null, null);
+            when(cartReceiptCosmosClient.getCartAuthorizationView(eq(CART_ID), any(), eq(false))).thenReturn(cart);
+
+            SearchTokenResponse searchTokenResponse = new SearchTokenResponse();
+            searchTokenResponse.setToken(PAYER_FISCAL_CODE_TOKENIZED);
+            when(tokenizerService.getSearchTokenResponse(PAYER_FISCAL_CODE)).thenReturn(searchTokenResponse);
+
+            String sasUrl = "https://account.blob.core.windows.net/container/" + ATTACHMENT_NAME_PAYER + "?sig=signature";
+            when(receiptBlobClient.generateReadSasUrl(ATTACHMENT_NAME_PAYER)).thenReturn(sasUrl);
+
+            ReceiptPdfResponse result = sut.getReceiptPdfRedirect(THIRD_PARTY_ID_CART_PAYER, PAYER_FISCAL_CODE);
+
+            assertEquals(ATTACHMENT_NAME_PAYER, result.getAttachmentName());
+            assertEquals(sasUrl, result.getRedirectUrl());
+            assertNull(result.getPdfFile());
+            verify(receiptBlobClient, never()).openAttachmentStream(anyString(), any());
+        }
+
+        @Test
+        @SneakyThrows
+        void getReceiptPdfRedirect_Cart_KO_FiscalCodeNotFoundInReceipt() {
+            CartForReceipt cart = getCart(CartStatusType.IO_NOTIFIED, null, null, null);
+            when(cartReceiptCosmosClient.getCartAuthorizationView(eq(CART_ID), any(), eq(false))).thenReturn(cart);
+
+            SearchTokenResponse searchTokenResponse = new SearchTokenResponse();
+            searchTokenResponse.setToken(INVALID_FISCAL_CODE_TOKENIZED);
+            when(tokenizerService.getSearchTokenResponse(INVALID_FISCAL_CODE)).thenReturn(searchTokenResponse);
+
+            FiscalCodeNotAuthorizedException exception = assertThrows(
+                    FiscalCodeNotAuthorizedException.class,
+                    () -> sut.getReceiptPdfRedirect(THIRD_PARTY_ID_CART_PAYER, INVALID_FISCAL_CODE)
+            );
+            assertEquals(PDFS_706, exception.getErrorCode());
+            verify(receiptBlobClient, never()).generateReadSasUrl(anyString());
+        }
+
+        @Test
+        @SneakyThrows
+        void getReceiptPdfRedirectAsync_Cart_Payer_OK() {
+            CartForReceipt cart = getCart(CartStatusType.IO_NOTIFIED, null, null, null);
+            when(cartReceiptCosmosAsyncClient.getCartAuthorizationView(eq(CART_ID), any(), eq(false))).thenReturn(Uni.createFrom().item(cart));
+
+            SearchTokenResponse searchTokenResponse = new SearchTokenResponse();
+            searchTokenResponse.setToken(PAYER_FISCAL_CODE_TOKENIZED);
+            when(tokenizerService.getSearchTokenResponseAsync(PAYER_FISCAL_CODE)).thenReturn(Uni.createFrom().item(searchTokenResponse));
+
+            String sasUrl = "https://account.blob.core.windows.net/container/" + ATTACHMENT_NAME_PAYER + "?sig=signature";
+            when(receiptBlobClient.generateReadSasUrl(ATTACHMENT_NAME_PAYER)).thenReturn(sasUrl);
+
+            ReceiptPdfResponse result = sut.getReceiptPdfRedirectAsync(THIRD_PARTY_ID_CART_PAYER, PAYER_FISCAL_CODE)
+                    .await().indefinitely();
+
+            assertEquals(ATTACHMENT_NAME_PAYER, result.getAttachmentName());
+            assertEquals(sasUrl, result.getRedirectUrl());
+            verify(cartReceiptCosmosClient, never()).getCartAuthorizationView(anyString(), any(), anyBoolean());
+        }
+
+        @Test
+        @SneakyThrows
+        void getReceiptPdfAsync_Cart_KO_FiscalCodeNotFoundInReceipt() {
+            CartForReceipt cart = getCart(CartStatusType.IO_NOTIFIED, null, null, null);
+            when(cartReceiptCosmosAsyncClient.getCartAuthorizationView(eq(CART_ID), any(), eq(false))).thenReturn(Uni.createFrom().item(cart));
+
+            SearchTokenResponse searchTokenResponse = new SearchTokenResponse();
+            searchTokenResponse.setToken(INVALID_FISCAL_CODE_TOKENIZED);
+            when(tokenizerService.getSearchTokenResponseAsync(INVALID_FISCAL_CODE)).thenReturn(Uni.createFrom().item(searchTokenResponse));
+
+            Uni<ReceiptPdfResponse> result = sut.getReceiptPdfAsync(THIRD_PARTY_ID_CART_DEBTOR_1, INVALID_FISCAL_CODE, null);
+
+            FiscalCodeNotAuthorizedException exception = assertInstanceOf(FiscalCodeNotAuthorizedException.class, awaitFailure(result));
+            assertEquals(PDFS_706, exception.getErrorCode());
+            verify(receiptBlobClient, never()).openAttachmentStreamAsync(anyString(), any());
+        }
+
+        @Test
+        void getReceiptPdfAsync_Cart_KO_CartNotFound() {
+            when(cartReceiptCosmosAsyncClient.getCartAuthorizationView(eq(CART_ID), any(), eq(false))).thenReturn(Uni.createFrom().failure(
+                    new CartNotFoundException(AppErrorCodeEnum.PDFS_801, "not found")));
+
+            Uni<ReceiptPdfResponse> result = sut.getReceiptPdfAsync(THIRD_PARTY_ID_CART_PAYER, PAYER_FISCAL_CODE, null);
+
+            CartNotFoundException exception = assertInstanceOf(CartNotFoundException.class, awaitFailure(result));
+            assertEquals(PDFS_801, exception.getErrorCode());
+            verify(tokenizerService, never()).getSearchTokenResponseAsync(anyString());
+        }
+
+        @Test
+        @SneakyThrows
+        void getCartReceiptPdfNames_Payer_OK() {
+            CartForReceipt cart = getCart(CartStatusType.IO_NOTIFIED, null, null, null);
+            when(cartReceiptCosmosClient.getCartForReceiptDocument(CART_ID)).thenReturn(cart);
+
+            SearchTokenResponse searchTokenResponse = new SearchTokenResponse();
+            searchTokenResponse.setToken(PAYER_FISCAL_CODE_TOKENIZED);
+            when(tokenizerService.getSearchTokenResponse(PAYER_FISCAL_CODE)).thenReturn(searchTokenResponse);
+
+            List<String> result = sut.getCartReceiptPdfNames(CART_ID, PAYER_FISCAL_CODE);
+
+            assertEquals(List.of(ATTACHMENT_NAME_PAYER), result);
+            verify(receiptBlobClient, never()).openAttachmentStream(anyString(), any());
+        }
+
+        @Test
+        @SneakyThrows
+        void getCartReceiptPdfNames_PayerAndDebtor_OK() {
+            CartForReceipt cart = getCart(CartStatusType.IO_NOTIFIED, null, null, null);
+            cart.getPayload().getCart().get(1).setDebtorFiscalCode(PAYER_FISCAL_CODE_TOKENIZED);
+            when(cartReceiptCosmosClient.getCartForReceiptDocument(CART_ID)).thenReturn(cart);
+
+            SearchTokenResponse searchTokenResponse = new SearchTokenResponse();
+            searchTokenResponse.setToken(PAYER_FISCAL_CODE_TOKENIZED);
+            when(tokenizerService.getSearchTokenResponse(PAYER_FISCAL_CODE)).thenReturn(searchTokenResponse);
+
+            List<String> result = sut.getCartReceiptPdfNames(CART_ID, PAYER_FISCAL_CODE);
+
+            assertEquals(List.of(ATTACHMENT_NAME_PAYER, ATTACHMENT_NAME_DEBTOR_2), result);
+        }
+
+        @Test
+        @SneakyThrows
+        void getCartReceiptPdfNames_Debtor_OK() {
+            CartForReceipt cart = getCart(CartStatusType.IO_NOTIFIED, null, null, null);
+            when(cartReceiptCosmosClient.getCartForReceiptDocument(CART_ID)).thenReturn(cart);
+
+            SearchTokenResponse searchTokenResponse = new SearchTokenResponse();
+            searchTokenResponse.setToken(DEBTOR_FISCAL_CODE_1_TOKENIZED);
+            when(tokenizerService.getSearchTokenResponse(DEBTOR_FISCAL_CODE_1)).thenReturn(searchTokenResponse);
+
+            List<String> result = sut.getCartReceiptPdfNames(CART_ID, DEBTOR_FISCAL_CODE_1);
+
+            assertEquals(List.of(ATTACHMENT_NAME_DEBTOR_1), result);
+        }
+
+        @Test
+        @SneakyThrows
+        void getCartReceiptPdfNames_KO_FiscalCodeNotFoundInCart() {
+            CartForReceipt cart = getCart(CartStatusType.IO_NOTIFIED, null, null, null);
+            when(cartReceiptCosmosClient.getCartForReceiptDocument(CART_ID)).thenReturn(cart);
+
+            SearchTokenResponse searchTokenResponse = new SearchTokenResponse();
+            searchTokenResponse.setToken(INVALID_FISCAL_CODE_TOKENIZED);
+            when(tokenizerService.getSearchTokenResponse(INVALID_FISCAL_CODE)).thenReturn(searchTokenResponse);
+
+            FiscalCodeNotAuthorizedException exception = assertThrows(
+                    FiscalCodeNotAuthorizedException.class,
+                    () -> sut.getCartReceiptPdfNames(CART_ID, INVALID_FISCAL_CODE)
+            );
+            assertEquals(PDFS_706, exception.getErrorCode());
+        }
+
+        @Test
+        @SneakyThrows
+        void getCartReceiptPdfNames_KO_Still_Generating() {
+            CartForReceipt cart = getCart(CartStatusType.INSERTED, null, null, null);
+            when(cartReceiptCosmosClient.getCartForReceiptDocument(CART_ID)).thenReturn(cart);
+
+            AttachmentNotFoundException exception = assertThrows(
+                    AttachmentNotFoundException.class,
+                    () -> sut.getCartReceiptPdfNames(CART_ID, PAYER_FISCAL_CODE)
+            );
+            assertEquals(PDFS_714, exception.getErrorCode());
+            verify(tokenizerService, never()).getSearchTokenResponse(anyString());
         }
 
         private CartForReceipt getCart(CartStatusType cartStatusType, Integer errorCodePayer, Integer errorCodeDebtor1, Integer errorCodeDebtor2) {
@@ -0,0 +1,181 @@
+package it.gov.pagopa.receipt.pdf.service.service.impl;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.helpers.test.UniAssertSubscriber;
+import it.gov.pagopa.receipt.pdf.service.cache.TokenCache;
+import it.gov.pagopa.receipt.pdf.service.client.PDVTokenizerClient;
+import it.gov.pagopa.receipt.pdf.service.client.impl.AdaptiveConcurrencyLimiter;
+import it.gov.pagopa.receipt.pdf.service.exception.FiscalCodeNotAuthorizedException;
+import it.gov.pagopa.receipt.pdf.service.exception.PDVTokenizerClientException;
+import it.gov.pagopa.receipt.pdf.service.exception.TokenizerOverloadedException;
+import it.gov.pagopa.receipt.pdf.service.exception.TooManyRequestsException;
+import it.gov.pagopa.receipt.pdf.service.model.SearchTokenResponse;
+import lombok.SneakyThrows;
+import org.eclipse.microprofile.faulttolerance.exceptions.CircuitBreakerOpenException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static it.gov.pagopa.receipt.pdf.service.enumeration.AppErrorCodeEnum.PDFS_700;
+import static it.gov.pagopa.receipt.pdf.service.enumeration.AppErrorCodeEnum.PDFS_717;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TokenizerServiceTest {
+
+    private static final String FISCAL_CODE = "AAAAAA00A00A000A";
+    private static final String TOKEN = "token";
+
+    private PDVTokenizerClient pdvTokenizerClient;
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private TokenizerService sut;
+
+    @BeforeEach
+    void setUp() {
+        pdvTokenizerClient = mock(PDVTokenizerClient.class);
+        TokenCache tokenCache = new TokenCache(true, 100, 60, 100, 60, Optional.empty(),
+                OpenTelemetry.noop().getMeter("test"));
+        concurrencyLimiter = new AdaptiveConcurrencyLimiter(true, 1, 1, 1, 0.5, 60_000,
+                OpenTelemetry.noop().getMeter("test"));
+        sut = new TokenizerService(pdvTokenizerClient, tokenCache, concurrencyLimiter);
+    }
+
+    @Test
+    @SneakyThrows
+    void getSearchTokenResponseCachesToken() {
+        when(pdvTokenizerClient.searchToken(any())).thenReturn(new SearchTokenResponse(TOKEN));
+
+        assertEquals(TOKEN, sut.getSearchTokenResponse(FISCAL_CODE).getToken());
+        assertEquals(TOKEN, sut.getSearchTokenResponse(FISCAL_CODE).getToken());
+        SearchTokenResponse asyncResponse = sut.getSearchTokenResponseAsync(FISCAL_CODE)
+                .subscribe().withSubscriber(UniAssertSubscriber.create()).awaitItem().getItem();
+        assertEquals(TOKEN, asyncResponse.getToken());
+
+        verify(pdvTokenizerClient).searchToken(any());
+        verify(pdvTokenizerClient, never()).searchTokenAsync(any());
+    }
+
+    @Test
+    void getSearchTokenResponseCachesNotFound() {
+        when(pdvTokenizerClient.searchToken(any()))
+                .thenThrow(new PDVTokenizerClientException("Tokenizer client returned status 404", 404));
+
+        FiscalCodeNotAuthorizedException first = assertThrows(FiscalCodeNotAuthorizedException.class,
+                () -> sut.getSearchTokenResponse(FISCAL_CODE));
+        FiscalCodeNotAuthorizedException second = assertThrows(FiscalCodeNotAuthorizedException.class,
+                () -> sut.getSearchTokenResponse(FISCAL_CODE));
+
+        assertEquals(PDFS_700, first.getErrorCode());
+        assertEquals(PDFS_700, second.getErrorCode());
+        verify(pdvTokenizerClient).searchToken(any());
+    }
+
+    @Test
+    void getSearchTokenResponseDoesNotCacheTransientErrors() {
+        when(pdvTokenizerClient.searchToken(any()))
+                .thenThrow(new PDVTokenizerClientException("Tokenizer client returned status 500", 500));
+
+        assertThrows(FiscalCodeNotAuthorizedException.class, () -> sut.getSearchTokenResponse(FISCAL_CODE));
+        assertThrows(FiscalCodeNotAuthorizedException.class, () -> sut.getSearchTokenResponse(FISCAL_CODE));
+
+        verify(pdvTokenizerClient, times(2)).searchToken(any());
+    }
+
+    @Test
+    void getSearchTokenResponseAsyncCachesMissingToken() {
+        when(pdvTokenizerClient.searchTokenAsync(any())).thenReturn(Uni.createFrom().item(new SearchTokenResponse(null)));
+
+        Throwable first = sut.getSearchTokenResponseAsync(FISCAL_CODE)
+                .subscribe().withSubscriber(UniAssertSubscriber.create()).awaitFailure().getFailure();
+        Throwable second = sut.getSearchTokenResponseAsync(FISCAL_CODE)
+                .subscribe().withSubscriber(UniAssertSubscriber.create()).awaitFailure().getFailure();
+
+        assertInstanceOf(FiscalCodeNotAuthorizedException.class, first);
+        assertInstanceOf(FiscalCodeNotAuthorizedException.class, second);
+        verify(pdvTokenizerClient).searchTokenAsync(any());
+        verify(pdvTokenizerClient, never()).searchToken(any());
+    }
+
+    @Test
+    void getSearchTokenResponseAsyncSharesInFlightCall() {
+        CompletableFuture<SearchTokenResponse> response = new CompletableFuture<>();
+        when(pdvTokenizerClient.searchTokenAsync(any())).thenReturn(Uni.createFrom().completionStage(response));
+
+        UniAssertSubscriber<SearchTokenResponse> first = sut.getSearchTokenResponseAsync(FISCAL_CODE)
+                .subscribe().withSubscriber(UniAssertSubscriber.create());
+        UniAssertSubscriber<SearchTokenResponse> second = sut.getSearchTokenResponseAsync(FISCAL_CODE)
+                .subscribe().withSubscriber(UniAssertSubscriber.create());
+        response.complete(new SearchTokenResponse(TOKEN));
+
+        assertEquals(TOKEN, first.awaitItem().getItem().getToken());
+        assertEquals(TOKEN, second.awaitItem().getItem().getToken());
+        verify(pdvTokenizerClient).searchTokenAsync(any());
+        assertEquals(0, concurrencyLimiter.getInFlight());
+    }
+
+    @Test
+    @SneakyThrows
+    void getSearchTokenResponseAsyncCancelledSubscriberDoesNotCancelSharedCall() {
+        CompletableFuture<SearchTokenResponse> response = new CompletableFuture<>();
+        when(pdvTokenizerClient.searchTokenAsync(any())).thenReturn(Uni.createFrom().completionStage(response));
+
+        UniAssertSubscriber<SearchTokenResponse> first = sut.getSearchTokenResponseAsync(FISCAL_CODE)
+                .subscribe().withSubscriber(UniAssertSubscriber.create());
+        UniAssertSubscriber<SearchTokenResponse> second = sut.getSearchTokenResponseAsync(FISCAL_CODE)
+                .subscribe().withSubscriber(UniAssertSubscriber.create());
+        first.cancel();
+        CompletableFuture<SearchTokenResponse> blocking = CompletableFuture.supplyAsync(
+                () -> assertDoesNotThrow(() -> sut.getSearchTokenResponse(FISCAL_CODE)));
+        response.complete(new SearchTokenResponse(TOKEN));
+
+        assertEquals(TOKEN, second.awaitItem().getItem().getToken());
+        assertEquals(TOKEN, blocking.get(5, TimeUnit.SECONDS).getToken());
+        verify(pdvTokenizerClient).searchTokenAsync(any());
+        verify(pdvTokenizerClient, never()).searchToken(any());
+    }
+
+    @Test
+    void getSearchTokenResponseAsyncOverLimitFailsFast() {
+        CompletableFuture<SearchTokenResponse> response = new CompletableFuture<>();
+        when(pdvTokenizerClient.searchTokenAsync(any())).thenReturn(Uni.createFrom().completionStage(response));
+
+        UniAssertSubscriber<SearchTokenResponse> first = sut.getSearchTokenResponseAsync(FISCAL_CODE)
+                .subscribe().withSubscriber(UniAssertSubscriber.create());
+        Throwable failure = sut.getSearchTokenResponseAsync("BBBBBB00B00B000B")
+                .subscribe().withSubscriber(UniAssertSubscriber.create()).awaitFailure().getFailure();
+
+        TokenizerOverloadedException exception = assertInstanceOf(TokenizerOverloadedException.class, failure);
+        assertEquals(PDFS_717, exception.getErrorCode());
+
+        response.complete(new SearchTokenResponse(TOKEN));
+        assertEquals(TOKEN, first.awaitItem().getItem().getToken());
+    }
+
+    @Test
+    void getSearchTokenResponseTooManyRequestsReleasesPermit() {
+        when(pdvTokenizerClient.searchToken(any())).thenThrow(new TooManyRequestsException("The remote service responded with HTTP 429"));
+
+        FiscalCodeNotAuthorizedException exception = assertThrows(FiscalCodeNotAuthorizedException.class,
+                () -> sut.getSearchTokenResponse(FISCAL_CODE));
+
+        assertEquals(PDFS_700, exception.getErrorCode());
+        assertEquals(0, concurrencyLimiter.getInFlight());
+        assertEquals(1, concurrencyLimiter.getLimit());
+    }
+
+    @Test
+    void getSearchTokenResponseCircuitBreakerOpenFailsAsOverloaded() {
+        when(pdvTokenizerClient.searchToken(any())).thenThrow(new CircuitBreakerOpenException("circuit breaker is open"));
+
+        TokenizerOverloadedException exception = assertThrows(TokenizerOverloadedException.class,
+                () -> sut.getSearchTokenResponse(FISCAL_CODE));
+
+        assertEquals(PDFS_717, exception.getErrorCode());
+        assertEquals(0, concurrencyLimiter.getInFlight());
+    }
+}
@@ -7,6 +7,12 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class Aes256UtilsTest {
@@ -99,4 +105,21 @@ class Aes256UtilsTest {
         // Restore original keys for subsequent tests
         Aes256Utils.setKeys(TEST_KEY, TEST_SALT);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Encryption and Decryption: concurrent calls share the derived key")
+    void encryptDecryptConcurrently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = IntStream.range(0, 64)
+                    .mapToObj(i -> executor.submit(() -> Aes256Utils.decrypt(Aes256Utils.encrypt("payload-" + i))))
+                    .toList();
+
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals("payload-" + i, results.get(i).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
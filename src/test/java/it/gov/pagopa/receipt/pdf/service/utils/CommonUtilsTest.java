@@ -3,6 +3,7 @@ package it.gov.pagopa.receipt.pdf.service.utils;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import it.gov.pagopa.receipt.pdf.service.enumeration.AppErrorAPICategory;
 import it.gov.pagopa.receipt.pdf.service.enumeration.AppErrorCodeEnum;
+import it.gov.pagopa.receipt.pdf.service.model.ByteRange;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
@@ -48,6 +49,63 @@ class CommonUtilsTest {
         );
     }
 
+    @ParameterizedTest
+    @MethodSource("validRangeTestCases")
+    void testParseRangeHeader_ValidRanges(String header, Long start, Long end, Long suffixLength) {
+        ByteRange range = CommonUtils.parseRangeHeader(header);
+
+        assertNotNull(range);
+        assertEquals(start, range.getStart());
+        assertEquals(end, range.getEnd());
+        assertEquals(suffixLength, range.getSuffixLength());
+    }
+
+    private static Stream<Arguments> validRangeTestCases() {
+        return Stream.of(
+                Arguments.of("bytes=0-99", 0L, 99L, null),
+                Arguments.of("bytes=100-", 100L, null, null),
+                Arguments.of("bytes=-500", null, null, 500L),
+                Arguments.of("bytes= 10 - 10 ", 10L, 10L, null)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("invalidRangeTestCases")
+    void testParseRangeHeader_InvalidRangesAreIgnored(String header) {
+        assertNull(CommonUtils.parseRangeHeader(header));
+    }
+
+    private static Stream<String> invalidRangeTestCases() {
+        return Stream.of(
+                null,
+                "",
+                "items=0-10",
+                "bytes=10",
+                "bytes=10-5",
+                "bytes=-0",
+                "bytes=a-b",
+                "bytes=0-10,20-30"
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("matchesETagTestCases")
+    void testMatchesETag(String ifNoneMatch, String eTag, boolean expected) {
+        assertEquals(expected, CommonUtils.matchesETag(ifNoneMatch, eTag));
+    }
+
+    private static Stream<Arguments> matchesETagTestCases() {
+        return Stream.of(
+                Arguments.of("\"abc\"", "\"abc\"", true),
+                Arguments.of("W/\"abc\"", "\"abc\"", true),
+                Arguments.of("\"xyz\", \"abc\"", "\"abc\"", true),
+                Arguments.of("*", "\"abc\"", true),
+                Arguments.of("\"xyz\"", "\"abc\"", false),
+                Arguments.of(null, "\"abc\"", false),
+                Arguments.of("\"abc\"", null, false)
+        );
+    }
+
     public static void generateOpenApi(String filename, AppErrorAPICategory category) throws Exception {
         String responseString =
                 given()
@@ -0,0 +1,62 @@
+package it.gov.pagopa.receipt.pdf.service.utils;
+
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.helpers.test.UniAssertSubscriber;
+import io.smallrye.mutiny.subscription.UniEmitter;
+import io.smallrye.mutiny.tuples.Tuple2;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReactiveUtilsTest {
+
+    @Test
+    void fanOutReturnsBothItems() {
+        Tuple2<String, Integer> result = ReactiveUtils.fanOut(Uni.createFrom().item("receipt"), Uni.createFrom().item(1))
+                .subscribe().withSubscriber(UniAssertSubscriber.create()).awaitItem().getItem();
+
+        assertEquals("receipt", result.getItem1());
+        assertEquals(1, result.getItem2());
+    }
+
+    @Test
+    void fanOutPrimaryFailureWinsAndCancelsSecondary() {
+        IllegalStateException primaryFailure = new IllegalStateException("primary");
+        AtomicReference<UniEmitter<? super String>> primaryEmitter = new AtomicReference<>();
+        AtomicBoolean secondaryCancelled = new AtomicBoolean();
+        Uni<Integer> secondary = Uni.createFrom().<Integer>nothing()
+                .onCancellation().invoke(() -> secondaryCancelled.set(true));
+
+        UniAssertSubscriber<Tuple2<String, Integer>> subscriber = ReactiveUtils
+                .fanOut(Uni.createFrom().<String>emitter(primaryEmitter::set), secondary)
+                .subscribe().withSubscriber(UniAssertSubscriber.create());
+        primaryEmitter.get().fail(primaryFailure);
+
+        assertSame(primaryFailure, subscriber.awaitFailure().getFailure());
+        assertTrue(secondaryCancelled.get());
+    }
+
+    @Test
+    void fanOutSecondaryFailureWaitsForPrimary() {
+        IllegalStateException secondaryFailure = new IllegalStateException("secondary");
+
+        Throwable failure = ReactiveUtils.fanOut(Uni.createFrom().item("receipt"), Uni.createFrom().failure(secondaryFailure))
+                .subscribe().withSubscriber(UniAssertSubscriber.create()).awaitFailure().getFailure();
+
+        assertSame(secondaryFailure, failure);
+    }
+
+    @Test
+    void fanOutBothFailedReportsPrimary() {
+        IllegalStateException primaryFailure = new IllegalStateException("primary");
+        IllegalStateException secondaryFailure = new IllegalStateException("secondary");
+
+        Throwable failure = ReactiveUtils.fanOut(Uni.createFrom().failure(primaryFailure), Uni.createFrom().failure(secondaryFailure))
+                .subscribe().withSubscriber(UniAssertSubscriber.create()).awaitFailure().getFailure();
+
+        assertSame(primaryFailure, failure);
+    }
+}